@@ -20,8 +20,15 @@ package org.wso2.carbon.identity.cloud.user.feedback.mgt;
 
 import org.wso2.carbon.identity.cloud.user.feedback.mgt.exception.FeedbackManagementException;
 import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.Feedback;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.FeedbackEntryResult;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.FeedbackImportResult;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.FeedbackPage;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.SimilarFeedback;
 
+import java.io.InputStream;
+import java.io.Writer;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Feedback management service interface.
@@ -29,13 +36,25 @@ import java.util.List;
 public interface FeedbackManagementService {
 
     /**
-     * Create a feedback entry.
+     * Create a feedback entry. When asynchronous ingestion is enabled, the entry is written in the background and
+     * the returned entry only carries the generated UUID.
      *
      * @param userFeedback User feedback
      * @throws FeedbackManagementException
      */
     Feedback createFeedbackEntry(Feedback userFeedback) throws FeedbackManagementException;
 
+    /**
+     * Create a list of feedback entries. Entries which fail validation are reported in the result and are not
+     * created, while the valid entries are created together.
+     *
+     * @param userFeedbackList List of user feedback
+     * @return Result of each feedback entry, in the order of the given list
+     * @throws FeedbackManagementException
+     */
+    List<FeedbackEntryResult> createFeedbackEntries(List<Feedback> userFeedbackList)
+            throws FeedbackManagementException;
+
     /**
      * Retrieve list of user feedback according to the specified conditions.
      *
@@ -50,6 +69,52 @@ public interface FeedbackManagementService {
     List<Feedback> listFeedbackEntries(String filter, int limit, int offset, String sortBy, String sortOrder)
             throws FeedbackManagementException;
 
+    /**
+     * Retrieve list of user feedback of a tenant according to the specified conditions.
+     *
+     * @param tenantId  tenant ID
+     * @param filter    filter condition
+     * @param limit     max entries in list
+     * @param offset    entries to skip
+     * @param sortBy    how to sort the list
+     * @param sortOrder order of sorting (ASC/DESC)
+     * @return A list of user feedback entries of the tenant
+     * @throws FeedbackManagementException
+     */
+    List<Feedback> listFeedbackEntries(int tenantId, String filter, int limit, int offset, String sortBy,
+                                       String sortOrder) throws FeedbackManagementException;
+
+    /**
+     * Retrieve a page of user feedback according to the specified conditions using cursor based pagination. Instead
+     * of skipping a number of entries, the page starts right after the entry pointed to by the cursor.
+     *
+     * @param filter    filter condition
+     * @param limit     max entries in page
+     * @param cursor    cursor returned with the previous page, or null to retrieve the first page
+     * @param sortBy    how to sort the list
+     * @param sortOrder order of sorting (ASC/DESC)
+     * @return A page of user feedback entries with the cursor of the next page
+     * @throws FeedbackManagementException
+     */
+    FeedbackPage listFeedbackEntries(String filter, int limit, String cursor, String sortBy, String sortOrder)
+            throws FeedbackManagementException;
+
+    /**
+     * Retrieve a page of user feedback of a tenant according to the specified conditions using cursor based
+     * pagination.
+     *
+     * @param tenantId  tenant ID
+     * @param filter    filter condition
+     * @param limit     max entries in page
+     * @param cursor    cursor returned with the previous page, or null to retrieve the first page
+     * @param sortBy    how to sort the list
+     * @param sortOrder order of sorting (ASC/DESC)
+     * @return A page of user feedback entries of the tenant with the cursor of the next page
+     * @throws FeedbackManagementException
+     */
+    FeedbackPage listFeedbackEntries(int tenantId, String filter, int limit, String cursor, String sortBy,
+                                     String sortOrder) throws FeedbackManagementException;
+
     /**
      * Retrieve a feedback entry.
      *
@@ -59,6 +124,16 @@ public interface FeedbackManagementService {
      */
     Feedback getFeedbackEntry(String feedbackID) throws FeedbackManagementException;
 
+    /**
+     * Retrieve a feedback entry of a tenant.
+     *
+     * @param tenantId   tenant ID
+     * @param feedbackID Resource ID
+     * @return Feedback entry, or null if the entry does not exist in the tenant
+     * @throws FeedbackManagementException
+     */
+    Feedback getFeedbackEntry(int tenantId, String feedbackID) throws FeedbackManagementException;
+
     /**
      * Delete a feedback entry using the feedback ID.
      *
@@ -67,15 +142,102 @@ public interface FeedbackManagementService {
      */
     void deleteFeedbackEntry(String feedbackID) throws FeedbackManagementException;
 
+    /**
+     * Delete a feedback entry of a tenant using the feedback ID.
+     *
+     * @param tenantId   tenant ID
+     * @param feedbackID Resource ID
+     * @throws FeedbackManagementException
+     */
+    void deleteFeedbackEntry(int tenantId, String feedbackID) throws FeedbackManagementException;
+
     /**
      * Update a feedback entry. using the Feedback ID
+     * <p>
+     * If the given feedback has a version, the entry is updated only if it is still of that version, so that a
+     * concurrent change is not overwritten. Otherwise the update fails with a version conflict error.
      *
      * @param feedbackID    Resource ID
      * @param feedbackEntry Feedback object with updated details
+     * @return Updated feedback entry with its new version
      * @throws FeedbackManagementException
      */
     Feedback updateFeedbackEntry(String feedbackID, Feedback feedbackEntry) throws FeedbackManagementException;
 
+    /**
+     * Search the messages of the feedback entries for a query of words and "quoted phrases", in any letter case. The
+     * entries whose messages have all the words and phrases of the query are returned, ordered by their relevance to
+     * the query, which is higher for the entries that repeat the rarer words of the query.
+     *
+     * @param query search query, such as: login "takes too long"
+     * @param limit max entries in list
+     * @return A list of matching user feedback entries, the most relevant first
+     * @throws FeedbackManagementException
+     */
+    List<Feedback> searchFeedbackEntries(String query, int limit) throws FeedbackManagementException;
+
+    /**
+     * Search the messages of the feedback entries of a tenant for a query of words and "quoted phrases".
+     *
+     * @param tenantId tenant ID
+     * @param query    search query
+     * @param limit    max entries in list
+     * @return A list of matching user feedback entries of the tenant, the most relevant first
+     * @throws FeedbackManagementException
+     */
+    List<Feedback> searchFeedbackEntries(int tenantId, String query, int limit) throws FeedbackManagementException;
+
+    /**
+     * Rebuild the full-text index of the feedback messages, which is needed to search the entries written before the
+     * index was introduced. The index is rebuilt in chunks while feedback can still be written.
+     *
+     * @return Number of reindexed entries
+     * @throws FeedbackManagementException
+     */
+    int rebuildMessageIndex() throws FeedbackManagementException;
+
+    /**
+     * Rebuild the reversed emails and the n-gram index of the feedback emails, through which the "email ew" and
+     * "email co" filters are matched. This is needed to filter the entries written before the index was introduced.
+     *
+     * @return Number of reindexed entries
+     * @throws FeedbackManagementException
+     */
+    int rebuildEmailIndex() throws FeedbackManagementException;
+
+    /**
+     * Find the feedback entries whose messages are near-duplicates of the message of a feedback entry, in the tenant
+     * of the entry. The similarity of two messages is the Jaccard similarity of their pairs of consecutive words,
+     * estimated from the MinHash signatures of the messages, and the candidates are looked up through the locality
+     * sensitive hashing buckets of the signatures instead of comparing every entry.
+     *
+     * @param feedbackId Resource ID
+     * @param threshold  minimum estimated similarity, greater than 0 and at most 1, such as 0.8
+     * @return A list of similar user feedback entries with their similarity, the most similar first
+     * @throws FeedbackManagementException
+     */
+    List<SimilarFeedback> findSimilarFeedback(String feedbackId, double threshold) throws FeedbackManagementException;
+
+    /**
+     * Group the feedback entries of each tenant into clusters of near-duplicate messages. An entry joins a cluster if
+     * its message is similar to the message of an entry of the cluster, hence two entries of a cluster may be less
+     * similar than the threshold.
+     *
+     * @param threshold minimum estimated similarity of two linked entries, greater than 0 and at most 1
+     * @return Resource IDs of the entries of each cluster of two or more entries, the largest cluster first
+     * @throws FeedbackManagementException
+     */
+    List<List<String>> clusterSimilarFeedback(double threshold) throws FeedbackManagementException;
+
+    /**
+     * Rebuild the MinHash signatures of the feedback messages and their buckets, which is needed to find the entries
+     * written before the similarity index was introduced.
+     *
+     * @return Number of reindexed entries
+     * @throws FeedbackManagementException
+     */
+    int rebuildSimilarityIndex() throws FeedbackManagementException;
+
     /**
      * Get the count of Feedback entries that match the given condition.
      *
@@ -85,6 +247,108 @@ public interface FeedbackManagementService {
      */
     Integer getCountOfFeedbackResults(String filter) throws FeedbackManagementException;
 
+    /**
+     * Get the count of Feedback entries of a tenant that match the given condition.
+     *
+     * @param tenantId tenant ID
+     * @param filter   Condition to filter records
+     * @return Number of matching entries of the tenant
+     * @throws FeedbackManagementException
+     */
+    Integer getCountOfFeedbackResults(int tenantId, String filter) throws FeedbackManagementException;
+
+    /**
+     * Get the number of feedback entries with each tag. The counts are read from counters which are kept up to date
+     * as feedback is written, so that the feedback entries are not scanned.
+     *
+     * @return Map of the tag to the number of feedback entries with the tag, in the order of the tags
+     * @throws FeedbackManagementException
+     */
+    Map<String, Integer> countByTag() throws FeedbackManagementException;
+
+    /**
+     * Get the number of feedback entries of a tenant with each tag.
+     *
+     * @param tenantId tenant ID
+     * @return Map of the tag to the number of feedback entries of the tenant with the tag, in the order of the tags
+     * @throws FeedbackManagementException
+     */
+    Map<String, Integer> countByTag(int tenantId) throws FeedbackManagementException;
+
+    /**
+     * Get the number of feedback entries created on each day of a range of days. The days are the days of the
+     * database clock, and the days without feedback are left out.
+     *
+     * @param fromDay first day of the range, as yyyy-MM-dd
+     * @param toDay   last day of the range, as yyyy-MM-dd
+     * @return Map of the day, as yyyy-MM-dd, to the number of feedback entries created on that day, in the order of
+     * the days
+     * @throws FeedbackManagementException
+     */
+    Map<String, Integer> countByDay(String fromDay, String toDay) throws FeedbackManagementException;
+
+    /**
+     * Get the number of feedback entries of a tenant created on each day of a range of days.
+     *
+     * @param tenantId tenant ID
+     * @param fromDay  first day of the range, as yyyy-MM-dd
+     * @param toDay    last day of the range, as yyyy-MM-dd
+     * @return Map of the day, as yyyy-MM-dd, to the number of feedback entries of the tenant created on that day, in
+     * the order of the days
+     * @throws FeedbackManagementException
+     */
+    Map<String, Integer> countByDay(int tenantId, String fromDay, String toDay) throws FeedbackManagementException;
+
+    /**
+     * Get the number of feedback entries of each tenant.
+     *
+     * @return Map of the tenant ID to the number of feedback entries of the tenant
+     * @throws FeedbackManagementException
+     */
+    Map<Integer, Integer> countByTenant() throws FeedbackManagementException;
+
+    /**
+     * Export the feedback entries that match the given condition to a character stream, as JSON Lines or as CSV. The
+     * entries are streamed, so that an export of any size runs in constant memory. The stream is flushed but not
+     * closed.
+     *
+     * @param filter Condition to filter records
+     * @param format export format, jsonl or csv. JSON Lines is used if no format is given.
+     * @param writer stream the entries are written to
+     * @return Number of exported entries
+     * @throws FeedbackManagementException
+     */
+    int exportFeedbackEntries(String filter, String format, Writer writer) throws FeedbackManagementException;
+
+    /**
+     * Export the feedback entries of a tenant that match the given condition to a character stream.
+     *
+     * @param tenantId tenant ID
+     * @param filter   Condition to filter records
+     * @param format   export format, jsonl or csv. JSON Lines is used if no format is given.
+     * @param writer   stream the entries are written to
+     * @return Number of exported entries of the tenant
+     * @throws FeedbackManagementException
+     */
+    int exportFeedbackEntries(int tenantId, String filter, String format, Writer writer)
+            throws FeedbackManagementException;
+
+    /**
+     * Import feedback entries from a stream of JSON Lines, in the format written by the JSON Lines export. Each record
+     * is validated as a feedback submission, and the valid entries are written in batches. The offset of the stream
+     * up to which the import is written is recorded under the import ID, so that running the import again with the
+     * same stream resumes it after the last written batch. The stream is not closed.
+     *
+     * @param importId    ID of the import
+     * @param inputStream stream of JSON Lines encoded in UTF-8
+     * @param batchSize   number of entries written in a transaction. The default batch size is used if the given
+     *                    size is not greater than zero.
+     * @return Result of the import, with the records which were rejected
+     * @throws FeedbackManagementException
+     */
+    FeedbackImportResult importFeedbackEntries(String importId, InputStream inputStream, int batchSize)
+            throws FeedbackManagementException;
+
     /**
      * Get the count of Feedback entries that match the given condition.
      *
@@ -18,17 +18,47 @@
 
 package org.wso2.carbon.identity.cloud.user.feedback.mgt;
 
+import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants.ExportFormats;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.FeedbackCounterDAO;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.FeedbackEmailIndexDAO;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.FeedbackImportDAO;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.FeedbackMessageIndexDAO;
 import org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.FeedbackMgtDAO;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.FeedbackSimilarityDAO;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.impl.FeedbackCounterDAOImpl;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.impl.FeedbackEmailIndexDAOImpl;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.impl.FeedbackImportDAOImpl;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.impl.FeedbackMessageIndexDAOImpl;
 import org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.impl.FeedbackMgtDAOImpl;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.impl.FeedbackSimilarityDAOImpl;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.exception.FeedbackManagementClientException;
 import org.wso2.carbon.identity.cloud.user.feedback.mgt.exception.FeedbackManagementException;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.export.FeedbackExporter;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.ingestion.FeedbackImporter;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.ingestion.FeedbackIngestionQueue;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.internal.FeedbackManagementServiceDataHolder;
 import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.Feedback;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.FeedbackEntryResult;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.FeedbackImportResult;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.FeedbackPage;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.SimilarFeedback;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.search.MessageSignature;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.search.SimilarityClusterer;
 import org.wso2.carbon.identity.cloud.user.feedback.mgt.util.FeedbackExceptionManagementUtil;
 
+import java.io.InputStream;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
 
 /**
  * Feedback management service implementation.
@@ -38,6 +68,11 @@ public class FeedbackManagementServiceImpl implements FeedbackManagementService
     private static final Log log = LogFactory.getLog(FeedbackManagementServiceImpl.class);
     private static FeedbackManagementServiceImpl feedbackMgtService = new FeedbackManagementServiceImpl();
     private FeedbackMgtDAO feedbackMgtDAO = new FeedbackMgtDAOImpl();
+    private FeedbackImportDAO feedbackImportDAO = new FeedbackImportDAOImpl();
+    private FeedbackMessageIndexDAO feedbackMessageIndexDAO = new FeedbackMessageIndexDAOImpl();
+    private FeedbackEmailIndexDAO feedbackEmailIndexDAO = new FeedbackEmailIndexDAOImpl();
+    private FeedbackSimilarityDAO feedbackSimilarityDAO = new FeedbackSimilarityDAOImpl();
+    private FeedbackCounterDAO feedbackCounterDAO = new FeedbackCounterDAOImpl();
 
     /**
      * Private constructor which will not allow to create objects of this class from outside.
@@ -59,53 +94,194 @@ public class FeedbackManagementServiceImpl implements FeedbackManagementService
     @Override
     public Feedback createFeedbackEntry(Feedback userFeedback) throws FeedbackManagementException {
 
-        userFeedback.setUuid(UUID.randomUUID().toString());
+        userFeedback.setUuid(FeedbackManagementServiceDataHolder.getInstance().getFeedbackIdGenerator()
+                .generateId());
         validateInputParameters(userFeedback);
-        Feedback feedbackResult = feedbackMgtDAO.insertFeedbackEntry(userFeedback);
+        FeedbackIngestionQueue ingestionQueue = FeedbackManagementServiceDataHolder.getInstance()
+                .getFeedbackIngestionQueue();
+        if (ingestionQueue != null) {
+            ingestionQueue.submit(userFeedback);
+            if (log.isDebugEnabled()) {
+                log.debug("Feedback entry submitted to the ingestion queue. ID: " + userFeedback.getUuid());
+            }
+            return userFeedback;
+        }
+        Feedback feedbackResult = getFeedbackMgtDAO().insertFeedbackEntry(userFeedback);
         if (log.isDebugEnabled()) {
             log.debug("Feedback entry added successfully. ID: " + feedbackResult.getUuid());
         }
         return feedbackResult;
     }
 
+    @Override
+    public List<FeedbackEntryResult> createFeedbackEntries(List<Feedback> userFeedbackList)
+            throws FeedbackManagementException {
+
+        Map<Feedback, FeedbackEntryResult> invalidResults = new IdentityHashMap<>();
+        List<Feedback> validFeedbackList = new ArrayList<>(userFeedbackList.size());
+        for (Feedback userFeedback : userFeedbackList) {
+            if (StringUtils.isBlank(userFeedback.getUuid())) {
+                userFeedback.setUuid(FeedbackManagementServiceDataHolder.getInstance().getFeedbackIdGenerator()
+                        .generateId());
+            }
+            try {
+                validateInputParameters(userFeedback);
+                validFeedbackList.add(userFeedback);
+            } catch (FeedbackManagementClientException e) {
+                invalidResults.put(userFeedback, new FeedbackEntryResult(userFeedback, e.getErrorCode(),
+                        e.getMessage()));
+            }
+        }
+
+        Map<Feedback, FeedbackEntryResult> insertResults = insertFeedbackEntries(validFeedbackList);
+        List<FeedbackEntryResult> results = new ArrayList<>(userFeedbackList.size());
+        int addedCount = 0;
+        for (Feedback userFeedback : userFeedbackList) {
+            FeedbackEntryResult result = invalidResults.get(userFeedback);
+            if (result == null) {
+                result = insertResults.get(userFeedback);
+            }
+            if (result.isSuccessful()) {
+                addedCount++;
+            }
+            results.add(result);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug(addedCount + " out of " + userFeedbackList.size() + " feedback entries added successfully.");
+        }
+        return results;
+    }
+
+    /**
+     * Insert a list of validated feedback entries in a batch. If the batch cannot be inserted, the entries are
+     * inserted one by one, so that the result of each entry tells whether that entry was added.
+     *
+     * @param userFeedbackList validated feedback entries
+     * @return Map of each feedback entry to its result
+     */
+    private Map<Feedback, FeedbackEntryResult> insertFeedbackEntries(List<Feedback> userFeedbackList) {
+
+        Map<Feedback, FeedbackEntryResult> results = new IdentityHashMap<>();
+        if (userFeedbackList.isEmpty()) {
+            return results;
+        }
+        try {
+            getFeedbackMgtDAO().insertFeedbackEntries(userFeedbackList);
+            for (Feedback userFeedback : userFeedbackList) {
+                results.put(userFeedback, new FeedbackEntryResult(userFeedback));
+            }
+            return results;
+        } catch (FeedbackManagementException e) {
+            log.error("Error while adding a batch of " + userFeedbackList.size() + " feedback entries. Adding them " +
+                    "one by one.", e);
+        }
+        for (Feedback userFeedback : userFeedbackList) {
+            try {
+                getFeedbackMgtDAO().insertFeedbackEntry(userFeedback);
+                results.put(userFeedback, new FeedbackEntryResult(userFeedback));
+            } catch (FeedbackManagementException e) {
+                if (!(e instanceof FeedbackManagementClientException)) {
+                    log.error("Error while adding the feedback entry: " + userFeedback.getUuid(), e);
+                }
+                results.put(userFeedback, new FeedbackEntryResult(userFeedback, e.getErrorCode(), e.getMessage()));
+            }
+        }
+        return results;
+    }
+
     @Override
     public List<Feedback> listFeedbackEntries(String filter, int limit, int offset, String sortBy,
                                               String sortOrder) throws FeedbackManagementException {
 
         //FeedbackMgtDAO feedbackMgtDAO = new FeedbackMgtDAOImpl();
-        List<Feedback> feedbackResults = feedbackMgtDAO.listFeedbackEntries(filter, limit, offset, sortBy, sortOrder);
+        List<Feedback> feedbackResults = getFeedbackMgtDAO().listFeedbackEntries(filter, limit, offset, sortBy,
+                sortOrder);
         if (log.isDebugEnabled()) {
             log.debug("Feedback list retrieved successfully.");
         }
         return feedbackResults;
     }
 
+    @Override
+    public List<Feedback> listFeedbackEntries(int tenantId, String filter, int limit, int offset, String sortBy,
+                                              String sortOrder) throws FeedbackManagementException {
+
+        List<Feedback> feedbackResults = getFeedbackMgtDAO().listFeedbackEntries(tenantId, filter, limit, offset,
+                sortBy, sortOrder);
+        if (log.isDebugEnabled()) {
+            log.debug("Feedback list of the tenant: " + tenantId + " retrieved successfully.");
+        }
+        return feedbackResults;
+    }
+
+    @Override
+    public FeedbackPage listFeedbackEntries(String filter, int limit, String cursor, String sortBy,
+                                            String sortOrder) throws FeedbackManagementException {
+
+        FeedbackPage feedbackPage = getFeedbackMgtDAO().listFeedbackEntries(filter, limit, cursor, sortBy, sortOrder);
+        if (log.isDebugEnabled()) {
+            log.debug("Feedback page retrieved successfully.");
+        }
+        return feedbackPage;
+    }
+
+    @Override
+    public FeedbackPage listFeedbackEntries(int tenantId, String filter, int limit, String cursor, String sortBy,
+                                            String sortOrder) throws FeedbackManagementException {
+
+        FeedbackPage feedbackPage = getFeedbackMgtDAO().listFeedbackEntries(tenantId, filter, limit, cursor, sortBy,
+                sortOrder);
+        if (log.isDebugEnabled()) {
+            log.debug("Feedback page of the tenant: " + tenantId + " retrieved successfully.");
+        }
+        return feedbackPage;
+    }
+
     @Override
     public Feedback getFeedbackEntry(String feedbackID) throws FeedbackManagementException {
 
         //FeedbackMgtDAO feedbackMgtDAO = new FeedbackMgtDAOImpl();
-        Feedback feedbackResult = feedbackMgtDAO.getFeedbackEntry(feedbackID);
+        Feedback feedbackResult = getFeedbackMgtDAO().getFeedbackEntry(feedbackID);
         if (log.isDebugEnabled()) {
             log.debug("Feedback entry retrieved successfully. ID: " + feedbackResult.getUuid());
         }
         return feedbackResult;
     }
 
+    @Override
+    public Feedback getFeedbackEntry(int tenantId, String feedbackID) throws FeedbackManagementException {
+
+        Feedback feedbackResult = getFeedbackMgtDAO().getFeedbackEntry(tenantId, feedbackID);
+        if (log.isDebugEnabled()) {
+            log.debug("Feedback entry of the tenant: " + tenantId + " retrieved successfully. ID: " + feedbackID);
+        }
+        return feedbackResult;
+    }
+
     @Override
     public void deleteFeedbackEntry(String feedbackID) throws FeedbackManagementException {
 
         //FeedbackMgtDAO feedbackMgtDAO = new FeedbackMgtDAOImpl();
-        String deletedId = feedbackMgtDAO.deleteFeedbackEntry(feedbackID);
+        String deletedId = getFeedbackMgtDAO().deleteFeedbackEntry(feedbackID);
         if (log.isDebugEnabled()) {
             log.debug("Feedback entry deleted successfully. ID: " + deletedId);
         }
     }
 
+    @Override
+    public void deleteFeedbackEntry(int tenantId, String feedbackID) throws FeedbackManagementException {
+
+        String deletedId = getFeedbackMgtDAO().deleteFeedbackEntry(tenantId, feedbackID);
+        if (log.isDebugEnabled()) {
+            log.debug("Feedback entry of the tenant: " + tenantId + " deleted successfully. ID: " + deletedId);
+        }
+    }
+
     @Override
     public Feedback updateFeedbackEntry(String feedbackID, Feedback feedbackEntry) throws FeedbackManagementException {
 
         //FeedbackMgtDAO feedbackMgtDAO = new FeedbackMgtDAOImpl();
-        Feedback updatedFeedback = feedbackMgtDAO.updateFeedbackEntry(feedbackID, feedbackEntry);
+        Feedback updatedFeedback = getFeedbackMgtDAO().updateFeedbackEntry(feedbackID, feedbackEntry);
         if (log.isDebugEnabled()) {
             log.debug("Feedback entry updated successfully. ID: " + updatedFeedback.getUuid());
         }
@@ -115,31 +291,277 @@ public class FeedbackManagementServiceImpl implements FeedbackManagementService
     @Override
     public Integer getCountOfFeedbackResults(String filter) throws FeedbackManagementException {
 
-        Integer resultCount = feedbackMgtDAO.countListResults(filter);
+        Integer resultCount = getFeedbackMgtDAO().countListResults(filter);
         if (log.isDebugEnabled()) {
             log.debug("Feedback count for given filter : " + resultCount);
         }
         return resultCount;
     }
 
+    @Override
+    public Integer getCountOfFeedbackResults(int tenantId, String filter) throws FeedbackManagementException {
+
+        Integer resultCount = getFeedbackMgtDAO().countListResults(tenantId, filter);
+        if (log.isDebugEnabled()) {
+            log.debug("Feedback count of the tenant: " + tenantId + " for given filter : " + resultCount);
+        }
+        return resultCount;
+    }
+
+    @Override
+    public Map<String, Integer> countByTag() throws FeedbackManagementException {
+
+        requireDatabaseStorage("count by tag");
+        return feedbackCounterDAO.getCountsByTag(null);
+    }
+
+    @Override
+    public Map<String, Integer> countByTag(int tenantId) throws FeedbackManagementException {
+
+        requireDatabaseStorage("count by tag");
+        return feedbackCounterDAO.getCountsByTag(tenantId);
+    }
+
+    @Override
+    public Map<String, Integer> countByDay(String fromDay, String toDay) throws FeedbackManagementException {
+
+        return countByDay(null, fromDay, toDay);
+    }
+
+    @Override
+    public Map<String, Integer> countByDay(int tenantId, String fromDay, String toDay)
+            throws FeedbackManagementException {
+
+        return countByDay(Integer.valueOf(tenantId), fromDay, toDay);
+    }
+
+    @Override
+    public Map<Integer, Integer> countByTenant() throws FeedbackManagementException {
+
+        requireDatabaseStorage("count by tenant");
+        return feedbackCounterDAO.getCountsByTenant();
+    }
+
+    @Override
+    public int exportFeedbackEntries(String filter, String format, Writer writer)
+            throws FeedbackManagementException {
+
+        int exportedCount = getFeedbackMgtDAO().exportFeedbackEntries(filter,
+                FeedbackExporter.forFormat(validateExportFormat(format), writer));
+        if (log.isDebugEnabled()) {
+            log.debug("Exported " + exportedCount + " feedback entries.");
+        }
+        return exportedCount;
+    }
+
+    @Override
+    public int exportFeedbackEntries(int tenantId, String filter, String format, Writer writer)
+            throws FeedbackManagementException {
+
+        int exportedCount = getFeedbackMgtDAO().exportFeedbackEntries(tenantId, filter,
+                FeedbackExporter.forFormat(validateExportFormat(format), writer));
+        if (log.isDebugEnabled()) {
+            log.debug("Exported " + exportedCount + " feedback entries of the tenant: " + tenantId);
+        }
+        return exportedCount;
+    }
+
+    @Override
+    public FeedbackImportResult importFeedbackEntries(String importId, InputStream inputStream, int batchSize)
+            throws FeedbackManagementException {
+
+        requireDatabaseStorage("import");
+        if (StringUtils.isBlank(importId)) {
+            throw FeedbackExceptionManagementUtil.buildClientException(
+                    FeedbackMgtConstants.ErrorMessages.ERROR_CODE_IMPORT_ID_REQUIRED, importId);
+        }
+        FeedbackImporter feedbackImporter = new FeedbackImporter(feedbackImportDAO, this::validateInputParameters,
+                batchSize > 0 ? batchSize : FeedbackMgtConstants.DEFAULT_IMPORT_BATCH_SIZE);
+        FeedbackImportResult importResult = feedbackImporter.importEntries(importId, inputStream);
+        if (log.isDebugEnabled()) {
+            log.debug("Imported " + importResult.getImportedCount() + " feedback entries of the import: " + importId +
+                    " up to the offset: " + importResult.getOffset());
+        }
+        return importResult;
+    }
+
+    @Override
+    public List<Feedback> searchFeedbackEntries(String query, int limit) throws FeedbackManagementException {
+
+        List<Feedback> feedbackResults = getFeedbackMgtDAO().searchFeedbackEntries(query, limit);
+        if (log.isDebugEnabled()) {
+            log.debug("Found " + feedbackResults.size() + " feedback entries for the query: " + query);
+        }
+        return feedbackResults;
+    }
+
+    @Override
+    public List<Feedback> searchFeedbackEntries(int tenantId, String query, int limit)
+            throws FeedbackManagementException {
+
+        List<Feedback> feedbackResults = getFeedbackMgtDAO().searchFeedbackEntries(tenantId, query, limit);
+        if (log.isDebugEnabled()) {
+            log.debug("Found " + feedbackResults.size() + " feedback entries of the tenant: " + tenantId +
+                    " for the query: " + query);
+        }
+        return feedbackResults;
+    }
+
+    @Override
+    public int rebuildMessageIndex() throws FeedbackManagementException {
+
+        requireDatabaseStorage("rebuild message index");
+        int indexedCount = feedbackMessageIndexDAO.rebuildIndex(FeedbackMgtConstants.MESSAGE_INDEX_REBUILD_CHUNK_SIZE);
+        log.info("Rebuilt the message index of " + indexedCount + " feedback entries.");
+        return indexedCount;
+    }
+
+    @Override
+    public int rebuildEmailIndex() throws FeedbackManagementException {
+
+        requireDatabaseStorage("rebuild email index");
+        int indexedCount = feedbackEmailIndexDAO.rebuildIndex(FeedbackMgtConstants.EMAIL_INDEX_REBUILD_CHUNK_SIZE);
+        log.info("Rebuilt the email index of " + indexedCount + " feedback entries.");
+        return indexedCount;
+    }
+
+    @Override
+    public List<SimilarFeedback> findSimilarFeedback(String feedbackId, double threshold)
+            throws FeedbackManagementException {
+
+        List<SimilarFeedback> similarFeedbackList = getFeedbackMgtDAO().findSimilarFeedbackEntries(feedbackId,
+                threshold);
+        if (log.isDebugEnabled()) {
+            log.debug("Found " + similarFeedbackList.size() + " feedback entries similar to the feedback: " +
+                    feedbackId);
+        }
+        return similarFeedbackList;
+    }
+
+    @Override
+    public List<List<String>> clusterSimilarFeedback(double threshold) throws FeedbackManagementException {
+
+        requireDatabaseStorage("cluster similar feedback");
+        MessageSignature.validateThreshold(threshold);
+        List<List<String>> clusters = SimilarityClusterer.cluster(feedbackSimilarityDAO.listSignatures(), threshold);
+        if (log.isDebugEnabled()) {
+            log.debug("Found " + clusters.size() + " clusters of similar feedback entries.");
+        }
+        return clusters;
+    }
+
+    @Override
+    public int rebuildSimilarityIndex() throws FeedbackManagementException {
+
+        requireDatabaseStorage("rebuild similarity index");
+        int indexedCount =
+                feedbackSimilarityDAO.rebuildIndex(FeedbackMgtConstants.SIMILARITY_INDEX_REBUILD_CHUNK_SIZE);
+        log.info("Rebuilt the similarity index of " + indexedCount + " feedback entries.");
+        return indexedCount;
+    }
+
     @Override
     public boolean checkIfFeedbackExistsById(String feedbackId) throws FeedbackManagementException {
 
         boolean feedbackExists = false;
-        Integer retrievedFeedbackId = feedbackMgtDAO.checkIfFeedbackExists(feedbackId);
+        Integer retrievedFeedbackId = getFeedbackMgtDAO().checkIfFeedbackExists(feedbackId);
         if (retrievedFeedbackId != null) {
             feedbackExists = true;
         }
         return feedbackExists;
     }
 
+    /**
+     * Get the number of feedback entries created on each day of a range of days.
+     *
+     * @param tenantId tenant ID, or null to count the entries of all the tenants
+     * @param fromDay  first day of the range, as yyyy-MM-dd
+     * @param toDay    last day of the range, as yyyy-MM-dd
+     * @return Map of the day to the number of feedback entries created on that day, in the order of the days
+     * @throws FeedbackManagementException
+     */
+    private Map<String, Integer> countByDay(Integer tenantId, String fromDay, String toDay)
+            throws FeedbackManagementException {
+
+        requireDatabaseStorage("count by day");
+        LocalDate fromDayValidated;
+        LocalDate toDayValidated;
+        String dayRange = fromDay + " to " + toDay;
+        try {
+            fromDayValidated = LocalDate.parse(StringUtils.trimToEmpty(fromDay));
+            toDayValidated = LocalDate.parse(StringUtils.trimToEmpty(toDay));
+        } catch (DateTimeParseException e) {
+            throw FeedbackExceptionManagementUtil.buildClientException(
+                    FeedbackMgtConstants.ErrorMessages.ERROR_CODE_INVALID_DATE_RANGE, dayRange, e);
+        }
+        if (fromDayValidated.isAfter(toDayValidated)) {
+            throw FeedbackExceptionManagementUtil.buildClientException(
+                    FeedbackMgtConstants.ErrorMessages.ERROR_CODE_INVALID_DATE_RANGE, dayRange);
+        }
+
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (Map.Entry<LocalDate, Integer> count :
+                feedbackCounterDAO.getCountsByDay(tenantId, fromDayValidated, toDayValidated).entrySet()) {
+            counts.put(count.getKey().toString(), count.getValue());
+        }
+        return counts;
+    }
+
+    /**
+     * Validate the requested export format.
+     *
+     * @param format export format, or null for the default format
+     * @return Validated export format
+     * @throws FeedbackManagementClientException
+     */
+    private ExportFormats validateExportFormat(String format) throws FeedbackManagementClientException {
+
+        if (StringUtils.isBlank(format)) {
+            return ExportFormats.jsonl;
+        }
+        try {
+            return ExportFormats.valueOf(format.trim().toLowerCase());
+        } catch (IllegalArgumentException e) {
+            throw FeedbackExceptionManagementUtil.buildClientException(
+                    FeedbackMgtConstants.ErrorMessages.ERROR_CODE_UNSUPPORTED_EXPORT_FORMAT, format, e);
+        }
+    }
+
+    /**
+     * Get the DAO of the feedback entries, which is the DAO of the configured storage if a storage other than the
+     * database is configured.
+     *
+     * @return Feedback DAO
+     */
+    private FeedbackMgtDAO getFeedbackMgtDAO() {
+
+        FeedbackMgtDAO configuredDAO = FeedbackManagementServiceDataHolder.getInstance().getFeedbackMgtDAO();
+        return configuredDAO != null ? configuredDAO : feedbackMgtDAO;
+    }
+
+    /**
+     * Check that the feedback entries are stored in the database, for an operation which reads or writes the tables
+     * of the database directly rather than through the DAO of the configured storage. Such an operation would
+     * otherwise read or write entries unrelated to the stored entries.
+     *
+     * @param operation name of the operation
+     * @throws FeedbackManagementClientException
+     */
+    private void requireDatabaseStorage(String operation) throws FeedbackManagementClientException {
+
+        if (FeedbackManagementServiceDataHolder.getInstance().getFeedbackMgtDAO() != null) {
+            throw FeedbackExceptionManagementUtil.buildClientException(
+                    FeedbackMgtConstants.ErrorMessages.ERROR_CODE_UNSUPPORTED_BY_STORAGE, operation);
+        }
+    }
+
     /**
      * Validate whether message is available in the feedback object.
      *
      * @param feedback Feedback object
-     * @throws FeedbackManagementException
+     * @throws FeedbackManagementClientException
      */
-    private void validateInputParameters(Feedback feedback) throws FeedbackManagementException {
+    private void validateInputParameters(Feedback feedback) throws FeedbackManagementClientException {
 
         if (feedback.getMessage() == null || feedback.getMessage().isEmpty()) {
             if (log.isDebugEnabled()) {
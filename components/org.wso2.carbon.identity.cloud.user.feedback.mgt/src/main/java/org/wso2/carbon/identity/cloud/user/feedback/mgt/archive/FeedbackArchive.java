@@ -0,0 +1,881 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.archive;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants.ErrorMessages;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.exception.FeedbackManagementException;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.filter.FilterExpression;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.Feedback;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.FeedbackRetentionPolicy;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.search.MessageQuery;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.util.FeedbackExceptionManagementUtil;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+
+/**
+ * The cold storage tier of the feedback entries, which holds the entries moved out of the feedback table once they
+ * are old, in immutable segment files in a local directory. Each segment holds the entries of a range of IDs, and the
+ * segments follow each other in the order of the IDs, since the oldest entries are archived first. A segment is
+ * written to a temporary file which is moved in place once it is complete, so that a partly written segment is never
+ * read.
+ * <p>
+ * Segments are added and removed by the archive job, and an archived entry is updated, deleted or purged by rewriting
+ * its segment in the same way. These changes are serialized, while the entries are read from the segments without any
+ * locks.
+ */
+public class FeedbackArchive {
+
+    private final Path directory;
+    private volatile List<FeedbackArchiveSegment> segments;
+
+    /**
+     * Open the archive in a directory, which is created if it does not exist.
+     *
+     * @param directory directory of the segment files
+     * @throws FeedbackManagementException
+     */
+    public FeedbackArchive(Path directory) throws FeedbackManagementException {
+
+        this.directory = directory;
+        List<FeedbackArchiveSegment> openedSegments = new ArrayList<>();
+        try {
+            Files.createDirectories(directory);
+            try (DirectoryStream<Path> paths = Files.newDirectoryStream(directory,
+                    FeedbackMgtConstants.ARCHIVE_SEGMENT_FILE_PREFIX + "*")) {
+                for (Path path : paths) {
+                    String fileName = path.getFileName().toString();
+                    if (fileName.endsWith(FeedbackMgtConstants.ARCHIVE_TEMP_FILE_EXTENSION)) {
+                        // A segment which was not written completely is discarded.
+                        Files.delete(path);
+                    } else if (fileName.endsWith(FeedbackMgtConstants.ARCHIVE_SEGMENT_FILE_EXTENSION)) {
+                        openedSegments.add(FeedbackArchiveSegment.open(path));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw FeedbackExceptionManagementUtil.buildServerException(
+                    ErrorMessages.ERROR_CODE_OPEN_FEEDBACK_ARCHIVE, directory.toString(), e);
+        }
+        openedSegments.sort(Comparator.comparingInt(FeedbackArchiveSegment::getFromId));
+        segments = Collections.unmodifiableList(openedSegments);
+    }
+
+    public boolean isEmpty() {
+
+        return segments.isEmpty();
+    }
+
+    /**
+     * Get the last ID of the range of IDs of the archive.
+     *
+     * @return ID of the last archived entry, or zero if no entries have been archived
+     */
+    public int getLastArchivedId() {
+
+        List<FeedbackArchiveSegment> currentSegments = segments;
+        return currentSegments.isEmpty() ? 0 : currentSegments.get(currentSegments.size() - 1).getToId();
+    }
+
+    /**
+     * Get the segment of the most recently archived entries.
+     *
+     * @return the last segment, or null if no entries have been archived
+     */
+    public FeedbackArchiveSegment getLastSegment() {
+
+        List<FeedbackArchiveSegment> currentSegments = segments;
+        return currentSegments.isEmpty() ? null : currentSegments.get(currentSegments.size() - 1);
+    }
+
+    /**
+     * Add a segment with the entries of the range of IDs which follows the range of the archive.
+     *
+     * @param fromId  ID after which the range of IDs starts, which is the last archived ID
+     * @param toId    last ID of the range of IDs
+     * @param entries feedback entries of the range with their tags, in the order of their IDs
+     * @throws FeedbackManagementException
+     */
+    public synchronized void addSegment(int fromId, int toId, List<Feedback> entries)
+            throws FeedbackManagementException {
+
+        // Zero padded IDs keep the segment files in the order of their IDs.
+        Path path = directory.resolve(String.format("%s%010d%s", FeedbackMgtConstants.ARCHIVE_SEGMENT_FILE_PREFIX,
+                toId, FeedbackMgtConstants.ARCHIVE_SEGMENT_FILE_EXTENSION));
+        Path tempPath = directory.resolve(path.getFileName() + FeedbackMgtConstants.ARCHIVE_TEMP_FILE_EXTENSION);
+        try {
+            Files.deleteIfExists(tempPath);
+            FeedbackArchiveSegment.write(tempPath, fromId, toId, entries);
+            Files.move(tempPath, path, StandardCopyOption.ATOMIC_MOVE);
+            List<FeedbackArchiveSegment> newSegments = new ArrayList<>(segments);
+            newSegments.add(FeedbackArchiveSegment.open(path));
+            segments = Collections.unmodifiableList(newSegments);
+        } catch (IOException e) {
+            throw FeedbackExceptionManagementUtil.buildServerException(
+                    ErrorMessages.ERROR_CODE_WRITE_FEEDBACK_ARCHIVE, path.toString(), e);
+        }
+    }
+
+    /**
+     * Remove the last segment, whose entries have not been deleted from the feedback table.
+     *
+     * @throws FeedbackManagementException
+     */
+    public synchronized void removeLastSegment() throws FeedbackManagementException {
+
+        FeedbackArchiveSegment lastSegment = getLastSegment();
+        if (lastSegment == null) {
+            return;
+        }
+        segments = Collections.unmodifiableList(new ArrayList<>(segments.subList(0, segments.size() - 1)));
+        try {
+            Files.deleteIfExists(lastSegment.getPath());
+        } catch (IOException e) {
+            throw FeedbackExceptionManagementUtil.buildServerException(
+                    ErrorMessages.ERROR_CODE_WRITE_FEEDBACK_ARCHIVE, lastSegment.getPath().toString(), e);
+        }
+    }
+
+    /**
+     * Retrieve an archived feedback entry.
+     *
+     * @param tenantId   tenant ID, or null to retrieve the entry of any tenant
+     * @param feedbackID Resource ID
+     * @return Feedback entry, or null if the entry is not archived
+     * @throws FeedbackManagementException
+     */
+    public Feedback getEntry(Integer tenantId, String feedbackID) throws FeedbackManagementException {
+
+        Pair<FeedbackArchiveSegment, Feedback> archivedEntry = findEntry(tenantId, feedbackID);
+        return archivedEntry == null ? null : archivedEntry.getRight();
+    }
+
+    /**
+     * Update the message, the contact details and the tags of an archived feedback entry.
+     *
+     * @param feedbackID    Resource ID
+     * @param feedbackEntry new fields of the entry, with the version it was read at or null to update any version
+     * @return Updated feedback entry, or null if the entry is not archived
+     * @throws FeedbackManagementException
+     */
+    public synchronized Feedback updateEntry(String feedbackID, Feedback feedbackEntry)
+            throws FeedbackManagementException {
+
+        Pair<FeedbackArchiveSegment, Feedback> archivedEntry = findEntry(null, feedbackID);
+        if (archivedEntry == null) {
+            return null;
+        }
+        Feedback archivedFeedback = archivedEntry.getRight();
+        if (feedbackEntry.getVersion() != null && !feedbackEntry.getVersion().equals(archivedFeedback.getVersion())) {
+            throw FeedbackExceptionManagementUtil.buildClientException(
+                    ErrorMessages.ERROR_CODE_FEEDBACK_VERSION_CONFLICT, feedbackID);
+        }
+
+        List<Feedback> entries = readEntries(archivedEntry.getLeft());
+        for (Feedback feedback : entries) {
+            if (feedback.getId().equals(archivedFeedback.getId())) {
+                feedback.setMessage(feedbackEntry.getMessage());
+                feedback.setEmail(feedbackEntry.getEmail());
+                feedback.setContactNo(feedbackEntry.getContactNo());
+                feedback.setTags(feedbackEntry.getTags() == null ? new ArrayList<>() :
+                        new ArrayList<>(new LinkedHashSet<>(feedbackEntry.getTags())));
+                feedback.setVersion(feedback.getVersion() + 1);
+                archivedFeedback = feedback;
+            }
+        }
+        rewriteSegment(archivedEntry.getLeft(), entries);
+        return archivedFeedback;
+    }
+
+    /**
+     * Delete an archived feedback entry.
+     *
+     * @param tenantId   tenant ID, or null to delete the entry of any tenant
+     * @param feedbackID Resource ID
+     * @return Deleted feedback entry, or null if the entry is not archived
+     * @throws FeedbackManagementException
+     */
+    public synchronized Feedback deleteEntry(Integer tenantId, String feedbackID) throws FeedbackManagementException {
+
+        Pair<FeedbackArchiveSegment, Feedback> archivedEntry = findEntry(tenantId, feedbackID);
+        if (archivedEntry == null) {
+            return null;
+        }
+        List<Feedback> entries = readEntries(archivedEntry.getLeft());
+        entries.removeIf(feedback -> feedback.getId().equals(archivedEntry.getRight().getId()));
+        rewriteSegment(archivedEntry.getLeft(), entries);
+        return archivedEntry.getRight();
+    }
+
+    /**
+     * Purge the archived feedback entries of a retention policy which were created before a time. Only the segments
+     * with such entries are rewritten, and the segments whose blocks were all created after the time are not read.
+     *
+     * @param policy        retention policy
+     * @param createdBefore time before which the entries were created
+     * @return number of purged entries
+     * @throws FeedbackManagementException
+     */
+    public synchronized int purgeEntries(FeedbackRetentionPolicy policy, Timestamp createdBefore)
+            throws FeedbackManagementException {
+
+        int purgedCount = 0;
+        for (FeedbackArchiveSegment segment : segments) {
+            if (segment.getCountsByTenant().keySet().stream().noneMatch(policy::appliesTo) ||
+                    !hasBlockCreatedBefore(segment, createdBefore.getTime())) {
+                continue;
+            }
+            List<Feedback> entries = readEntries(segment);
+            int entryCount = entries.size();
+            entries.removeIf(feedback -> policy.appliesTo(feedback.getTenantId()) &&
+                    Timestamp.valueOf(feedback.getTimeCreated()).before(createdBefore));
+            if (entries.size() < entryCount) {
+                rewriteSegment(segment, entries);
+                purgedCount += entryCount - entries.size();
+            }
+        }
+        return purgedCount;
+    }
+
+    /**
+     * Retrieve the first archived feedback entries which match a filter, in the given order.
+     *
+     * @param tenantId   tenant ID, or null to list the entries of all the tenants
+     * @param filter     parsed filter, or null to list all the entries
+     * @param sortByTime whether the entries are sorted by their creation time rather than by their IDs
+     * @param descending whether the entries are sorted in the descending order
+     * @param count      max entries in list
+     * @return A list of the first matching entries in the given order
+     * @throws FeedbackManagementException
+     */
+    public List<Feedback> listEntries(Integer tenantId, FilterExpression filter, boolean sortByTime,
+                                      boolean descending, int count) throws FeedbackManagementException {
+
+        return listEntries(tenantId, filter, sortByTime, descending, null, count);
+    }
+
+    /**
+     * Retrieve the first archived feedback entries which match a filter and follow a position, in the given order.
+     *
+     * @param tenantId   tenant ID, or null to list the entries of all the tenants
+     * @param filter     parsed filter, or null to list all the entries
+     * @param sortByTime whether the entries are sorted by their creation time rather than by their IDs
+     * @param descending whether the entries are sorted in the descending order
+     * @param position   Pair of the ID and the creation time of the entry after which the entries are listed, or null
+     *                   to list the entries from the first one
+     * @param count      max entries in list
+     * @return A list of the first matching entries in the given order
+     * @throws FeedbackManagementException
+     */
+    public List<Feedback> listEntries(Integer tenantId, FilterExpression filter, boolean sortByTime,
+                                      boolean descending, Pair<Integer, Timestamp> position, int count)
+            throws FeedbackManagementException {
+
+        List<Feedback> entries = new ArrayList<>();
+        list(tenantId, filter, sortByTime, descending, position, 0, count, entries);
+        return entries;
+    }
+
+    /**
+     * Retrieve the archived feedback entries which match a filter in the given order, after skipping a number of them.
+     * The skipped entries are counted as they are read, without being held, and a whole segment is skipped by its
+     * counts when the entries are sorted by their IDs without a filter.
+     *
+     * @param tenantId   tenant ID, or null to list the entries of all the tenants
+     * @param filter     parsed filter, or null to list all the entries
+     * @param sortByTime whether the entries are sorted by their creation time rather than by their IDs
+     * @param descending whether the entries are sorted in the descending order
+     * @param offset     matching entries to skip
+     * @param count      max entries in list
+     * @param entries    list to which the matching entries are added
+     * @return Number of matching entries which were skipped, which is less than the offset only if there are fewer
+     * matching entries than the offset
+     * @throws FeedbackManagementException
+     */
+    public int listEntries(Integer tenantId, FilterExpression filter, boolean sortByTime, boolean descending,
+                           int offset, int count, List<Feedback> entries) throws FeedbackManagementException {
+
+        return list(tenantId, filter, sortByTime, descending, null, offset, count, entries);
+    }
+
+    /**
+     * Get the creation time of the latest archived feedback entry, according to the time index.
+     *
+     * @param tenantId tenant ID, or null for the entries of all the tenants
+     * @return Creation time in milliseconds, or null if there are no archived entries
+     */
+    public Long getLatestTimeCreated(Integer tenantId) {
+
+        Long latestTime = null;
+        for (FeedbackArchiveSegment segment : segments) {
+            if (tenantId != null && !segment.getCountsByTenant().containsKey(tenantId)) {
+                continue;
+            }
+            for (int block = 0; block < segment.getBlockCount(); block++) {
+                if (latestTime == null || segment.getBlockMaxTime(block) > latestTime) {
+                    latestTime = segment.getBlockMaxTime(block);
+                }
+            }
+        }
+        return latestTime;
+    }
+
+    /**
+     * Scan the archived feedback entries which match a filter in the ascending order of their IDs.
+     *
+     * @param tenantId tenant ID, or null to scan the entries of all the tenants
+     * @param filter   parsed filter, or null to scan all the entries
+     * @param visitor  visitor of the matching entries, which returns false to stop the scan
+     * @throws FeedbackManagementException
+     */
+    public void scanEntries(Integer tenantId, FilterExpression filter, Predicate<Feedback> visitor)
+            throws FeedbackManagementException {
+
+        scan(tenantId, filter, false, null, visitor);
+    }
+
+    /**
+     * Search the messages of the archived feedback entries for a query. The archived entries are not in the message
+     * index, so that their messages are scanned, and the matching entries are ranked by the number of occurrences of
+     * the terms of the query.
+     *
+     * @param tenantId tenant ID, or null to search the entries of all the tenants
+     * @param query    parsed search query
+     * @param count    max entries in list
+     * @return A list of matching entries in the order of their relevance to the query
+     * @throws FeedbackManagementException
+     */
+    public List<Feedback> searchEntries(Integer tenantId, MessageQuery query, int count)
+            throws FeedbackManagementException {
+
+        List<Feedback> entries = new ArrayList<>();
+        if (count <= 0) {
+            return entries;
+        }
+        Comparator<Pair<Feedback, Integer>> comparator =
+                Comparator.comparing((Pair<Feedback, Integer> match) -> match.getRight()).reversed()
+                        .thenComparing(match -> match.getLeft().getId());
+        PriorityQueue<Pair<Feedback, Integer>> firstMatches = new PriorityQueue<>(comparator.reversed());
+        scan(tenantId, null, false, null, feedback -> {
+            int occurrenceCount = query.countOccurrences(feedback.getMessage());
+            if (occurrenceCount > 0) {
+                firstMatches.add(Pair.of(feedback, occurrenceCount));
+                if (firstMatches.size() > count) {
+                    firstMatches.poll();
+                }
+            }
+            return true;
+        });
+        List<Pair<Feedback, Integer>> matches = new ArrayList<>(firstMatches);
+        matches.sort(comparator);
+        for (Pair<Feedback, Integer> match : matches) {
+            entries.add(match.getLeft());
+        }
+        return entries;
+    }
+
+    /**
+     * Count the archived feedback entries which match a filter.
+     *
+     * @param tenantId tenant ID, or null to count the entries of all the tenants
+     * @param filter   parsed filter, or null to count all the entries
+     * @return Number of matching entries
+     * @throws FeedbackManagementException
+     */
+    public int countEntries(Integer tenantId, FilterExpression filter) throws FeedbackManagementException {
+
+        if (filter == null) {
+            return getCount(tenantId, null);
+        }
+        int[] count = new int[1];
+        scan(tenantId, filter, false, null, feedback -> {
+            count[0]++;
+            return true;
+        });
+        return count[0];
+    }
+
+    /**
+     * Get the number of archived feedback entries with a tag from the counts of the segments.
+     *
+     * @param tenantId tenant ID, or null to count the entries of all the tenants
+     * @param tag      tag, or null to count all the entries
+     * @return Number of archived entries
+     */
+    public int getCount(Integer tenantId, String tag) {
+
+        int count = 0;
+        for (FeedbackArchiveSegment segment : segments) {
+            for (Map.Entry<Integer, Integer> tenantCount : segment.getCountsByTenant().entrySet()) {
+                if (tenantId == null || tenantId.equals(tenantCount.getKey())) {
+                    count += tag == null ? tenantCount.getValue() :
+                            segment.getCountsByTag(tenantCount.getKey()).getOrDefault(tag, 0);
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Get the number of archived feedback entries by tag.
+     *
+     * @param tenantId tenant ID, or null to count the entries of all the tenants
+     * @return Map of tag to the number of archived entries with the tag
+     */
+    public Map<String, Integer> getCountsByTag(Integer tenantId) {
+
+        Map<String, Integer> counts = new TreeMap<>();
+        for (FeedbackArchiveSegment segment : segments) {
+            for (Integer segmentTenantId : segment.getCountsByTenant().keySet()) {
+                if (tenantId == null || tenantId.equals(segmentTenantId)) {
+                    segment.getCountsByTag(segmentTenantId).forEach((tag, count) ->
+                            counts.merge(tag, count, Integer::sum));
+                }
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Get the number of archived feedback entries by tenant.
+     *
+     * @return Map of tenant ID to the number of archived entries of the tenant
+     */
+    public Map<Integer, Integer> getCountsByTenant() {
+
+        Map<Integer, Integer> counts = new TreeMap<>();
+        for (FeedbackArchiveSegment segment : segments) {
+            segment.getCountsByTenant().forEach((tenantId, count) -> counts.merge(tenantId, count, Integer::sum));
+        }
+        return counts;
+    }
+
+    /**
+     * Get the number of archived feedback entries by the day of their creation, over a range of days.
+     *
+     * @param tenantId tenant ID, or null to count the entries of all the tenants
+     * @param fromDay  first day of the range
+     * @param toDay    last day of the range
+     * @return Map of day to the number of archived entries created on the day
+     */
+    public Map<LocalDate, Integer> getCountsByDay(Integer tenantId, LocalDate fromDay, LocalDate toDay) {
+
+        Map<LocalDate, Integer> counts = new TreeMap<>();
+        for (FeedbackArchiveSegment segment : segments) {
+            for (Integer segmentTenantId : segment.getCountsByTenant().keySet()) {
+                if (tenantId != null && !tenantId.equals(segmentTenantId)) {
+                    continue;
+                }
+                segment.getCountsByDay(segmentTenantId).forEach((day, count) -> {
+                    if (!day.isBefore(fromDay) && !day.isAfter(toDay)) {
+                        counts.merge(day, count, Integer::sum);
+                    }
+                });
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Get the order in which the feedback entries are listed, which is the order of their IDs or of their creation
+     * times. The entries created at the same time are listed in the order of their IDs.
+     *
+     * @param sortByTime whether the entries are sorted by their creation time rather than by their IDs
+     * @param descending whether the entries are sorted in the descending order
+     * @return Comparator of the feedback entries
+     */
+    public static Comparator<Feedback> getComparator(boolean sortByTime, boolean descending) {
+
+        Comparator<Feedback> comparator = Comparator.comparing(Feedback::getId);
+        if (sortByTime) {
+            comparator = Comparator.comparing((Feedback feedback) -> Timestamp.valueOf(feedback.getTimeCreated()))
+                    .thenComparing(comparator);
+        }
+        return descending ? comparator.reversed() : comparator;
+    }
+
+    /**
+     * List the archived feedback entries which match a filter and follow a position in the given order, after skipping
+     * a number of them.
+     * <p>
+     * The entries sorted by their creation time are read from the blocks in the order of their ranges of times. An
+     * entry read from the blocks is in its final place once the next block starts after it, so that only the entries
+     * of the blocks whose ranges of times overlap are held, and the read stops once the list is full.
+     *
+     * @param tenantId   tenant ID, or null to list the entries of all the tenants
+     * @param filter     parsed filter, or null to list all the entries
+     * @param sortByTime whether the entries are sorted by their creation time rather than by their IDs
+     * @param descending whether the entries are sorted in the descending order
+     * @param position   Pair of the ID and the creation time of the entry after which the entries are listed, or null
+     *                   to list the entries from the first one
+     * @param offset     matching entries to skip
+     * @param count      max entries in list
+     * @param entries    list to which the matching entries are added
+     * @return Number of matching entries which were skipped
+     * @throws FeedbackManagementException
+     */
+    private int list(Integer tenantId, FilterExpression filter, boolean sortByTime, boolean descending,
+                     Pair<Integer, Timestamp> position, int offset, int count, List<Feedback> entries)
+            throws FeedbackManagementException {
+
+        if (count <= 0) {
+            return 0;
+        }
+        int[] skippedCount = new int[1];
+        if (!sortByTime) {
+            Pair<Integer, Timestamp> startPosition = position;
+            if (position == null && filter == null) {
+                // The segments whose entries are all skipped are skipped by their counts.
+                List<FeedbackArchiveSegment> currentSegments = segments;
+                for (int i = 0; i < currentSegments.size(); i++) {
+                    FeedbackArchiveSegment segment =
+                            currentSegments.get(descending ? currentSegments.size() - 1 - i : i);
+                    int segmentCount = 0;
+                    for (Map.Entry<Integer, Integer> tenantCount : segment.getCountsByTenant().entrySet()) {
+                        if (tenantId == null || tenantId.equals(tenantCount.getKey())) {
+                            segmentCount += tenantCount.getValue();
+                        }
+                    }
+                    if (skippedCount[0] + segmentCount > offset) {
+                        break;
+                    }
+                    skippedCount[0] += segmentCount;
+                    startPosition = Pair.of(descending ? segment.getFromId() + 1 : segment.getToId(), null);
+                }
+            }
+            // The entries are scanned in the order of their IDs, so that the scan stops at the last listed entry.
+            Pair<Integer, Timestamp> scanPosition = startPosition;
+            scan(tenantId, filter, descending, scanPosition == null ? null : scanPosition.getLeft(), feedback -> {
+                if (scanPosition == null || follows(feedback, scanPosition, false, descending)) {
+                    take(feedback, offset, skippedCount, entries);
+                }
+                return entries.size() < count;
+            });
+            return skippedCount[0];
+        }
+
+        long[] timeRange = getTimeRange(filter);
+        if (position != null) {
+            if (descending) {
+                timeRange[1] = Math.min(timeRange[1], position.getRight().getTime());
+            } else {
+                timeRange[0] = Math.max(timeRange[0], position.getRight().getTime());
+            }
+        }
+        List<Pair<FeedbackArchiveSegment, Integer>> blocks = new ArrayList<>();
+        for (FeedbackArchiveSegment segment : segments) {
+            if (tenantId != null && !segment.getCountsByTenant().containsKey(tenantId)) {
+                continue;
+            }
+            for (int block = 0; block < segment.getBlockCount(); block++) {
+                if (segment.overlaps(block, timeRange[0], timeRange[1])) {
+                    blocks.add(Pair.of(segment, block));
+                }
+            }
+        }
+        blocks.sort(descending ?
+                Comparator.comparingLong((Pair<FeedbackArchiveSegment, Integer> block) ->
+                        -block.getLeft().getBlockMaxTime(block.getRight())) :
+                Comparator.comparingLong((Pair<FeedbackArchiveSegment, Integer> block) ->
+                        block.getLeft().getBlockMinTime(block.getRight())));
+
+        // The pending entries are ordered, and only as many of them as may still be skipped or listed are held.
+        TreeSet<Feedback> pendingEntries = new TreeSet<>(getComparator(true, descending));
+        for (Pair<FeedbackArchiveSegment, Integer> block : blocks) {
+            long blockStartTime = descending ? block.getLeft().getBlockMaxTime(block.getRight()) :
+                    block.getLeft().getBlockMinTime(block.getRight());
+            while (!pendingEntries.isEmpty() && precedes(pendingEntries.first(), blockStartTime, descending)) {
+                take(pendingEntries.pollFirst(), offset, skippedCount, entries);
+                if (entries.size() == count) {
+                    return skippedCount[0];
+                }
+            }
+            long pendingCapacity = (long) offset - skippedCount[0] + count - entries.size();
+            if (pendingEntries.size() == pendingCapacity &&
+                    precedes(pendingEntries.last(), blockStartTime, descending)) {
+                // The entries of the remaining blocks all come after the held entries, so that none of them is
+                // listed.
+                break;
+            }
+            for (Feedback feedback : readBlock(block.getLeft(), block.getRight())) {
+                if ((tenantId == null || tenantId == feedback.getTenantId()) &&
+                        (filter == null || filter.matches(feedback)) &&
+                        (position == null || follows(feedback, position, true, descending))) {
+                    pendingEntries.add(feedback);
+                    if (pendingEntries.size() > pendingCapacity) {
+                        pendingEntries.pollLast();
+                    }
+                }
+            }
+        }
+        while (!pendingEntries.isEmpty() && entries.size() < count) {
+            take(pendingEntries.pollFirst(), offset, skippedCount, entries);
+        }
+        return skippedCount[0];
+    }
+
+    /**
+     * Skip an entry which is in its final place in a listing, until the offset is reached, or add it to the list.
+     *
+     * @param feedback     feedback entry
+     * @param offset       entries to skip
+     * @param skippedCount number of the entries skipped so far, which is incremented if the entry is skipped
+     * @param entries      list to which the entry is added if it is not skipped
+     */
+    private static void take(Feedback feedback, int offset, int[] skippedCount, List<Feedback> entries) {
+
+        if (skippedCount[0] < offset) {
+            skippedCount[0]++;
+        } else {
+            entries.add(feedback);
+        }
+    }
+
+    /**
+     * Check whether an entry comes before all the entries created at or after a time, or at or before it in the
+     * descending order. The creation time of the entry is compared in milliseconds, like the time index.
+     *
+     * @param feedback   feedback entry
+     * @param time       time in milliseconds
+     * @param descending whether the entries are sorted in the descending order
+     * @return true if the entry comes before any entry created at the time
+     */
+    private static boolean precedes(Feedback feedback, long time, boolean descending) {
+
+        long timeCreated = Timestamp.valueOf(feedback.getTimeCreated()).getTime();
+        return descending ? timeCreated > time : timeCreated < time;
+    }
+
+    /**
+     * Scan the archived feedback entries which match a filter in the order of their IDs. The blocks of entries which
+     * were created out of the range of times of the filter are skipped.
+     *
+     * @param tenantId   tenant ID, or null to scan the entries of all the tenants
+     * @param filter     parsed filter, or null to scan all the entries
+     * @param descending whether the entries are scanned in the descending order of their IDs
+     * @param afterId    ID after which the scan starts in its order, or null to scan from the first entry
+     * @param visitor    visitor of the matching entries, which returns false to stop the scan
+     * @throws FeedbackManagementException
+     */
+    private void scan(Integer tenantId, FilterExpression filter, boolean descending, Integer afterId,
+                      Predicate<Feedback> visitor) throws FeedbackManagementException {
+
+        long[] timeRange = getTimeRange(filter);
+        List<FeedbackArchiveSegment> currentSegments = segments;
+        for (int i = 0; i < currentSegments.size(); i++) {
+            FeedbackArchiveSegment segment = currentSegments.get(descending ? currentSegments.size() - 1 - i : i);
+            if (tenantId != null && !segment.getCountsByTenant().containsKey(tenantId)) {
+                continue;
+            }
+            // A segment holds the IDs after its from ID up to its to ID.
+            if (afterId != null && (descending ? segment.getFromId() + 1 >= afterId : segment.getToId() <= afterId)) {
+                continue;
+            }
+            int blockCount = segment.getBlockCount();
+            for (int j = 0; j < blockCount; j++) {
+                int block = descending ? blockCount - 1 - j : j;
+                if (!segment.overlaps(block, timeRange[0], timeRange[1])) {
+                    continue;
+                }
+                List<Feedback> blockEntries = readBlock(segment, block);
+                if (descending) {
+                    Collections.reverse(blockEntries);
+                }
+                for (Feedback feedback : blockEntries) {
+                    if ((tenantId == null || tenantId == feedback.getTenantId()) &&
+                            (filter == null || filter.matches(feedback)) && !visitor.test(feedback)) {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the range of creation times of the entries which may match a filter.
+     *
+     * @param filter parsed filter, or null for all the entries
+     * @return Array of the earliest and the latest creation times in milliseconds
+     */
+    private long[] getTimeRange(FilterExpression filter) {
+
+        long[] timeRange = {Long.MIN_VALUE, Long.MAX_VALUE};
+        if (filter != null) {
+            Pair<Timestamp, Timestamp> timeCreatedRange = filter.getTimeCreatedRange();
+            if (timeCreatedRange.getLeft() != null) {
+                timeRange[0] = timeCreatedRange.getLeft().getTime();
+            }
+            if (timeCreatedRange.getRight() != null) {
+                timeRange[1] = timeCreatedRange.getRight().getTime();
+            }
+        }
+        return timeRange;
+    }
+
+    /**
+     * Check whether an entry follows a position in the given order.
+     *
+     * @param feedback   feedback entry
+     * @param position   Pair of the ID and the creation time of the entry at the position
+     * @param sortByTime whether the entries are sorted by their creation time rather than by their IDs
+     * @param descending whether the entries are sorted in the descending order
+     * @return true if the entry comes after the position
+     */
+    private static boolean follows(Feedback feedback, Pair<Integer, Timestamp> position, boolean sortByTime,
+                                   boolean descending) {
+
+        int comparison = sortByTime ? Timestamp.valueOf(feedback.getTimeCreated()).compareTo(position.getRight()) : 0;
+        if (comparison == 0) {
+            comparison = feedback.getId().compareTo(position.getLeft());
+        }
+        return descending ? comparison < 0 : comparison > 0;
+    }
+
+    /**
+     * Check whether any block of a segment has entries created before a time, according to the time index.
+     *
+     * @param segment archive segment
+     * @param time    time in milliseconds
+     * @return true if a block may have entries created before the time
+     */
+    private boolean hasBlockCreatedBefore(FeedbackArchiveSegment segment, long time) {
+
+        for (int block = 0; block < segment.getBlockCount(); block++) {
+            if (segment.getBlockMinTime(block) < time) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Find the segment of an archived feedback entry.
+     *
+     * @param tenantId   tenant ID, or null to find the entry of any tenant
+     * @param feedbackID Resource ID
+     * @return Pair of the segment and the entry, or null if the entry is not archived
+     * @throws FeedbackManagementException
+     */
+    private Pair<FeedbackArchiveSegment, Feedback> findEntry(Integer tenantId, String feedbackID)
+            throws FeedbackManagementException {
+
+        for (FeedbackArchiveSegment segment : segments) {
+            if (tenantId != null && !segment.getCountsByTenant().containsKey(tenantId)) {
+                continue;
+            }
+            Feedback feedback;
+            try {
+                feedback = segment.getEntry(feedbackID);
+            } catch (IOException e) {
+                throw FeedbackExceptionManagementUtil.buildServerException(
+                        ErrorMessages.ERROR_CODE_READ_FEEDBACK_ARCHIVE, segment.getPath().toString(), e);
+            }
+            if (feedback != null) {
+                return tenantId == null || tenantId == feedback.getTenantId() ? Pair.of(segment, feedback) : null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Read the entries of a block of a segment.
+     *
+     * @param segment archive segment
+     * @param block   position of the block in the segment
+     * @return Feedback entries of the block in the order of their IDs
+     * @throws FeedbackManagementException
+     */
+    private List<Feedback> readBlock(FeedbackArchiveSegment segment, int block) throws FeedbackManagementException {
+
+        try {
+            return segment.readBlock(block);
+        } catch (IOException e) {
+            throw FeedbackExceptionManagementUtil.buildServerException(
+                    ErrorMessages.ERROR_CODE_READ_FEEDBACK_ARCHIVE, segment.getPath().toString(), e);
+        }
+    }
+
+    /**
+     * Read all the entries of a segment.
+     *
+     * @param segment archive segment
+     * @return Feedback entries of the segment in the order of their IDs
+     * @throws FeedbackManagementException
+     */
+    private List<Feedback> readEntries(FeedbackArchiveSegment segment) throws FeedbackManagementException {
+
+        List<Feedback> entries = new ArrayList<>(segment.getEntryCount());
+        for (int block = 0; block < segment.getBlockCount(); block++) {
+            entries.addAll(readBlock(segment, block));
+        }
+        return entries;
+    }
+
+    /**
+     * Replace a segment with a segment of the same range of IDs which holds the given entries. A segment left without
+     * entries is removed, unless it is the last segment, whose range of IDs is where the archive job resumes.
+     *
+     * @param segment archive segment
+     * @param entries remaining feedback entries of the segment, in the order of their IDs
+     * @throws FeedbackManagementException
+     */
+    private void rewriteSegment(FeedbackArchiveSegment segment, List<Feedback> entries)
+            throws FeedbackManagementException {
+
+        Path path = segment.getPath();
+        Path tempPath = directory.resolve(path.getFileName() + FeedbackMgtConstants.ARCHIVE_TEMP_FILE_EXTENSION);
+        List<FeedbackArchiveSegment> newSegments = new ArrayList<>(segments);
+        int index = newSegments.indexOf(segment);
+        try {
+            if (entries.isEmpty() && index < newSegments.size() - 1) {
+                newSegments.remove(index);
+                segments = Collections.unmodifiableList(newSegments);
+                Files.deleteIfExists(path);
+                return;
+            }
+            // The readers of the replaced segment keep reading its mapping, which stays valid once the file is
+            // replaced.
+            Files.deleteIfExists(tempPath);
+            FeedbackArchiveSegment.write(tempPath, segment.getFromId(), segment.getToId(), entries);
+            Files.move(tempPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            newSegments.set(index, FeedbackArchiveSegment.open(path));
+            segments = Collections.unmodifiableList(newSegments);
+        } catch (IOException e) {
+            throw FeedbackExceptionManagementUtil.buildServerException(
+                    ErrorMessages.ERROR_CODE_WRITE_FEEDBACK_ARCHIVE, path.toString(), e);
+        }
+    }
+}
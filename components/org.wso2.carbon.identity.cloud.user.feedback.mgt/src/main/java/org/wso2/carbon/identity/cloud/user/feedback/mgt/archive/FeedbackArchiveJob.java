@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.archive;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.FeedbackArchiveDAO;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.exception.FeedbackManagementException;
+
+import java.sql.Timestamp;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Job which moves the old feedback entries out of the feedback table into the {@link FeedbackArchive}. Each run
+ * archives the entries chunk by chunk, a segment for each chunk, until no entries older than the maximum age are left
+ * in the feedback table.
+ */
+public class FeedbackArchiveJob implements Runnable {
+
+    private static final Log log = LogFactory.getLog(FeedbackArchiveJob.class);
+    private final FeedbackArchiveDAO archiveDAO;
+    private final FeedbackArchive archive;
+    private final int maxAge;
+    private final int chunkSize;
+    private volatile boolean stopped;
+
+    /**
+     * Create an archive job.
+     *
+     * @param archiveDAO DAO used to archive the feedback entries
+     * @param archive    archive the entries are moved to
+     * @param maxAge     maximum age in days of the entries kept in the feedback table
+     * @param chunkSize  maximum number of entries archived in a single segment
+     */
+    public FeedbackArchiveJob(FeedbackArchiveDAO archiveDAO, FeedbackArchive archive, int maxAge, int chunkSize) {
+
+        this.archiveDAO = archiveDAO;
+        this.archive = archive;
+        this.maxAge = maxAge;
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public void run() {
+
+        try {
+            int archivedCount = archive();
+            if (archivedCount > 0) {
+                log.info("Archived " + archivedCount + " feedback entries older than " + maxAge + " days.");
+            }
+        } catch (FeedbackManagementException | RuntimeException e) {
+            // The exception is not propagated, since it would cancel the subsequent runs of the job.
+            log.error("Error while archiving the feedback entries older than " + maxAge + " days.", e);
+        }
+    }
+
+    /**
+     * Archive the feedback entries which are older than the maximum age.
+     *
+     * @return number of archived entries
+     * @throws FeedbackManagementException
+     */
+    public int archive() throws FeedbackManagementException {
+
+        Timestamp createdBefore = new Timestamp(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(maxAge));
+        int archivedCount = 0;
+        int chunkCount;
+        while (!stopped && (chunkCount = archiveDAO.archiveChunk(archive, createdBefore, chunkSize)) > 0) {
+            archivedCount += chunkCount;
+        }
+        return archivedCount;
+    }
+
+    /**
+     * Stop the job after the chunk which is being archived.
+     */
+    public void stop() {
+
+        stopped = true;
+    }
+}
@@ -0,0 +1,578 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.archive;
+
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.Feedback;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * An immutable segment file of the feedback archive, which holds the feedback entries of a range of IDs in the order
+ * of their IDs. The entries are compressed in blocks which are inflated on their own, and the file is memory-mapped,
+ * so that only the header, the sparse indexes and the counts of the segment are held in memory:
+ * <ul>
+ * <li>The time index holds the range of the creation times of each block, so that the blocks out of the range of
+ * times of a scan are skipped without being inflated.</li>
+ * <li>The UUID index holds every n-th entry of the UUID directory of the file, which lists the resource IDs of the
+ * entries in order together with their blocks, so that an entry is found by reading a few directory entries.</li>
+ * </ul>
+ * The counts of the entries of the segment by tenant, tag and day of creation are kept with the segment. A segment
+ * file is laid out as:
+ * <pre>
+ * header | blocks | time index | UUID directory | UUID index | counts
+ * </pre>
+ */
+public class FeedbackArchiveSegment {
+
+    // The header holds the magic number, the format version, the range of IDs, the numbers of entries and blocks, and
+    // the offsets of the sections which follow the blocks together with the number of entries of the UUID index.
+    private static final int HEADER_SIZE = 44;
+    private static final int NULL_LENGTH = -1;
+
+    private final Path path;
+    private final ByteBuffer buffer;
+    private final int fromId;
+    private final int toId;
+    private final int entryCount;
+    private final int[] blockOffsets;
+    private final int[] blockCompressedLengths;
+    private final int[] blockLengths;
+    private final long[] blockMinTimes;
+    private final long[] blockMaxTimes;
+    private final int directoryEnd;
+    private final String[] indexedUuids;
+    private final int[] indexedDirectoryOffsets;
+    private final Map<Integer, Integer> countsByTenant = new HashMap<>();
+    private final Map<Integer, Map<String, Integer>> countsByTenantAndTag = new HashMap<>();
+    private final Map<Integer, Map<LocalDate, Integer>> countsByTenantAndDay = new HashMap<>();
+
+    private FeedbackArchiveSegment(Path path, ByteBuffer buffer) throws IOException {
+
+        this.path = path;
+        this.buffer = buffer;
+        try {
+            ByteBuffer header = buffer.duplicate();
+            if (header.getInt() != FeedbackMgtConstants.ARCHIVE_SEGMENT_MAGIC ||
+                    header.getInt() != FeedbackMgtConstants.ARCHIVE_SEGMENT_FORMAT_VERSION) {
+                throw new IOException("The file: " + path + " is not a feedback archive segment of a supported " +
+                        "format.");
+            }
+            fromId = header.getInt();
+            toId = header.getInt();
+            entryCount = header.getInt();
+            int blockCount = header.getInt();
+            int timeIndexOffset = header.getInt();
+            int directoryOffset = header.getInt();
+            directoryEnd = header.getInt();
+            int uuidIndexSize = header.getInt();
+            int countsOffset = header.getInt();
+
+            ByteBuffer timeIndex = buffer.duplicate();
+            timeIndex.position(timeIndexOffset);
+            blockOffsets = new int[blockCount];
+            blockCompressedLengths = new int[blockCount];
+            blockLengths = new int[blockCount];
+            blockMinTimes = new long[blockCount];
+            blockMaxTimes = new long[blockCount];
+            for (int i = 0; i < blockCount; i++) {
+                blockOffsets[i] = timeIndex.getInt();
+                blockCompressedLengths[i] = timeIndex.getInt();
+                blockLengths[i] = timeIndex.getInt();
+                blockMinTimes[i] = timeIndex.getLong();
+                blockMaxTimes[i] = timeIndex.getLong();
+            }
+
+            ByteBuffer uuidIndex = buffer.duplicate();
+            uuidIndex.position(directoryEnd);
+            indexedUuids = new String[uuidIndexSize];
+            indexedDirectoryOffsets = new int[uuidIndexSize];
+            for (int i = 0; i < uuidIndexSize; i++) {
+                indexedUuids[i] = readString(uuidIndex);
+                indexedDirectoryOffsets[i] = uuidIndex.getInt();
+            }
+            if (uuidIndexSize > 0 && indexedDirectoryOffsets[0] != directoryOffset) {
+                throw new IOException("The UUID index of the feedback archive segment: " + path + " is corrupted.");
+            }
+
+            ByteBuffer counts = buffer.duplicate();
+            counts.position(countsOffset);
+            for (int i = counts.getInt(); i > 0; i--) {
+                countsByTenant.put(counts.getInt(), counts.getInt());
+            }
+            for (int i = counts.getInt(); i > 0; i--) {
+                int tenantId = counts.getInt();
+                String tag = readString(counts);
+                countsByTenantAndTag.computeIfAbsent(tenantId, key -> new HashMap<>()).put(tag, counts.getInt());
+            }
+            for (int i = counts.getInt(); i > 0; i--) {
+                int tenantId = counts.getInt();
+                LocalDate day = LocalDate.ofEpochDay(counts.getLong());
+                countsByTenantAndDay.computeIfAbsent(tenantId, key -> new HashMap<>()).put(day, counts.getInt());
+            }
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("The feedback archive segment: " + path + " is corrupted.", e);
+        }
+    }
+
+    /**
+     * Open a segment file, which is memory-mapped for reading.
+     *
+     * @param path path of the segment file
+     * @return the segment
+     * @throws IOException
+     */
+    public static FeedbackArchiveSegment open(Path path) throws IOException {
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // The mapping stays valid once the channel is closed.
+            return new FeedbackArchiveSegment(path, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Write the feedback entries of a range of IDs to a new segment file, which is forced to the storage device
+     * before this method returns.
+     *
+     * @param path    path of the segment file
+     * @param fromId  ID after which the range of IDs starts
+     * @param toId    last ID of the range of IDs
+     * @param entries feedback entries of the range with their tags, in the order of their IDs
+     * @throws IOException
+     */
+    public static void write(Path path, int fromId, int toId, List<Feedback> entries) throws IOException {
+
+        ByteArrayOutputStream blocks = new ByteArrayOutputStream();
+        ByteArrayOutputStream timeIndexBytes = new ByteArrayOutputStream();
+        DataOutputStream timeIndex = new DataOutputStream(timeIndexBytes);
+        Map<String, Integer> uuidBlocks = new TreeMap<>();
+        Map<Integer, Integer> countsByTenant = new TreeMap<>();
+        Map<Integer, Map<String, Integer>> countsByTenantAndTag = new TreeMap<>();
+        Map<Integer, Map<LocalDate, Integer>> countsByTenantAndDay = new TreeMap<>();
+        int blockCount = 0;
+        for (int start = 0; start < entries.size(); start += FeedbackMgtConstants.ARCHIVE_BLOCK_SIZE) {
+            ByteArrayOutputStream block = new ByteArrayOutputStream();
+            DataOutputStream blockOutput = new DataOutputStream(block);
+            long minTime = Long.MAX_VALUE;
+            long maxTime = Long.MIN_VALUE;
+            for (Feedback feedback : entries.subList(start,
+                    Math.min(start + FeedbackMgtConstants.ARCHIVE_BLOCK_SIZE, entries.size()))) {
+                writeEntry(blockOutput, feedback);
+                Timestamp timeCreated = Timestamp.valueOf(feedback.getTimeCreated());
+                minTime = Math.min(minTime, timeCreated.getTime());
+                maxTime = Math.max(maxTime, timeCreated.getTime());
+                uuidBlocks.put(feedback.getUuid(), blockCount);
+
+                int tenantId = feedback.getTenantId();
+                countsByTenant.merge(tenantId, 1, Integer::sum);
+                if (feedback.getTags() != null) {
+                    for (String tag : feedback.getTags()) {
+                        countsByTenantAndTag.computeIfAbsent(tenantId, key -> new TreeMap<>())
+                                .merge(tag, 1, Integer::sum);
+                    }
+                }
+                countsByTenantAndDay.computeIfAbsent(tenantId, key -> new TreeMap<>())
+                        .merge(timeCreated.toLocalDateTime().toLocalDate(), 1, Integer::sum);
+            }
+            byte[] compressedBlock = deflate(block.toByteArray());
+            timeIndex.writeInt(HEADER_SIZE + blocks.size());
+            timeIndex.writeInt(compressedBlock.length);
+            timeIndex.writeInt(block.size());
+            timeIndex.writeLong(minTime);
+            timeIndex.writeLong(maxTime);
+            blocks.write(compressedBlock);
+            blockCount++;
+        }
+
+        // The directory lists the resource IDs in order, and every n-th of them is added to the sparse UUID index.
+        int directoryOffset = HEADER_SIZE + blocks.size() + timeIndex.size();
+        ByteArrayOutputStream directoryBytes = new ByteArrayOutputStream();
+        DataOutputStream directory = new DataOutputStream(directoryBytes);
+        ByteArrayOutputStream uuidIndexBytes = new ByteArrayOutputStream();
+        DataOutputStream uuidIndex = new DataOutputStream(uuidIndexBytes);
+        int uuidIndexSize = 0;
+        int position = 0;
+        for (Map.Entry<String, Integer> uuidBlock : uuidBlocks.entrySet()) {
+            if (position++ % FeedbackMgtConstants.ARCHIVE_UUID_INDEX_INTERVAL == 0) {
+                writeString(uuidIndex, uuidBlock.getKey());
+                uuidIndex.writeInt(directoryOffset + directory.size());
+                uuidIndexSize++;
+            }
+            writeString(directory, uuidBlock.getKey());
+            directory.writeInt(uuidBlock.getValue());
+        }
+
+        ByteArrayOutputStream countsBytes = new ByteArrayOutputStream();
+        DataOutputStream counts = new DataOutputStream(countsBytes);
+        counts.writeInt(countsByTenant.size());
+        for (Map.Entry<Integer, Integer> count : countsByTenant.entrySet()) {
+            counts.writeInt(count.getKey());
+            counts.writeInt(count.getValue());
+        }
+        counts.writeInt(countsByTenantAndTag.values().stream().mapToInt(Map::size).sum());
+        for (Map.Entry<Integer, Map<String, Integer>> tenantCounts : countsByTenantAndTag.entrySet()) {
+            for (Map.Entry<String, Integer> count : tenantCounts.getValue().entrySet()) {
+                counts.writeInt(tenantCounts.getKey());
+                writeString(counts, count.getKey());
+                counts.writeInt(count.getValue());
+            }
+        }
+        counts.writeInt(countsByTenantAndDay.values().stream().mapToInt(Map::size).sum());
+        for (Map.Entry<Integer, Map<LocalDate, Integer>> tenantCounts : countsByTenantAndDay.entrySet()) {
+            for (Map.Entry<LocalDate, Integer> count : tenantCounts.getValue().entrySet()) {
+                counts.writeInt(tenantCounts.getKey());
+                counts.writeLong(count.getKey().toEpochDay());
+                counts.writeInt(count.getValue());
+            }
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(FeedbackMgtConstants.ARCHIVE_SEGMENT_MAGIC);
+        header.putInt(FeedbackMgtConstants.ARCHIVE_SEGMENT_FORMAT_VERSION);
+        header.putInt(fromId);
+        header.putInt(toId);
+        header.putInt(entries.size());
+        header.putInt(blockCount);
+        header.putInt(HEADER_SIZE + blocks.size());
+        header.putInt(directoryOffset);
+        header.putInt(directoryOffset + directory.size());
+        header.putInt(uuidIndexSize);
+        header.putInt(directoryOffset + directory.size() + uuidIndex.size());
+        header.flip();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            for (ByteBuffer section : Arrays.asList(header, ByteBuffer.wrap(blocks.toByteArray()),
+                    ByteBuffer.wrap(timeIndexBytes.toByteArray()), ByteBuffer.wrap(directoryBytes.toByteArray()),
+                    ByteBuffer.wrap(uuidIndexBytes.toByteArray()), ByteBuffer.wrap(countsBytes.toByteArray()))) {
+                while (section.hasRemaining()) {
+                    channel.write(section);
+                }
+            }
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Retrieve an entry of the segment by its resource ID, through the sparse UUID index and the UUID directory.
+     *
+     * @param uuid resource ID
+     * @return Feedback entry, or null if the entry is not in the segment
+     * @throws IOException
+     */
+    public Feedback getEntry(String uuid) throws IOException {
+
+        // The directory is read from the last indexed resource ID which is not greater than the resource ID.
+        int index = Arrays.binarySearch(indexedUuids, uuid);
+        if (index < 0) {
+            index = -index - 2;
+            if (index < 0) {
+                return null;
+            }
+        }
+        int end = index + 1 < indexedUuids.length ? indexedDirectoryOffsets[index + 1] : directoryEnd;
+        try {
+            ByteBuffer directory = buffer.duplicate();
+            directory.position(indexedDirectoryOffsets[index]);
+            while (directory.position() < end) {
+                int comparison = readString(directory).compareTo(uuid);
+                int block = directory.getInt();
+                if (comparison == 0) {
+                    for (Feedback feedback : readBlock(block)) {
+                        if (uuid.equals(feedback.getUuid())) {
+                            return feedback;
+                        }
+                    }
+                    return null;
+                }
+                if (comparison > 0) {
+                    return null;
+                }
+            }
+            return null;
+        } catch (BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IOException("The UUID directory of the feedback archive segment: " + path + " is corrupted.", e);
+        }
+    }
+
+    /**
+     * Read the entries of a block of the segment.
+     *
+     * @param block position of the block in the segment
+     * @return Feedback entries of the block with their tags, in the order of their IDs
+     * @throws IOException
+     */
+    public List<Feedback> readBlock(int block) throws IOException {
+
+        byte[] compressedBlock = new byte[blockCompressedLengths[block]];
+        byte[] uncompressedBlock = new byte[blockLengths[block]];
+        Inflater inflater = new Inflater();
+        try {
+            ByteBuffer blockBuffer = buffer.duplicate();
+            blockBuffer.position(blockOffsets[block]);
+            blockBuffer.get(compressedBlock);
+            inflater.setInput(compressedBlock);
+            int length = 0;
+            while (length < uncompressedBlock.length) {
+                int inflatedLength = inflater.inflate(uncompressedBlock, length, uncompressedBlock.length - length);
+                if (inflatedLength == 0 && (inflater.finished() || inflater.needsInput())) {
+                    throw new IOException("The block: " + block + " of the feedback archive segment: " + path +
+                            " is truncated.");
+                }
+                length += inflatedLength;
+            }
+
+            ByteBuffer entries = ByteBuffer.wrap(uncompressedBlock);
+            List<Feedback> feedbackList = new ArrayList<>(FeedbackMgtConstants.ARCHIVE_BLOCK_SIZE);
+            while (entries.hasRemaining()) {
+                feedbackList.add(readEntry(entries));
+            }
+            return feedbackList;
+        } catch (DataFormatException | BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("The block: " + block + " of the feedback archive segment: " + path +
+                    " is corrupted.", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Check whether any entry of a block may have been created in a range of times, according to the time index.
+     *
+     * @param block    position of the block in the segment
+     * @param fromTime earliest creation time in milliseconds
+     * @param toTime   latest creation time in milliseconds
+     * @return false if no entry of the block was created in the range of times
+     */
+    public boolean overlaps(int block, long fromTime, long toTime) {
+
+        return blockMinTimes[block] <= toTime && blockMaxTimes[block] >= fromTime;
+    }
+
+    /**
+     * Get the earliest creation time of the entries of a block, according to the time index.
+     *
+     * @param block position of the block in the segment
+     * @return creation time in milliseconds
+     */
+    public long getBlockMinTime(int block) {
+
+        return blockMinTimes[block];
+    }
+
+    /**
+     * Get the latest creation time of the entries of a block, according to the time index.
+     *
+     * @param block position of the block in the segment
+     * @return creation time in milliseconds
+     */
+    public long getBlockMaxTime(int block) {
+
+        return blockMaxTimes[block];
+    }
+
+    public Path getPath() {
+
+        return path;
+    }
+
+    public int getFromId() {
+
+        return fromId;
+    }
+
+    public int getToId() {
+
+        return toId;
+    }
+
+    public int getEntryCount() {
+
+        return entryCount;
+    }
+
+    public int getBlockCount() {
+
+        return blockOffsets.length;
+    }
+
+    /**
+     * Get the number of entries of the segment by tenant.
+     *
+     * @return Map of tenant ID to the number of entries of the tenant
+     */
+    public Map<Integer, Integer> getCountsByTenant() {
+
+        return Collections.unmodifiableMap(countsByTenant);
+    }
+
+    /**
+     * Get the number of entries of a tenant in the segment by tag.
+     *
+     * @param tenantId tenant ID
+     * @return Map of tag to the number of entries of the tenant with the tag
+     */
+    public Map<String, Integer> getCountsByTag(int tenantId) {
+
+        return Collections.unmodifiableMap(countsByTenantAndTag.getOrDefault(tenantId, Collections.emptyMap()));
+    }
+
+    /**
+     * Get the number of entries of a tenant in the segment by the day of their creation.
+     *
+     * @param tenantId tenant ID
+     * @return Map of day to the number of entries of the tenant created on the day
+     */
+    public Map<LocalDate, Integer> getCountsByDay(int tenantId) {
+
+        return Collections.unmodifiableMap(countsByTenantAndDay.getOrDefault(tenantId, Collections.emptyMap()));
+    }
+
+    /**
+     * Write an entry to a block.
+     *
+     * @param output   output of the block
+     * @param feedback feedback entry with its tags
+     * @throws IOException
+     */
+    private static void writeEntry(DataOutputStream output, Feedback feedback) throws IOException {
+
+        output.writeInt(feedback.getId());
+        writeString(output, feedback.getUuid());
+        output.writeInt(feedback.getTenantId());
+        writeString(output, feedback.getMessage());
+        writeString(output, feedback.getEmail());
+        writeString(output, feedback.getContactNo());
+        writeString(output, feedback.getUserId());
+        writeString(output, feedback.getTimeCreated());
+        output.writeInt(feedback.getVersion() == null ? 0 : feedback.getVersion());
+        List<String> tags = feedback.getTags() == null ? Collections.emptyList() : feedback.getTags();
+        output.writeInt(tags.size());
+        for (String tag : tags) {
+            writeString(output, tag);
+        }
+    }
+
+    /**
+     * Read an entry of a block.
+     *
+     * @param input uncompressed block, positioned at the entry
+     * @return Feedback entry with its tags
+     */
+    private static Feedback readEntry(ByteBuffer input) {
+
+        Feedback feedback = new Feedback();
+        feedback.setId(input.getInt());
+        feedback.setUuid(readString(input));
+        feedback.setTenantId(input.getInt());
+        feedback.setMessage(readString(input));
+        feedback.setEmail(readString(input));
+        feedback.setContactNo(readString(input));
+        feedback.setUserId(readString(input));
+        feedback.setTimeCreated(readString(input));
+        feedback.setVersion(input.getInt());
+        int tagCount = input.getInt();
+        ArrayList<String> tags = new ArrayList<>(tagCount);
+        for (int i = 0; i < tagCount; i++) {
+            tags.add(readString(input));
+        }
+        feedback.setTags(tags);
+        return feedback;
+    }
+
+    /**
+     * Write a string, which may be null, as its length in bytes followed by its UTF-8 bytes.
+     *
+     * @param output output
+     * @param value  string, or null
+     * @throws IOException
+     */
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+
+        if (value == null) {
+            output.writeInt(NULL_LENGTH);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    /**
+     * Read a string written by {@link #writeString(DataOutputStream, String)}.
+     *
+     * @param input input, positioned at the string
+     * @return the string, or null
+     */
+    private static String readString(ByteBuffer input) {
+
+        int length = input.getInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        if (length < 0) {
+            throw new IllegalArgumentException("Invalid string length: " + length);
+        }
+        byte[] bytes = new byte[length];
+        input.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Compress a block.
+     *
+     * @param block uncompressed block
+     * @return compressed block
+     */
+    private static byte[] deflate(byte[] block) {
+
+        Deflater deflater = new Deflater();
+        try {
+            deflater.setInput(block);
+            deflater.finish();
+            ByteArrayOutputStream compressedBlock = new ByteArrayOutputStream(block.length / 2 + 64);
+            byte[] chunk = new byte[8192];
+            while (!deflater.finished()) {
+                compressedBlock.write(chunk, 0, deflater.deflate(chunk));
+            }
+            return compressedBlock.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.cache;
+
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.Feedback;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory cache of feedback entries, keyed by the UUID of the entry. The number of entries is bounded, and once the
+ * bound is reached the least recently used entry is evicted. An entry also expires once its time to live has passed
+ * since it was cached, which bounds how long an entry changed by another node can be served stale. Copies of the
+ * entries are cached and returned, so that callers modifying an entry do not modify the cached one.
+ */
+public class FeedbackEntryCache {
+
+    private static final FeedbackEntryCache instance = new FeedbackEntryCache();
+
+    private final Map<String, CachedEntry> entriesByUuid = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private int maxSize = FeedbackMgtConstants.DEFAULT_FEEDBACK_CACHE_SIZE;
+    private long timeToLiveNanos = TimeUnit.SECONDS.toNanos(FeedbackMgtConstants.DEFAULT_FEEDBACK_CACHE_TIME_TO_LIVE);
+
+    public static FeedbackEntryCache getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Get a feedback entry.
+     *
+     * @param uuid UUID of the feedback entry
+     * @return copy of the feedback entry, or null if the entry is not cached or has expired
+     */
+    public Feedback get(String uuid) {
+
+        CachedEntry cachedEntry;
+        synchronized (this) {
+            cachedEntry = entriesByUuid.get(uuid);
+            if (cachedEntry != null && cachedEntry.isExpired(System.nanoTime())) {
+                entriesByUuid.remove(uuid);
+                cachedEntry = null;
+            }
+        }
+        if (cachedEntry == null) {
+            missCount.incrementAndGet();
+            return null;
+        }
+        hitCount.incrementAndGet();
+        return copy(cachedEntry.feedback);
+    }
+
+    /**
+     * Add a feedback entry, evicting the least recently used entries if the cache is full.
+     *
+     * @param feedback feedback entry
+     */
+    public void put(Feedback feedback) {
+
+        if (feedback == null || feedback.getUuid() == null) {
+            return;
+        }
+        CachedEntry cachedEntry = new CachedEntry(copy(feedback), System.nanoTime());
+        synchronized (this) {
+            if (maxSize <= 0) {
+                return;
+            }
+            entriesByUuid.put(feedback.getUuid(), cachedEntry);
+            Iterator<String> leastRecentlyUsed = entriesByUuid.keySet().iterator();
+            while (entriesByUuid.size() > maxSize && leastRecentlyUsed.hasNext()) {
+                leastRecentlyUsed.next();
+                leastRecentlyUsed.remove();
+            }
+        }
+    }
+
+    /**
+     * Remove a feedback entry.
+     *
+     * @param uuid UUID of the feedback entry
+     */
+    public synchronized void invalidate(String uuid) {
+
+        entriesByUuid.remove(uuid);
+    }
+
+    /**
+     * Remove all the entries of the cache.
+     */
+    public synchronized void clear() {
+
+        entriesByUuid.clear();
+    }
+
+    /**
+     * Get the number of entries in the cache, including the expired entries which are not removed yet.
+     *
+     * @return number of cached entries
+     */
+    public synchronized int size() {
+
+        return entriesByUuid.size();
+    }
+
+    /**
+     * Set the maximum number of entries held by the cache. A value of zero disables caching.
+     *
+     * @param maxSize maximum number of cached entries
+     */
+    public synchronized void setMaxSize(int maxSize) {
+
+        this.maxSize = maxSize;
+        Iterator<String> leastRecentlyUsed = entriesByUuid.keySet().iterator();
+        while (entriesByUuid.size() > Math.max(maxSize, 0) && leastRecentlyUsed.hasNext()) {
+            leastRecentlyUsed.next();
+            leastRecentlyUsed.remove();
+        }
+    }
+
+    /**
+     * Set the time after which a cached entry expires.
+     *
+     * @param timeToLive time to live
+     * @param unit       unit of the time to live
+     */
+    public synchronized void setTimeToLive(long timeToLive, TimeUnit unit) {
+
+        this.timeToLiveNanos = unit.toNanos(timeToLive);
+    }
+
+    /**
+     * Get the number of lookups which found a cached entry since the cache was created or the counters were reset.
+     *
+     * @return number of cache hits
+     */
+    public long getHitCount() {
+
+        return hitCount.get();
+    }
+
+    /**
+     * Get the number of lookups which did not find a cached entry since the cache was created or the counters were
+     * reset.
+     *
+     * @return number of cache misses
+     */
+    public long getMissCount() {
+
+        return missCount.get();
+    }
+
+    /**
+     * Reset the hit and miss counters.
+     */
+    public void resetCounters() {
+
+        hitCount.set(0);
+        missCount.set(0);
+    }
+
+    private static Feedback copy(Feedback feedback) {
+
+        Feedback copy = new Feedback(feedback.getId(), feedback.getMessage(), feedback.getEmail(),
+                feedback.getContactNo(), feedback.getUserId(), feedback.getTenantId(), feedback.getUuid(),
+                feedback.getTimeCreated());
+        copy.setTags(feedback.getTags() == null ? null : new ArrayList<>(feedback.getTags()));
+        copy.setVersion(feedback.getVersion());
+        return copy;
+    }
+
+    /**
+     * A cached feedback entry with the time it was cached.
+     */
+    private class CachedEntry {
+
+        private final Feedback feedback;
+        private final long cachedAt;
+
+        CachedEntry(Feedback feedback, long cachedAt) {
+
+            this.feedback = feedback;
+            this.cachedAt = cachedAt;
+        }
+
+        boolean isExpired(long now) {
+
+            return now - cachedAt >= timeToLiveNanos;
+        }
+    }
+}
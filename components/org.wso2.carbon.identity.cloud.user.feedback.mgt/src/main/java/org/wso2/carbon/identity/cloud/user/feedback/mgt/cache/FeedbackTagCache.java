@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.cache;
+
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * In-memory dictionary of feedback tags which maps tag names to the IDs of the CLD_FEEDBACK_TAGS table and back.
+ * Lookups are lock free. The number of entries is bounded, and once the bound is reached the oldest entries are
+ * evicted first. Tags are never removed from the database, hence a cached mapping never becomes stale.
+ */
+public class FeedbackTagCache {
+
+    private static final FeedbackTagCache instance = new FeedbackTagCache();
+
+    private final Map<String, Integer> idsByName = new ConcurrentHashMap<>();
+    private final Map<Integer, String> namesById = new ConcurrentHashMap<>();
+    private final Queue<String> insertionOrder = new ConcurrentLinkedQueue<>();
+    private volatile int maxSize = FeedbackMgtConstants.DEFAULT_TAG_CACHE_SIZE;
+
+    public static FeedbackTagCache getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Get the ID of a tag.
+     *
+     * @param tag name of the tag
+     * @return ID of the tag, or null if the tag is not cached
+     */
+    public Integer getTagId(String tag) {
+
+        return idsByName.get(tag);
+    }
+
+    /**
+     * Get the name of a tag.
+     *
+     * @param tagId ID of the tag
+     * @return name of the tag, or null if the tag is not cached
+     */
+    public String getTagName(int tagId) {
+
+        return namesById.get(tagId);
+    }
+
+    /**
+     * Add a tag to the cache, evicting the oldest entries if the cache is full.
+     *
+     * @param tag   name of the tag
+     * @param tagId ID of the tag
+     */
+    public void put(String tag, int tagId) {
+
+        if (tag == null || maxSize <= 0) {
+            return;
+        }
+        synchronized (insertionOrder) {
+            if (idsByName.put(tag, tagId) == null) {
+                insertionOrder.add(tag);
+            }
+            namesById.put(tagId, tag);
+            while (idsByName.size() > maxSize) {
+                String evicted = insertionOrder.poll();
+                if (evicted == null) {
+                    break;
+                }
+                Integer evictedId = idsByName.remove(evicted);
+                if (evictedId != null) {
+                    namesById.remove(evictedId, evicted);
+                }
+            }
+        }
+    }
+
+    /**
+     * Remove all the entries of the cache.
+     */
+    public void clear() {
+
+        synchronized (insertionOrder) {
+            idsByName.clear();
+            namesById.clear();
+            insertionOrder.clear();
+        }
+    }
+
+    /**
+     * Get the number of tags in the cache.
+     *
+     * @return number of cached tags
+     */
+    public int size() {
+
+        return idsByName.size();
+    }
+
+    /**
+     * Get the maximum number of tags held by the cache.
+     *
+     * @return maximum number of cached tags
+     */
+    public int getMaxSize() {
+
+        return maxSize;
+    }
+
+    /**
+     * Set the maximum number of tags held by the cache. A value of zero disables caching.
+     *
+     * @param maxSize maximum number of cached tags
+     */
+    public void setMaxSize(int maxSize) {
+
+        this.maxSize = maxSize;
+        if (maxSize <= 0) {
+            clear();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.cache;
+
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.filter.FilterPlan;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * In-memory cache of compiled filter plans, keyed by the shape of the filter. The number of entries is bounded, and
+ * once the bound is reached the least recently used plan is evicted.
+ */
+public class FilterPlanCache {
+
+    private static final FilterPlanCache instance = new FilterPlanCache();
+
+    private final Map<String, FilterPlan> plansByShape =
+            new LinkedHashMap<String, FilterPlan>(16, 0.75f, true) {
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, FilterPlan> eldest) {
+
+                    return size() > FeedbackMgtConstants.DEFAULT_FILTER_PLAN_CACHE_SIZE;
+                }
+            };
+
+    public static FilterPlanCache getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Get the compiled plan of a filter shape.
+     *
+     * @param shape shape of the filter
+     * @return compiled plan, or null if the shape is not cached
+     */
+    public synchronized FilterPlan get(String shape) {
+
+        return plansByShape.get(shape);
+    }
+
+    /**
+     * Add the compiled plan of a filter shape.
+     *
+     * @param shape shape of the filter
+     * @param plan  compiled plan
+     */
+    public synchronized void put(String shape, FilterPlan plan) {
+
+        plansByShape.put(shape, plan);
+    }
+
+    /**
+     * Remove all the cached plans.
+     */
+    public synchronized void clear() {
+
+        plansByShape.clear();
+    }
+
+    /**
+     * Get the number of cached plans.
+     *
+     * @return number of cached plans
+     */
+    public synchronized int size() {
+
+        return plansByShape.size();
+    }
+}
@@ -31,13 +31,112 @@ public class FeedbackMgtConstants {
     public static final String H2 = "H2";
 
     // Database table column names required for filter formation
-    public static final String EMAIL = "EMAIL ";
-    public static final String TAG = "TAG ";
     public static final String WHERE = "WHERE ";
-    public static final String LIKE = "LIKE ?";
     public static final int DEFAULT_SEARCH_LIMIT = 30;
     public static final String DEFAULT_SORT_BY = "ID ";
     public static final String DEFAULT_SORT_ORDER = "ASC";
+    public static final String AND = " AND ";
+    public static final String OR = " OR ";
+    public static final String ORDER_BY = " ORDER BY ";
+    public static final String CURSOR_SEPARATOR = "|";
+
+    // Maximum number of values bound to a single IN clause
+    public static final int IN_CLAUSE_CHUNK_SIZE = 100;
+
+    // Maximum number of rows sent to the database in a single JDBC batch
+    public static final int BATCH_INSERT_CHUNK_SIZE = 500;
+
+    // Default maximum number of tags kept in the in-memory tag dictionary
+    public static final int DEFAULT_TAG_CACHE_SIZE = 1000;
+
+    // Defaults of the in-memory cache of feedback entries, with the time to live in seconds
+    public static final int DEFAULT_FEEDBACK_CACHE_SIZE = 1000;
+    public static final int DEFAULT_FEEDBACK_CACHE_TIME_TO_LIVE = 300;
+
+    // Maximum number of compiled filter plans kept in memory
+    public static final int DEFAULT_FILTER_PLAN_CACHE_SIZE = 256;
+
+    // Bound in place of the ID of a tag which does not exist, so that the tag matches no feedback
+    public static final int UNKNOWN_TAG_ID = -1;
+
+    // Tag ID of the counter which holds the total number of feedback entries of a tenant
+    public static final int TOTAL_COUNTER_TAG_ID = 0;
+
+    // Default interval in seconds between two reconciliations of the feedback counters
+    public static final int DEFAULT_COUNTER_RECONCILE_INTERVAL = 3600;
+
+    // Defaults of the feedback retention, with the maximum age in days and the purge interval in seconds. A maximum
+    // age of zero keeps the feedback entries forever.
+    public static final int DEFAULT_RETENTION_MAX_AGE = 0;
+    public static final int DEFAULT_RETENTION_CHUNK_SIZE = 1000;
+    public static final int DEFAULT_RETENTION_INTERVAL = 3600;
+    public static final String RETENTION_DEFAULT_SCOPE = "default";
+    public static final String RETENTION_TENANT_SCOPE_PREFIX = "tenant:";
+    public static final String RETENTION_TENANT_MAX_AGE_SEPARATOR = ":";
+
+    // Defaults of the feedback archive, with the maximum age in days of the entries kept in the feedback table and
+    // the archive interval in seconds. A maximum age of zero keeps the feedback entries in the feedback table.
+    public static final int DEFAULT_ARCHIVE_MAX_AGE = 0;
+    public static final int DEFAULT_ARCHIVE_CHUNK_SIZE = 10000;
+    public static final int DEFAULT_ARCHIVE_INTERVAL = 3600;
+
+    // Layout of the segment files of the feedback archive, with the number of entries compressed together in a block
+    // and the number of entries of the UUID directory of a segment for each entry of its sparse UUID index
+    public static final int ARCHIVE_SEGMENT_MAGIC = 0x46424152;
+    public static final int ARCHIVE_SEGMENT_FORMAT_VERSION = 1;
+    public static final int ARCHIVE_BLOCK_SIZE = 64;
+    public static final int ARCHIVE_UUID_INDEX_INTERVAL = 32;
+    public static final String ARCHIVE_SEGMENT_FILE_PREFIX = "feedback-";
+    public static final String ARCHIVE_SEGMENT_FILE_EXTENSION = ".seg";
+    public static final String ARCHIVE_TEMP_FILE_EXTENSION = ".tmp";
+
+    // Layout of the log file of the log-structured feedback store, with the maximum size of a record in bytes
+    public static final int FEEDBACK_LOG_MAGIC = 0x46424c47;
+    public static final int FEEDBACK_LOG_FORMAT_VERSION = 1;
+    public static final int MAX_FEEDBACK_LOG_RECORD_SIZE = 16777216;
+    public static final String FEEDBACK_LOG_FILE_NAME = "feedback.log";
+    public static final String FEEDBACK_LOG_COMPACTION_FILE_NAME = "feedback.log.compact";
+
+    // Defaults of the compaction of the feedback log, with the compaction interval in seconds. The log is compacted
+    // once the records of the overwritten and deleted entries take up the given share of its size.
+    public static final int DEFAULT_FEEDBACK_LOG_COMPACTION_INTERVAL = 600;
+    public static final double FEEDBACK_LOG_COMPACTION_GARBAGE_RATIO = 0.5;
+
+    // Number of rows fetched from the database at a time by an export
+    public static final int EXPORT_FETCH_SIZE = 1000;
+
+    // Defaults of the import of feedback entries from JSON Lines, with the sizes of a line and of the read buffer in
+    // bytes. Only the first rejected entries of an import are reported individually.
+    public static final int DEFAULT_IMPORT_BATCH_SIZE = 1000;
+    public static final int MAX_IMPORT_LINE_LENGTH = 1048576;
+    public static final int IMPORT_READ_BUFFER_SIZE = 65536;
+    public static final int MAX_REPORTED_IMPORT_REJECTIONS = 100;
+
+    // Limits of the full-text index of the feedback messages. Terms longer than the maximum length are truncated.
+    public static final int MAX_MESSAGE_TERM_LENGTH = 64;
+    public static final int MAX_MESSAGE_QUERY_TERMS = 8;
+    public static final int MESSAGE_INDEX_REBUILD_CHUNK_SIZE = 1000;
+
+    // N-gram index of the feedback emails. A "co" value is matched by at most the maximum number of its grams.
+    public static final int EMAIL_GRAM_LENGTH = 3;
+    public static final int MAX_EMAIL_QUERY_GRAMS = 4;
+    public static final int EMAIL_INDEX_REBUILD_CHUNK_SIZE = 1000;
+
+    // MinHash signatures of the feedback messages, which are split into bands of rows for locality sensitive hashing
+    public static final int SIMILARITY_SHINGLE_SIZE = 2;
+    public static final int SIMILARITY_SIGNATURE_SIZE = 64;
+    public static final int SIMILARITY_BAND_COUNT = 16;
+    public static final int MAX_SIMILARITY_CANDIDATES = 1000;
+    public static final int SIMILARITY_INDEX_REBUILD_CHUNK_SIZE = 1000;
+    public static final int SIMILARITY_CLUSTER_TASK_SIZE = 256;
+
+    // Defaults of the asynchronous feedback ingestion queue
+    public static final int DEFAULT_INGESTION_QUEUE_SIZE = 10000;
+    public static final int DEFAULT_INGESTION_BATCH_SIZE = 100;
+    public static final int DEFAULT_INGESTION_LINGER_TIME = 50;
+    public static final long INGESTION_SHUTDOWN_TIMEOUT = 30000;
+    public static final int INGESTION_RETRY_COUNT = 3;
+    public static final long INGESTION_RETRY_BACKOFF = 100;
 
     /**
      * Error messages.
@@ -65,6 +164,27 @@ public class FeedbackMgtConstants {
         ERROR_CODE_UNSUPPORTED_FILTER_OPERATION("FM-10008", "Filter operation: %s is not supported."),
         ERROR_CODE_FEEDBACK_MESSAGE_REQUIRED("FM-10009", "Feedback message is required for " +
                 "feedback ID: %s."),
+        ERROR_CODE_INVALID_CURSOR("FM-10010", "Requested cursor: %s is invalid for the given sorting " +
+                "parameters."),
+        ERROR_CODE_INVALID_FILTER_TIME("FM-10011", "Time value: %s is invalid. Time values should be given as " +
+                "yyyy-MM-dd, yyyy-MM-dd HH:mm:ss or an ISO-8601 date and time."),
+        ERROR_CODE_UNSUPPORTED_EXPORT_FORMAT("FM-10012", "Export format: %s is not supported. Only 'jsonl' and " +
+                "'csv' are supported."),
+        ERROR_CODE_IMPORT_ID_REQUIRED("FM-10013", "An import ID is required to checkpoint the progress of an " +
+                "import."),
+        ERROR_CODE_INVALID_IMPORT_OFFSET("FM-10014", "The import: %s is checkpointed at an offset beyond the end " +
+                "of the given input."),
+        ERROR_CODE_INVALID_IMPORT_RECORD("FM-10015", "The record at the offset: %s is not a valid feedback entry."),
+        ERROR_CODE_INVALID_SEARCH_QUERY("FM-10016", "Search query: %s is invalid. A search query should have 1 to " +
+                MAX_MESSAGE_QUERY_TERMS + " distinct words."),
+        ERROR_CODE_INVALID_SIMILARITY_THRESHOLD("FM-10017", "Similarity threshold: %s is invalid. A similarity " +
+                "threshold should be greater than 0 and at most 1."),
+        ERROR_CODE_INVALID_DATE_RANGE("FM-10018", "Date range: %s is invalid. The first and the last day of a " +
+                "date range should be given as yyyy-MM-dd, and the first day should not be after the last day."),
+        ERROR_CODE_FEEDBACK_VERSION_CONFLICT("FM-10019", "Feedback: %s has been changed since it was " +
+                "retrieved. Retrieve the feedback again and retry the change."),
+        ERROR_CODE_UNSUPPORTED_BY_STORAGE("FM-10020", "The operation: %s is supported only when the feedback " +
+                "entries are stored in the database."),
 
         // Server Errors
         ERROR_CODE_ADD_USER_FEEDBACK("FM-15001", "Error occurred while adding the feedback to DB."),
@@ -88,7 +208,56 @@ public class FeedbackMgtConstants {
         ERROR_CODE_ADD_FEEDBACK_TAG("FM-15011", "Error occurred while adding the tag to the tag: %s " +
                 "to the database"),
         ERROR_CODE_GET_FEEDBACK_TAG("FM-15012", "Error occurred while retrieving the id of the tag: %s " +
-                                            "from the database");
+                                            "from the database"),
+        ERROR_CODE_LOAD_FEEDBACK_TAGS("FM-15013", "Error occurred while loading the feedback tags from the " +
+                "database"),
+        ERROR_CODE_ADD_USER_FEEDBACK_LIST("FM-15014", "Error occurred while adding a list of %s feedback " +
+                "entries to the DB."),
+        ERROR_CODE_EXECUTE_TRANSACTION("FM-15015", "Error occurred while executing a transaction on the " +
+                "feedback database."),
+        ERROR_CODE_UPDATE_FEEDBACK_COUNTERS("FM-15016", "Error occurred while updating the feedback counters " +
+                "of the tenant: %s."),
+        ERROR_CODE_GET_FEEDBACK_COUNTER("FM-15017", "Error occurred while reading the feedback counter of the " +
+                "tag ID: %s."),
+        ERROR_CODE_RECONCILE_FEEDBACK_COUNTERS("FM-15018", "Error occurred while reconciling the feedback " +
+                "counters with the feedback entries."),
+        ERROR_CODE_PURGE_FEEDBACK("FM-15019", "Error occurred while purging the feedback entries of the " +
+                "retention scope: %s."),
+        ERROR_CODE_EXPORT_FEEDBACK("FM-15020", "Error occurred while exporting the feedback entries from the " +
+                "DB."),
+        ERROR_CODE_IMPORT_FEEDBACK("FM-15021", "Error occurred while importing the feedback entries of the " +
+                "import: %s."),
+        ERROR_CODE_INDEX_FEEDBACK_MESSAGE("FM-15022", "Error occurred while indexing the message of the feedback: " +
+                "%s."),
+        ERROR_CODE_SEARCH_FEEDBACK("FM-15023", "Error occurred while searching the feedback messages for the " +
+                "query: %s."),
+        ERROR_CODE_REBUILD_MESSAGE_INDEX("FM-15024", "Error occurred while rebuilding the message index from the " +
+                "feedback ID: %s."),
+        ERROR_CODE_INDEX_FEEDBACK_EMAIL("FM-15025", "Error occurred while indexing the email of the feedback: %s."),
+        ERROR_CODE_REBUILD_EMAIL_INDEX("FM-15026", "Error occurred while rebuilding the email index from the " +
+                "feedback ID: %s."),
+        ERROR_CODE_INDEX_FEEDBACK_SIGNATURE("FM-15027", "Error occurred while indexing the signature of the " +
+                "feedback: %s."),
+        ERROR_CODE_FIND_SIMILAR_FEEDBACK("FM-15028", "Error occurred while finding the feedback similar to the " +
+                "feedback: %s."),
+        ERROR_CODE_REBUILD_SIMILARITY_INDEX("FM-15029", "Error occurred while rebuilding the similarity index from " +
+                "the feedback ID: %s."),
+        ERROR_CODE_CLUSTER_FEEDBACK("FM-15030", "Error occurred while clustering the similar feedback entries."),
+        ERROR_CODE_UPDATE_DAILY_FEEDBACK_COUNTERS("FM-15031", "Error occurred while updating the daily feedback " +
+                "counters of %s feedback entries."),
+        ERROR_CODE_AGGREGATE_FEEDBACK("FM-15032", "Error occurred while reading the feedback counts by %s."),
+        ERROR_CODE_ARCHIVE_FEEDBACK("FM-15033", "Error occurred while archiving the feedback entries created " +
+                "before: %s."),
+        ERROR_CODE_OPEN_FEEDBACK_ARCHIVE("FM-15034", "Error occurred while opening the feedback archive in the " +
+                "directory: %s."),
+        ERROR_CODE_READ_FEEDBACK_ARCHIVE("FM-15035", "Error occurred while reading the feedback archive segment: %s."),
+        ERROR_CODE_WRITE_FEEDBACK_ARCHIVE("FM-15036", "Error occurred while writing the feedback archive segment: " +
+                "%s."),
+        ERROR_CODE_OPEN_FEEDBACK_LOG("FM-15037", "Error occurred while opening the feedback log in the directory: " +
+                "%s."),
+        ERROR_CODE_READ_FEEDBACK_LOG("FM-15038", "Error occurred while reading the feedback log: %s."),
+        ERROR_CODE_WRITE_FEEDBACK_LOG("FM-15039", "Error occurred while writing the feedback log: %s."),
+        ERROR_CODE_COMPACT_FEEDBACK_LOG("FM-15040", "Error occurred while compacting the feedback log: %s.");
 
         private final String code;
         private final String message;
@@ -120,14 +289,21 @@ public class FeedbackMgtConstants {
      * Allowed filter operations.
      */
     public enum AttributeOperators {
-        co, eq, ew, sw
+        co, eq, ew, sw, gt, ge, lt, le, between, phrase
+    }
+
+    /**
+     * Allowed connectors of filter terms.
+     */
+    public enum FilterConnectors {
+        and, or
     }
 
     /**
      * Filterable attributes.
      */
     public enum FilterableAttributes {
-        email, tag
+        email, tag, time_created, message
     }
 
     /**
@@ -137,6 +313,38 @@ public class FeedbackMgtConstants {
         asc, desc
     }
 
+    /**
+     * Formats of feedback exports.
+     */
+    public enum ExportFormats {
+        jsonl, csv
+    }
+
+    /**
+     * Generators of the resource IDs of the feedback entries.
+     */
+    public enum FeedbackIdGenerators {
+        random, time_ordered
+    }
+
+    /**
+     * Formats the resource IDs of the feedback entries are stored in. The string format stores a UUID as CHAR(36)
+     * and the binary format stores it as BINARY(16).
+     */
+    public enum FeedbackIdStorageFormats {
+        string, binary
+    }
+
+    /**
+     * Types of the storage of the feedback entries. The jdbc storage keeps the entries in the feedback database, the
+     * log storage keeps them in a local append-only log and the memory storage keeps them in memory only, for tests
+     * and benchmarks. The log and memory storage need no database, hence the aggregations, the imports, the indexes,
+     * the retention and the archive, which work on the database, are not available with them.
+     */
+    public enum FeedbackStorageTypes {
+        jdbc, log, memory
+    }
+
     /**
      * Sortable attributes.
      */
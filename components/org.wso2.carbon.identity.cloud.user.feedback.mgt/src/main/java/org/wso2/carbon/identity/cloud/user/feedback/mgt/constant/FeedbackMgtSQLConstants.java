@@ -23,54 +23,361 @@ package org.wso2.carbon.identity.cloud.user.feedback.mgt.constant;
  */
 public class FeedbackMgtSQLConstants {
 
-    public static final String INSERT_FEEDBACK_INFO =
-            "INSERT INTO CLD_FEEDBACK (MESSAGE, EMAIL, CONTACT_NO, USER_ID, TENANT_ID, UUID) VALUES (?,?,?,?,?,?)";
+    public static final String INSERT_FEEDBACK_INFO = "INSERT INTO CLD_FEEDBACK (MESSAGE, EMAIL, CONTACT_NO, " +
+            "USER_ID, TENANT_ID, UUID, EMAIL_REVERSED) VALUES (?,?,?,?,?,?,?)";
 
-    public static final String UPDATE_FEEDBACK_INFO =
-            "UPDATE CLD_FEEDBACK SET MESSAGE = ?, EMAIL = ?, CONTACT_NO = ? WHERE UUID = ?";
+    public static final String INSERT_FEEDBACK_INFO_WITH_TIME_CREATED = "INSERT INTO CLD_FEEDBACK (MESSAGE, EMAIL, " +
+            "CONTACT_NO, USER_ID, TENANT_ID, UUID, EMAIL_REVERSED, TIME_CREATED) VALUES (?,?,?,?,?,?,?,?)";
+
+    public static final String UPDATE_FEEDBACK_INFO = "UPDATE CLD_FEEDBACK SET MESSAGE = ?, EMAIL = ?, " +
+            "CONTACT_NO = ?, EMAIL_REVERSED = ?, VERSION = VERSION + 1 WHERE UUID = ?";
+
+    public static final String UPDATE_FEEDBACK_INFO_OF_VERSION = UPDATE_FEEDBACK_INFO + " AND VERSION = ?";
 
     public static final String STORE_FEEDBACK_TAG_MAPPINGS =
             "INSERT INTO CLD_FEEDBACK_TAG_MAPPINGS (FEEDBACK_ID, TAG_ID) VALUES (?,?)";
 
+    public static final String STORE_FEEDBACK_TAG_MAPPINGS_BY_UUID =
+            "INSERT INTO CLD_FEEDBACK_TAG_MAPPINGS (FEEDBACK_ID, TAG_ID) SELECT ID, ? FROM CLD_FEEDBACK WHERE UUID = ?";
+
     public static final String INSERT_TAG =
             "INSERT INTO CLD_FEEDBACK_TAGS (TAG) VALUES (?)";
 
+    public static final String GET_TAG_IDS =
+            "SELECT ID, TAG FROM CLD_FEEDBACK_TAGS WHERE TAG IN (%s)";
+
     public static final String GET_TAG_ID =
             "SELECT ID FROM CLD_FEEDBACK_TAGS WHERE TAG = ? LIMIT 1";
 
-    public static final String GET_FEEDBACK_FROM_ID =
-            "SELECT ID, MESSAGE, EMAIL, CONTACT_NO, USER_ID, TENANT_ID, UUID, TIME_CREATED FROM CLD_FEEDBACK WHERE " +
-                    "UUID = ?";
+    public static final String LIST_TAGS = "SELECT ID, TAG FROM CLD_FEEDBACK_TAGS ORDER BY ID LIMIT ?";
 
-    public static final String LIST_FEEDBACK_WITH_FILTER =
-            "SELECT ID, MESSAGE, EMAIL, CONTACT_NO, USER_ID, TENANT_ID, UUID, TIME_CREATED FROM CLD_FEEDBACK WHERE " +
-                    "EMAIL LIKE ? ORDER BY ";
+    public static final String GET_FEEDBACK_FROM_ID = "SELECT ID, MESSAGE, EMAIL, CONTACT_NO, USER_ID, TENANT_ID, " +
+            "UUID, TIME_CREATED, VERSION FROM CLD_FEEDBACK WHERE UUID = ?";
 
-    public static final String LIST_FEEDBACK_WITH_TAGS_FILTER =
-            "SELECT CLD_FEEDBACK.ID, MESSAGE, EMAIL, CONTACT_NO, USER_ID, TENANT_ID, UUID, TIME_CREATED, TAG FROM " +
-                    "CLD_FEEDBACK INNER JOIN CLD_FEEDBACK_TAG_MAPPINGS ON CLD_FEEDBACK.ID = CLD_FEEDBACK_TAG_MAPPINGS" +
-                    ".FEEDBACK_ID INNER JOIN CLD_FEEDBACK_TAGS ON CLD_FEEDBACK_TAGS.ID = CLD_FEEDBACK_TAG_MAPPINGS" +
-                    ".TAG_ID WHERE TAG LIKE ? ORDER BY ";
-
-    public static final String LIST_FEEDBACK_WITHOUT_FILTER =
-            "SELECT ID, MESSAGE, EMAIL, CONTACT_NO, USER_ID, TENANT_ID, UUID, TIME_CREATED FROM CLD_FEEDBACK ORDER BY ";
+    public static final String GET_FEEDBACK_FROM_ID_IN_TENANT = GET_FEEDBACK_FROM_ID + " AND TENANT_ID = ?";
 
     public static final String LIST_FEEDBACK_PAGINATION_TAIL = " LIMIT ? OFFSET ?";
 
+    public static final String LIST_FEEDBACK = "SELECT ID, MESSAGE, EMAIL, CONTACT_NO, USER_ID, TENANT_ID, UUID, " +
+            "TIME_CREATED, VERSION FROM CLD_FEEDBACK";
+
+    public static final String LIST_FEEDBACK_SEEK_TAIL = " LIMIT ?";
+
+    public static final String EXPORT_FEEDBACK = "SELECT CLD_FEEDBACK.ID, CLD_FEEDBACK.MESSAGE, CLD_FEEDBACK.EMAIL, " +
+            "CLD_FEEDBACK.CONTACT_NO, CLD_FEEDBACK.USER_ID, CLD_FEEDBACK.TENANT_ID, CLD_FEEDBACK.UUID, " +
+            "CLD_FEEDBACK.TIME_CREATED, CLD_FEEDBACK.VERSION, CLD_FEEDBACK_TAGS.TAG FROM CLD_FEEDBACK LEFT JOIN " +
+            "CLD_FEEDBACK_TAG_MAPPINGS ON CLD_FEEDBACK_TAG_MAPPINGS.FEEDBACK_ID = CLD_FEEDBACK.ID LEFT JOIN " +
+            "CLD_FEEDBACK_TAGS ON CLD_FEEDBACK_TAGS.ID = CLD_FEEDBACK_TAG_MAPPINGS.TAG_ID";
+
+    public static final String EXPORT_FEEDBACK_TAIL = " ORDER BY CLD_FEEDBACK.ID, CLD_FEEDBACK_TAG_MAPPINGS.ID";
+
+    public static final String FILTER_BY_TENANT_ID = "TENANT_ID = ?";
+
+    public static final String FILTER_BY_EMAIL = "EMAIL LIKE ?";
+
+    public static final String FILTER_BY_EMAIL_REVERSED = "EMAIL_REVERSED LIKE ?";
+
+    public static final String FILTER_BY_EMAIL_GRAMS = "(CLD_FEEDBACK.ID IN (SELECT FEEDBACK_ID FROM " +
+            "CLD_FEEDBACK_EMAIL_GRAMS WHERE GRAM IN (%s) GROUP BY FEEDBACK_ID HAVING COUNT(GRAM) = ?) AND " +
+            "EMAIL LIKE ?)";
+
+    public static final String FILTER_BY_TIME_CREATED = "TIME_CREATED %s ?";
+
+    public static final String FILTER_BY_TIME_CREATED_RANGE = "TIME_CREATED BETWEEN ? AND ?";
+
+    public static final String FILTER_BY_TAG_ID = "EXISTS (SELECT 1 FROM CLD_FEEDBACK_TAG_MAPPINGS WHERE " +
+            "CLD_FEEDBACK_TAG_MAPPINGS.FEEDBACK_ID = CLD_FEEDBACK.ID AND CLD_FEEDBACK_TAG_MAPPINGS.TAG_ID = ?)";
+
+    public static final String FILTER_BY_TAG_IDS = "EXISTS (SELECT 1 FROM CLD_FEEDBACK_TAG_MAPPINGS WHERE " +
+            "CLD_FEEDBACK_TAG_MAPPINGS.FEEDBACK_ID = CLD_FEEDBACK.ID AND CLD_FEEDBACK_TAG_MAPPINGS.TAG_ID IN (%s))";
+
+    public static final String FILTER_BY_TAG = "EXISTS (SELECT 1 FROM CLD_FEEDBACK_TAG_MAPPINGS INNER JOIN " +
+            "CLD_FEEDBACK_TAGS ON CLD_FEEDBACK_TAGS.ID = CLD_FEEDBACK_TAG_MAPPINGS.TAG_ID WHERE " +
+            "CLD_FEEDBACK_TAG_MAPPINGS.FEEDBACK_ID = CLD_FEEDBACK.ID AND CLD_FEEDBACK_TAGS.TAG LIKE ?)";
+
+    // Matches the entries with all the distinct terms bound to the IN clause, followed by the number of the terms.
+    // Unused placeholders of the IN clause are bound to null, so that a filter shape has a fixed set of parameters.
+    public static final String FILTER_BY_MESSAGE_TERMS = "CLD_FEEDBACK.ID IN (SELECT FEEDBACK_ID FROM " +
+            "CLD_FEEDBACK_MESSAGE_TERMS WHERE TERM IN (%s) GROUP BY FEEDBACK_ID HAVING COUNT(TERM) = ?)";
+
+    public static final String FILTER_BY_MESSAGE_PHRASE = "LOWER(CLD_FEEDBACK.MESSAGE) LIKE ?";
+
+    public static final String SEEK_BY_ID_ASC = "ID > ?";
+
+    public static final String SEEK_BY_ID_DESC = "ID < ?";
+
+    public static final String SEEK_BY_TIME_CREATED_ASC = "(TIME_CREATED > ? OR (TIME_CREATED = ? AND ID > ?))";
+
+    public static final String SEEK_BY_TIME_CREATED_DESC = "(TIME_CREATED < ? OR (TIME_CREATED = ? AND ID < ?))";
+
+    public static final String FILTER_BY_UNARCHIVED_ID = "ID > ?";
+
+    public static final String FILTER_BY_TIME_CREATED_BEFORE = "TIME_CREATED < ?";
+
+    public static final String FILTER_BY_TIME_CREATED_FROM = "TIME_CREATED >= ?";
+
     public static final String GET_FEEDBACK_TAGS_FROM_ID = "SELECT TAG FROM CLD_FEEDBACK_TAGS INNER JOIN " +
             "CLD_FEEDBACK_TAG_MAPPINGS ON CLD_FEEDBACK_TAGS.ID = CLD_FEEDBACK_TAG_MAPPINGS.TAG_ID WHERE FEEDBACK_ID =" +
             " ?";
 
-    public static final String REMOVE_FEEDBACK = "DELETE FROM CLD_FEEDBACK WHERE UUID = ?";
+    public static final String GET_FEEDBACK_TAGS_FROM_IDS = "SELECT FEEDBACK_ID, TAG FROM CLD_FEEDBACK_TAGS INNER " +
+            "JOIN CLD_FEEDBACK_TAG_MAPPINGS ON CLD_FEEDBACK_TAGS.ID = CLD_FEEDBACK_TAG_MAPPINGS.TAG_ID WHERE " +
+            "FEEDBACK_ID IN (%s) ORDER BY FEEDBACK_ID, CLD_FEEDBACK_TAG_MAPPINGS.ID";
+
+    public static final String REMOVE_FEEDBACK = "DELETE FROM CLD_FEEDBACK WHERE ID = ?";
 
     public static final String REMOVE_FEEDBACK_TAG_MAPPINGS = "DELETE FROM CLD_FEEDBACK_TAG_MAPPINGS WHERE " +
             "FEEDBACK_ID = ?";
 
+    public static final String REMOVE_FEEDBACK_TAG_MAPPINGS_BY_TAG_IDS = "DELETE FROM CLD_FEEDBACK_TAG_MAPPINGS " +
+            "WHERE FEEDBACK_ID = ? AND TAG_ID IN (%s)";
+
     public static final String CHECK_RESOURCE_EXISTS = "SELECT ID FROM CLD_FEEDBACK WHERE UUID = ?";
 
+    public static final String LOCK_FEEDBACK = "SELECT ID FROM CLD_FEEDBACK WHERE UUID = ? FOR UPDATE";
+
+    public static final String LOCK_FEEDBACK_IN_TENANT =
+            "SELECT ID FROM CLD_FEEDBACK WHERE UUID = ? AND TENANT_ID = ? FOR UPDATE";
+
     public static final String GET_FEEDBACK_COUNT = "SELECT COUNT(UUID) FROM CLD_FEEDBACK ";
 
-    public static final String GET_FEEDBACK_COUNT_WITH_TAGS = "SELECT COUNT(UUID) FROM CLD_FEEDBACK INNER JOIN " +
-            "CLD_FEEDBACK_TAG_MAPPINGS ON CLD_FEEDBACK.ID = CLD_FEEDBACK_TAG_MAPPINGS.FEEDBACK_ID INNER JOIN " +
-            "CLD_FEEDBACK_TAGS ON CLD_FEEDBACK_TAG_MAPPINGS.TAG_IS = CLD_FEEDBACK_TAGS.ID ";
+    // The stored fields of an entry which are not given with an update, with a row per tag of the entry
+    public static final String GET_FEEDBACK_STORED_STATE = "SELECT CLD_FEEDBACK.ID, CLD_FEEDBACK.USER_ID, " +
+            "CLD_FEEDBACK.TENANT_ID, CLD_FEEDBACK.TIME_CREATED, CLD_FEEDBACK.VERSION, " +
+            "CAST(CLD_FEEDBACK.TIME_CREATED AS DATE), CLD_FEEDBACK_TAG_MAPPINGS.TAG_ID FROM CLD_FEEDBACK LEFT JOIN " +
+            "CLD_FEEDBACK_TAG_MAPPINGS ON CLD_FEEDBACK_TAG_MAPPINGS.FEEDBACK_ID = CLD_FEEDBACK.ID WHERE " +
+            "CLD_FEEDBACK.UUID = ?";
+
+    public static final String GET_FEEDBACK_STORED_STATE_IN_TENANT =
+            GET_FEEDBACK_STORED_STATE + " AND CLD_FEEDBACK.TENANT_ID = ?";
+
+    public static final String UPDATE_FEEDBACK_COUNTER = "UPDATE CLD_FEEDBACK_COUNTERS SET FEEDBACK_COUNT = " +
+            "FEEDBACK_COUNT + ? WHERE TENANT_ID = ? AND TAG_ID = ?";
+
+    public static final String INSERT_FEEDBACK_COUNTER =
+            "INSERT INTO CLD_FEEDBACK_COUNTERS (TENANT_ID, TAG_ID, FEEDBACK_COUNT) VALUES (?,?,?)";
+
+    public static final String SET_FEEDBACK_COUNTER =
+            "UPDATE CLD_FEEDBACK_COUNTERS SET FEEDBACK_COUNT = ? WHERE TENANT_ID = ? AND TAG_ID = ?";
+
+    public static final String GET_FEEDBACK_COUNTER =
+            "SELECT SUM(FEEDBACK_COUNT) FROM CLD_FEEDBACK_COUNTERS WHERE TAG_ID = ?";
+
+    public static final String GET_TENANT_FEEDBACK_COUNTER =
+            "SELECT FEEDBACK_COUNT FROM CLD_FEEDBACK_COUNTERS WHERE TENANT_ID = ? AND TAG_ID = ?";
+
+    public static final String LIST_FEEDBACK_TENANTS = "SELECT DISTINCT TENANT_ID FROM CLD_FEEDBACK";
+
+    public static final String LIST_COUNTER_TENANTS = "SELECT DISTINCT TENANT_ID FROM CLD_FEEDBACK_COUNTERS";
+
+    public static final String LIST_DAILY_COUNTER_TENANTS =
+            "SELECT DISTINCT TENANT_ID FROM CLD_FEEDBACK_DAILY_COUNTERS";
+
+    public static final String LIST_UNCOUNTED_FEEDBACK_TENANTS = "SELECT DISTINCT TENANT_ID FROM CLD_FEEDBACK " +
+            "WHERE NOT EXISTS (SELECT TENANT_ID FROM CLD_FEEDBACK_COUNTERS WHERE CLD_FEEDBACK_COUNTERS.TENANT_ID = " +
+            "CLD_FEEDBACK.TENANT_ID AND CLD_FEEDBACK_COUNTERS.TAG_ID = ?)";
+
+    public static final String LOCK_TENANT_FEEDBACK_COUNTERS =
+            "SELECT TAG_ID, FEEDBACK_COUNT FROM CLD_FEEDBACK_COUNTERS WHERE TENANT_ID = ? FOR UPDATE";
+
+    public static final String COUNT_TENANT_FEEDBACK = "SELECT COUNT(ID) FROM CLD_FEEDBACK WHERE TENANT_ID = ?";
+
+    public static final String COUNT_TENANT_FEEDBACK_BY_TAG = "SELECT CLD_FEEDBACK_TAG_MAPPINGS.TAG_ID, " +
+            "COUNT(CLD_FEEDBACK.ID) FROM CLD_FEEDBACK INNER JOIN CLD_FEEDBACK_TAG_MAPPINGS ON " +
+            "CLD_FEEDBACK_TAG_MAPPINGS.FEEDBACK_ID = CLD_FEEDBACK.ID WHERE CLD_FEEDBACK.TENANT_ID = ? GROUP BY " +
+            "CLD_FEEDBACK_TAG_MAPPINGS.TAG_ID";
+
+    public static final String GET_FEEDBACK_COUNTS_BY_TAG = "SELECT CLD_FEEDBACK_TAGS.TAG, " +
+            "SUM(CLD_FEEDBACK_COUNTERS.FEEDBACK_COUNT) FROM CLD_FEEDBACK_COUNTERS INNER JOIN CLD_FEEDBACK_TAGS ON " +
+            "CLD_FEEDBACK_TAGS.ID = CLD_FEEDBACK_COUNTERS.TAG_ID GROUP BY CLD_FEEDBACK_TAGS.TAG";
+
+    public static final String GET_TENANT_FEEDBACK_COUNTS_BY_TAG = "SELECT CLD_FEEDBACK_TAGS.TAG, " +
+            "CLD_FEEDBACK_COUNTERS.FEEDBACK_COUNT FROM CLD_FEEDBACK_COUNTERS INNER JOIN CLD_FEEDBACK_TAGS ON " +
+            "CLD_FEEDBACK_TAGS.ID = CLD_FEEDBACK_COUNTERS.TAG_ID WHERE CLD_FEEDBACK_COUNTERS.TENANT_ID = ?";
+
+    public static final String GET_FEEDBACK_COUNTS_BY_TENANT =
+            "SELECT TENANT_ID, FEEDBACK_COUNT FROM CLD_FEEDBACK_COUNTERS WHERE TAG_ID = ?";
+
+    public static final String UPDATE_DAILY_FEEDBACK_COUNTER = "UPDATE CLD_FEEDBACK_DAILY_COUNTERS SET " +
+            "FEEDBACK_COUNT = FEEDBACK_COUNT + ? WHERE TENANT_ID = ? AND DAY_CREATED = ?";
+
+    public static final String INSERT_DAILY_FEEDBACK_COUNTER =
+            "INSERT INTO CLD_FEEDBACK_DAILY_COUNTERS (TENANT_ID, DAY_CREATED, FEEDBACK_COUNT) VALUES (?,?,?)";
+
+    public static final String SET_DAILY_FEEDBACK_COUNTER = "UPDATE CLD_FEEDBACK_DAILY_COUNTERS SET " +
+            "FEEDBACK_COUNT = ? WHERE TENANT_ID = ? AND DAY_CREATED = ?";
+
+    public static final String GET_TENANT_DAILY_FEEDBACK_COUNTER =
+            "SELECT FEEDBACK_COUNT FROM CLD_FEEDBACK_DAILY_COUNTERS WHERE TENANT_ID = ? AND DAY_CREATED = ?";
+
+    public static final String LOCK_TENANT_DAILY_FEEDBACK_COUNTERS =
+            "SELECT DAY_CREATED, FEEDBACK_COUNT FROM CLD_FEEDBACK_DAILY_COUNTERS WHERE TENANT_ID = ? FOR UPDATE";
+
+    public static final String COUNT_TENANT_FEEDBACK_BY_DAY = "SELECT CAST(TIME_CREATED AS DATE), COUNT(ID) FROM " +
+            "CLD_FEEDBACK WHERE TENANT_ID = ? GROUP BY CAST(TIME_CREATED AS DATE)";
+
+    public static final String COUNT_FEEDBACK_BY_TENANT_AND_DAY_FROM_UUIDS = "SELECT TENANT_ID, " +
+            "CAST(TIME_CREATED AS DATE), COUNT(ID) FROM CLD_FEEDBACK WHERE UUID IN (%s) GROUP BY TENANT_ID, " +
+            "CAST(TIME_CREATED AS DATE)";
+
+    public static final String GET_FEEDBACK_COUNTS_BY_DAY = "SELECT DAY_CREATED, SUM(FEEDBACK_COUNT) FROM " +
+            "CLD_FEEDBACK_DAILY_COUNTERS WHERE DAY_CREATED >= ? AND DAY_CREATED <= ? GROUP BY DAY_CREATED";
+
+    public static final String GET_TENANT_FEEDBACK_COUNTS_BY_DAY = "SELECT DAY_CREATED, FEEDBACK_COUNT FROM " +
+            "CLD_FEEDBACK_DAILY_COUNTERS WHERE TENANT_ID = ? AND DAY_CREATED >= ? AND DAY_CREATED <= ?";
+
+    public static final String GET_PURGE_PROGRESS =
+            "SELECT LAST_PURGED_ID FROM CLD_FEEDBACK_PURGE_PROGRESS WHERE SCOPE = ?";
+
+    public static final String LOCK_PURGE_PROGRESS =
+            "SELECT LAST_PURGED_ID FROM CLD_FEEDBACK_PURGE_PROGRESS WHERE SCOPE = ? FOR UPDATE";
+
+    public static final String INSERT_PURGE_PROGRESS =
+            "INSERT INTO CLD_FEEDBACK_PURGE_PROGRESS (SCOPE, LAST_PURGED_ID, PURGED_COUNT) VALUES (?,0,0)";
+
+    public static final String UPDATE_PURGE_PROGRESS = "UPDATE CLD_FEEDBACK_PURGE_PROGRESS SET LAST_PURGED_ID = ?, " +
+            "PURGED_COUNT = PURGED_COUNT + ?, TIME_UPDATED = CURRENT_TIMESTAMP WHERE SCOPE = ?";
+
+    public static final String GET_IMPORT_PROGRESS =
+            "SELECT FILE_OFFSET FROM CLD_FEEDBACK_IMPORT_PROGRESS WHERE IMPORT_ID = ?";
+
+    public static final String INSERT_IMPORT_PROGRESS = "INSERT INTO CLD_FEEDBACK_IMPORT_PROGRESS (IMPORT_ID, " +
+            "FILE_OFFSET, IMPORTED_COUNT, REJECTED_COUNT) VALUES (?,?,?,?)";
+
+    public static final String UPDATE_IMPORT_PROGRESS = "UPDATE CLD_FEEDBACK_IMPORT_PROGRESS SET FILE_OFFSET = ?, " +
+            "IMPORTED_COUNT = IMPORTED_COUNT + ?, REJECTED_COUNT = REJECTED_COUNT + ?, " +
+            "TIME_UPDATED = CURRENT_TIMESTAMP WHERE IMPORT_ID = ? AND FILE_OFFSET = ?";
+
+    public static final String INSERT_MESSAGE_TERM =
+            "INSERT INTO CLD_FEEDBACK_MESSAGE_TERMS (TERM, TERM_FREQUENCY, FEEDBACK_ID) VALUES (?,?,?)";
+
+    public static final String INSERT_MESSAGE_TERM_BY_UUID = "INSERT INTO CLD_FEEDBACK_MESSAGE_TERMS (TERM, " +
+            "TERM_FREQUENCY, FEEDBACK_ID) SELECT ?, ?, ID FROM CLD_FEEDBACK WHERE UUID = ?";
+
+    public static final String REMOVE_MESSAGE_TERMS = "DELETE FROM CLD_FEEDBACK_MESSAGE_TERMS WHERE FEEDBACK_ID = ?";
+
+    public static final String REMOVE_MESSAGE_TERMS_IN_RANGE =
+            "DELETE FROM CLD_FEEDBACK_MESSAGE_TERMS WHERE FEEDBACK_ID > ? AND FEEDBACK_ID <= ?";
+
+    public static final String LOCK_MESSAGES_FROM_ID =
+            "SELECT ID, MESSAGE FROM CLD_FEEDBACK WHERE ID > ? ORDER BY ID LIMIT ? FOR UPDATE";
+
+    public static final String COUNT_MESSAGE_TERM_ENTRIES = "SELECT TERM, COUNT(FEEDBACK_ID) FROM " +
+            "CLD_FEEDBACK_MESSAGE_TERMS WHERE TERM IN (%s) GROUP BY TERM";
+
+    // Ranks the entries with all the terms by the sum of the frequencies of the terms weighted by the given weights,
+    // followed by the conditions on the matched entries
+    public static final String SEARCH_MESSAGES = "SELECT MATCHES.FEEDBACK_ID FROM (SELECT FEEDBACK_ID, " +
+            "SUM(TERM_FREQUENCY * CASE TERM%s END) AS SCORE FROM CLD_FEEDBACK_MESSAGE_TERMS WHERE TERM IN (%s) " +
+            "GROUP BY FEEDBACK_ID HAVING COUNT(TERM) = ?) MATCHES INNER JOIN CLD_FEEDBACK ON CLD_FEEDBACK.ID = " +
+            "MATCHES.FEEDBACK_ID%s ORDER BY MATCHES.SCORE DESC, MATCHES.FEEDBACK_ID LIMIT ?";
+
+    public static final String SEARCH_TERM_WEIGHT = " WHEN ? THEN %.6f";
+
+    public static final String LIST_FEEDBACK_FROM_IDS = LIST_FEEDBACK + " WHERE ID IN (%s)";
+
+    public static final String INSERT_EMAIL_GRAM =
+            "INSERT INTO CLD_FEEDBACK_EMAIL_GRAMS (GRAM, FEEDBACK_ID) VALUES (?,?)";
+
+    public static final String INSERT_EMAIL_GRAM_BY_UUID = "INSERT INTO CLD_FEEDBACK_EMAIL_GRAMS (GRAM, FEEDBACK_ID) " +
+            "SELECT ?, ID FROM CLD_FEEDBACK WHERE UUID = ?";
+
+    public static final String REMOVE_EMAIL_GRAMS = "DELETE FROM CLD_FEEDBACK_EMAIL_GRAMS WHERE FEEDBACK_ID = ?";
+
+    public static final String REMOVE_EMAIL_GRAMS_IN_RANGE =
+            "DELETE FROM CLD_FEEDBACK_EMAIL_GRAMS WHERE FEEDBACK_ID > ? AND FEEDBACK_ID <= ?";
+
+    public static final String LOCK_EMAILS_FROM_ID =
+            "SELECT ID, EMAIL FROM CLD_FEEDBACK WHERE ID > ? ORDER BY ID LIMIT ? FOR UPDATE";
+
+    public static final String UPDATE_EMAIL_REVERSED = "UPDATE CLD_FEEDBACK SET EMAIL_REVERSED = ? WHERE ID = ?";
+
+    public static final String INSERT_SIGNATURE =
+            "INSERT INTO CLD_FEEDBACK_SIGNATURES (SIGNATURE, FEEDBACK_ID) VALUES (?,?)";
+
+    public static final String INSERT_SIGNATURE_BY_UUID = "INSERT INTO CLD_FEEDBACK_SIGNATURES (SIGNATURE, " +
+            "FEEDBACK_ID) SELECT ?, ID FROM CLD_FEEDBACK WHERE UUID = ?";
+
+    public static final String INSERT_SIGNATURE_BUCKET =
+            "INSERT INTO CLD_FEEDBACK_SIGNATURE_BUCKETS (BUCKET_KEY, FEEDBACK_ID) VALUES (?,?)";
+
+    public static final String INSERT_SIGNATURE_BUCKET_BY_UUID = "INSERT INTO CLD_FEEDBACK_SIGNATURE_BUCKETS " +
+            "(BUCKET_KEY, FEEDBACK_ID) SELECT ?, ID FROM CLD_FEEDBACK WHERE UUID = ?";
+
+    public static final String REMOVE_SIGNATURE = "DELETE FROM CLD_FEEDBACK_SIGNATURES WHERE FEEDBACK_ID = ?";
+
+    public static final String REMOVE_SIGNATURE_BUCKETS =
+            "DELETE FROM CLD_FEEDBACK_SIGNATURE_BUCKETS WHERE FEEDBACK_ID = ?";
+
+    public static final String REMOVE_SIGNATURES_IN_RANGE =
+            "DELETE FROM CLD_FEEDBACK_SIGNATURES WHERE FEEDBACK_ID > ? AND FEEDBACK_ID <= ?";
+
+    public static final String REMOVE_SIGNATURE_BUCKETS_IN_RANGE =
+            "DELETE FROM CLD_FEEDBACK_SIGNATURE_BUCKETS WHERE FEEDBACK_ID > ? AND FEEDBACK_ID <= ?";
+
+    public static final String GET_SIGNATURE = "SELECT CLD_FEEDBACK.ID, CLD_FEEDBACK.TENANT_ID, " +
+            "CLD_FEEDBACK_SIGNATURES.SIGNATURE FROM CLD_FEEDBACK LEFT JOIN CLD_FEEDBACK_SIGNATURES ON " +
+            "CLD_FEEDBACK_SIGNATURES.FEEDBACK_ID = CLD_FEEDBACK.ID WHERE CLD_FEEDBACK.UUID = ?";
+
+    // The entries of the tenant which share a bucket with the given entry
+    public static final String GET_SIMILARITY_CANDIDATES = "SELECT CLD_FEEDBACK_SIGNATURES.FEEDBACK_ID, " +
+            "CLD_FEEDBACK_SIGNATURES.SIGNATURE FROM CLD_FEEDBACK_SIGNATURES INNER JOIN CLD_FEEDBACK ON " +
+            "CLD_FEEDBACK.ID = CLD_FEEDBACK_SIGNATURES.FEEDBACK_ID WHERE CLD_FEEDBACK_SIGNATURES.FEEDBACK_ID IN " +
+            "(SELECT FEEDBACK_ID FROM CLD_FEEDBACK_SIGNATURE_BUCKETS WHERE BUCKET_KEY IN (%s)) AND " +
+            "CLD_FEEDBACK.ID <> ? AND CLD_FEEDBACK.TENANT_ID = ? LIMIT ?";
+
+    public static final String LIST_SIGNATURES = "SELECT CLD_FEEDBACK.UUID, CLD_FEEDBACK.TENANT_ID, " +
+            "CLD_FEEDBACK_SIGNATURES.SIGNATURE FROM CLD_FEEDBACK_SIGNATURES INNER JOIN CLD_FEEDBACK ON " +
+            "CLD_FEEDBACK.ID = CLD_FEEDBACK_SIGNATURES.FEEDBACK_ID";
+
+    public static final String GET_PURGE_CANDIDATES = "SELECT CLD_FEEDBACK.ID, CLD_FEEDBACK.UUID, " +
+            "CLD_FEEDBACK.TIME_CREATED FROM CLD_FEEDBACK WHERE CLD_FEEDBACK.ID > ?%s ORDER BY CLD_FEEDBACK.ID LIMIT ?";
+
+    // Condition of the entries purged in a chunk, followed by the condition of the tenants of the retention policy
+    public static final String PURGE_RANGE_CONDITION =
+            "CLD_FEEDBACK.ID > ? AND CLD_FEEDBACK.ID <= ? AND CLD_FEEDBACK.TIME_CREATED < ?%s";
+
+    public static final String PURGE_TENANT_CONDITION = " AND CLD_FEEDBACK.TENANT_ID = ?";
+
+    public static final String PURGE_EXCLUDED_TENANTS_CONDITION = " AND CLD_FEEDBACK.TENANT_ID NOT IN (%s)";
+
+    public static final String COUNT_PURGED_FEEDBACK_BY_TENANT =
+            "SELECT CLD_FEEDBACK.TENANT_ID, COUNT(CLD_FEEDBACK.ID) FROM CLD_FEEDBACK WHERE %s GROUP BY " +
+                    "CLD_FEEDBACK.TENANT_ID";
+
+    public static final String COUNT_PURGED_FEEDBACK_BY_TENANT_AND_TAG = "SELECT CLD_FEEDBACK.TENANT_ID, " +
+            "CLD_FEEDBACK_TAG_MAPPINGS.TAG_ID, COUNT(CLD_FEEDBACK.ID) FROM CLD_FEEDBACK_TAG_MAPPINGS INNER JOIN " +
+            "CLD_FEEDBACK ON CLD_FEEDBACK.ID = CLD_FEEDBACK_TAG_MAPPINGS.FEEDBACK_ID WHERE %s GROUP BY " +
+            "CLD_FEEDBACK.TENANT_ID, CLD_FEEDBACK_TAG_MAPPINGS.TAG_ID";
+
+    public static final String COUNT_PURGED_FEEDBACK_BY_TENANT_AND_DAY = "SELECT CLD_FEEDBACK.TENANT_ID, " +
+            "CAST(CLD_FEEDBACK.TIME_CREATED AS DATE), COUNT(CLD_FEEDBACK.ID) FROM CLD_FEEDBACK WHERE %s GROUP BY " +
+            "CLD_FEEDBACK.TENANT_ID, CAST(CLD_FEEDBACK.TIME_CREATED AS DATE)";
+
+    public static final String PURGE_FEEDBACK_TAG_MAPPINGS = "DELETE FROM CLD_FEEDBACK_TAG_MAPPINGS WHERE " +
+            "FEEDBACK_ID IN (SELECT CLD_FEEDBACK.ID FROM CLD_FEEDBACK WHERE %s)";
+
+    public static final String PURGE_FEEDBACK_MESSAGE_TERMS = "DELETE FROM CLD_FEEDBACK_MESSAGE_TERMS WHERE " +
+            "FEEDBACK_ID IN (SELECT CLD_FEEDBACK.ID FROM CLD_FEEDBACK WHERE %s)";
+
+    public static final String PURGE_FEEDBACK_EMAIL_GRAMS = "DELETE FROM CLD_FEEDBACK_EMAIL_GRAMS WHERE " +
+            "FEEDBACK_ID IN (SELECT CLD_FEEDBACK.ID FROM CLD_FEEDBACK WHERE %s)";
+
+    public static final String PURGE_FEEDBACK_SIGNATURES = "DELETE FROM CLD_FEEDBACK_SIGNATURES WHERE " +
+            "FEEDBACK_ID IN (SELECT CLD_FEEDBACK.ID FROM CLD_FEEDBACK WHERE %s)";
+
+    public static final String PURGE_FEEDBACK_SIGNATURE_BUCKETS = "DELETE FROM CLD_FEEDBACK_SIGNATURE_BUCKETS " +
+            "WHERE FEEDBACK_ID IN (SELECT CLD_FEEDBACK.ID FROM CLD_FEEDBACK WHERE %s)";
+
+    public static final String PURGE_FEEDBACK = "DELETE FROM CLD_FEEDBACK WHERE %s";
+
+    // Condition of the entries archived in a chunk, which are all the entries of a range of IDs
+    public static final String ARCHIVE_RANGE_CONDITION = "CLD_FEEDBACK.ID > ? AND CLD_FEEDBACK.ID <= ?";
+
+    public static final String LOCK_ARCHIVE_RANGE = "SELECT ID FROM CLD_FEEDBACK WHERE ID > ? AND ID <= ? FOR UPDATE";
+
+    public static final String COUNT_ARCHIVE_RANGE = "SELECT COUNT(ID) FROM CLD_FEEDBACK WHERE ID > ? AND ID <= ?";
+
+    public static final String GET_ARCHIVE_ENTRIES = EXPORT_FEEDBACK + " WHERE " + ARCHIVE_RANGE_CONDITION +
+            EXPORT_FEEDBACK_TAIL;
 }
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.dao;
+
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.archive.FeedbackArchive;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.exception.FeedbackManagementException;
+
+import java.sql.Timestamp;
+
+/**
+ * This interface accesses the data storage layer to move the old feedback entries out of the feedback table into the
+ * {@link FeedbackArchive}. The entries are archived in chunks of ascending IDs, each of which is written to a segment
+ * of the archive before it is deleted from the feedback table.
+ */
+public interface FeedbackArchiveDAO {
+
+    /**
+     * Archive the next chunk of the feedback entries which are created before the given time. The entries are written
+     * to a new segment of the archive, and deleted from the feedback table and taken off the feedback counters in a
+     * single transaction. A segment whose entries were not deleted, since the transaction of its chunk failed, is
+     * discarded before the chunk is archived.
+     *
+     * @param archive       archive the entries are moved to
+     * @param createdBefore creation time before which the entries are archived
+     * @param chunkSize     maximum number of entries archived in the chunk
+     * @return number of archived entries, which is zero once there are no more entries to be archived
+     * @throws FeedbackManagementException
+     */
+    int archiveChunk(FeedbackArchive archive, Timestamp createdBefore, int chunkSize)
+            throws FeedbackManagementException;
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.dao;
+
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.exception.FeedbackManagementException;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This interface accesses the data storage layer to maintain the number of feedback entries of each tenant, in total,
+ * by tag and by the day of creation, so that the feedback entries do not have to be scanned to count them.
+ */
+public interface FeedbackCounterDAO {
+
+    /**
+     * Add the given changes to the counters of a tenant. This should be called in the same transaction which adds or
+     * removes the counted feedback entries.
+     *
+     * @param tenantId    tenant ID
+     * @param countDeltas Map of tag ID to the change of the count of that tag. The change of the total count of the
+     *                    tenant is given under {@link FeedbackMgtConstants#TOTAL_COUNTER_TAG_ID}.
+     * @throws FeedbackManagementException
+     */
+    void updateCounters(int tenantId, Map<Integer, Integer> countDeltas) throws FeedbackManagementException;
+
+    /**
+     * Add the given changes to the daily counters of a tenant. This should be called in the same transaction which
+     * adds or removes the counted feedback entries.
+     *
+     * @param tenantId    tenant ID
+     * @param countDeltas Map of the day of creation to the change of the count of that day
+     * @throws FeedbackManagementException
+     */
+    void updateDailyCounters(int tenantId, Map<LocalDate, Integer> countDeltas) throws FeedbackManagementException;
+
+    /**
+     * Count new feedback entries in the daily counters of their tenants and days of creation. The days are read from
+     * the entries, since the creation time of an entry is set by the database. This should be called in the same
+     * transaction which adds the entries.
+     *
+     * @param feedbackUuids resource IDs of the new feedback entries
+     * @throws FeedbackManagementException
+     */
+    void addToDailyCounters(List<String> feedbackUuids) throws FeedbackManagementException;
+
+    /**
+     * Get the number of feedback entries of all the tenants with the given tag.
+     *
+     * @param tagId ID of the tag, or {@link FeedbackMgtConstants#TOTAL_COUNTER_TAG_ID} for the total count
+     * @return number of feedback entries
+     * @throws FeedbackManagementException
+     */
+    int getCount(int tagId) throws FeedbackManagementException;
+
+    /**
+     * Get the number of feedback entries of a tenant with the given tag.
+     *
+     * @param tenantId tenant ID
+     * @param tagId    ID of the tag, or {@link FeedbackMgtConstants#TOTAL_COUNTER_TAG_ID} for the total count
+     * @return number of feedback entries
+     * @throws FeedbackManagementException
+     */
+    int getCount(int tenantId, int tagId) throws FeedbackManagementException;
+
+    /**
+     * Get the number of feedback entries with each tag.
+     *
+     * @param tenantId tenant ID, or null to count the entries of all the tenants
+     * @return Map of the tag to the number of feedback entries with the tag
+     * @throws FeedbackManagementException
+     */
+    Map<String, Integer> getCountsByTag(Integer tenantId) throws FeedbackManagementException;
+
+    /**
+     * Get the number of feedback entries of each tenant.
+     *
+     * @return Map of the tenant ID to the number of feedback entries of the tenant
+     * @throws FeedbackManagementException
+     */
+    Map<Integer, Integer> getCountsByTenant() throws FeedbackManagementException;
+
+    /**
+     * Get the number of feedback entries created on each day of a range of days.
+     *
+     * @param tenantId tenant ID, or null to count the entries of all the tenants
+     * @param fromDay  first day of the range
+     * @param toDay    last day of the range
+     * @return Map of the day to the number of feedback entries created on that day
+     * @throws FeedbackManagementException
+     */
+    Map<LocalDate, Integer> getCountsByDay(Integer tenantId, LocalDate fromDay, LocalDate toDay)
+            throws FeedbackManagementException;
+
+    /**
+     * Recount the feedback entries and correct the counters which do not match, including the daily counters. The
+     * counters which are missing are added, so that the counters of existing feedback entries are backfilled. The
+     * tenants are reconciled one at a time, each in a transaction of its own which locks only the counters of that
+     * tenant.
+     *
+     * @return number of corrected counters
+     * @throws FeedbackManagementException
+     */
+    int reconcileCounters() throws FeedbackManagementException;
+
+    /**
+     * Reconcile the counters of the tenants which have feedback entries but no total counter, such as the tenants
+     * whose entries were added before the counters were introduced. This is much cheaper than reconciling every
+     * tenant, since the counted tenants are not recounted.
+     *
+     * @return number of corrected counters
+     * @throws FeedbackManagementException
+     */
+    int reconcileUncountedCounters() throws FeedbackManagementException;
+}
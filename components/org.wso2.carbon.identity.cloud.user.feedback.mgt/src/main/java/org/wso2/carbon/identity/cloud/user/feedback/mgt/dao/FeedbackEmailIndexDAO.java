@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.dao;
+
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.exception.FeedbackManagementException;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.Feedback;
+
+import java.util.List;
+
+/**
+ * This interface accesses the data storage layer to maintain the n-gram index of the feedback emails, which is
+ * maintained within the transaction which changes the email.
+ */
+public interface FeedbackEmailIndexDAO {
+
+    /**
+     * Index the email of a feedback entry.
+     *
+     * @param feedbackId auto-generated ID of the feedback entry
+     * @param email      email of the feedback entry
+     * @throws FeedbackManagementException
+     */
+    void indexEmail(int feedbackId, String email) throws FeedbackManagementException;
+
+    /**
+     * Index the emails of a list of inserted feedback entries, which are identified by their UUIDs.
+     *
+     * @param feedbackList feedback entries
+     * @throws FeedbackManagementException
+     */
+    void indexEmails(List<Feedback> feedbackList) throws FeedbackManagementException;
+
+    /**
+     * Remove the email of a feedback entry from the index.
+     *
+     * @param feedbackId auto-generated ID of the feedback entry
+     * @throws FeedbackManagementException
+     */
+    void removeEmail(int feedbackId) throws FeedbackManagementException;
+
+    /**
+     * Rebuild the index and the reversed emails from the emails of all the feedback entries. The entries are
+     * reindexed in chunks of ascending IDs, each in its own transaction.
+     *
+     * @param chunkSize number of entries reindexed in a transaction
+     * @return Number of reindexed entries
+     * @throws FeedbackManagementException
+     */
+    int rebuildIndex(int chunkSize) throws FeedbackManagementException;
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.dao;
+
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.exception.FeedbackManagementException;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.Feedback;
+
+import java.util.List;
+
+/**
+ * This interface accesses the data storage layer to import feedback entries in chunks. The offset of the input up to
+ * which each import is written is recorded together with its entries, so that an interrupted import resumes after
+ * the last written chunk.
+ */
+public interface FeedbackImportDAO {
+
+    /**
+     * Get the offset of the input up to which an import has been written.
+     *
+     * @param importId ID of the import
+     * @return offset of the input in bytes, or zero if no chunk of the import has been written
+     * @throws FeedbackManagementException
+     */
+    long getImportOffset(String importId) throws FeedbackManagementException;
+
+    /**
+     * Insert a chunk of feedback entries of an import, and move the recorded offset of the import from the offset at
+     * which the chunk starts to the offset at which it ends, in the same transaction. The chunk is rejected if the
+     * recorded offset of the import is not the offset at which the chunk starts.
+     *
+     * @param importId      ID of the import
+     * @param fromOffset    offset of the input at which the chunk starts
+     * @param toOffset      offset of the input at which the chunk ends
+     * @param feedbackList  feedback entries of the chunk
+     * @param rejectedCount number of records of the chunk which were rejected
+     * @throws FeedbackManagementException
+     */
+    void importChunk(String importId, long fromOffset, long toOffset, List<Feedback> feedbackList, int rejectedCount)
+            throws FeedbackManagementException;
+}
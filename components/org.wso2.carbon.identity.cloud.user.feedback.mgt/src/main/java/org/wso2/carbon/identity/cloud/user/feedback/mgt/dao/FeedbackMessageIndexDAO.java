@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.dao;
+
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.exception.FeedbackManagementException;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.Feedback;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.search.MessageQuery;
+
+import java.util.List;
+
+/**
+ * This interface accesses the data storage layer to maintain and search the full-text index of the feedback
+ * messages. The index maps each term of a message to the feedback entry, and is maintained within the transaction
+ * which changes the message.
+ */
+public interface FeedbackMessageIndexDAO {
+
+    /**
+     * Index the message of a feedback entry.
+     *
+     * @param feedbackId auto-generated ID of the feedback entry
+     * @param message    message of the feedback entry
+     * @throws FeedbackManagementException
+     */
+    void indexMessage(int feedbackId, String message) throws FeedbackManagementException;
+
+    /**
+     * Index the messages of a list of inserted feedback entries, which are identified by their UUIDs.
+     *
+     * @param feedbackList feedback entries
+     * @throws FeedbackManagementException
+     */
+    void indexMessages(List<Feedback> feedbackList) throws FeedbackManagementException;
+
+    /**
+     * Remove the message of a feedback entry from the index.
+     *
+     * @param feedbackId auto-generated ID of the feedback entry
+     * @throws FeedbackManagementException
+     */
+    void removeMessage(int feedbackId) throws FeedbackManagementException;
+
+    /**
+     * Rebuild the index from the messages of all the feedback entries. The entries are reindexed in chunks of
+     * ascending IDs, each in its own transaction, so that the index can be rebuilt while feedback is being written.
+     *
+     * @param chunkSize number of entries reindexed in a transaction
+     * @return Number of reindexed entries
+     * @throws FeedbackManagementException
+     */
+    int rebuildIndex(int chunkSize) throws FeedbackManagementException;
+
+    /**
+     * Search the messages for the entries which match a query, ordered by their relevance to the query.
+     *
+     * @param tenantId tenant ID, or null to search the entries of all the tenants
+     * @param query    search query
+     * @param limit    maximum number of entries
+     * @return IDs of the matching entries, the most relevant first
+     * @throws FeedbackManagementException
+     */
+    List<Integer> searchMessages(Integer tenantId, MessageQuery query, int limit) throws FeedbackManagementException;
+}
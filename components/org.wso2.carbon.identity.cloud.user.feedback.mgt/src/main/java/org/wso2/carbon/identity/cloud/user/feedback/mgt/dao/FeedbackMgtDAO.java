@@ -19,7 +19,10 @@
 package org.wso2.carbon.identity.cloud.user.feedback.mgt.dao;
 
 import org.wso2.carbon.identity.cloud.user.feedback.mgt.exception.FeedbackManagementException;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.export.FeedbackExporter;
 import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.Feedback;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.FeedbackPage;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.SimilarFeedback;
 
 import java.util.List;
 
@@ -37,7 +40,16 @@ public interface FeedbackMgtDAO {
     Feedback insertFeedbackEntry(Feedback userFeedback) throws FeedbackManagementException;
 
     /**
-     * Retrieve a list of user feedback entries according to the specified conditions.
+     * Add a list of feedback entries in a single transaction.
+     *
+     * @param userFeedbackList List of user feedback
+     * @return List of feedback entries added
+     * @throws FeedbackManagementException
+     */
+    List<Feedback> insertFeedbackEntries(List<Feedback> userFeedbackList) throws FeedbackManagementException;
+
+    /**
+     * Retrieve a list of user feedback entries according to the specified conditions, including the archived entries.
      *
      * @param filter    filter condition
      * @param limit     max entries in list
@@ -51,7 +63,87 @@ public interface FeedbackMgtDAO {
             throws FeedbackManagementException;
 
     /**
-     * Retrieve a feedback entry.
+     * Retrieve list of user feedback of a tenant according to the specified conditions.
+     *
+     * @param tenantId  tenant ID
+     * @param filter    filter condition
+     * @param limit     max entries in list
+     * @param offset    entries to skip
+     * @param sortBy    how to sort the list
+     * @param sortOrder order of sorting (ASC/DESC)
+     * @return A list of user feedback entries of the tenant
+     * @throws FeedbackManagementException
+     */
+    List<Feedback> listFeedbackEntries(int tenantId, String filter, int limit, int offset, String sortBy,
+                                       String sortOrder) throws FeedbackManagementException;
+
+    /**
+     * Retrieve a page of user feedback according to the specified conditions using cursor based pagination. Instead
+     * of skipping a number of entries, the page starts right after the entry pointed to by the cursor.
+     *
+     * @param filter    filter condition
+     * @param limit     max entries in page
+     * @param cursor    cursor returned with the previous page, or null to retrieve the first page
+     * @param sortBy    how to sort the list
+     * @param sortOrder order of sorting (ASC/DESC)
+     * @return A page of user feedback entries with the cursor of the next page
+     * @throws FeedbackManagementException
+     */
+    FeedbackPage listFeedbackEntries(String filter, int limit, String cursor, String sortBy, String sortOrder)
+            throws FeedbackManagementException;
+
+    /**
+     * Retrieve a page of user feedback of a tenant according to the specified conditions using cursor based
+     * pagination.
+     *
+     * @param tenantId  tenant ID
+     * @param filter    filter condition
+     * @param limit     max entries in page
+     * @param cursor    cursor returned with the previous page, or null to retrieve the first page
+     * @param sortBy    how to sort the list
+     * @param sortOrder order of sorting (ASC/DESC)
+     * @return A page of user feedback entries of the tenant with the cursor of the next page
+     * @throws FeedbackManagementException
+     */
+    FeedbackPage listFeedbackEntries(int tenantId, String filter, int limit, String cursor, String sortBy,
+                                     String sortOrder) throws FeedbackManagementException;
+
+    /**
+     * Search the messages of the feedback entries for a query of words and "quoted phrases". The entries with all the
+     * words and phrases of the query are returned, the most relevant first.
+     *
+     * @param query search query
+     * @param limit max entries in list
+     * @return A list of matching user feedback entries
+     * @throws FeedbackManagementException
+     */
+    List<Feedback> searchFeedbackEntries(String query, int limit) throws FeedbackManagementException;
+
+    /**
+     * Search the messages of the feedback entries of a tenant for a query of words and "quoted phrases".
+     *
+     * @param tenantId tenant ID
+     * @param query    search query
+     * @param limit    max entries in list
+     * @return A list of matching user feedback entries of the tenant
+     * @throws FeedbackManagementException
+     */
+    List<Feedback> searchFeedbackEntries(int tenantId, String query, int limit) throws FeedbackManagementException;
+
+    /**
+     * Find the feedback entries whose messages are near-duplicates of the message of a feedback entry, in the tenant
+     * of the entry. The similarity of the messages is estimated from their MinHash signatures.
+     *
+     * @param feedbackID Resource ID
+     * @param threshold  minimum estimated similarity, greater than 0 and at most 1
+     * @return A list of similar user feedback entries, the most similar first
+     * @throws FeedbackManagementException
+     */
+    List<SimilarFeedback> findSimilarFeedbackEntries(String feedbackID, double threshold)
+            throws FeedbackManagementException;
+
+    /**
+     * Retrieve a feedback entry, which may be an archived entry.
      *
      * @param feedbackID Resource ID
      * @return Feedback entry
@@ -59,6 +151,16 @@ public interface FeedbackMgtDAO {
      */
     Feedback getFeedbackEntry(String feedbackID) throws FeedbackManagementException;
 
+    /**
+     * Retrieve a feedback entry of a tenant.
+     *
+     * @param tenantId   tenant ID
+     * @param feedbackID Resource ID
+     * @return Feedback entry, or null if the entry does not exist in the tenant
+     * @throws FeedbackManagementException
+     */
+    Feedback getFeedbackEntry(int tenantId, String feedbackID) throws FeedbackManagementException;
+
     /**
      * Delete a feedback entry using the feedback ID.
      *
@@ -68,17 +170,31 @@ public interface FeedbackMgtDAO {
      */
     String deleteFeedbackEntry(String feedbackID) throws FeedbackManagementException;
 
+    /**
+     * Delete a feedback entry of a tenant using the feedback ID.
+     *
+     * @param tenantId   tenant ID
+     * @param feedbackID Resource ID
+     * @return Resource ID of the feedback deleted
+     * @throws FeedbackManagementException
+     */
+    String deleteFeedbackEntry(int tenantId, String feedbackID) throws FeedbackManagementException;
+
     /**
      * Update a feedback entry. using the Feedback ID
+     * <p>
+     * If the given feedback has a version, the entry is updated only if it is still of that version, so that a
+     * concurrent change is not overwritten. Otherwise the update fails with a version conflict error.
      *
      * @param feedbackID    Resource ID
      * @param feedbackEntry Feedback object with updated details
+     * @return Updated feedback entry with its new version
      * @throws FeedbackManagementException
      */
     Feedback updateFeedbackEntry(String feedbackID, Feedback feedbackEntry) throws FeedbackManagementException;
 
     /**
-     * Get the count of Feedback entries that match the given condition.
+     * Get the count of Feedback entries that match the given condition, including the archived entries.
      *
      * @param filter Condition to filter records
      * @return Number of matching entries
@@ -86,6 +202,39 @@ public interface FeedbackMgtDAO {
      */
     Integer countListResults(String filter) throws FeedbackManagementException;
 
+    /**
+     * Get the count of Feedback entries of a tenant that match the given condition.
+     *
+     * @param tenantId tenant ID
+     * @param filter   Condition to filter records
+     * @return Number of matching entries of the tenant
+     * @throws FeedbackManagementException
+     */
+    Integer countListResults(int tenantId, String filter) throws FeedbackManagementException;
+
+    /**
+     * Export the feedback entries that match the given condition, in the order of their creation. The entries are
+     * streamed from the database to the exporter, so that they are never held in memory together.
+     *
+     * @param filter   Condition to filter records
+     * @param exporter exporter the entries are written to
+     * @return Number of exported entries
+     * @throws FeedbackManagementException
+     */
+    int exportFeedbackEntries(String filter, FeedbackExporter exporter) throws FeedbackManagementException;
+
+    /**
+     * Export the feedback entries of a tenant that match the given condition, in the order of their creation.
+     *
+     * @param tenantId tenant ID
+     * @param filter   Condition to filter records
+     * @param exporter exporter the entries are written to
+     * @return Number of exported entries
+     * @throws FeedbackManagementException
+     */
+    int exportFeedbackEntries(int tenantId, String filter, FeedbackExporter exporter)
+            throws FeedbackManagementException;
+
     /**
      * Check if a feedback exists in the db for the given Id.
      *
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.dao;
+
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.exception.FeedbackManagementException;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.FeedbackRetentionPolicy;
+
+import java.sql.Timestamp;
+
+/**
+ * This interface accesses the data storage layer to purge the feedback entries which are past their retention. The
+ * entries are purged in chunks of ascending IDs, and the last purged ID of each retention policy is recorded, so that
+ * an interrupted purge resumes after the last purged chunk.
+ */
+public interface FeedbackRetentionDAO {
+
+    /**
+     * Purge the next chunk of the feedback entries of a retention policy which are created before the given time, and
+     * record the progress of the policy in the same transaction.
+     *
+     * @param policy        retention policy
+     * @param createdBefore creation time before which the entries are purged
+     * @param chunkSize     maximum number of entries purged in the chunk
+     * @return number of purged entries, which is zero once the policy has no more entries to be purged
+     * @throws FeedbackManagementException
+     */
+    int purgeChunk(FeedbackRetentionPolicy policy, Timestamp createdBefore, int chunkSize)
+            throws FeedbackManagementException;
+
+    /**
+     * Get the ID of the last feedback entry purged under a retention scope.
+     *
+     * @param scope scope of the retention policy
+     * @return ID of the last purged entry, or zero if no entries have been purged under the scope
+     * @throws FeedbackManagementException
+     */
+    int getLastPurgedId(String scope) throws FeedbackManagementException;
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.dao;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.commons.lang3.tuple.Triple;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.exception.FeedbackManagementException;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.Feedback;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.search.MessageSignature;
+
+import java.util.List;
+
+/**
+ * This interface accesses the data storage layer to maintain the MinHash signatures of the feedback messages and
+ * their locality sensitive hashing buckets, which are maintained within the transaction which changes the message.
+ */
+public interface FeedbackSimilarityDAO {
+
+    /**
+     * Index the signature of the message of a feedback entry.
+     *
+     * @param feedbackId auto-generated ID of the feedback entry
+     * @param message    message of the feedback entry
+     * @throws FeedbackManagementException
+     */
+    void indexSignature(int feedbackId, String message) throws FeedbackManagementException;
+
+    /**
+     * Index the signatures of the messages of a list of inserted feedback entries, which are identified by their
+     * UUIDs.
+     *
+     * @param feedbackList feedback entries
+     * @throws FeedbackManagementException
+     */
+    void indexSignatures(List<Feedback> feedbackList) throws FeedbackManagementException;
+
+    /**
+     * Remove the signature of a feedback entry.
+     *
+     * @param feedbackId auto-generated ID of the feedback entry
+     * @throws FeedbackManagementException
+     */
+    void removeSignature(int feedbackId) throws FeedbackManagementException;
+
+    /**
+     * Rebuild the signatures from the messages of all the feedback entries. The entries are reindexed in chunks of
+     * ascending IDs, each in its own transaction.
+     *
+     * @param chunkSize number of entries reindexed in a transaction
+     * @return Number of reindexed entries
+     * @throws FeedbackManagementException
+     */
+    int rebuildIndex(int chunkSize) throws FeedbackManagementException;
+
+    /**
+     * Find the entries of the same tenant whose messages are similar to the message of a feedback entry. Only the
+     * entries which share a bucket with the entry are compared, so that the cost of a lookup does not grow with the
+     * number of entries.
+     *
+     * @param feedbackID Resource ID
+     * @param threshold  minimum estimated similarity
+     * @return IDs of the similar entries with their estimated similarity, the most similar first
+     * @throws FeedbackManagementException
+     */
+    List<Pair<Integer, Double>> findSimilar(String feedbackID, double threshold) throws FeedbackManagementException;
+
+    /**
+     * List the signatures of all the feedback entries.
+     *
+     * @return UUID, tenant ID and signature of each entry with a signature
+     * @throws FeedbackManagementException
+     */
+    List<Triple<String, Integer, MessageSignature>> listSignatures() throws FeedbackManagementException;
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.dao;
+
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.exception.FeedbackManagementException;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * This interface accesses the data storage layer to resolve and store feedback tags.
+ */
+public interface FeedbackTagDAO {
+
+    /**
+     * Get the ID of an existing tag.
+     *
+     * @param tag name of the tag
+     * @return ID of the tag, or null if the tag does not exist
+     * @throws FeedbackManagementException
+     */
+    Integer getTagId(String tag) throws FeedbackManagementException;
+
+    /**
+     * Get the IDs of a set of existing tags. Tags which do not exist are not included in the result.
+     *
+     * @param tags names of the tags
+     * @return Map of tag name to tag ID
+     * @throws FeedbackManagementException
+     */
+    Map<String, Integer> getTagIds(Collection<String> tags) throws FeedbackManagementException;
+
+    /**
+     * Get the ID of a tag, adding the tag if it does not exist yet.
+     *
+     * @param tag name of the tag
+     * @return ID of the tag
+     * @throws FeedbackManagementException
+     */
+    Integer getOrAddTagId(String tag) throws FeedbackManagementException;
+
+    /**
+     * Get the IDs of a set of tags, adding the tags which do not exist yet.
+     *
+     * @param tags names of the tags
+     * @return Map of tag name to the ID of the tag
+     * @throws FeedbackManagementException
+     */
+    Map<String, Integer> getOrAddTagIds(Collection<String> tags) throws FeedbackManagementException;
+
+    /**
+     * Load tags from the data storage into the tag cache.
+     *
+     * @param maxTags maximum number of tags to load
+     * @return Number of tags loaded
+     * @throws FeedbackManagementException
+     */
+    int loadTagCache(int maxTags) throws FeedbackManagementException;
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.impl;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.database.utils.jdbc.JdbcTemplate;
+import org.wso2.carbon.database.utils.jdbc.QueryFilter;
+import org.wso2.carbon.database.utils.jdbc.exceptions.DataAccessException;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.archive.FeedbackArchive;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.archive.FeedbackArchiveSegment;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.cache.FeedbackEntryCache;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants.ErrorMessages;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtSQLConstants;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.FeedbackArchiveDAO;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.exception.FeedbackManagementException;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.Feedback;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.util.FeedbackExceptionManagementUtil;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.util.JdbcUtils;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implementation of {@link FeedbackArchiveDAO}. The entries of a chunk are all the entries of a range of IDs, which
+ * starts after the last archived ID and ends before the first entry which is not old enough to be archived.
+ */
+public class FeedbackArchiveDAOImpl implements FeedbackArchiveDAO {
+
+    private static final Log log = LogFactory.getLog(FeedbackArchiveDAOImpl.class);
+    private final FeedbackRetentionDAOImpl retentionDAO = new FeedbackRetentionDAOImpl();
+
+    @Override
+    public int archiveChunk(FeedbackArchive archive, Timestamp createdBefore, int chunkSize)
+            throws FeedbackManagementException {
+
+        return JdbcUtils.executeInTransaction(() -> {
+            JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
+            try {
+                discardUncommittedSegment(jdbcTemplate, archive);
+                int fromId = archive.getLastArchivedId();
+
+                List<Integer> candidateIds = jdbcTemplate.executeQuery(
+                        String.format(FeedbackMgtSQLConstants.GET_PURGE_CANDIDATES, ""),
+                        (resultSet, rowNumber) -> resultSet.getTimestamp(3).before(createdBefore) ?
+                                resultSet.getInt(1) : null,
+                        preparedStatement -> {
+                            preparedStatement.setInt(1, fromId);
+                            preparedStatement.setInt(2, chunkSize);
+                        });
+                int toId = fromId;
+                for (Integer candidateId : candidateIds) {
+                    if (candidateId == null) {
+                        break;
+                    }
+                    toId = candidateId;
+                }
+                if (toId == fromId) {
+                    return 0;
+                }
+
+                // The entries of the range are locked before they are read, so that they are not changed before
+                // they are deleted.
+                int rangeToId = toId;
+                QueryFilter rangeFilter = preparedStatement -> {
+                    preparedStatement.setInt(1, fromId);
+                    preparedStatement.setInt(2, rangeToId);
+                };
+                jdbcTemplate.executeQuery(FeedbackMgtSQLConstants.LOCK_ARCHIVE_RANGE,
+                        (resultSet, rowNumber) -> null, rangeFilter);
+                Map<Integer, Feedback> entries = new LinkedHashMap<>();
+                jdbcTemplate.executeQuery(FeedbackMgtSQLConstants.GET_ARCHIVE_ENTRIES, (resultSet, rowNumber) -> {
+                    Feedback feedback = entries.get(resultSet.getInt(1));
+                    if (feedback == null) {
+                        feedback = new Feedback();
+                        feedback.setId(resultSet.getInt(1));
+                        feedback.setMessage(resultSet.getString(2));
+                        feedback.setEmail(resultSet.getString(3));
+                        feedback.setContactNo(resultSet.getString(4));
+                        feedback.setUserId(resultSet.getString(5));
+                        feedback.setTenantId(resultSet.getInt(6));
+                        feedback.setUuid(JdbcUtils.getStoredUuid(resultSet, 7));
+                        feedback.setTimeCreated(resultSet.getString(8));
+                        feedback.setVersion(resultSet.getInt(9));
+                        feedback.setTags(new ArrayList<>());
+                        entries.put(feedback.getId(), feedback);
+                    }
+                    String tag = resultSet.getString(10);
+                    if (tag != null) {
+                        feedback.getTags().add(tag);
+                    }
+                    return null;
+                }, rangeFilter);
+
+                archive.addSegment(fromId, rangeToId, new ArrayList<>(entries.values()));
+                int archivedCount = retentionDAO.deleteEntries(jdbcTemplate,
+                        FeedbackMgtSQLConstants.ARCHIVE_RANGE_CONDITION, rangeFilter);
+                JdbcUtils.runAfterCommit(() -> {
+                    FeedbackEntryCache feedbackCache = FeedbackEntryCache.getInstance();
+                    entries.values().forEach(feedback -> feedbackCache.invalidate(feedback.getUuid()));
+                });
+
+                if (log.isDebugEnabled()) {
+                    log.debug("Archived " + archivedCount + " feedback entries with IDs up to " + rangeToId + ".");
+                }
+                return archivedCount;
+            } catch (DataAccessException e) {
+                throw FeedbackExceptionManagementUtil.buildServerException(ErrorMessages.ERROR_CODE_ARCHIVE_FEEDBACK,
+                        createdBefore.toString(), e);
+            }
+        });
+    }
+
+    /**
+     * Remove the last segment of the archive if its entries are still in the feedback table, since the transaction
+     * which was to delete them failed after the segment was written.
+     *
+     * @param jdbcTemplate JDBC template of the transaction
+     * @param archive      feedback archive
+     * @throws DataAccessException
+     * @throws FeedbackManagementException
+     */
+    private void discardUncommittedSegment(JdbcTemplate jdbcTemplate, FeedbackArchive archive)
+            throws DataAccessException, FeedbackManagementException {
+
+        FeedbackArchiveSegment lastSegment = archive.getLastSegment();
+        if (lastSegment == null) {
+            return;
+        }
+        Integer remainingCount = jdbcTemplate.fetchSingleRecord(FeedbackMgtSQLConstants.COUNT_ARCHIVE_RANGE,
+                (resultSet, rowNumber) -> resultSet.getInt(1), preparedStatement -> {
+                    preparedStatement.setInt(1, lastSegment.getFromId());
+                    preparedStatement.setInt(2, lastSegment.getToId());
+                });
+        if (remainingCount != null && remainingCount > 0) {
+            log.warn("Discarding the feedback archive segment: " + lastSegment.getPath() + " since its entries " +
+                    "were not deleted from the feedback table.");
+            archive.removeLastSegment();
+        }
+    }
+}
@@ -0,0 +1,672 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.impl;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.database.utils.jdbc.JdbcTemplate;
+import org.wso2.carbon.database.utils.jdbc.exceptions.DataAccessException;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.archive.FeedbackArchive;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants.ErrorMessages;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtSQLConstants;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.FeedbackCounterDAO;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.exception.FeedbackManagementException;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.internal.FeedbackManagementServiceDataHolder;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.util.FeedbackExceptionManagementUtil;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.util.JdbcUtils;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * This class access the CLD_FEEDBACK_COUNTERS table in Feedback database to maintain the number of feedback entries of
+ * each tenant. A counter is kept per tenant and tag, and the total count of a tenant is kept under the tag ID
+ * {@link FeedbackMgtConstants#TOTAL_COUNTER_TAG_ID}. The CLD_FEEDBACK_DAILY_COUNTERS table keeps a counter per tenant
+ * and day of creation. The counts of the archived entries, which are taken off the counters when they are archived, are
+ * added from the archive to the aggregated counts.
+ */
+public class FeedbackCounterDAOImpl implements FeedbackCounterDAO {
+
+    private static final Log log = LogFactory.getLog(FeedbackCounterDAOImpl.class);
+
+    @Override
+    public void updateCounters(int tenantId, Map<Integer, Integer> countDeltas) throws FeedbackManagementException {
+
+        JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
+        try {
+            // The counters are updated in the order of the tag IDs, so that concurrent transactions lock them in the
+            // same order.
+            for (Map.Entry<Integer, Integer> countDelta : new TreeMap<>(countDeltas).entrySet()) {
+                int tagId = countDelta.getKey();
+                int delta = countDelta.getValue();
+                if (delta == 0) {
+                    continue;
+                }
+                // A missing counter is not added for a negative change, since the reconciliation recounts it.
+                if (addToCounter(jdbcTemplate, tenantId, tagId, delta) == 0 && delta > 0) {
+                    addCounter(jdbcTemplate, tenantId, tagId, delta);
+                }
+            }
+        } catch (DataAccessException e) {
+            throw FeedbackExceptionManagementUtil.buildServerException(
+                    ErrorMessages.ERROR_CODE_UPDATE_FEEDBACK_COUNTERS, String.valueOf(tenantId), e);
+        }
+    }
+
+    @Override
+    public void updateDailyCounters(int tenantId, Map<LocalDate, Integer> countDeltas)
+            throws FeedbackManagementException {
+
+        JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
+        try {
+            // The counters are updated in the order of the days, so that concurrent transactions lock them in the same
+            // order.
+            for (Map.Entry<LocalDate, Integer> countDelta : new TreeMap<>(countDeltas).entrySet()) {
+                LocalDate day = countDelta.getKey();
+                int delta = countDelta.getValue();
+                if (delta == 0) {
+                    continue;
+                }
+                if (addToDailyCounter(jdbcTemplate, tenantId, day, delta) == 0 && delta > 0) {
+                    addDailyCounter(jdbcTemplate, tenantId, day, delta);
+                }
+            }
+        } catch (DataAccessException e) {
+            throw FeedbackExceptionManagementUtil.buildServerException(
+                    ErrorMessages.ERROR_CODE_UPDATE_FEEDBACK_COUNTERS, String.valueOf(tenantId), e);
+        }
+    }
+
+    @Override
+    public void addToDailyCounters(List<String> feedbackUuids) throws FeedbackManagementException {
+
+        Map<Integer, Map<LocalDate, Integer>> countDeltas = new TreeMap<>();
+        JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
+        try {
+            for (int from = 0; from < feedbackUuids.size(); from += FeedbackMgtConstants.BATCH_INSERT_CHUNK_SIZE) {
+                List<String> chunk = feedbackUuids.subList(from,
+                        Math.min(from + FeedbackMgtConstants.BATCH_INSERT_CHUNK_SIZE, feedbackUuids.size()));
+                jdbcTemplate.executeQuery(String.format(
+                        FeedbackMgtSQLConstants.COUNT_FEEDBACK_BY_TENANT_AND_DAY_FROM_UUIDS,
+                        JdbcUtils.buildPlaceholders(chunk.size())), (resultSet, rowNumber) -> countDeltas
+                                .computeIfAbsent(resultSet.getInt(1), tenantId -> new HashMap<>())
+                                .merge(resultSet.getDate(2).toLocalDate(), resultSet.getInt(3), Integer::sum),
+                        preparedStatement -> {
+                            for (int i = 0; i < chunk.size(); i++) {
+                                preparedStatement.setObject(i + 1, JdbcUtils.toStoredUuid(chunk.get(i)));
+                            }
+                        });
+            }
+        } catch (DataAccessException e) {
+            throw FeedbackExceptionManagementUtil.buildServerException(
+                    ErrorMessages.ERROR_CODE_UPDATE_DAILY_FEEDBACK_COUNTERS, String.valueOf(feedbackUuids.size()), e);
+        }
+        for (Map.Entry<Integer, Map<LocalDate, Integer>> tenantCountDeltas : countDeltas.entrySet()) {
+            updateDailyCounters(tenantCountDeltas.getKey(), tenantCountDeltas.getValue());
+        }
+    }
+
+    @Override
+    public int getCount(int tagId) throws FeedbackManagementException {
+
+        JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
+        try {
+            Integer count = jdbcTemplate.fetchSingleRecord(FeedbackMgtSQLConstants.GET_FEEDBACK_COUNTER,
+                    (resultSet, rowNumber) -> resultSet.getInt(1),
+                    preparedStatement -> preparedStatement.setInt(1, tagId));
+            return count == null ? 0 : count;
+        } catch (DataAccessException e) {
+            throw FeedbackExceptionManagementUtil.buildServerException(
+                    ErrorMessages.ERROR_CODE_GET_FEEDBACK_COUNTER, String.valueOf(tagId), e);
+        }
+    }
+
+    @Override
+    public int getCount(int tenantId, int tagId) throws FeedbackManagementException {
+
+        JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
+        try {
+            Integer count = jdbcTemplate.fetchSingleRecord(FeedbackMgtSQLConstants.GET_TENANT_FEEDBACK_COUNTER,
+                    (resultSet, rowNumber) -> resultSet.getInt(1), preparedStatement -> {
+                        preparedStatement.setInt(1, tenantId);
+                        preparedStatement.setInt(2, tagId);
+                    });
+            return count == null ? 0 : count;
+        } catch (DataAccessException e) {
+            throw FeedbackExceptionManagementUtil.buildServerException(
+                    ErrorMessages.ERROR_CODE_GET_FEEDBACK_COUNTER, String.valueOf(tagId), e);
+        }
+    }
+
+    @Override
+    public Map<String, Integer> getCountsByTag(Integer tenantId) throws FeedbackManagementException {
+
+        Map<String, Integer> counts = new TreeMap<>();
+        JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
+        try {
+            if (tenantId == null) {
+                jdbcTemplate.executeQuery(FeedbackMgtSQLConstants.GET_FEEDBACK_COUNTS_BY_TAG,
+                        (resultSet, rowNumber) -> addCount(counts, resultSet.getString(1), resultSet.getInt(2)),
+                        null);
+            } else {
+                jdbcTemplate.executeQuery(FeedbackMgtSQLConstants.GET_TENANT_FEEDBACK_COUNTS_BY_TAG,
+                        (resultSet, rowNumber) -> addCount(counts, resultSet.getString(1), resultSet.getInt(2)),
+                        preparedStatement -> preparedStatement.setInt(1, tenantId));
+            }
+        } catch (DataAccessException e) {
+            throw FeedbackExceptionManagementUtil.buildServerException(ErrorMessages.ERROR_CODE_AGGREGATE_FEEDBACK,
+                    "tag", e);
+        }
+        FeedbackArchive archive = FeedbackManagementServiceDataHolder.getInstance().getFeedbackArchive();
+        if (archive != null) {
+            addCounts(counts, archive.getCountsByTag(tenantId));
+        }
+        return counts;
+    }
+
+    @Override
+    public Map<Integer, Integer> getCountsByTenant() throws FeedbackManagementException {
+
+        Map<Integer, Integer> counts = new TreeMap<>();
+        JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
+        try {
+            jdbcTemplate.executeQuery(FeedbackMgtSQLConstants.GET_FEEDBACK_COUNTS_BY_TENANT,
+                    (resultSet, rowNumber) -> addCount(counts, resultSet.getInt(1), resultSet.getInt(2)),
+                    preparedStatement -> preparedStatement.setInt(1, FeedbackMgtConstants.TOTAL_COUNTER_TAG_ID));
+        } catch (DataAccessException e) {
+            throw FeedbackExceptionManagementUtil.buildServerException(ErrorMessages.ERROR_CODE_AGGREGATE_FEEDBACK,
+                    "tenant", e);
+        }
+        FeedbackArchive archive = FeedbackManagementServiceDataHolder.getInstance().getFeedbackArchive();
+        if (archive != null) {
+            addCounts(counts, archive.getCountsByTenant());
+        }
+        return counts;
+    }
+
+    @Override
+    public Map<LocalDate, Integer> getCountsByDay(Integer tenantId, LocalDate fromDay, LocalDate toDay)
+            throws FeedbackManagementException {
+
+        Map<LocalDate, Integer> counts = new TreeMap<>();
+        JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
+        try {
+            if (tenantId == null) {
+                jdbcTemplate.executeQuery(FeedbackMgtSQLConstants.GET_FEEDBACK_COUNTS_BY_DAY,
+                        (resultSet, rowNumber) -> addCount(counts, resultSet.getDate(1).toLocalDate(),
+                                resultSet.getInt(2)), preparedStatement -> {
+                            preparedStatement.setDate(1, Date.valueOf(fromDay));
+                            preparedStatement.setDate(2, Date.valueOf(toDay));
+                        });
+            } else {
+                jdbcTemplate.executeQuery(FeedbackMgtSQLConstants.GET_TENANT_FEEDBACK_COUNTS_BY_DAY,
+                        (resultSet, rowNumber) -> addCount(counts, resultSet.getDate(1).toLocalDate(),
+                                resultSet.getInt(2)), preparedStatement -> {
+                            preparedStatement.setInt(1, tenantId);
+                            preparedStatement.setDate(2, Date.valueOf(fromDay));
+                            preparedStatement.setDate(3, Date.valueOf(toDay));
+                        });
+            }
+        } catch (DataAccessException e) {
+            throw FeedbackExceptionManagementUtil.buildServerException(ErrorMessages.ERROR_CODE_AGGREGATE_FEEDBACK,
+                    "day", e);
+        }
+        FeedbackArchive archive = FeedbackManagementServiceDataHolder.getInstance().getFeedbackArchive();
+        if (archive != null) {
+            addCounts(counts, archive.getCountsByDay(tenantId, fromDay, toDay));
+        }
+        return counts;
+    }
+
+    @Override
+    public int reconcileCounters() throws FeedbackManagementException {
+
+        Set<Integer> tenantIds = new TreeSet<>();
+        JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
+        try {
+            // The tenants with counters but no entries are included, so that their stale counters are cleared.
+            for (String query : new String[]{FeedbackMgtSQLConstants.LIST_FEEDBACK_TENANTS,
+                    FeedbackMgtSQLConstants.LIST_COUNTER_TENANTS,
+                    FeedbackMgtSQLConstants.LIST_DAILY_COUNTER_TENANTS}) {
+                jdbcTemplate.executeQuery(query, (resultSet, rowNumber) -> tenantIds.add(resultSet.getInt(1)));
+            }
+        } catch (DataAccessException e) {
+            throw FeedbackExceptionManagementUtil.buildServerException(
+                    ErrorMessages.ERROR_CODE_RECONCILE_FEEDBACK_COUNTERS, e);
+        }
+        return reconcileTenantCounters(tenantIds);
+    }
+
+    @Override
+    public int reconcileUncountedCounters() throws FeedbackManagementException {
+
+        Set<Integer> tenantIds = new TreeSet<>();
+        JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
+        try {
+            jdbcTemplate.executeQuery(FeedbackMgtSQLConstants.LIST_UNCOUNTED_FEEDBACK_TENANTS,
+                    (resultSet, rowNumber) -> tenantIds.add(resultSet.getInt(1)),
+                    preparedStatement -> preparedStatement.setInt(1, FeedbackMgtConstants.TOTAL_COUNTER_TAG_ID));
+        } catch (DataAccessException e) {
+            throw FeedbackExceptionManagementUtil.buildServerException(
+                    ErrorMessages.ERROR_CODE_RECONCILE_FEEDBACK_COUNTERS, e);
+        }
+        return reconcileTenantCounters(tenantIds);
+    }
+
+    /**
+     * Reconcile the counters of each of the given tenants in a transaction of its own. The other tenants are still
+     * reconciled if the reconciliation of a tenant fails, and the first failure is thrown afterwards.
+     *
+     * @param tenantIds tenant IDs
+     * @return number of corrected counters
+     * @throws FeedbackManagementException
+     */
+    private int reconcileTenantCounters(Set<Integer> tenantIds) throws FeedbackManagementException {
+
+        int correctedCounters = 0;
+        FeedbackManagementException failure = null;
+        for (int tenantId : tenantIds) {
+            try {
+                correctedCounters += JdbcUtils.executeInTransaction(() -> reconcileTenantCounters(tenantId));
+            } catch (FeedbackManagementException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Reconciled the feedback counters of " + tenantIds.size() + " tenants. Corrected " +
+                    correctedCounters + " counters.");
+        }
+        return correctedCounters;
+    }
+
+    /**
+     * Recount the feedback entries of a tenant and correct the counters of the tenant which do not match, including
+     * the daily counters.
+     *
+     * @param tenantId tenant ID
+     * @return number of corrected counters
+     * @throws FeedbackManagementException
+     */
+    private int reconcileTenantCounters(int tenantId) throws FeedbackManagementException {
+
+        Map<Integer, Integer> storedCounts = new HashMap<>();
+        Map<Integer, Integer> actualCounts = new HashMap<>();
+        JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
+        try {
+            // The counters of the tenant are locked before its entries are counted, so that the writers which add or
+            // remove entries of the tenant meanwhile apply their changes to the counters only after the
+            // reconciliation. The writers of the other tenants are not blocked.
+            jdbcTemplate.executeQuery(FeedbackMgtSQLConstants.LOCK_TENANT_FEEDBACK_COUNTERS,
+                    (resultSet, rowNumber) -> storedCounts.put(resultSet.getInt(1), resultSet.getInt(2)),
+                    preparedStatement -> preparedStatement.setInt(1, tenantId));
+            jdbcTemplate.executeQuery(FeedbackMgtSQLConstants.COUNT_TENANT_FEEDBACK,
+                    (resultSet, rowNumber) -> actualCounts.put(FeedbackMgtConstants.TOTAL_COUNTER_TAG_ID,
+                            resultSet.getInt(1)), preparedStatement -> preparedStatement.setInt(1, tenantId));
+            jdbcTemplate.executeQuery(FeedbackMgtSQLConstants.COUNT_TENANT_FEEDBACK_BY_TAG,
+                    (resultSet, rowNumber) -> actualCounts.put(resultSet.getInt(1), resultSet.getInt(2)),
+                    preparedStatement -> preparedStatement.setInt(1, tenantId));
+            for (Integer tagId : storedCounts.keySet()) {
+                actualCounts.putIfAbsent(tagId, 0);
+            }
+
+            int correctedCounters = 0;
+            for (Map.Entry<Integer, Integer> actualCount : actualCounts.entrySet()) {
+                int tagId = actualCount.getKey();
+                Integer storedCount = storedCounts.get(tagId);
+                if (storedCount == null) {
+                    if (actualCount.getValue() == 0 || !addReconciledCounter(jdbcTemplate, tenantId, tagId,
+                            actualCount.getValue())) {
+                        continue;
+                    }
+                } else if (storedCount.intValue() != actualCount.getValue()) {
+                    setCounter(jdbcTemplate, tenantId, tagId, actualCount.getValue());
+                } else {
+                    continue;
+                }
+                correctedCounters++;
+            }
+            return correctedCounters + reconcileDailyCounters(jdbcTemplate, tenantId);
+        } catch (DataAccessException e) {
+            throw FeedbackExceptionManagementUtil.buildServerException(
+                    ErrorMessages.ERROR_CODE_RECONCILE_FEEDBACK_COUNTERS, e);
+        }
+    }
+
+    /**
+     * Recount the feedback entries of a tenant by day, and correct the daily counters of the tenant which do not
+     * match.
+     *
+     * @param jdbcTemplate JDBC template
+     * @param tenantId     tenant ID
+     * @return number of corrected daily counters
+     * @throws DataAccessException
+     * @throws FeedbackManagementException
+     */
+    private int reconcileDailyCounters(JdbcTemplate jdbcTemplate, int tenantId)
+            throws DataAccessException, FeedbackManagementException {
+
+        Map<LocalDate, Integer> storedCounts = new HashMap<>();
+        Map<LocalDate, Integer> actualCounts = new HashMap<>();
+        jdbcTemplate.executeQuery(FeedbackMgtSQLConstants.LOCK_TENANT_DAILY_FEEDBACK_COUNTERS,
+                (resultSet, rowNumber) -> storedCounts.put(resultSet.getDate(1).toLocalDate(), resultSet.getInt(2)),
+                preparedStatement -> preparedStatement.setInt(1, tenantId));
+        jdbcTemplate.executeQuery(FeedbackMgtSQLConstants.COUNT_TENANT_FEEDBACK_BY_DAY,
+                (resultSet, rowNumber) -> actualCounts.put(resultSet.getDate(1).toLocalDate(), resultSet.getInt(2)),
+                preparedStatement -> preparedStatement.setInt(1, tenantId));
+        for (LocalDate day : storedCounts.keySet()) {
+            actualCounts.putIfAbsent(day, 0);
+        }
+
+        int correctedCounters = 0;
+        for (Map.Entry<LocalDate, Integer> actualCount : actualCounts.entrySet()) {
+            LocalDate day = actualCount.getKey();
+            Integer storedCount = storedCounts.get(day);
+            if (storedCount == null) {
+                if (!addReconciledDailyCounter(jdbcTemplate, tenantId, day, actualCount.getValue())) {
+                    continue;
+                }
+            } else if (storedCount.intValue() != actualCount.getValue()) {
+                setDailyCounter(jdbcTemplate, tenantId, day, actualCount.getValue());
+            } else {
+                continue;
+            }
+            correctedCounters++;
+        }
+        return correctedCounters;
+    }
+
+    /**
+     * Add a count to a map of counts, unless the count is zero.
+     *
+     * @param counts map of counts
+     * @param key    key of the count
+     * @param count  count
+     * @param <K>    type of the key
+     * @return Previous count of the key
+     */
+    private <K> Integer addCount(Map<K, Integer> counts, K key, int count) {
+
+        return count == 0 ? null : counts.merge(key, count, Integer::sum);
+    }
+
+    /**
+     * Add the counts of a map to the counts of another map.
+     *
+     * @param counts      map of counts
+     * @param otherCounts counts to add
+     * @param <K>         type of the key
+     */
+    private <K> void addCounts(Map<K, Integer> counts, Map<K, Integer> otherCounts) {
+
+        otherCounts.forEach((key, count) -> addCount(counts, key, count));
+    }
+
+    /**
+     * Add a change to an existing counter.
+     *
+     * @param jdbcTemplate JDBC template
+     * @param tenantId     tenant ID
+     * @param tagId        ID of the tag
+     * @param delta        change of the count
+     * @return number of updated counters, which is zero if the counter does not exist
+     * @throws DataAccessException
+     */
+    private int addToCounter(JdbcTemplate jdbcTemplate, int tenantId, int tagId, int delta)
+            throws DataAccessException {
+
+        return jdbcTemplate.executeUpdate(FeedbackMgtSQLConstants.UPDATE_FEEDBACK_COUNTER, preparedStatement -> {
+            preparedStatement.setInt(1, delta);
+            preparedStatement.setInt(2, tenantId);
+            preparedStatement.setInt(3, tagId);
+        });
+    }
+
+    /**
+     * Add a new counter. If the counter has been added concurrently by another transaction, the count is added to
+     * that counter instead.
+     *
+     * @param jdbcTemplate JDBC template
+     * @param tenantId     tenant ID
+     * @param tagId        ID of the tag
+     * @param count        initial count
+     * @throws DataAccessException
+     * @throws FeedbackManagementException
+     */
+    private void addCounter(JdbcTemplate jdbcTemplate, int tenantId, int tagId, int count)
+            throws DataAccessException, FeedbackManagementException {
+
+        try {
+            insertCounter(jdbcTemplate, tenantId, tagId, count);
+        } catch (DataAccessException e) {
+            if (addToCounter(jdbcTemplate, tenantId, tagId, count) == 0) {
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Insert a new counter. Within a transaction, the insert runs under a savepoint, so that the transaction can
+     * continue if the insert fails because the counter has been added concurrently.
+     *
+     * @param jdbcTemplate JDBC template
+     * @param tenantId     tenant ID
+     * @param tagId        ID of the tag
+     * @param count        initial count
+     * @throws DataAccessException
+     * @throws FeedbackManagementException
+     */
+    private void insertCounter(JdbcTemplate jdbcTemplate, int tenantId, int tagId, int count)
+            throws DataAccessException, FeedbackManagementException {
+
+        JdbcUtils.executeWithSavepoint(() -> jdbcTemplate.executeInsert(
+                FeedbackMgtSQLConstants.INSERT_FEEDBACK_COUNTER, preparedStatement -> {
+                    preparedStatement.setInt(1, tenantId);
+                    preparedStatement.setInt(2, tagId);
+                    preparedStatement.setInt(3, count);
+                }, null, false));
+    }
+
+    /**
+     * Set the count of an existing counter.
+     *
+     * @param jdbcTemplate JDBC template
+     * @param tenantId     tenant ID
+     * @param tagId        ID of the tag
+     * @param count        count
+     * @throws DataAccessException
+     */
+    private void setCounter(JdbcTemplate jdbcTemplate, int tenantId, int tagId, int count)
+            throws DataAccessException {
+
+        jdbcTemplate.executeUpdate(FeedbackMgtSQLConstants.SET_FEEDBACK_COUNTER, preparedStatement -> {
+            preparedStatement.setInt(1, count);
+            preparedStatement.setInt(2, tenantId);
+            preparedStatement.setInt(3, tagId);
+        });
+    }
+
+    /**
+     * Add a counter found missing by the reconciliation. The counters of a tenant are locked by the reconciliation,
+     * but a writer may still add a missing counter meanwhile. Such a counter is left as it is and corrected by the
+     * next reconciliation, rather than failing the reconciliation of the tenant. Any other failure of the insert is
+     * thrown.
+     *
+     * @param jdbcTemplate JDBC template
+     * @param tenantId     tenant ID
+     * @param tagId        ID of the tag
+     * @param count        count
+     * @return true if the counter is added
+     * @throws DataAccessException
+     * @throws FeedbackManagementException
+     */
+    private boolean addReconciledCounter(JdbcTemplate jdbcTemplate, int tenantId, int tagId, int count)
+            throws DataAccessException, FeedbackManagementException {
+
+        try {
+            insertCounter(jdbcTemplate, tenantId, tagId, count);
+            return true;
+        } catch (DataAccessException e) {
+            Integer addedCount = jdbcTemplate.fetchSingleRecord(FeedbackMgtSQLConstants.GET_TENANT_FEEDBACK_COUNTER,
+                    (resultSet, rowNumber) -> resultSet.getInt(1), preparedStatement -> {
+                        preparedStatement.setInt(1, tenantId);
+                        preparedStatement.setInt(2, tagId);
+                    });
+            if (addedCount == null) {
+                throw e;
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("The feedback counter of the tenant: " + tenantId + " and the tag ID: " + tagId +
+                        " has been added concurrently. It is reconciled in the next reconciliation.", e);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Add a change to an existing daily counter.
+     *
+     * @param jdbcTemplate JDBC template
+     * @param tenantId     tenant ID
+     * @param day          day of creation
+     * @param delta        change of the count
+     * @return number of updated counters, which is zero if the counter does not exist
+     * @throws DataAccessException
+     */
+    private int addToDailyCounter(JdbcTemplate jdbcTemplate, int tenantId, LocalDate day, int delta)
+            throws DataAccessException {
+
+        return jdbcTemplate.executeUpdate(FeedbackMgtSQLConstants.UPDATE_DAILY_FEEDBACK_COUNTER, preparedStatement -> {
+            preparedStatement.setInt(1, delta);
+            preparedStatement.setInt(2, tenantId);
+            preparedStatement.setDate(3, Date.valueOf(day));
+        });
+    }
+
+    /**
+     * Add a new daily counter. If the counter has been added concurrently by another transaction, the count is added
+     * to that counter instead.
+     *
+     * @param jdbcTemplate JDBC template
+     * @param tenantId     tenant ID
+     * @param day          day of creation
+     * @param count        initial count
+     * @throws DataAccessException
+     * @throws FeedbackManagementException
+     */
+    private void addDailyCounter(JdbcTemplate jdbcTemplate, int tenantId, LocalDate day, int count)
+            throws DataAccessException, FeedbackManagementException {
+
+        try {
+            insertDailyCounter(jdbcTemplate, tenantId, day, count);
+        } catch (DataAccessException e) {
+            if (addToDailyCounter(jdbcTemplate, tenantId, day, count) == 0) {
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Insert a new daily counter. Within a transaction, the insert runs under a savepoint, so that the transaction
+     * can continue if the insert fails because the counter has been added concurrently.
+     *
+     * @param jdbcTemplate JDBC template
+     * @param tenantId     tenant ID
+     * @param day          day of creation
+     * @param count        initial count
+     * @throws DataAccessException
+     * @throws FeedbackManagementException
+     */
+    private void insertDailyCounter(JdbcTemplate jdbcTemplate, int tenantId, LocalDate day, int count)
+            throws DataAccessException, FeedbackManagementException {
+
+        JdbcUtils.executeWithSavepoint(() -> jdbcTemplate.executeInsert(
+                FeedbackMgtSQLConstants.INSERT_DAILY_FEEDBACK_COUNTER, preparedStatement -> {
+                    preparedStatement.setInt(1, tenantId);
+                    preparedStatement.setDate(2, Date.valueOf(day));
+                    preparedStatement.setInt(3, count);
+                }, null, false));
+    }
+
+    /**
+     * Set the count of an existing daily counter.
+     *
+     * @param jdbcTemplate JDBC template
+     * @param tenantId     tenant ID
+     * @param day          day of creation
+     * @param count        count
+     * @throws DataAccessException
+     */
+    private void setDailyCounter(JdbcTemplate jdbcTemplate, int tenantId, LocalDate day, int count)
+            throws DataAccessException {
+
+        jdbcTemplate.executeUpdate(FeedbackMgtSQLConstants.SET_DAILY_FEEDBACK_COUNTER, preparedStatement -> {
+            preparedStatement.setInt(1, count);
+            preparedStatement.setInt(2, tenantId);
+            preparedStatement.setDate(3, Date.valueOf(day));
+        });
+    }
+
+    /**
+     * Add a daily counter found missing by the reconciliation. A daily counter added concurrently by a writer is left
+     * as it is and corrected by the next reconciliation. Any other failure of the insert is thrown.
+     *
+     * @param jdbcTemplate JDBC template
+     * @param tenantId     tenant ID
+     * @param day          day of creation
+     * @param count        count
+     * @return true if the daily counter is added
+     * @throws DataAccessException
+     * @throws FeedbackManagementException
+     */
+    private boolean addReconciledDailyCounter(JdbcTemplate jdbcTemplate, int tenantId, LocalDate day, int count)
+            throws DataAccessException, FeedbackManagementException {
+
+        try {
+            insertDailyCounter(jdbcTemplate, tenantId, day, count);
+            return true;
+        } catch (DataAccessException e) {
+            Integer addedCount = jdbcTemplate.fetchSingleRecord(
+                    FeedbackMgtSQLConstants.GET_TENANT_DAILY_FEEDBACK_COUNTER, (resultSet, rowNumber) ->
+                            resultSet.getInt(1), preparedStatement -> {
+                        preparedStatement.setInt(1, tenantId);
+                        preparedStatement.setDate(2, Date.valueOf(day));
+                    });
+            if (addedCount == null) {
+                throw e;
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("The daily feedback counter of the tenant: " + tenantId + " and the day: " + day +
+                        " has been added concurrently. It is reconciled in the next reconciliation.", e);
+            }
+            return false;
+        }
+    }
+}
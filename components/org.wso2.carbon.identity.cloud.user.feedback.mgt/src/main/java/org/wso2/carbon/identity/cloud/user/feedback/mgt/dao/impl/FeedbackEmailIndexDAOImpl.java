@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.impl;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.database.utils.jdbc.JdbcTemplate;
+import org.wso2.carbon.database.utils.jdbc.exceptions.DataAccessException;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants.ErrorMessages;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtSQLConstants;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.FeedbackEmailIndexDAO;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.exception.FeedbackManagementException;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.Feedback;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.search.EmailAnalyzer;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.util.FeedbackExceptionManagementUtil;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.util.JdbcUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class maintains the n-gram index of the feedback emails in the CLD_FEEDBACK_EMAIL_GRAMS table, which holds a
+ * row for each distinct n-gram of an email, and the reversed emails in the CLD_FEEDBACK table.
+ */
+public class FeedbackEmailIndexDAOImpl implements FeedbackEmailIndexDAO {
+
+    private static final Log log = LogFactory.getLog(FeedbackEmailIndexDAOImpl.class);
+
+    @Override
+    public void indexEmail(int feedbackId, String email) throws FeedbackManagementException {
+
+        List<Pair<String, Object>> gramRows = new ArrayList<>();
+        addGramRows(gramRows, email, feedbackId);
+        try {
+            insertGramRows(FeedbackMgtSQLConstants.INSERT_EMAIL_GRAM, gramRows);
+        } catch (DataAccessException e) {
+            throw FeedbackExceptionManagementUtil.buildServerException(
+                    ErrorMessages.ERROR_CODE_INDEX_FEEDBACK_EMAIL, String.valueOf(feedbackId), e);
+        }
+    }
+
+    @Override
+    public void indexEmails(List<Feedback> feedbackList) throws FeedbackManagementException {
+
+        List<Pair<String, Object>> gramRows = new ArrayList<>();
+        for (Feedback feedback : feedbackList) {
+            addGramRows(gramRows, feedback.getEmail(), JdbcUtils.toStoredUuid(feedback.getUuid()));
+        }
+        try {
+            // The auto-generated feedback IDs are resolved by the insert itself, using the UUIDs.
+            insertGramRows(FeedbackMgtSQLConstants.INSERT_EMAIL_GRAM_BY_UUID, gramRows);
+        } catch (DataAccessException e) {
+            throw FeedbackExceptionManagementUtil.buildServerException(
+                    ErrorMessages.ERROR_CODE_INDEX_FEEDBACK_EMAIL, feedbackList.size() + " entries", e);
+        }
+    }
+
+    @Override
+    public void removeEmail(int feedbackId) throws FeedbackManagementException {
+
+        JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
+        try {
+            jdbcTemplate.executeUpdate(FeedbackMgtSQLConstants.REMOVE_EMAIL_GRAMS,
+                    preparedStatement -> preparedStatement.setInt(1, feedbackId));
+        } catch (DataAccessException e) {
+            throw FeedbackExceptionManagementUtil.buildServerException(
+                    ErrorMessages.ERROR_CODE_INDEX_FEEDBACK_EMAIL, String.valueOf(feedbackId), e);
+        }
+    }
+
+    @Override
+    public int rebuildIndex(int chunkSize) throws FeedbackManagementException {
+
+        int indexedCount = 0;
+        int fromId = 0;
+        while (true) {
+            int chunkFromId = fromId;
+            List<Pair<Integer, String>> emails =
+                    JdbcUtils.executeInTransaction(() -> rebuildChunk(chunkFromId, chunkSize));
+            indexedCount += emails.size();
+            if (emails.size() < chunkSize) {
+                break;
+            }
+            fromId = emails.get(emails.size() - 1).getLeft();
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug("Rebuilt the email index of " + indexedCount + " feedback entries.");
+        }
+        return indexedCount;
+    }
+
+    /**
+     * Reindex a chunk of feedback entries. The entries of the chunk are locked, so that a concurrent update of an
+     * email is not overwritten by its previous grams.
+     *
+     * @param fromId    ID after which the chunk starts
+     * @param chunkSize maximum number of entries of the chunk
+     * @return IDs and emails of the reindexed entries
+     * @throws FeedbackManagementException
+     */
+    private List<Pair<Integer, String>> rebuildChunk(int fromId, int chunkSize) throws FeedbackManagementException {
+
+        JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
+        try {
+            List<Pair<Integer, String>> emails = jdbcTemplate.executeQuery(FeedbackMgtSQLConstants.LOCK_EMAILS_FROM_ID,
+                    (resultSet, rowNumber) -> Pair.of(resultSet.getInt(1), resultSet.getString(2)),
+                    preparedStatement -> {
+                        preparedStatement.setInt(1, fromId);
+                        preparedStatement.setInt(2, chunkSize);
+                    });
+            if (emails.isEmpty()) {
+                return emails;
+            }
+
+            jdbcTemplate.executeBatchInsert(FeedbackMgtSQLConstants.UPDATE_EMAIL_REVERSED, preparedStatement -> {
+                for (Pair<Integer, String> email : emails) {
+                    preparedStatement.setString(1, EmailAnalyzer.reverse(email.getRight()));
+                    preparedStatement.setInt(2, email.getLeft());
+                    preparedStatement.addBatch();
+                }
+            }, null);
+            int toId = emails.get(emails.size() - 1).getLeft();
+            jdbcTemplate.executeUpdate(FeedbackMgtSQLConstants.REMOVE_EMAIL_GRAMS_IN_RANGE, preparedStatement -> {
+                preparedStatement.setInt(1, fromId);
+                preparedStatement.setInt(2, toId);
+            });
+            List<Pair<String, Object>> gramRows = new ArrayList<>();
+            for (Pair<Integer, String> email : emails) {
+                addGramRows(gramRows, email.getRight(), email.getLeft());
+            }
+            insertGramRows(FeedbackMgtSQLConstants.INSERT_EMAIL_GRAM, gramRows);
+            return emails;
+        } catch (DataAccessException e) {
+            throw FeedbackExceptionManagementUtil.buildServerException(
+                    ErrorMessages.ERROR_CODE_REBUILD_EMAIL_INDEX, String.valueOf(fromId), e);
+        }
+    }
+
+    /**
+     * Add a row for each distinct n-gram of an email, made of the gram and the key of the entry.
+     *
+     * @param gramRows    rows to be inserted
+     * @param email       feedback email
+     * @param feedbackKey ID or UUID of the feedback entry
+     */
+    private void addGramRows(List<Pair<String, Object>> gramRows, String email, Object feedbackKey) {
+
+        for (String gram : EmailAnalyzer.getGrams(email)) {
+            gramRows.add(Pair.of(gram, feedbackKey));
+        }
+    }
+
+    /**
+     * Insert rows of n-grams using JDBC batches.
+     *
+     * @param sqlStatement insert statement taking the gram and the key of the entry
+     * @param gramRows     rows to be inserted
+     * @throws DataAccessException
+     */
+    private void insertGramRows(String sqlStatement, List<Pair<String, Object>> gramRows)
+            throws DataAccessException {
+
+        JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
+        for (int from = 0; from < gramRows.size(); from += FeedbackMgtConstants.BATCH_INSERT_CHUNK_SIZE) {
+            List<Pair<String, Object>> chunk = gramRows.subList(from,
+                    Math.min(from + FeedbackMgtConstants.BATCH_INSERT_CHUNK_SIZE, gramRows.size()));
+            jdbcTemplate.executeBatchInsert(sqlStatement, preparedStatement -> {
+                for (Pair<String, Object> gramRow : chunk) {
+                    preparedStatement.setString(1, gramRow.getLeft());
+                    preparedStatement.setObject(2, gramRow.getRight());
+                    preparedStatement.addBatch();
+                }
+            }, null);
+        }
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.impl;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * A set of feedback entry IDs, used as a posting list by {@link FeedbackMemoryDAOImpl} and to track the exported
+ * entries by {@link FeedbackMgtDAOImpl}. A sparse set is held in a sorted array of IDs, and a dense set in a
+ * {@link BitSet}, whichever takes less memory: an array takes 4 bytes for each ID, while a bitmap takes a bit for each
+ * ID up to the largest one. Thereby the many sets of the rare terms of the messages stay small, while the sets of the
+ * tenants and of the common tags are bitmaps.
+ * <p>
+ * The set is not thread safe.
+ */
+final class FeedbackIdSet {
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    /*
+     * A set is not turned into a bitmap until it has this many IDs, so that small sets do not switch back and forth.
+     */
+    private static final int MIN_BITMAP_SIZE = 64;
+
+    private int[] ids = new int[INITIAL_CAPACITY];
+    private BitSet bitmap;
+    private int size;
+
+    /**
+     * Build the intersection of two sets.
+     *
+     * @param first  set
+     * @param second set
+     * @return new set of the IDs in both sets
+     */
+    static FeedbackIdSet intersect(FeedbackIdSet first, FeedbackIdSet second) {
+
+        FeedbackIdSet smaller = first.size <= second.size ? first : second;
+        FeedbackIdSet larger = smaller == first ? second : first;
+        FeedbackIdSet intersection = new FeedbackIdSet();
+        if (smaller.bitmap != null && larger.bitmap != null) {
+            intersection.bitmap = (BitSet) smaller.bitmap.clone();
+            intersection.bitmap.and(larger.bitmap);
+            intersection.size = intersection.bitmap.cardinality();
+            intersection.compact();
+            return intersection;
+        }
+        // The IDs of the smaller set are probed in the larger one, in their ascending order.
+        if (smaller.bitmap != null) {
+            for (int id = smaller.bitmap.nextSetBit(0); id >= 0; id = smaller.bitmap.nextSetBit(id + 1)) {
+                if (larger.contains(id)) {
+                    intersection.add(id);
+                }
+            }
+            return intersection;
+        }
+        for (int i = 0; i < smaller.size; i++) {
+            if (larger.contains(smaller.ids[i])) {
+                intersection.add(smaller.ids[i]);
+            }
+        }
+        return intersection;
+    }
+
+    /**
+     * Add an ID to the set.
+     *
+     * @param id ID
+     */
+    void add(int id) {
+
+        if (bitmap != null) {
+            if (!bitmap.get(id)) {
+                bitmap.set(id);
+                size++;
+            }
+            return;
+        }
+        // The IDs are mostly added in ascending order, hence they are appended without a search.
+        int index = size > 0 && ids[size - 1] < id ? size : Arrays.binarySearch(ids, 0, size, id);
+        if (index >= 0 && index < size) {
+            return;
+        }
+        int insertionIndex = index >= 0 ? index : -index - 1;
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        System.arraycopy(ids, insertionIndex, ids, insertionIndex + 1, size - insertionIndex);
+        ids[insertionIndex] = id;
+        size++;
+        if (size >= MIN_BITMAP_SIZE && size > ids[size - 1] / Integer.SIZE) {
+            bitmap = new BitSet(ids[size - 1] + 1);
+            for (int i = 0; i < size; i++) {
+                bitmap.set(ids[i]);
+            }
+            ids = null;
+        }
+    }
+
+    /**
+     * Remove an ID from the set.
+     *
+     * @param id ID
+     */
+    void remove(int id) {
+
+        if (bitmap != null) {
+            if (bitmap.get(id)) {
+                bitmap.clear(id);
+                size--;
+                compact();
+            }
+            return;
+        }
+        int index = Arrays.binarySearch(ids, 0, size, id);
+        if (index >= 0) {
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            size--;
+        }
+    }
+
+    /**
+     * Check whether the set has an ID.
+     *
+     * @param id ID
+     * @return true if the set has the ID
+     */
+    boolean contains(int id) {
+
+        return bitmap != null ? id >= 0 && bitmap.get(id) : Arrays.binarySearch(ids, 0, size, id) >= 0;
+    }
+
+    /**
+     * Get the smallest ID of the set which is greater than or equal to an ID.
+     *
+     * @param fromId ID to start from
+     * @return the next ID, or -1 if there is none
+     */
+    int nextId(int fromId) {
+
+        if (fromId < 0) {
+            fromId = 0;
+        }
+        if (bitmap != null) {
+            return bitmap.nextSetBit(fromId);
+        }
+        int index = Arrays.binarySearch(ids, 0, size, fromId);
+        index = index >= 0 ? index : -index - 1;
+        return index < size ? ids[index] : -1;
+    }
+
+    /**
+     * Get the largest ID of the set which is less than or equal to an ID.
+     *
+     * @param fromId ID to start from
+     * @return the previous ID, or -1 if there is none
+     */
+    int previousId(int fromId) {
+
+        if (fromId < 0) {
+            return -1;
+        }
+        if (bitmap != null) {
+            return bitmap.previousSetBit(fromId);
+        }
+        int index = Arrays.binarySearch(ids, 0, size, fromId);
+        index = index >= 0 ? index : -index - 2;
+        return index >= 0 ? ids[index] : -1;
+    }
+
+    /**
+     * Get the number of IDs of the set.
+     *
+     * @return size of the set
+     */
+    int size() {
+
+        return size;
+    }
+
+    boolean isEmpty() {
+
+        return size == 0;
+    }
+
+    /**
+     * Turn a bitmap back into an array once the array takes less memory, with a margin so that a set on the border
+     * does not switch back and forth.
+     */
+    private void compact() {
+
+        if (size >= MIN_BITMAP_SIZE / 2 && size > bitmap.length() / (2 * Integer.SIZE)) {
+            return;
+        }
+        ids = new int[Math.max(INITIAL_CAPACITY, size)];
+        int index = 0;
+        for (int id = bitmap.nextSetBit(0); id >= 0; id = bitmap.nextSetBit(id + 1)) {
+            ids[index++] = id;
+        }
+        bitmap = null;
+    }
+}
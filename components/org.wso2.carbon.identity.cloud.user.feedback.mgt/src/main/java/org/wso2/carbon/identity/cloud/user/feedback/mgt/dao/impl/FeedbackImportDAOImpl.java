@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.impl;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.database.utils.jdbc.JdbcTemplate;
+import org.wso2.carbon.database.utils.jdbc.exceptions.DataAccessException;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants.ErrorMessages;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtSQLConstants;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.FeedbackImportDAO;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.exception.FeedbackManagementException;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.Feedback;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.util.FeedbackExceptionManagementUtil;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.util.JdbcUtils;
+
+import java.util.List;
+
+/**
+ * This class imports chunks of feedback entries to the Feedback database, and records the progress of each import
+ * in the CLD_FEEDBACK_IMPORT_PROGRESS table.
+ *
+ * The entries of a chunk are inserted with the bulk insert of {@link FeedbackMgtDAOImpl}, which resolves the tags of
+ * the chunk at once and keeps the time of creation of the imported entries, in the same transaction which moves the
+ * recorded offset of the import forward. Hence the recorded offset always matches the imported entries. The offset is
+ * moved only from the offset at which the chunk starts, so that two runs of the same import do not both write a chunk.
+ */
+public class FeedbackImportDAOImpl implements FeedbackImportDAO {
+
+    private static final Log log = LogFactory.getLog(FeedbackImportDAOImpl.class);
+    private final FeedbackMgtDAOImpl feedbackMgtDAO = new FeedbackMgtDAOImpl();
+
+    @Override
+    public long getImportOffset(String importId) throws FeedbackManagementException {
+
+        JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
+        try {
+            Long offset = jdbcTemplate.fetchSingleRecord(FeedbackMgtSQLConstants.GET_IMPORT_PROGRESS,
+                    (resultSet, rowNumber) -> resultSet.getLong(1),
+                    preparedStatement -> preparedStatement.setString(1, importId));
+            return offset == null ? 0 : offset;
+        } catch (DataAccessException e) {
+            throw FeedbackExceptionManagementUtil.buildServerException(ErrorMessages.ERROR_CODE_IMPORT_FEEDBACK,
+                    importId, e);
+        }
+    }
+
+    @Override
+    public void importChunk(String importId, long fromOffset, long toOffset, List<Feedback> feedbackList,
+                            int rejectedCount) throws FeedbackManagementException {
+
+        JdbcUtils.executeInTransaction(() -> {
+            JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
+            try {
+                // Updating the progress row first locks it until the chunk is committed.
+                int updatedCount = jdbcTemplate.executeUpdate(FeedbackMgtSQLConstants.UPDATE_IMPORT_PROGRESS,
+                        preparedStatement -> {
+                            preparedStatement.setLong(1, toOffset);
+                            preparedStatement.setInt(2, feedbackList.size());
+                            preparedStatement.setInt(3, rejectedCount);
+                            preparedStatement.setString(4, importId);
+                            preparedStatement.setLong(5, fromOffset);
+                        });
+                if (updatedCount == 0) {
+                    if (fromOffset != 0) {
+                        // The import has been moved forward by another run of the same import.
+                        throw FeedbackExceptionManagementUtil.buildServerException(
+                                ErrorMessages.ERROR_CODE_IMPORT_FEEDBACK, importId);
+                    }
+                    jdbcTemplate.executeInsert(FeedbackMgtSQLConstants.INSERT_IMPORT_PROGRESS,
+                            preparedStatement -> {
+                                preparedStatement.setString(1, importId);
+                                preparedStatement.setLong(2, toOffset);
+                                preparedStatement.setInt(3, feedbackList.size());
+                                preparedStatement.setInt(4, rejectedCount);
+                            }, null, false);
+                }
+            } catch (DataAccessException e) {
+                throw FeedbackExceptionManagementUtil.buildServerException(ErrorMessages.ERROR_CODE_IMPORT_FEEDBACK,
+                        importId, e);
+            }
+            feedbackMgtDAO.insertImportedEntries(feedbackList);
+
+            if (log.isDebugEnabled()) {
+                log.debug("Imported " + feedbackList.size() + " feedback entries of the import: " + importId +
+                        " up to the offset: " + toOffset);
+            }
+            return null;
+        });
+    }
+}
@@ -0,0 +1,1038 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.impl;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants.ErrorMessages;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.FeedbackMgtDAO;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.exception.FeedbackManagementException;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.export.FeedbackExporter;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.filter.FilterExpression;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.log.FeedbackLog;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.Feedback;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.FeedbackPage;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.SimilarFeedback;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.search.MessageAnalyzer;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.search.MessageQuery;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.search.MessageSignature;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.util.FeedbackExceptionManagementUtil;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.util.FeedbackPaginationUtil;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A {@link FeedbackMgtDAO} which stores the feedback entries in a {@link FeedbackLog} instead of the database. Only
+ * the indexes of the entries are held in memory, each pointing to the offset of the last record of its entry, and
+ * they are rebuilt by replaying the log when it is opened:
+ * <ul>
+ * <li>the entries by their resource IDs and by their IDs, and by their creation times, to list them in order,</li>
+ * <li>the IDs of the entries by tag, to list and count the entries of a tag without reading their records,</li>
+ * <li>the frequencies of the terms of the messages and the MinHash buckets of their signatures, to search and find
+ * similar messages in the same way as the message and similarity indexes of the database.</li>
+ * </ul>
+ * Filters other than a single "tag eq" term are evaluated on the records of the entries. The entries are read under
+ * a read lock and changed under a write lock, which also keeps a compaction of the log from moving the records while
+ * they are read. With a synced log, the records of a change are forced after the write lock is released, so that
+ * concurrent single inserts are group-committed by shared forces instead of each forcing the log under the lock.
+ */
+public class FeedbackLogDAOImpl implements FeedbackMgtDAO, Closeable {
+
+    private static final Log log = LogFactory.getLog(FeedbackLogDAOImpl.class);
+    private static final Comparator<IndexedEntry> TIME_ORDER = Comparator
+            .comparing((IndexedEntry entry) -> entry.timeCreated).thenComparingInt(entry -> entry.id);
+
+    private final FeedbackLog feedbackLog;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, IndexedEntry> entriesByUuid = new HashMap<>();
+    private final TreeMap<Integer, IndexedEntry> entriesById = new TreeMap<>();
+    private final TreeSet<IndexedEntry> entriesByTime = new TreeSet<>(TIME_ORDER);
+    private final Map<String, TreeSet<Integer>> idsByTag = new HashMap<>();
+    private final Map<String, Map<Integer, Integer>> termFrequencies = new HashMap<>();
+    private final Map<Long, TreeSet<Integer>> idsByBucket = new HashMap<>();
+    private final Map<Integer, Integer> countsByTenant = new HashMap<>();
+    private int lastId;
+
+    /**
+     * Open the feedback log of a directory and index its entries.
+     *
+     * @param directory directory of the log
+     * @param sync      whether changes are forced to the storage device before they return
+     * @throws FeedbackManagementException
+     */
+    public FeedbackLogDAOImpl(Path directory, boolean sync) throws FeedbackManagementException {
+
+        try {
+            feedbackLog = FeedbackLog.open(directory, sync);
+        } catch (IOException e) {
+            throw FeedbackExceptionManagementUtil.buildServerException(ErrorMessages.ERROR_CODE_OPEN_FEEDBACK_LOG,
+                    directory.toString(), e);
+        }
+        lastId = feedbackLog.getLastId();
+        try {
+            feedbackLog.replay(new FeedbackLog.RecordHandler() {
+
+                @Override
+                public void onPut(long offset, Feedback feedback) throws IOException {
+
+                    IndexedEntry previousEntry = entriesByUuid.get(feedback.getUuid());
+                    if (previousEntry != null) {
+                        feedbackLog.discard(previousEntry.offset);
+                        unindex(previousEntry);
+                    }
+                    index(new IndexedEntry(feedback, offset));
+                    lastId = Math.max(lastId, feedback.getId());
+                }
+
+                @Override
+                public void onDelete(String uuid) throws IOException {
+
+                    IndexedEntry previousEntry = entriesByUuid.get(uuid);
+                    if (previousEntry != null) {
+                        feedbackLog.discard(previousEntry.offset);
+                        unindex(previousEntry);
+                    }
+                }
+            });
+        } catch (IOException e) {
+            closeQuietly();
+            throw FeedbackExceptionManagementUtil.buildServerException(ErrorMessages.ERROR_CODE_OPEN_FEEDBACK_LOG,
+                    directory.toString(), e);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Opened the feedback log: " + feedbackLog.getPath() + " with " + entriesById.size() +
+                    " feedback entries.");
+        }
+    }
+
+    @Override
+    public Feedback insertFeedbackEntry(Feedback userFeedback) throws FeedbackManagementException {
+
+        lock.writeLock().lock();
+        try {
+            if (entriesByUuid.containsKey(userFeedback.getUuid())) {
+                throw FeedbackExceptionManagementUtil.buildServerException(
+                        ErrorMessages.ERROR_CODE_ADD_USER_FEEDBACK, userFeedback.getUuid());
+            }
+            String timeCreated = new Timestamp(System.currentTimeMillis()).toString();
+            Feedback storedFeedback = buildStoredFeedback(userFeedback, lastId + 1, timeCreated);
+            long offset;
+            try {
+                offset = feedbackLog.append(storedFeedback);
+            } catch (IOException e) {
+                throw FeedbackExceptionManagementUtil.buildServerException(
+                        ErrorMessages.ERROR_CODE_ADD_USER_FEEDBACK, e);
+            }
+            lastId = storedFeedback.getId();
+            index(new IndexedEntry(storedFeedback, offset));
+        } finally {
+            lock.writeLock().unlock();
+        }
+        syncLog(ErrorMessages.ERROR_CODE_ADD_USER_FEEDBACK, userFeedback.getUuid());
+        userFeedback.setVersion(0);
+        return userFeedback;
+    }
+
+    @Override
+    public List<Feedback> insertFeedbackEntries(List<Feedback> userFeedbackList) throws FeedbackManagementException {
+
+        if (userFeedbackList.isEmpty()) {
+            return userFeedbackList;
+        }
+        lock.writeLock().lock();
+        try {
+            // The entries are added all together or not at all, as their records are appended with a single write.
+            String timeCreated = new Timestamp(System.currentTimeMillis()).toString();
+            Set<String> uuids = new HashSet<>();
+            List<Feedback> storedFeedbackList = new ArrayList<>(userFeedbackList.size());
+            for (Feedback userFeedback : userFeedbackList) {
+                if (entriesByUuid.containsKey(userFeedback.getUuid()) || !uuids.add(userFeedback.getUuid())) {
+                    throw FeedbackExceptionManagementUtil.buildServerException(
+                            ErrorMessages.ERROR_CODE_ADD_USER_FEEDBACK_LIST, String.valueOf(userFeedbackList.size()));
+                }
+                storedFeedbackList.add(buildStoredFeedback(userFeedback, lastId + storedFeedbackList.size() + 1,
+                        timeCreated));
+            }
+            long[] offsets;
+            try {
+                offsets = feedbackLog.append(storedFeedbackList);
+            } catch (IOException e) {
+                throw FeedbackExceptionManagementUtil.buildServerException(
+                        ErrorMessages.ERROR_CODE_ADD_USER_FEEDBACK_LIST, String.valueOf(userFeedbackList.size()), e);
+            }
+            lastId += storedFeedbackList.size();
+            for (int i = 0; i < storedFeedbackList.size(); i++) {
+                index(new IndexedEntry(storedFeedbackList.get(i), offsets[i]));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        syncLog(ErrorMessages.ERROR_CODE_ADD_USER_FEEDBACK_LIST, String.valueOf(userFeedbackList.size()));
+        for (Feedback userFeedback : userFeedbackList) {
+            userFeedback.setVersion(0);
+        }
+        return userFeedbackList;
+    }
+
+    @Override
+    public List<Feedback> listFeedbackEntries(String filter, int limit, int offset, String sortBy, String sortOrder)
+            throws FeedbackManagementException {
+
+        return listEntries(null, filter, limit, offset, sortBy, sortOrder);
+    }
+
+    @Override
+    public List<Feedback> listFeedbackEntries(int tenantId, String filter, int limit, int offset, String sortBy,
+                                              String sortOrder) throws FeedbackManagementException {
+
+        return listEntries(tenantId, filter, limit, offset, sortBy, sortOrder);
+    }
+
+    @Override
+    public FeedbackPage listFeedbackEntries(String filter, int limit, String cursor, String sortBy, String sortOrder)
+            throws FeedbackManagementException {
+
+        return listPage(null, filter, limit, cursor, sortBy, sortOrder);
+    }
+
+    @Override
+    public FeedbackPage listFeedbackEntries(int tenantId, String filter, int limit, String cursor, String sortBy,
+                                            String sortOrder) throws FeedbackManagementException {
+
+        return listPage(tenantId, filter, limit, cursor, sortBy, sortOrder);
+    }
+
+    @Override
+    public List<Feedback> searchFeedbackEntries(String query, int limit) throws FeedbackManagementException {
+
+        return searchEntries(null, query, limit);
+    }
+
+    @Override
+    public List<Feedback> searchFeedbackEntries(int tenantId, String query, int limit)
+            throws FeedbackManagementException {
+
+        return searchEntries(tenantId, query, limit);
+    }
+
+    @Override
+    public List<SimilarFeedback> findSimilarFeedbackEntries(String feedbackID, double threshold)
+            throws FeedbackManagementException {
+
+        MessageSignature.validateThreshold(threshold);
+        lock.readLock().lock();
+        try {
+            IndexedEntry entry = entriesByUuid.get(feedbackID);
+            if (entry == null) {
+                throw FeedbackExceptionManagementUtil
+                        .buildClientException(ErrorMessages.ERROR_NOT_FOUND_RESOURCE_ID, feedbackID);
+            }
+            // A message without terms has no signature, and is similar to no other message.
+            List<SimilarFeedback> similarFeedbackList = new ArrayList<>();
+            if (entry.signature == null) {
+                return similarFeedbackList;
+            }
+
+            TreeSet<Integer> candidateIds = new TreeSet<>();
+            for (long bucketKey : entry.signature.getBucketKeys()) {
+                candidateIds.addAll(idsByBucket.getOrDefault(bucketKey, new TreeSet<>()));
+            }
+            List<Pair<IndexedEntry, Double>> similarEntries = new ArrayList<>();
+            int candidateCount = 0;
+            for (Integer candidateId : candidateIds) {
+                IndexedEntry candidate = entriesById.get(candidateId);
+                if (candidate.id == entry.id || candidate.tenantId != entry.tenantId) {
+                    continue;
+                }
+                if (candidateCount++ == FeedbackMgtConstants.MAX_SIMILARITY_CANDIDATES) {
+                    break;
+                }
+                double similarity = entry.signature.estimateSimilarity(candidate.signature);
+                if (similarity >= threshold) {
+                    similarEntries.add(Pair.of(candidate, similarity));
+                }
+            }
+            similarEntries.sort(Comparator.comparing((Pair<IndexedEntry, Double> similarEntry) ->
+                    similarEntry.getRight()).reversed().thenComparingInt(similarEntry -> similarEntry.getLeft().id));
+            for (Pair<IndexedEntry, Double> similarEntry : similarEntries) {
+                similarFeedbackList.add(new SimilarFeedback(read(similarEntry.getLeft()), similarEntry.getRight()));
+            }
+            return similarFeedbackList;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Feedback getFeedbackEntry(String feedbackID) throws FeedbackManagementException {
+
+        return getEntry(null, feedbackID);
+    }
+
+    @Override
+    public Feedback getFeedbackEntry(int tenantId, String feedbackID) throws FeedbackManagementException {
+
+        return getEntry(tenantId, feedbackID);
+    }
+
+    @Override
+    public String deleteFeedbackEntry(String feedbackID) throws FeedbackManagementException {
+
+        return deleteEntry(null, feedbackID);
+    }
+
+    @Override
+    public String deleteFeedbackEntry(int tenantId, String feedbackID) throws FeedbackManagementException {
+
+        return deleteEntry(tenantId, feedbackID);
+    }
+
+    @Override
+    public Feedback updateFeedbackEntry(String feedbackID, Feedback feedbackEntry) throws FeedbackManagementException {
+
+        Feedback updatedFeedback;
+        lock.writeLock().lock();
+        try {
+            IndexedEntry entry = entriesByUuid.get(feedbackID);
+            if (entry == null) {
+                throw FeedbackExceptionManagementUtil
+                        .buildClientException(ErrorMessages.ERROR_NOT_FOUND_RESOURCE_ID, feedbackID);
+            }
+            if (feedbackEntry.getVersion() != null && feedbackEntry.getVersion() != entry.version) {
+                throw FeedbackExceptionManagementUtil
+                        .buildClientException(ErrorMessages.ERROR_CODE_FEEDBACK_VERSION_CONFLICT, feedbackID);
+            }
+
+            updatedFeedback = read(entry);
+            updatedFeedback.setMessage(feedbackEntry.getMessage());
+            updatedFeedback.setEmail(feedbackEntry.getEmail());
+            updatedFeedback.setContactNo(feedbackEntry.getContactNo());
+            updatedFeedback.setTags(feedbackEntry.getTags() == null ? new ArrayList<>() :
+                    new ArrayList<>(new LinkedHashSet<>(feedbackEntry.getTags())));
+            updatedFeedback.setVersion(entry.version + 1);
+            long offset;
+            try {
+                offset = feedbackLog.append(updatedFeedback);
+                feedbackLog.discard(entry.offset);
+            } catch (IOException e) {
+                throw FeedbackExceptionManagementUtil
+                        .buildServerException(ErrorMessages.ERROR_CODE_UPDATE_USER_FEEDBACK, feedbackID, e);
+            }
+            unindex(entry);
+            index(new IndexedEntry(updatedFeedback, offset));
+        } finally {
+            lock.writeLock().unlock();
+        }
+        syncLog(ErrorMessages.ERROR_CODE_UPDATE_USER_FEEDBACK, feedbackID);
+        return updatedFeedback;
+    }
+
+    @Override
+    public Integer countListResults(String filter) throws FeedbackManagementException {
+
+        return countEntries(null, filter);
+    }
+
+    @Override
+    public Integer countListResults(int tenantId, String filter) throws FeedbackManagementException {
+
+        return countEntries(tenantId, filter);
+    }
+
+    @Override
+    public int exportFeedbackEntries(String filter, FeedbackExporter exporter) throws FeedbackManagementException {
+
+        return exportEntries(null, filter, exporter);
+    }
+
+    @Override
+    public int exportFeedbackEntries(int tenantId, String filter, FeedbackExporter exporter)
+            throws FeedbackManagementException {
+
+        return exportEntries(tenantId, filter, exporter);
+    }
+
+    @Override
+    public Integer checkIfFeedbackExists(String feedbackId) throws FeedbackManagementException {
+
+        lock.readLock().lock();
+        try {
+            IndexedEntry entry = entriesByUuid.get(feedbackId);
+            return entry == null ? null : entry.id;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Compact the feedback log if the records of the overwritten and deleted entries take up at least
+     * {@link FeedbackMgtConstants#FEEDBACK_LOG_COMPACTION_GARBAGE_RATIO} of its size. The entries are copied in the
+     * order of their IDs.
+     *
+     * @return true if the log was compacted
+     * @throws FeedbackManagementException
+     */
+    public boolean compact() throws FeedbackManagementException {
+
+        lock.writeLock().lock();
+        try {
+            if (feedbackLog.getGarbageRatio() < FeedbackMgtConstants.FEEDBACK_LOG_COMPACTION_GARBAGE_RATIO) {
+                return false;
+            }
+            long previousSize = feedbackLog.getSize();
+            List<IndexedEntry> entries = new ArrayList<>(entriesById.values());
+            long[] liveOffsets = new long[entries.size()];
+            for (int i = 0; i < entries.size(); i++) {
+                liveOffsets[i] = entries.get(i).offset;
+            }
+            long[] newOffsets;
+            try {
+                newOffsets = feedbackLog.compact(liveOffsets, lastId);
+            } catch (IOException e) {
+                throw FeedbackExceptionManagementUtil.buildServerException(
+                        ErrorMessages.ERROR_CODE_COMPACT_FEEDBACK_LOG, feedbackLog.getPath().toString(), e);
+            }
+            for (int i = 0; i < entries.size(); i++) {
+                entries.get(i).offset = newOffsets[i];
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("Compacted the feedback log: " + feedbackLog.getPath() + " from " + previousSize +
+                        " to " + feedbackLog.getSize() + " bytes.");
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+
+        lock.writeLock().lock();
+        try {
+            feedbackLog.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Retrieve a list of user feedback entries according to the specified conditions.
+     *
+     * @param tenantId  tenant ID, or null to list the entries of all the tenants
+     * @param filter    filter condition
+     * @param limit     max entries in list
+     * @param offset    entries to skip
+     * @param sortBy    how to sort the list
+     * @param sortOrder order of sorting (ASC/DESC)
+     * @return A list of user feedback entries
+     * @throws FeedbackManagementException
+     */
+    private List<Feedback> listEntries(Integer tenantId, String filter, int limit, int offset, String sortBy,
+                                       String sortOrder) throws FeedbackManagementException {
+
+        int limitValidated = FeedbackPaginationUtil.validateLimitForPagination(limit);
+        int offsetValidated = FeedbackPaginationUtil.validateOffsetForPagination(offset);
+        String sortByValidated = FeedbackPaginationUtil.validateSortingAttribute(sortBy);
+        String sortOrderValidated = FeedbackPaginationUtil.validateSortingOrder(sortOrder);
+        FilterExpression filterExpression = StringUtils.isBlank(filter) ? null : FilterExpression.parse(filter);
+
+        lock.readLock().lock();
+        try {
+            Iterable<IndexedEntry> entries = getEntriesInOrder(filterExpression,
+                    FeedbackPaginationUtil.isSortedByTimeCreated(sortByValidated),
+                    FeedbackPaginationUtil.isDescending(sortOrderValidated), null, null);
+            return collectMatches(entries, tenantId, filterExpression, offsetValidated, limitValidated, null);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retrieve a page of user feedback entries according to the specified conditions using cursor based pagination.
+     *
+     * @param tenantId  tenant ID, or null to list the entries of all the tenants
+     * @param filter    filter condition
+     * @param limit     max entries in page
+     * @param cursor    cursor returned with the previous page, or null to retrieve the first page
+     * @param sortBy    how to sort the list
+     * @param sortOrder order of sorting (ASC/DESC)
+     * @return A page of user feedback entries with the cursor of the next page
+     * @throws FeedbackManagementException
+     */
+    private FeedbackPage listPage(Integer tenantId, String filter, int limit, String cursor, String sortBy,
+                                  String sortOrder) throws FeedbackManagementException {
+
+        int limitValidated = FeedbackPaginationUtil.validateLimitForPagination(limit);
+        String sortByValidated = FeedbackPaginationUtil.validateSortingAttribute(sortBy).trim().toLowerCase();
+        String sortOrderValidated = FeedbackPaginationUtil.validateSortingOrder(sortOrder).toUpperCase();
+        FilterExpression filterExpression = StringUtils.isBlank(filter) ? null : FilterExpression.parse(filter);
+        Pair<Integer, Timestamp> seekPosition = StringUtils.isBlank(cursor) ? null :
+                FeedbackPaginationUtil.decodeCursor(cursor, sortByValidated, sortOrderValidated);
+        boolean sortByTime = FeedbackPaginationUtil.isSortedByTimeCreated(sortByValidated);
+
+        lock.readLock().lock();
+        try {
+            Iterable<IndexedEntry> entries = getEntriesInOrder(filterExpression, sortByTime,
+                    FeedbackPaginationUtil.isDescending(sortOrderValidated),
+                    seekPosition == null ? null : seekPosition.getLeft(),
+                    seekPosition == null ? null : seekPosition.getRight());
+            // One extra entry is collected to find out whether there is a next page.
+            List<IndexedEntry> pageEntries = new ArrayList<>();
+            List<Feedback> feedbackResultsList = collectMatches(entries, tenantId, filterExpression, 0,
+                    limitValidated + 1, pageEntries);
+
+            String nextCursor = null;
+            if (feedbackResultsList.size() > limitValidated) {
+                feedbackResultsList = new ArrayList<>(feedbackResultsList.subList(0, limitValidated));
+                IndexedEntry lastEntry = pageEntries.get(limitValidated - 1);
+                nextCursor = FeedbackPaginationUtil.encodeCursor(sortByValidated, sortOrderValidated, lastEntry.id,
+                        lastEntry.timeCreated);
+            }
+            return new FeedbackPage(feedbackResultsList, nextCursor);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the entries which may match a filter in the order of a list, starting right after a position of the order.
+     * The entries of a single "tag eq" filter listed by ID are taken from the IDs of the tag, and the entries listed
+     * by creation time are taken from the range of times of the filter.
+     *
+     * @param filterExpression parsed filter, or null to get all the entries
+     * @param sortByTime       whether the entries are ordered by creation time and then ID, or by ID alone
+     * @param descending       whether the order is descending
+     * @param afterId          ID of the entry the order starts after, or null to start from the first entry
+     * @param afterTime        creation time of the entry the order starts after, if ordered by creation time
+     * @return Entries in order, which the caller has to match against the filter
+     */
+    private Iterable<IndexedEntry> getEntriesInOrder(FilterExpression filterExpression, boolean sortByTime,
+                                                     boolean descending, Integer afterId, Timestamp afterTime) {
+
+        if (sortByTime) {
+            NavigableSet<IndexedEntry> entries = entriesByTime;
+            Pair<Timestamp, Timestamp> timeRange = filterExpression == null ? null :
+                    filterExpression.getTimeCreatedRange();
+            if (timeRange != null && timeRange.getLeft() != null) {
+                entries = entries.tailSet(IndexedEntry.probe(timeRange.getLeft(), Integer.MIN_VALUE), true);
+            }
+            if (timeRange != null && timeRange.getRight() != null) {
+                entries = entries.headSet(IndexedEntry.probe(timeRange.getRight(), Integer.MAX_VALUE), true);
+            }
+            if (afterId != null) {
+                IndexedEntry afterEntry = IndexedEntry.probe(afterTime, afterId);
+                entries = descending ? entries.headSet(afterEntry, false) : entries.tailSet(afterEntry, false);
+            }
+            return descending ? entries.descendingSet() : entries;
+        }
+
+        String tag = filterExpression == null ? null : filterExpression.getTagEqualityValue();
+        if (tag != null) {
+            NavigableSet<Integer> ids = idsByTag.getOrDefault(tag, new TreeSet<>());
+            if (afterId != null) {
+                ids = descending ? ids.headSet(afterId, false) : ids.tailSet(afterId, false);
+            }
+            NavigableSet<Integer> orderedIds = descending ? ids.descendingSet() : ids;
+            return () -> orderedIds.stream().map(entriesById::get).iterator();
+        }
+        NavigableMap<Integer, IndexedEntry> entries = entriesById;
+        if (afterId != null) {
+            entries = descending ? entries.headMap(afterId, false) : entries.tailMap(afterId, false);
+        }
+        return descending ? entries.descendingMap().values() : entries.values();
+    }
+
+    /**
+     * Collect the entries which match a filter, in the order they are given.
+     *
+     * @param entries          entries in order
+     * @param tenantId         tenant ID, or null to match the entries of all the tenants
+     * @param filterExpression parsed filter, or null to match all the entries
+     * @param offset           matching entries to skip
+     * @param limit            max entries to collect
+     * @param matchedEntries   list the indexed entries of the collected entries are added to, or null
+     * @return A list of the matching user feedback entries
+     * @throws FeedbackManagementException
+     */
+    private List<Feedback> collectMatches(Iterable<IndexedEntry> entries, Integer tenantId,
+                                          FilterExpression filterExpression, int offset, int limit,
+                                          List<IndexedEntry> matchedEntries) throws FeedbackManagementException {
+
+        // A single "tag eq" filter is matched on the tags of the index, so that only the collected entries are read.
+        String tag = filterExpression == null ? null : filterExpression.getTagEqualityValue();
+        boolean readToMatch = filterExpression != null && tag == null;
+        List<Feedback> feedbackList = new ArrayList<>();
+        int skippedCount = 0;
+        for (IndexedEntry entry : entries) {
+            if (feedbackList.size() == limit) {
+                break;
+            }
+            if ((tenantId != null && tenantId != entry.tenantId) || (tag != null && !entry.tags.contains(tag))) {
+                continue;
+            }
+            Feedback feedback = null;
+            if (readToMatch) {
+                feedback = read(entry);
+                if (!filterExpression.matches(feedback)) {
+                    continue;
+                }
+            }
+            if (skippedCount < offset) {
+                skippedCount++;
+                continue;
+            }
+            feedbackList.add(feedback == null ? read(entry) : feedback);
+            if (matchedEntries != null) {
+                matchedEntries.add(entry);
+            }
+        }
+        return feedbackList;
+    }
+
+    /**
+     * Search the messages of the feedback entries for a query, and retrieve the matching entries in the order of their
+     * relevance to the query. The entries are ranked in the same way as by the message index of the database.
+     *
+     * @param tenantId tenant ID, or null to search the entries of all the tenants
+     * @param query    search query
+     * @param limit    max entries in list
+     * @return A list of matching user feedback entries
+     * @throws FeedbackManagementException
+     */
+    private List<Feedback> searchEntries(Integer tenantId, String query, int limit)
+            throws FeedbackManagementException {
+
+        MessageQuery messageQuery = MessageQuery.parse(query);
+        int limitValidated = FeedbackPaginationUtil.validateLimitForPagination(limit);
+        lock.readLock().lock();
+        try {
+            // An entry matches only if its message has all the terms of the query.
+            List<Map<Integer, Integer>> termEntries = new ArrayList<>();
+            for (String term : messageQuery.getTerms()) {
+                Map<Integer, Integer> entries = termFrequencies.get(term);
+                if (entries == null) {
+                    return new ArrayList<>();
+                }
+                termEntries.add(entries);
+            }
+            int totalCount = entriesById.size();
+            for (Map<Integer, Integer> entries : termEntries) {
+                totalCount = Math.max(totalCount, entries.size());
+            }
+            double[] weights = new double[termEntries.size()];
+            for (int i = 0; i < termEntries.size(); i++) {
+                int entryCount = termEntries.get(i).size();
+                weights[i] = Math.log(1 + (totalCount - entryCount + 0.5) / (entryCount + 0.5));
+            }
+
+            Map<Integer, Integer> rarestTermEntries = Collections.min(termEntries, Comparator.comparingInt(Map::size));
+            List<Pair<IndexedEntry, Double>> matches = new ArrayList<>();
+            for (Integer id : rarestTermEntries.keySet()) {
+                IndexedEntry entry = entriesById.get(id);
+                if (tenantId != null && tenantId != entry.tenantId) {
+                    continue;
+                }
+                double score = 0;
+                boolean hasAllTerms = true;
+                for (int i = 0; i < termEntries.size() && hasAllTerms; i++) {
+                    Integer frequency = termEntries.get(i).get(id);
+                    hasAllTerms = frequency != null;
+                    score += hasAllTerms ? frequency * weights[i] : 0;
+                }
+                if (hasAllTerms) {
+                    matches.add(Pair.of(entry, score));
+                }
+            }
+            matches.sort(Comparator.comparing((Pair<IndexedEntry, Double> match) -> match.getRight()).reversed()
+                    .thenComparingInt(match -> match.getLeft().id));
+
+            List<Feedback> feedbackResultsList = new ArrayList<>();
+            for (Pair<IndexedEntry, Double> match : matches) {
+                if (feedbackResultsList.size() == limitValidated) {
+                    break;
+                }
+                Feedback feedback = read(match.getLeft());
+                if (hasPhrases(feedback.getMessage(), messageQuery.getPhrases())) {
+                    feedbackResultsList.add(feedback);
+                }
+            }
+            return feedbackResultsList;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Check whether a message has all the given phrases.
+     *
+     * @param message message
+     * @param phrases normalized phrases
+     * @return true if the message in lower case has all the phrases
+     */
+    private boolean hasPhrases(String message, List<String> phrases) {
+
+        if (phrases.isEmpty()) {
+            return true;
+        }
+        String lowerCaseMessage = message == null ? "" : message.toLowerCase(Locale.ROOT);
+        for (String phrase : phrases) {
+            if (!lowerCaseMessage.contains(phrase)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Retrieve a feedback entry.
+     *
+     * @param tenantId   tenant ID, or null to retrieve the entry of any tenant
+     * @param feedbackID Resource ID
+     * @return Feedback entry, or null if the entry does not exist
+     * @throws FeedbackManagementException
+     */
+    private Feedback getEntry(Integer tenantId, String feedbackID) throws FeedbackManagementException {
+
+        lock.readLock().lock();
+        try {
+            IndexedEntry entry = entriesByUuid.get(feedbackID);
+            if (entry == null || (tenantId != null && tenantId != entry.tenantId)) {
+                return null;
+            }
+            return read(entry);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Delete a feedback entry using the feedback ID.
+     *
+     * @param tenantId   tenant ID, or null to delete the entry of any tenant
+     * @param feedbackID Resource ID
+     * @return Resource ID of the feedback deleted
+     * @throws FeedbackManagementException
+     */
+    private String deleteEntry(Integer tenantId, String feedbackID) throws FeedbackManagementException {
+
+        lock.writeLock().lock();
+        try {
+            IndexedEntry entry = entriesByUuid.get(feedbackID);
+            if (entry == null || (tenantId != null && tenantId != entry.tenantId)) {
+                throw FeedbackExceptionManagementUtil
+                        .buildClientException(ErrorMessages.ERROR_NOT_FOUND_RESOURCE_ID, feedbackID);
+            }
+            try {
+                feedbackLog.appendDelete(entry.id, feedbackID);
+                feedbackLog.discard(entry.offset);
+            } catch (IOException e) {
+                throw FeedbackExceptionManagementUtil
+                        .buildServerException(ErrorMessages.ERROR_CODE_DELETE_FEEDBACK, feedbackID, e);
+            }
+            unindex(entry);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        syncLog(ErrorMessages.ERROR_CODE_DELETE_FEEDBACK, feedbackID);
+        return feedbackID;
+    }
+
+    /**
+     * Force the records appended by a change to the storage device, if the log is synced. The force runs after the
+     * write lock is released, so that the writers waiting for a force keep appending their records meanwhile, and
+     * share the next force. A change is thereby visible to the readers shortly before it is forced.
+     *
+     * @param errorMessage error of the change
+     * @param data         data of the error message
+     * @throws FeedbackManagementException
+     */
+    private void syncLog(ErrorMessages errorMessage, String data) throws FeedbackManagementException {
+
+        try {
+            feedbackLog.sync();
+        } catch (IOException e) {
+            throw FeedbackExceptionManagementUtil.buildServerException(errorMessage, data, e);
+        }
+    }
+
+    /**
+     * Get the count of Feedback entries that match the given condition. Counts without a filter or by a single tag
+     * are taken from the indexes.
+     *
+     * @param tenantId tenant ID, or null to count the entries of all the tenants
+     * @param filter   Condition to filter records
+     * @return Number of matching entries
+     * @throws FeedbackManagementException
+     */
+    private Integer countEntries(Integer tenantId, String filter) throws FeedbackManagementException {
+
+        FilterExpression filterExpression = StringUtils.isBlank(filter) ? null : FilterExpression.parse(filter);
+        lock.readLock().lock();
+        try {
+            if (filterExpression == null) {
+                return tenantId == null ? entriesById.size() : countsByTenant.getOrDefault(tenantId, 0);
+            }
+            String tag = filterExpression.getTagEqualityValue();
+            if (tag != null) {
+                Set<Integer> ids = idsByTag.getOrDefault(tag, new TreeSet<>());
+                if (tenantId == null) {
+                    return ids.size();
+                }
+                int count = 0;
+                for (Integer id : ids) {
+                    if (entriesById.get(id).tenantId == tenantId) {
+                        count++;
+                    }
+                }
+                return count;
+            }
+            return collectMatches(entriesById.values(), tenantId, filterExpression, 0, Integer.MAX_VALUE, null)
+                    .size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Export the feedback entries that match the given condition, in the order of their IDs.
+     *
+     * @param tenantId tenant ID, or null to export the entries of all the tenants
+     * @param filter   Condition to filter records
+     * @param exporter exporter the entries are written to
+     * @return Number of exported entries
+     * @throws FeedbackManagementException
+     */
+    private int exportEntries(Integer tenantId, String filter, FeedbackExporter exporter)
+            throws FeedbackManagementException {
+
+        FilterExpression filterExpression = StringUtils.isBlank(filter) ? null : FilterExpression.parse(filter);
+        String tag = filterExpression == null ? null : filterExpression.getTagEqualityValue();
+        lock.readLock().lock();
+        try {
+            int exportedCount = 0;
+            exporter.begin();
+            for (IndexedEntry entry : getEntriesInOrder(filterExpression, false, false, null, null)) {
+                if ((tenantId != null && tenantId != entry.tenantId) || (tag != null && !entry.tags.contains(tag))) {
+                    continue;
+                }
+                Feedback feedback = read(entry);
+                if (filterExpression == null || tag != null || filterExpression.matches(feedback)) {
+                    exporter.write(feedback);
+                    exportedCount++;
+                }
+            }
+            exporter.end();
+            return exportedCount;
+        } catch (IOException e) {
+            throw FeedbackExceptionManagementUtil.buildServerException(ErrorMessages.ERROR_CODE_EXPORT_FEEDBACK, e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Build the stored state of a new feedback entry.
+     *
+     * @param userFeedback user feedback
+     * @param id           ID assigned to the entry
+     * @param timeCreated  creation time of the entry
+     * @return Feedback entry to append to the log
+     */
+    private Feedback buildStoredFeedback(Feedback userFeedback, int id, String timeCreated) {
+
+        Feedback storedFeedback = new Feedback(id, userFeedback.getMessage(), userFeedback.getEmail(),
+                userFeedback.getContactNo(), userFeedback.getUserId(), userFeedback.getTenantId(),
+                userFeedback.getUuid(), timeCreated);
+        storedFeedback.setVersion(0);
+        storedFeedback.setTags(userFeedback.getTags() == null ? new ArrayList<>() :
+                new ArrayList<>(new LinkedHashSet<>(userFeedback.getTags())));
+        return storedFeedback;
+    }
+
+    /**
+     * Read the feedback entry of an indexed entry from the log.
+     *
+     * @param entry indexed entry
+     * @return Feedback entry with its tags
+     * @throws FeedbackManagementException
+     */
+    private Feedback read(IndexedEntry entry) throws FeedbackManagementException {
+
+        try {
+            return feedbackLog.read(entry.offset);
+        } catch (IOException e) {
+            throw FeedbackExceptionManagementUtil.buildServerException(ErrorMessages.ERROR_CODE_READ_FEEDBACK_LOG,
+                    feedbackLog.getPath().toString(), e);
+        }
+    }
+
+    /**
+     * Add an entry to the indexes.
+     *
+     * @param entry indexed entry
+     */
+    private void index(IndexedEntry entry) {
+
+        entriesByUuid.put(entry.uuid, entry);
+        entriesById.put(entry.id, entry);
+        entriesByTime.add(entry);
+        countsByTenant.merge(entry.tenantId, 1, Integer::sum);
+        for (String tag : entry.tags) {
+            idsByTag.computeIfAbsent(tag, key -> new TreeSet<>()).add(entry.id);
+        }
+        for (Map.Entry<String, Integer> termFrequency : entry.termFrequencies.entrySet()) {
+            termFrequencies.computeIfAbsent(termFrequency.getKey(), key -> new HashMap<>())
+                    .put(entry.id, termFrequency.getValue());
+        }
+        if (entry.signature != null) {
+            for (long bucketKey : entry.signature.getBucketKeys()) {
+                idsByBucket.computeIfAbsent(bucketKey, key -> new TreeSet<>()).add(entry.id);
+            }
+        }
+    }
+
+    /**
+     * Remove an entry from the indexes.
+     *
+     * @param entry indexed entry
+     */
+    private void unindex(IndexedEntry entry) {
+
+        entriesByUuid.remove(entry.uuid);
+        entriesById.remove(entry.id);
+        entriesByTime.remove(entry);
+        countsByTenant.merge(entry.tenantId, -1, Integer::sum);
+        for (String tag : entry.tags) {
+            removeId(idsByTag, tag, entry.id);
+        }
+        for (String term : entry.termFrequencies.keySet()) {
+            Map<Integer, Integer> entries = termFrequencies.get(term);
+            entries.remove(entry.id);
+            if (entries.isEmpty()) {
+                termFrequencies.remove(term);
+            }
+        }
+        if (entry.signature != null) {
+            for (long bucketKey : entry.signature.getBucketKeys()) {
+                removeId(idsByBucket, bucketKey, entry.id);
+            }
+        }
+    }
+
+    /**
+     * Remove an ID from a posting list of an index, and the list once it is empty.
+     *
+     * @param index index of posting lists
+     * @param key   key of the posting list
+     * @param id    ID to remove
+     * @param <K>   type of the keys of the index
+     */
+    private static <K> void removeId(Map<K, TreeSet<Integer>> index, K key, int id) {
+
+        Set<Integer> ids = index.get(key);
+        ids.remove(id);
+        if (ids.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
+    private void closeQuietly() {
+
+        try {
+            feedbackLog.close();
+        } catch (IOException e) {
+            log.error("Error while closing the feedback log: " + feedbackLog.getPath(), e);
+        }
+    }
+
+    /**
+     * The indexed attributes of a feedback entry, with the offset of its last record in the log.
+     */
+    private static final class IndexedEntry {
+
+        private final int id;
+        private final String uuid;
+        private final int tenantId;
+        private final Timestamp timeCreated;
+        private final int version;
+        private final List<String> tags;
+        private final Map<String, Integer> termFrequencies;
+        private final MessageSignature signature;
+        private long offset;
+
+        private IndexedEntry(int id, String uuid, int tenantId, Timestamp timeCreated, int version, List<String> tags,
+                             Map<String, Integer> termFrequencies, MessageSignature signature, long offset) {
+
+            this.id = id;
+            this.uuid = uuid;
+            this.tenantId = tenantId;
+            this.timeCreated = timeCreated;
+            this.version = version;
+            this.tags = tags;
+            this.termFrequencies = termFrequencies;
+            this.signature = signature;
+            this.offset = offset;
+        }
+
+        private IndexedEntry(Feedback feedback, long offset) {
+
+            this(feedback.getId(), feedback.getUuid(), feedback.getTenantId(),
+                    Timestamp.valueOf(feedback.getTimeCreated()), feedback.getVersion(),
+                    feedback.getTags() == null ? Collections.emptyList() : new ArrayList<>(feedback.getTags()),
+                    MessageAnalyzer.countTerms(feedback.getMessage()), MessageSignature.of(feedback.getMessage()),
+                    offset);
+        }
+
+        /**
+         * Build an entry to look up a position of the time index.
+         *
+         * @param timeCreated creation time
+         * @param id          ID
+         * @return entry of the position
+         */
+        private static IndexedEntry probe(Timestamp timeCreated, int id) {
+
+            return new IndexedEntry(id, null, 0, timeCreated, 0, Collections.emptyList(), Collections.emptyMap(),
+                    null, 0);
+        }
+    }
+}
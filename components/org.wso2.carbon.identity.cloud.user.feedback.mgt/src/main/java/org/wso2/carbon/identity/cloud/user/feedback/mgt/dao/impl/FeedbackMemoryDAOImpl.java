@@ -0,0 +1,918 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.impl;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang3.tuple.Pair;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants.ErrorMessages;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.FeedbackMgtDAO;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.exception.FeedbackManagementException;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.export.FeedbackExporter;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.filter.FilterExpression;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.Feedback;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.FeedbackPage;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.SimilarFeedback;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.search.MessageAnalyzer;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.search.MessageQuery;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.search.MessageSignature;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.util.FeedbackExceptionManagementUtil;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.util.FeedbackPaginationUtil;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A {@link FeedbackMgtDAO} which keeps the feedback entries in memory only, for tests and benchmarks which need the
+ * behaviour of the database DAO without a database. The entries are lost when the DAO is discarded.
+ * <p>
+ * The entries are held in an array indexed by their IDs, which are handed out in sequence, and every posting list is
+ * a {@link FeedbackIdSet} of IDs, which is a bitmap once it is dense: the live entries, and the entries of each
+ * tenant, tag, message term and MinHash bucket. Filters by tenant and by tag are thereby intersections of the sets,
+ * and only the other filter terms are evaluated on the entries themselves. The entries are also kept sorted by their
+ * creation times and IDs to list them by time. The entries are read under a read lock and changed under a write lock.
+ */
+public class FeedbackMemoryDAOImpl implements FeedbackMgtDAO {
+
+    private static final Comparator<StoredEntry> TIME_ORDER = Comparator
+            .comparing((StoredEntry entry) -> entry.timeCreated).thenComparingInt(entry -> entry.id);
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /*
+     * The candidates of a tenant or tag are sorted by time instead of walking the whole time index if they are fewer
+     * than this fraction of all the entries.
+     */
+    private static final int TIME_INDEX_SCAN_RATIO = 16;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> idsByUuid = new HashMap<>();
+    private final FeedbackIdSet liveIds = new FeedbackIdSet();
+    private final TreeSet<StoredEntry> entriesByTime = new TreeSet<>(TIME_ORDER);
+    private final Map<Integer, FeedbackIdSet> idsByTenant = new HashMap<>();
+    private final Map<String, FeedbackIdSet> idsByTag = new HashMap<>();
+    private final Map<String, FeedbackIdSet> idsByTerm = new HashMap<>();
+    private final Map<Long, FeedbackIdSet> idsByBucket = new HashMap<>();
+    private StoredEntry[] entriesById = new StoredEntry[INITIAL_CAPACITY];
+    private int entryCount;
+    private int lastId;
+
+    @Override
+    public Feedback insertFeedbackEntry(Feedback userFeedback) throws FeedbackManagementException {
+
+        lock.writeLock().lock();
+        try {
+            if (idsByUuid.containsKey(userFeedback.getUuid())) {
+                throw FeedbackExceptionManagementUtil.buildServerException(
+                        ErrorMessages.ERROR_CODE_ADD_USER_FEEDBACK, userFeedback.getUuid());
+            }
+            String timeCreated = new Timestamp(System.currentTimeMillis()).toString();
+            lastId++;
+            index(new StoredEntry(buildStoredFeedback(userFeedback, lastId, timeCreated)));
+        } finally {
+            lock.writeLock().unlock();
+        }
+        userFeedback.setVersion(0);
+        return userFeedback;
+    }
+
+    @Override
+    public List<Feedback> insertFeedbackEntries(List<Feedback> userFeedbackList) throws FeedbackManagementException {
+
+        if (userFeedbackList.isEmpty()) {
+            return userFeedbackList;
+        }
+        lock.writeLock().lock();
+        try {
+            // The entries are checked before any of them is added, so that they are added all together or not at all.
+            Set<String> uuids = new HashSet<>();
+            for (Feedback userFeedback : userFeedbackList) {
+                if (idsByUuid.containsKey(userFeedback.getUuid()) || !uuids.add(userFeedback.getUuid())) {
+                    throw FeedbackExceptionManagementUtil.buildServerException(
+                            ErrorMessages.ERROR_CODE_ADD_USER_FEEDBACK_LIST, String.valueOf(userFeedbackList.size()));
+                }
+            }
+            String timeCreated = new Timestamp(System.currentTimeMillis()).toString();
+            for (Feedback userFeedback : userFeedbackList) {
+                lastId++;
+                index(new StoredEntry(buildStoredFeedback(userFeedback, lastId, timeCreated)));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        for (Feedback userFeedback : userFeedbackList) {
+            userFeedback.setVersion(0);
+        }
+        return userFeedbackList;
+    }
+
+    @Override
+    public List<Feedback> listFeedbackEntries(String filter, int limit, int offset, String sortBy, String sortOrder)
+            throws FeedbackManagementException {
+
+        return listEntries(null, filter, limit, offset, sortBy, sortOrder);
+    }
+
+    @Override
+    public List<Feedback> listFeedbackEntries(int tenantId, String filter, int limit, int offset, String sortBy,
+                                              String sortOrder) throws FeedbackManagementException {
+
+        return listEntries(tenantId, filter, limit, offset, sortBy, sortOrder);
+    }
+
+    @Override
+    public FeedbackPage listFeedbackEntries(String filter, int limit, String cursor, String sortBy, String sortOrder)
+            throws FeedbackManagementException {
+
+        return listPage(null, filter, limit, cursor, sortBy, sortOrder);
+    }
+
+    @Override
+    public FeedbackPage listFeedbackEntries(int tenantId, String filter, int limit, String cursor, String sortBy,
+                                            String sortOrder) throws FeedbackManagementException {
+
+        return listPage(tenantId, filter, limit, cursor, sortBy, sortOrder);
+    }
+
+    @Override
+    public List<Feedback> searchFeedbackEntries(String query, int limit) throws FeedbackManagementException {
+
+        return searchEntries(null, query, limit);
+    }
+
+    @Override
+    public List<Feedback> searchFeedbackEntries(int tenantId, String query, int limit)
+            throws FeedbackManagementException {
+
+        return searchEntries(tenantId, query, limit);
+    }
+
+    @Override
+    public List<SimilarFeedback> findSimilarFeedbackEntries(String feedbackID, double threshold)
+            throws FeedbackManagementException {
+
+        MessageSignature.validateThreshold(threshold);
+        lock.readLock().lock();
+        try {
+            StoredEntry entry = getStoredEntry(feedbackID);
+            if (entry == null) {
+                throw FeedbackExceptionManagementUtil
+                        .buildClientException(ErrorMessages.ERROR_NOT_FOUND_RESOURCE_ID, feedbackID);
+            }
+            // A message without terms has no signature, and is similar to no other message.
+            List<SimilarFeedback> similarFeedbackList = new ArrayList<>();
+            if (entry.signature == null) {
+                return similarFeedbackList;
+            }
+
+            TreeSet<Integer> candidateIds = new TreeSet<>();
+            for (long bucketKey : entry.signature.getBucketKeys()) {
+                FeedbackIdSet bucketIds = idsByBucket.get(bucketKey);
+                for (int id = bucketIds.nextId(0); id >= 0; id = bucketIds.nextId(id + 1)) {
+                    candidateIds.add(id);
+                }
+            }
+            List<Pair<StoredEntry, Double>> similarEntries = new ArrayList<>();
+            int candidateCount = 0;
+            for (Integer candidateId : candidateIds) {
+                StoredEntry candidate = entriesById[candidateId];
+                if (candidate.id == entry.id || candidate.tenantId != entry.tenantId) {
+                    continue;
+                }
+                if (candidateCount++ == FeedbackMgtConstants.MAX_SIMILARITY_CANDIDATES) {
+                    break;
+                }
+                double similarity = entry.signature.estimateSimilarity(candidate.signature);
+                if (similarity >= threshold) {
+                    similarEntries.add(Pair.of(candidate, similarity));
+                }
+            }
+            similarEntries.sort(Comparator.comparing((Pair<StoredEntry, Double> similarEntry) ->
+                    similarEntry.getRight()).reversed().thenComparingInt(similarEntry -> similarEntry.getLeft().id));
+            for (Pair<StoredEntry, Double> similarEntry : similarEntries) {
+                similarFeedbackList.add(new SimilarFeedback(copy(similarEntry.getLeft().feedback),
+                        similarEntry.getRight()));
+            }
+            return similarFeedbackList;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Feedback getFeedbackEntry(String feedbackID) throws FeedbackManagementException {
+
+        return getEntry(null, feedbackID);
+    }
+
+    @Override
+    public Feedback getFeedbackEntry(int tenantId, String feedbackID) throws FeedbackManagementException {
+
+        return getEntry(tenantId, feedbackID);
+    }
+
+    @Override
+    public String deleteFeedbackEntry(String feedbackID) throws FeedbackManagementException {
+
+        return deleteEntry(null, feedbackID);
+    }
+
+    @Override
+    public String deleteFeedbackEntry(int tenantId, String feedbackID) throws FeedbackManagementException {
+
+        return deleteEntry(tenantId, feedbackID);
+    }
+
+    @Override
+    public Feedback updateFeedbackEntry(String feedbackID, Feedback feedbackEntry) throws FeedbackManagementException {
+
+        lock.writeLock().lock();
+        try {
+            StoredEntry entry = getStoredEntry(feedbackID);
+            if (entry == null) {
+                throw FeedbackExceptionManagementUtil
+                        .buildClientException(ErrorMessages.ERROR_NOT_FOUND_RESOURCE_ID, feedbackID);
+            }
+            int version = entry.feedback.getVersion();
+            if (feedbackEntry.getVersion() != null && feedbackEntry.getVersion() != version) {
+                throw FeedbackExceptionManagementUtil
+                        .buildClientException(ErrorMessages.ERROR_CODE_FEEDBACK_VERSION_CONFLICT, feedbackID);
+            }
+
+            Feedback updatedFeedback = copy(entry.feedback);
+            updatedFeedback.setMessage(feedbackEntry.getMessage());
+            updatedFeedback.setEmail(feedbackEntry.getEmail());
+            updatedFeedback.setContactNo(feedbackEntry.getContactNo());
+            updatedFeedback.setTags(feedbackEntry.getTags() == null ? new ArrayList<>() :
+                    new ArrayList<>(new LinkedHashSet<>(feedbackEntry.getTags())));
+            updatedFeedback.setVersion(version + 1);
+            unindex(entry);
+            index(new StoredEntry(updatedFeedback));
+            return copy(updatedFeedback);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Integer countListResults(String filter) throws FeedbackManagementException {
+
+        return countEntries(null, filter);
+    }
+
+    @Override
+    public Integer countListResults(int tenantId, String filter) throws FeedbackManagementException {
+
+        return countEntries(tenantId, filter);
+    }
+
+    @Override
+    public int exportFeedbackEntries(String filter, FeedbackExporter exporter) throws FeedbackManagementException {
+
+        return exportEntries(null, filter, exporter);
+    }
+
+    @Override
+    public int exportFeedbackEntries(int tenantId, String filter, FeedbackExporter exporter)
+            throws FeedbackManagementException {
+
+        return exportEntries(tenantId, filter, exporter);
+    }
+
+    @Override
+    public Integer checkIfFeedbackExists(String feedbackId) throws FeedbackManagementException {
+
+        lock.readLock().lock();
+        try {
+            return idsByUuid.get(feedbackId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retrieve a list of user feedback entries according to the specified conditions.
+     *
+     * @param tenantId  tenant ID, or null to list the entries of all the tenants
+     * @param filter    filter condition
+     * @param limit     max entries in list
+     * @param offset    entries to skip
+     * @param sortBy    how to sort the list
+     * @param sortOrder order of sorting (ASC/DESC)
+     * @return A list of user feedback entries
+     * @throws FeedbackManagementException
+     */
+    private List<Feedback> listEntries(Integer tenantId, String filter, int limit, int offset, String sortBy,
+                                       String sortOrder) throws FeedbackManagementException {
+
+        int limitValidated = FeedbackPaginationUtil.validateLimitForPagination(limit);
+        int offsetValidated = FeedbackPaginationUtil.validateOffsetForPagination(offset);
+        String sortByValidated = FeedbackPaginationUtil.validateSortingAttribute(sortBy);
+        String sortOrderValidated = FeedbackPaginationUtil.validateSortingOrder(sortOrder);
+        FilterExpression filterExpression = StringUtils.isBlank(filter) ? null : FilterExpression.parse(filter);
+
+        lock.readLock().lock();
+        try {
+            Iterable<StoredEntry> entries = getEntriesInOrder(getCandidateIds(tenantId, filterExpression),
+                    filterExpression, FeedbackPaginationUtil.isSortedByTimeCreated(sortByValidated),
+                    FeedbackPaginationUtil.isDescending(sortOrderValidated), null, null);
+            return collectMatches(entries, filterExpression, offsetValidated, limitValidated, null);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retrieve a page of user feedback entries according to the specified conditions using cursor based pagination.
+     *
+     * @param tenantId  tenant ID, or null to list the entries of all the tenants
+     * @param filter    filter condition
+     * @param limit     max entries in page
+     * @param cursor    cursor returned with the previous page, or null to retrieve the first page
+     * @param sortBy    how to sort the list
+     * @param sortOrder order of sorting (ASC/DESC)
+     * @return A page of user feedback entries with the cursor of the next page
+     * @throws FeedbackManagementException
+     */
+    private FeedbackPage listPage(Integer tenantId, String filter, int limit, String cursor, String sortBy,
+                                  String sortOrder) throws FeedbackManagementException {
+
+        int limitValidated = FeedbackPaginationUtil.validateLimitForPagination(limit);
+        String sortByValidated = FeedbackPaginationUtil.validateSortingAttribute(sortBy).trim().toLowerCase();
+        String sortOrderValidated = FeedbackPaginationUtil.validateSortingOrder(sortOrder).toUpperCase();
+        FilterExpression filterExpression = StringUtils.isBlank(filter) ? null : FilterExpression.parse(filter);
+        Pair<Integer, Timestamp> seekPosition = StringUtils.isBlank(cursor) ? null :
+                FeedbackPaginationUtil.decodeCursor(cursor, sortByValidated, sortOrderValidated);
+
+        lock.readLock().lock();
+        try {
+            Iterable<StoredEntry> entries = getEntriesInOrder(getCandidateIds(tenantId, filterExpression),
+                    filterExpression, FeedbackPaginationUtil.isSortedByTimeCreated(sortByValidated),
+                    FeedbackPaginationUtil.isDescending(sortOrderValidated),
+                    seekPosition == null ? null : seekPosition.getLeft(),
+                    seekPosition == null ? null : seekPosition.getRight());
+            // One extra entry is collected to find out whether there is a next page.
+            List<StoredEntry> pageEntries = new ArrayList<>();
+            List<Feedback> feedbackResultsList = collectMatches(entries, filterExpression, 0, limitValidated + 1,
+                    pageEntries);
+
+            String nextCursor = null;
+            if (feedbackResultsList.size() > limitValidated) {
+                feedbackResultsList = new ArrayList<>(feedbackResultsList.subList(0, limitValidated));
+                StoredEntry lastEntry = pageEntries.get(limitValidated - 1);
+                nextCursor = FeedbackPaginationUtil.encodeCursor(sortByValidated, sortOrderValidated, lastEntry.id,
+                        lastEntry.timeCreated);
+            }
+            return new FeedbackPage(feedbackResultsList, nextCursor);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the IDs of the entries which may match a filter, as the intersection of the IDs of the tenant and of the tag
+     * of a "tag eq" filter. The returned set may be an index itself, and must not be changed.
+     *
+     * @param tenantId         tenant ID, or null for the entries of all the tenants
+     * @param filterExpression parsed filter, or null for all the entries
+     * @return IDs of the candidate entries
+     */
+    private FeedbackIdSet getCandidateIds(Integer tenantId, FilterExpression filterExpression) {
+
+        FeedbackIdSet tenantIds = tenantId == null ? liveIds :
+                idsByTenant.getOrDefault(tenantId, new FeedbackIdSet());
+        String tag = filterExpression == null ? null : filterExpression.getTagEqualityValue();
+        if (tag == null) {
+            return tenantIds;
+        }
+        FeedbackIdSet tagIds = idsByTag.getOrDefault(tag, new FeedbackIdSet());
+        return tenantId == null ? tagIds : FeedbackIdSet.intersect(tagIds, tenantIds);
+    }
+
+    /**
+     * Get the candidate entries in the order of a list, starting right after a position of the order. Entries listed
+     * by creation time are taken from the range of times of the filter, or sorted on their own if they are few.
+     *
+     * @param candidateIds     IDs of the candidate entries
+     * @param filterExpression parsed filter, or null to get all the candidate entries
+     * @param sortByTime       whether the entries are ordered by creation time and then ID, or by ID alone
+     * @param descending       whether the order is descending
+     * @param afterId          ID of the entry the order starts after, or null to start from the first entry
+     * @param afterTime        creation time of the entry the order starts after, if ordered by creation time
+     * @return Candidate entries in order, which the caller has to match against the filter
+     */
+    private Iterable<StoredEntry> getEntriesInOrder(FeedbackIdSet candidateIds, FilterExpression filterExpression,
+                                                    boolean sortByTime, boolean descending, Integer afterId,
+                                                    Timestamp afterTime) {
+
+        if (!sortByTime) {
+            int startId = afterId == null ? (descending ? lastId : 0) : (descending ? afterId - 1 : afterId + 1);
+            return () -> new IdSetEntryIterator(candidateIds, startId, descending);
+        }
+
+        NavigableSet<StoredEntry> entries;
+        boolean sortCandidates = candidateIds != liveIds &&
+                candidateIds.size() < entryCount / TIME_INDEX_SCAN_RATIO;
+        if (sortCandidates) {
+            entries = new TreeSet<>(TIME_ORDER);
+            for (StoredEntry entry : (Iterable<StoredEntry>) () -> new IdSetEntryIterator(candidateIds, 0, false)) {
+                entries.add(entry);
+            }
+        } else {
+            entries = entriesByTime;
+        }
+        Pair<Timestamp, Timestamp> timeRange = filterExpression == null ? null : filterExpression.getTimeCreatedRange();
+        if (timeRange != null && timeRange.getLeft() != null) {
+            entries = entries.tailSet(StoredEntry.probe(timeRange.getLeft(), Integer.MIN_VALUE), true);
+        }
+        if (timeRange != null && timeRange.getRight() != null) {
+            entries = entries.headSet(StoredEntry.probe(timeRange.getRight(), Integer.MAX_VALUE), true);
+        }
+        if (afterId != null) {
+            StoredEntry afterEntry = StoredEntry.probe(afterTime, afterId);
+            entries = descending ? entries.headSet(afterEntry, false) : entries.tailSet(afterEntry, false);
+        }
+        NavigableSet<StoredEntry> orderedEntries = descending ? entries.descendingSet() : entries;
+        if (sortCandidates || candidateIds == liveIds) {
+            return orderedEntries;
+        }
+        return () -> orderedEntries.stream().filter(entry -> candidateIds.contains(entry.id)).iterator();
+    }
+
+    /**
+     * Collect the entries which match a filter, in the order they are given. A single "tag eq" filter is already
+     * matched by the candidate entries, hence it is not evaluated again.
+     *
+     * @param entries          candidate entries in order
+     * @param filterExpression parsed filter, or null to match all the entries
+     * @param offset           matching entries to skip
+     * @param limit            max entries to collect
+     * @param matchedEntries   list the stored entries of the collected entries are added to, or null
+     * @return A list of the matching user feedback entries
+     */
+    private List<Feedback> collectMatches(Iterable<StoredEntry> entries, FilterExpression filterExpression,
+                                          int offset, int limit, List<StoredEntry> matchedEntries) {
+
+        boolean evaluateFilter = filterExpression != null && filterExpression.getTagEqualityValue() == null;
+        List<Feedback> feedbackList = new ArrayList<>();
+        int skippedCount = 0;
+        for (StoredEntry entry : entries) {
+            if (feedbackList.size() == limit) {
+                break;
+            }
+            if (evaluateFilter && !filterExpression.matches(entry.feedback)) {
+                continue;
+            }
+            if (skippedCount < offset) {
+                skippedCount++;
+                continue;
+            }
+            feedbackList.add(copy(entry.feedback));
+            if (matchedEntries != null) {
+                matchedEntries.add(entry);
+            }
+        }
+        return feedbackList;
+    }
+
+    /**
+     * Search the messages of the feedback entries for a query, and retrieve the matching entries in the order of their
+     * relevance to the query. The entries are ranked in the same way as by the message index of the database.
+     *
+     * @param tenantId tenant ID, or null to search the entries of all the tenants
+     * @param query    search query
+     * @param limit    max entries in list
+     * @return A list of matching user feedback entries
+     * @throws FeedbackManagementException
+     */
+    private List<Feedback> searchEntries(Integer tenantId, String query, int limit)
+            throws FeedbackManagementException {
+
+        MessageQuery messageQuery = MessageQuery.parse(query);
+        int limitValidated = FeedbackPaginationUtil.validateLimitForPagination(limit);
+        lock.readLock().lock();
+        try {
+            // An entry matches only if its message has all the terms of the query.
+            List<String> terms = new ArrayList<>(messageQuery.getTerms());
+            List<FeedbackIdSet> termIds = new ArrayList<>();
+            double[] weights = new double[terms.size()];
+            for (int i = 0; i < terms.size(); i++) {
+                FeedbackIdSet ids = idsByTerm.get(terms.get(i));
+                if (ids == null) {
+                    return new ArrayList<>();
+                }
+                termIds.add(ids);
+                weights[i] = Math.log(1 + (entryCount - ids.size() + 0.5) / (ids.size() + 0.5));
+            }
+            FeedbackIdSet matchingIds = tenantId == null ? liveIds :
+                    idsByTenant.getOrDefault(tenantId, new FeedbackIdSet());
+            for (FeedbackIdSet ids : termIds) {
+                matchingIds = ids.size() < matchingIds.size() ? ids : matchingIds;
+            }
+
+            List<Pair<StoredEntry, Double>> matches = new ArrayList<>();
+            for (int id = matchingIds.nextId(0); id >= 0; id = matchingIds.nextId(id + 1)) {
+                StoredEntry entry = entriesById[id];
+                if ((tenantId != null && tenantId != entry.tenantId) || !hasTerms(entry, terms)) {
+                    continue;
+                }
+                double score = 0;
+                for (int i = 0; i < terms.size(); i++) {
+                    score += entry.termFrequencies.get(terms.get(i)) * weights[i];
+                }
+                matches.add(Pair.of(entry, score));
+            }
+            matches.sort(Comparator.comparing((Pair<StoredEntry, Double> match) -> match.getRight()).reversed()
+                    .thenComparingInt(match -> match.getLeft().id));
+
+            List<Feedback> feedbackResultsList = new ArrayList<>();
+            for (Pair<StoredEntry, Double> match : matches) {
+                if (feedbackResultsList.size() == limitValidated) {
+                    break;
+                }
+                Feedback feedback = match.getLeft().feedback;
+                if (hasPhrases(feedback.getMessage(), messageQuery.getPhrases())) {
+                    feedbackResultsList.add(copy(feedback));
+                }
+            }
+            return feedbackResultsList;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Check whether the message of an entry has all the given terms.
+     *
+     * @param entry stored entry
+     * @param terms normalized terms
+     * @return true if the message has all the terms
+     */
+    private boolean hasTerms(StoredEntry entry, List<String> terms) {
+
+        for (String term : terms) {
+            if (!entry.termFrequencies.containsKey(term)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check whether a message has all the given phrases.
+     *
+     * @param message message
+     * @param phrases normalized phrases
+     * @return true if the message in lower case has all the phrases
+     */
+    private boolean hasPhrases(String message, List<String> phrases) {
+
+        if (phrases.isEmpty()) {
+            return true;
+        }
+        String lowerCaseMessage = message == null ? "" : message.toLowerCase(Locale.ROOT);
+        for (String phrase : phrases) {
+            if (!lowerCaseMessage.contains(phrase)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Retrieve a feedback entry.
+     *
+     * @param tenantId   tenant ID, or null to retrieve the entry of any tenant
+     * @param feedbackID Resource ID
+     * @return Feedback entry, or null if the entry does not exist
+     */
+    private Feedback getEntry(Integer tenantId, String feedbackID) {
+
+        lock.readLock().lock();
+        try {
+            StoredEntry entry = getStoredEntry(feedbackID);
+            if (entry == null || (tenantId != null && tenantId != entry.tenantId)) {
+                return null;
+            }
+            return copy(entry.feedback);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Delete a feedback entry using the feedback ID.
+     *
+     * @param tenantId   tenant ID, or null to delete the entry of any tenant
+     * @param feedbackID Resource ID
+     * @return Resource ID of the feedback deleted
+     * @throws FeedbackManagementException
+     */
+    private String deleteEntry(Integer tenantId, String feedbackID) throws FeedbackManagementException {
+
+        lock.writeLock().lock();
+        try {
+            StoredEntry entry = getStoredEntry(feedbackID);
+            if (entry == null || (tenantId != null && tenantId != entry.tenantId)) {
+                throw FeedbackExceptionManagementUtil
+                        .buildClientException(ErrorMessages.ERROR_NOT_FOUND_RESOURCE_ID, feedbackID);
+            }
+            unindex(entry);
+            return feedbackID;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Get the count of Feedback entries that match the given condition. Counts without a filter or by a single tag
+     * are taken from the posting lists.
+     *
+     * @param tenantId tenant ID, or null to count the entries of all the tenants
+     * @param filter   Condition to filter records
+     * @return Number of matching entries
+     * @throws FeedbackManagementException
+     */
+    private Integer countEntries(Integer tenantId, String filter) throws FeedbackManagementException {
+
+        FilterExpression filterExpression = StringUtils.isBlank(filter) ? null : FilterExpression.parse(filter);
+        lock.readLock().lock();
+        try {
+            FeedbackIdSet candidateIds = getCandidateIds(tenantId, filterExpression);
+            if (filterExpression == null || filterExpression.getTagEqualityValue() != null) {
+                return candidateIds.size();
+            }
+            int count = 0;
+            for (int id = candidateIds.nextId(0); id >= 0; id = candidateIds.nextId(id + 1)) {
+                if (filterExpression.matches(entriesById[id].feedback)) {
+                    count++;
+                }
+            }
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Export the feedback entries that match the given condition, in the order of their IDs.
+     *
+     * @param tenantId tenant ID, or null to export the entries of all the tenants
+     * @param filter   Condition to filter records
+     * @param exporter exporter the entries are written to
+     * @return Number of exported entries
+     * @throws FeedbackManagementException
+     */
+    private int exportEntries(Integer tenantId, String filter, FeedbackExporter exporter)
+            throws FeedbackManagementException {
+
+        FilterExpression filterExpression = StringUtils.isBlank(filter) ? null : FilterExpression.parse(filter);
+        boolean evaluateFilter = filterExpression != null && filterExpression.getTagEqualityValue() == null;
+        lock.readLock().lock();
+        try {
+            int exportedCount = 0;
+            exporter.begin();
+            FeedbackIdSet candidateIds = getCandidateIds(tenantId, filterExpression);
+            for (int id = candidateIds.nextId(0); id >= 0; id = candidateIds.nextId(id + 1)) {
+                Feedback feedback = entriesById[id].feedback;
+                if (!evaluateFilter || filterExpression.matches(feedback)) {
+                    exporter.write(copy(feedback));
+                    exportedCount++;
+                }
+            }
+            exporter.end();
+            return exportedCount;
+        } catch (IOException e) {
+            throw FeedbackExceptionManagementUtil.buildServerException(ErrorMessages.ERROR_CODE_EXPORT_FEEDBACK, e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the stored entry of a resource ID.
+     *
+     * @param feedbackID Resource ID
+     * @return Stored entry, or null if the entry does not exist
+     */
+    private StoredEntry getStoredEntry(String feedbackID) {
+
+        Integer id = idsByUuid.get(feedbackID);
+        return id == null ? null : entriesById[id];
+    }
+
+    /**
+     * Build the stored state of a new feedback entry.
+     *
+     * @param userFeedback user feedback
+     * @param id           ID assigned to the entry
+     * @param timeCreated  creation time of the entry
+     * @return Feedback entry to store
+     */
+    private Feedback buildStoredFeedback(Feedback userFeedback, int id, String timeCreated) {
+
+        Feedback storedFeedback = new Feedback(id, userFeedback.getMessage(), userFeedback.getEmail(),
+                userFeedback.getContactNo(), userFeedback.getUserId(), userFeedback.getTenantId(),
+                userFeedback.getUuid(), timeCreated);
+        storedFeedback.setVersion(0);
+        storedFeedback.setTags(userFeedback.getTags() == null ? new ArrayList<>() :
+                new ArrayList<>(new LinkedHashSet<>(userFeedback.getTags())));
+        return storedFeedback;
+    }
+
+    /**
+     * Copy a stored feedback entry, so that the caller cannot change the stored entry.
+     *
+     * @param feedback stored feedback entry
+     * @return Copy of the feedback entry with its tags
+     */
+    private static Feedback copy(Feedback feedback) {
+
+        Feedback feedbackCopy = new Feedback(feedback.getId(), feedback.getMessage(), feedback.getEmail(),
+                feedback.getContactNo(), feedback.getUserId(), feedback.getTenantId(), feedback.getUuid(),
+                feedback.getTimeCreated());
+        feedbackCopy.setVersion(feedback.getVersion());
+        feedbackCopy.setTags(new ArrayList<>(feedback.getTags()));
+        return feedbackCopy;
+    }
+
+    /**
+     * Add an entry to the indexes.
+     *
+     * @param entry stored entry
+     */
+    private void index(StoredEntry entry) {
+
+        if (entry.id >= entriesById.length) {
+            entriesById = Arrays.copyOf(entriesById, Math.max(entriesById.length * 2, entry.id + 1));
+        }
+        entriesById[entry.id] = entry;
+        idsByUuid.put(entry.feedback.getUuid(), entry.id);
+        liveIds.add(entry.id);
+        entryCount++;
+        entriesByTime.add(entry);
+        idsByTenant.computeIfAbsent(entry.tenantId, key -> new FeedbackIdSet()).add(entry.id);
+        for (String tag : entry.feedback.getTags()) {
+            idsByTag.computeIfAbsent(tag, key -> new FeedbackIdSet()).add(entry.id);
+        }
+        for (String term : entry.termFrequencies.keySet()) {
+            idsByTerm.computeIfAbsent(term, key -> new FeedbackIdSet()).add(entry.id);
+        }
+        if (entry.signature != null) {
+            for (long bucketKey : entry.signature.getBucketKeys()) {
+                idsByBucket.computeIfAbsent(bucketKey, key -> new FeedbackIdSet()).add(entry.id);
+            }
+        }
+    }
+
+    /**
+     * Remove an entry from the indexes.
+     *
+     * @param entry stored entry
+     */
+    private void unindex(StoredEntry entry) {
+
+        entriesById[entry.id] = null;
+        idsByUuid.remove(entry.feedback.getUuid());
+        liveIds.remove(entry.id);
+        entryCount--;
+        entriesByTime.remove(entry);
+        removeId(idsByTenant, entry.tenantId, entry.id);
+        for (String tag : entry.feedback.getTags()) {
+            removeId(idsByTag, tag, entry.id);
+        }
+        for (String term : entry.termFrequencies.keySet()) {
+            removeId(idsByTerm, term, entry.id);
+        }
+        if (entry.signature != null) {
+            for (long bucketKey : entry.signature.getBucketKeys()) {
+                removeId(idsByBucket, bucketKey, entry.id);
+            }
+        }
+    }
+
+    /**
+     * Remove an ID from a posting list of an index, and the list once it is empty.
+     *
+     * @param index index of posting lists
+     * @param key   key of the posting list
+     * @param id    ID to remove
+     * @param <K>   type of the keys of the index
+     */
+    private static <K> void removeId(Map<K, FeedbackIdSet> index, K key, int id) {
+
+        FeedbackIdSet ids = index.get(key);
+        ids.remove(id);
+        if (ids.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
+    /**
+     * Iterates the stored entries of a set of IDs in ascending or descending order of the IDs.
+     */
+    private final class IdSetEntryIterator implements Iterator<StoredEntry> {
+
+        private final FeedbackIdSet ids;
+        private final boolean descending;
+        private int nextId;
+
+        private IdSetEntryIterator(FeedbackIdSet ids, int startId, boolean descending) {
+
+            this.ids = ids;
+            this.descending = descending;
+            this.nextId = descending ? ids.previousId(startId) : ids.nextId(startId);
+        }
+
+        @Override
+        public boolean hasNext() {
+
+            return nextId >= 0;
+        }
+
+        @Override
+        public StoredEntry next() {
+
+            if (nextId < 0) {
+                throw new NoSuchElementException();
+            }
+            StoredEntry entry = entriesById[nextId];
+            nextId = descending ? ids.previousId(nextId - 1) : ids.nextId(nextId + 1);
+            return entry;
+        }
+    }
+
+    /**
+     * A feedback entry with the attributes it is indexed by.
+     */
+    private static final class StoredEntry {
+
+        private final int id;
+        private final int tenantId;
+        private final Timestamp timeCreated;
+        private final Feedback feedback;
+        private final Map<String, Integer> termFrequencies;
+        private final MessageSignature signature;
+
+        private StoredEntry(int id, int tenantId, Timestamp timeCreated, Feedback feedback,
+                            Map<String, Integer> termFrequencies, MessageSignature signature) {
+
+            this.id = id;
+            this.tenantId = tenantId;
+            this.timeCreated = timeCreated;
+            this.feedback = feedback;
+            this.termFrequencies = termFrequencies;
+            this.signature = signature;
+        }
+
+        private StoredEntry(Feedback feedback) {
+
+            this(feedback.getId(), feedback.getTenantId(), Timestamp.valueOf(feedback.getTimeCreated()), feedback,
+                    MessageAnalyzer.countTerms(feedback.getMessage()), MessageSignature.of(feedback.getMessage()));
+        }
+
+        /**
+         * Build an entry to look up a position of the time index.
+         *
+         * @param timeCreated creation time
+         * @param id          ID
+         * @return entry of the position
+         */
+        private static StoredEntry probe(Timestamp timeCreated, int id) {
+
+            return new StoredEntry(id, 0, timeCreated, null, Collections.emptyMap(), null);
+        }
+    }
+}
@@ -0,0 +1,278 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.impl;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.commons.lang3.tuple.Triple;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.database.utils.jdbc.JdbcTemplate;
+import org.wso2.carbon.database.utils.jdbc.exceptions.DataAccessException;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants.ErrorMessages;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtSQLConstants;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.FeedbackCounterDAO;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.FeedbackMessageIndexDAO;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.exception.FeedbackManagementException;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.Feedback;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.search.MessageAnalyzer;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.search.MessageQuery;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.util.FeedbackExceptionManagementUtil;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.util.JdbcUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * This class maintains the full-text index of the feedback messages in the CLD_FEEDBACK_MESSAGE_TERMS table, which
+ * holds a row for each distinct term of a message with the number of its occurrences in the message.
+ *
+ * A search matches the entries with all the terms of the query through the index, and checks the phrases of the
+ * query against the messages of the matched entries only. The matched entries are ranked by the sum of the
+ * frequencies of the query terms in their messages, each weighted by the inverse entry frequency of the term, so that
+ * rare terms weigh more than common ones.
+ */
+public class FeedbackMessageIndexDAOImpl implements FeedbackMessageIndexDAO {
+
+    private static final Log log = LogFactory.getLog(FeedbackMessageIndexDAOImpl.class);
+    private final FeedbackCounterDAO feedbackCounterDAO = new FeedbackCounterDAOImpl();
+
+    @Override
+    public void indexMessage(int feedbackId, String message) throws FeedbackManagementException {
+
+        List<Triple<String, Integer, Object>> termRows = new ArrayList<>();
+        addTermRows(termRows, message, feedbackId);
+        try {
+            insertTermRows(FeedbackMgtSQLConstants.INSERT_MESSAGE_TERM, termRows);
+        } catch (DataAccessException e) {
+            throw FeedbackExceptionManagementUtil.buildServerException(
+                    ErrorMessages.ERROR_CODE_INDEX_FEEDBACK_MESSAGE, String.valueOf(feedbackId), e);
+        }
+    }
+
+    @Override
+    public void indexMessages(List<Feedback> feedbackList) throws FeedbackManagementException {
+
+        List<Triple<String, Integer, Object>> termRows = new ArrayList<>();
+        for (Feedback feedback : feedbackList) {
+            addTermRows(termRows, feedback.getMessage(), JdbcUtils.toStoredUuid(feedback.getUuid()));
+        }
+        try {
+            // The auto-generated feedback IDs are resolved by the insert itself, using the UUIDs.
+            insertTermRows(FeedbackMgtSQLConstants.INSERT_MESSAGE_TERM_BY_UUID, termRows);
+        } catch (DataAccessException e) {
+            throw FeedbackExceptionManagementUtil.buildServerException(
+                    ErrorMessages.ERROR_CODE_INDEX_FEEDBACK_MESSAGE, feedbackList.size() + " entries", e);
+        }
+    }
+
+    @Override
+    public void removeMessage(int feedbackId) throws FeedbackManagementException {
+
+        JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
+        try {
+            jdbcTemplate.executeUpdate(FeedbackMgtSQLConstants.REMOVE_MESSAGE_TERMS,
+                    preparedStatement -> preparedStatement.setInt(1, feedbackId));
+        } catch (DataAccessException e) {
+            throw FeedbackExceptionManagementUtil.buildServerException(
+                    ErrorMessages.ERROR_CODE_INDEX_FEEDBACK_MESSAGE, String.valueOf(feedbackId), e);
+        }
+    }
+
+    @Override
+    public int rebuildIndex(int chunkSize) throws FeedbackManagementException {
+
+        int indexedCount = 0;
+        int fromId = 0;
+        while (true) {
+            int chunkFromId = fromId;
+            List<Pair<Integer, String>> messages =
+                    JdbcUtils.executeInTransaction(() -> rebuildChunk(chunkFromId, chunkSize));
+            indexedCount += messages.size();
+            if (messages.size() < chunkSize) {
+                break;
+            }
+            fromId = messages.get(messages.size() - 1).getLeft();
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug("Rebuilt the message index of " + indexedCount + " feedback entries.");
+        }
+        return indexedCount;
+    }
+
+    @Override
+    public List<Integer> searchMessages(Integer tenantId, MessageQuery query, int limit)
+            throws FeedbackManagementException {
+
+        List<String> terms = query.getTerms();
+        String termPlaceholders = JdbcUtils.buildPlaceholders(terms.size());
+        JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
+        try {
+            Map<String, Integer> entryCounts = new HashMap<>();
+            jdbcTemplate.executeQuery(String.format(FeedbackMgtSQLConstants.COUNT_MESSAGE_TERM_ENTRIES,
+                    termPlaceholders), (resultSet, rowNumber) -> entryCounts.put(resultSet.getString(1),
+                    resultSet.getInt(2)), preparedStatement -> {
+                for (int i = 0; i < terms.size(); i++) {
+                    preparedStatement.setString(i + 1, terms.get(i));
+                }
+            });
+            // An entry matches only if its message has all the terms of the query.
+            if (entryCounts.size() < terms.size()) {
+                return Collections.emptyList();
+            }
+
+            int totalCount = Math.max(feedbackCounterDAO.getCount(FeedbackMgtConstants.TOTAL_COUNTER_TAG_ID),
+                    Collections.max(entryCounts.values()));
+            StringBuilder weights = new StringBuilder();
+            for (String term : terms) {
+                weights.append(String.format(Locale.ROOT, FeedbackMgtSQLConstants.SEARCH_TERM_WEIGHT,
+                        getInverseEntryFrequency(totalCount, entryCounts.get(term))));
+            }
+            List<String> conditions = new ArrayList<>();
+            if (tenantId != null) {
+                conditions.add(FeedbackMgtSQLConstants.FILTER_BY_TENANT_ID);
+            }
+            for (int i = 0; i < query.getPhrases().size(); i++) {
+                conditions.add(FeedbackMgtSQLConstants.FILTER_BY_MESSAGE_PHRASE);
+            }
+            String condition = conditions.isEmpty() ? "" :
+                    " " + FeedbackMgtConstants.WHERE + String.join(FeedbackMgtConstants.AND, conditions);
+
+            return jdbcTemplate.executeQuery(String.format(FeedbackMgtSQLConstants.SEARCH_MESSAGES, weights,
+                    termPlaceholders, condition), (resultSet, rowNumber) -> resultSet.getInt(1),
+                    preparedStatement -> {
+                        int index = 1;
+                        for (String term : terms) {
+                            preparedStatement.setString(index++, term);
+                        }
+                        for (String term : terms) {
+                            preparedStatement.setString(index++, term);
+                        }
+                        preparedStatement.setInt(index++, terms.size());
+                        if (tenantId != null) {
+                            preparedStatement.setInt(index++, tenantId);
+                        }
+                        for (String phrase : query.getPhrases()) {
+                            preparedStatement.setString(index++, "%" + phrase + "%");
+                        }
+                        preparedStatement.setInt(index, limit);
+                    });
+        } catch (DataAccessException e) {
+            throw FeedbackExceptionManagementUtil.buildServerException(ErrorMessages.ERROR_CODE_SEARCH_FEEDBACK,
+                    query.getQuery(), e);
+        }
+    }
+
+    /**
+     * Reindex a chunk of feedback entries. The entries of the chunk are locked, so that a concurrent update of a
+     * message is not overwritten by its previous terms.
+     *
+     * @param fromId    ID after which the chunk starts
+     * @param chunkSize maximum number of entries of the chunk
+     * @return IDs and messages of the reindexed entries
+     * @throws FeedbackManagementException
+     */
+    private List<Pair<Integer, String>> rebuildChunk(int fromId, int chunkSize) throws FeedbackManagementException {
+
+        JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
+        try {
+            List<Pair<Integer, String>> messages = jdbcTemplate.executeQuery(
+                    FeedbackMgtSQLConstants.LOCK_MESSAGES_FROM_ID,
+                    (resultSet, rowNumber) -> Pair.of(resultSet.getInt(1), resultSet.getString(2)),
+                    preparedStatement -> {
+                        preparedStatement.setInt(1, fromId);
+                        preparedStatement.setInt(2, chunkSize);
+                    });
+            if (messages.isEmpty()) {
+                return messages;
+            }
+
+            int toId = messages.get(messages.size() - 1).getLeft();
+            jdbcTemplate.executeUpdate(FeedbackMgtSQLConstants.REMOVE_MESSAGE_TERMS_IN_RANGE, preparedStatement -> {
+                preparedStatement.setInt(1, fromId);
+                preparedStatement.setInt(2, toId);
+            });
+            List<Triple<String, Integer, Object>> termRows = new ArrayList<>();
+            for (Pair<Integer, String> message : messages) {
+                addTermRows(termRows, message.getRight(), message.getLeft());
+            }
+            insertTermRows(FeedbackMgtSQLConstants.INSERT_MESSAGE_TERM, termRows);
+            return messages;
+        } catch (DataAccessException e) {
+            throw FeedbackExceptionManagementUtil.buildServerException(
+                    ErrorMessages.ERROR_CODE_REBUILD_MESSAGE_INDEX, String.valueOf(fromId), e);
+        }
+    }
+
+    /**
+     * Add a row for each distinct term of a message, made of the term, its frequency and the key of the entry.
+     *
+     * @param termRows    rows to be inserted
+     * @param message     feedback message
+     * @param feedbackKey ID or UUID of the feedback entry
+     */
+    private void addTermRows(List<Triple<String, Integer, Object>> termRows, String message, Object feedbackKey) {
+
+        for (Map.Entry<String, Integer> termFrequency : MessageAnalyzer.countTerms(message).entrySet()) {
+            termRows.add(Triple.of(termFrequency.getKey(), termFrequency.getValue(), feedbackKey));
+        }
+    }
+
+    /**
+     * Insert rows of terms using JDBC batches.
+     *
+     * @param sqlStatement insert statement taking the term, its frequency and the key of the entry
+     * @param termRows     rows to be inserted
+     * @throws DataAccessException
+     */
+    private void insertTermRows(String sqlStatement, List<Triple<String, Integer, Object>> termRows)
+            throws DataAccessException {
+
+        JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
+        for (int from = 0; from < termRows.size(); from += FeedbackMgtConstants.BATCH_INSERT_CHUNK_SIZE) {
+            List<Triple<String, Integer, Object>> chunk = termRows.subList(from,
+                    Math.min(from + FeedbackMgtConstants.BATCH_INSERT_CHUNK_SIZE, termRows.size()));
+            jdbcTemplate.executeBatchInsert(sqlStatement, preparedStatement -> {
+                for (Triple<String, Integer, Object> termRow : chunk) {
+                    preparedStatement.setString(1, termRow.getLeft());
+                    preparedStatement.setInt(2, termRow.getMiddle());
+                    preparedStatement.setObject(3, termRow.getRight());
+                    preparedStatement.addBatch();
+                }
+            }, null);
+        }
+    }
+
+    /**
+     * Get the weight of a term, which is higher for terms in fewer entries.
+     *
+     * @param totalCount number of feedback entries
+     * @param entryCount number of feedback entries with the term
+     * @return Weight of the term
+     */
+    private double getInverseEntryFrequency(int totalCount, int entryCount) {
+
+        return Math.log(1 + (totalCount - entryCount + 0.5) / (entryCount + 0.5));
+    }
+}
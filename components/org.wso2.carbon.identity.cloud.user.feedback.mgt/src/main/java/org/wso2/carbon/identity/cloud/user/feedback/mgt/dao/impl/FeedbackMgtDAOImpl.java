@@ -20,23 +20,58 @@ package org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.impl;
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang3.tuple.Pair;
+import org.apache.commons.lang3.tuple.Triple;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.database.utils.jdbc.JdbcTemplate;
 import org.wso2.carbon.database.utils.jdbc.exceptions.DataAccessException;
 import org.wso2.carbon.database.utils.jdbc.exceptions.TransactionException;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.archive.FeedbackArchive;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.cache.FeedbackEntryCache;
 import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants;
 import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants.ErrorMessages;
 import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtSQLConstants;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.FeedbackCounterDAO;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.FeedbackEmailIndexDAO;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.FeedbackMessageIndexDAO;
 import org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.FeedbackMgtDAO;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.FeedbackSimilarityDAO;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.FeedbackTagDAO;
 import org.wso2.carbon.identity.cloud.user.feedback.mgt.exception.FeedbackManagementException;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.export.FeedbackExporter;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.filter.FilterExpression;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.internal.FeedbackManagementServiceDataHolder;
 import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.Feedback;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.FeedbackPage;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.SimilarFeedback;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.search.EmailAnalyzer;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.search.MessageQuery;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.search.MessageSignature;
 import org.wso2.carbon.identity.cloud.user.feedback.mgt.util.FeedbackExceptionManagementUtil;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.util.FeedbackPaginationUtil;
 import org.wso2.carbon.identity.cloud.user.feedback.mgt.util.JdbcUtils;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import javax.sql.DataSource;
 
 import static org.wso2.carbon.identity.core.util.LambdaExceptionUtils.rethrowConsumer;
 
@@ -47,182 +82,818 @@ import static org.wso2.carbon.identity.core.util.LambdaExceptionUtils.rethrowCon
 public class FeedbackMgtDAOImpl implements FeedbackMgtDAO {
 
     private static final Log log = LogFactory.getLog(FeedbackMgtDAOImpl.class);
+    private final FeedbackTagDAO feedbackTagDAO = new FeedbackTagDAOImpl();
+    private final FeedbackCounterDAO feedbackCounterDAO = new FeedbackCounterDAOImpl();
+    private final FeedbackMessageIndexDAO feedbackMessageIndexDAO = new FeedbackMessageIndexDAOImpl();
+    private final FeedbackEmailIndexDAO feedbackEmailIndexDAO = new FeedbackEmailIndexDAOImpl();
+    private final FeedbackSimilarityDAO feedbackSimilarityDAO = new FeedbackSimilarityDAOImpl();
 
     @Override
     public Feedback insertFeedbackEntry(Feedback userFeedback) throws FeedbackManagementException {
 
-        JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
-        try {
-            jdbcTemplate.withTransaction(template -> {
-                int insertedId = template.executeInsert(FeedbackMgtSQLConstants.INSERT_FEEDBACK_INFO,
-                        (preparedStatement -> {
-                            preparedStatement.setString(1, userFeedback.getMessage());
-                            preparedStatement.setString(2, userFeedback.getEmail());
-                            preparedStatement.setString(3, userFeedback.getContactNo());
-                            preparedStatement.setString(4, userFeedback.getUserId());
-                            preparedStatement.setInt(5, userFeedback.getTenantId());
-                            preparedStatement.setString(6, userFeedback.getUuid());
-                        }), userFeedback, true);
+        return JdbcUtils.executeInTransaction(() -> {
+            JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
+            try {
+                jdbcTemplate.withTransaction(template -> {
+                    int insertedId = template.executeInsert(FeedbackMgtSQLConstants.INSERT_FEEDBACK_INFO,
+                            (preparedStatement -> setFeedbackInfo(preparedStatement, userFeedback)), userFeedback,
+                            true);
+                    feedbackMessageIndexDAO.indexMessage(insertedId, userFeedback.getMessage());
+                    feedbackEmailIndexDAO.indexEmail(insertedId, userFeedback.getEmail());
+                    feedbackSimilarityDAO.indexSignature(insertedId, userFeedback.getMessage());
+
+                    Map<Integer, Integer> countDeltas = new HashMap<>();
+                    countDeltas.put(FeedbackMgtConstants.TOTAL_COUNTER_TAG_ID, 1);
+                    if (userFeedback.getTags() != null) {
+                        addCountDeltas(countDeltas, addTags(insertedId, userFeedback.getTags()), 1);
+                    }
+                    feedbackCounterDAO.updateCounters(userFeedback.getTenantId(), countDeltas);
+                    feedbackCounterDAO.addToDailyCounters(Collections.singletonList(userFeedback.getUuid()));
+                    return null;
+                });
+            } catch (TransactionException e) {
+                throw FeedbackExceptionManagementUtil
+                        .buildServerException(ErrorMessages.ERROR_CODE_ADD_USER_FEEDBACK, e);
+            }
+            userFeedback.setVersion(0);
+            return userFeedback;
+        });
+    }
+
+    @Override
+    public List<Feedback> insertFeedbackEntries(List<Feedback> userFeedbackList) throws FeedbackManagementException {
+
+        return insertEntries(userFeedbackList, false);
+    }
+
+    /**
+     * Insert the given imported feedback entries at once. Unlike {@link #insertFeedbackEntries(List)}, the time of
+     * creation of an entry is kept when it is given, so that an imported entry is listed and counted at the time it
+     * was originally created.
+     *
+     * @param userFeedbackList List of imported feedback entries
+     * @return List of the inserted feedback entries
+     * @throws FeedbackManagementException
+     */
+    public List<Feedback> insertImportedEntries(List<Feedback> userFeedbackList) throws FeedbackManagementException {
+
+        return insertEntries(userFeedbackList, true);
+    }
+
+    /**
+     * Insert the given feedback entries at once.
+     *
+     * @param userFeedbackList List of feedback entries
+     * @param keepTimeCreated  whether the given time of creation of an entry is kept instead of the current time
+     * @return List of the inserted feedback entries
+     * @throws FeedbackManagementException
+     */
+    private List<Feedback> insertEntries(List<Feedback> userFeedbackList, boolean keepTimeCreated)
+            throws FeedbackManagementException {
+
+        return JdbcUtils.executeInTransaction(() -> {
+            if (userFeedbackList.isEmpty()) {
+                return userFeedbackList;
+            }
 
+            // Resolve the tags of all the entries at once, so that each distinct tag is looked up only once.
+            Set<String> distinctTags = new LinkedHashSet<>();
+            for (Feedback userFeedback : userFeedbackList) {
                 if (userFeedback.getTags() != null) {
-                    addTags(insertedId, userFeedback.getTags());
+                    distinctTags.addAll(userFeedback.getTags());
                 }
-                return null;
-            });
-        } catch (TransactionException e) {
-            throw FeedbackExceptionManagementUtil
-                    .buildServerException(ErrorMessages.ERROR_CODE_ADD_USER_FEEDBACK, e);
-        }
-        return userFeedback;
+            }
+            Map<String, Integer> tagIds = distinctTags.isEmpty() ? new HashMap<>() :
+                    feedbackTagDAO.getOrAddTagIds(distinctTags);
+
+            List<Pair<Integer, String>> tagMappings = new ArrayList<>();
+            Map<Integer, Map<Integer, Integer>> countDeltasByTenant = new TreeMap<>();
+            for (Feedback userFeedback : userFeedbackList) {
+                Map<Integer, Integer> countDeltas =
+                        countDeltasByTenant.computeIfAbsent(userFeedback.getTenantId(), tenantId -> new HashMap<>());
+                countDeltas.merge(FeedbackMgtConstants.TOTAL_COUNTER_TAG_ID, 1, Integer::sum);
+                if (userFeedback.getTags() != null) {
+                    for (String tag : new LinkedHashSet<>(userFeedback.getTags())) {
+                        tagMappings.add(Pair.of(tagIds.get(tag), userFeedback.getUuid()));
+                        countDeltas.merge(tagIds.get(tag), 1, Integer::sum);
+                    }
+                }
+            }
+
+            JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
+            try {
+                jdbcTemplate.withTransaction(template -> {
+                    for (List<Feedback> chunk :
+                            partition(userFeedbackList, FeedbackMgtConstants.BATCH_INSERT_CHUNK_SIZE)) {
+                        List<Feedback> timedChunk = new ArrayList<>();
+                        List<Feedback> untimedChunk = new ArrayList<>();
+                        for (Feedback userFeedback : chunk) {
+                            if (keepTimeCreated && userFeedback.getTimeCreated() != null) {
+                                timedChunk.add(userFeedback);
+                            } else {
+                                untimedChunk.add(userFeedback);
+                            }
+                        }
+                        if (!untimedChunk.isEmpty()) {
+                            template.executeBatchInsert(FeedbackMgtSQLConstants.INSERT_FEEDBACK_INFO,
+                                    preparedStatement -> {
+                                        for (Feedback userFeedback : untimedChunk) {
+                                            setFeedbackInfo(preparedStatement, userFeedback);
+                                            preparedStatement.addBatch();
+                                        }
+                                    }, null);
+                        }
+                        if (!timedChunk.isEmpty()) {
+                            template.executeBatchInsert(FeedbackMgtSQLConstants.INSERT_FEEDBACK_INFO_WITH_TIME_CREATED,
+                                    preparedStatement -> {
+                                        for (Feedback userFeedback : timedChunk) {
+                                            setFeedbackInfo(preparedStatement, userFeedback);
+                                            preparedStatement.setTimestamp(8,
+                                                    Timestamp.valueOf(userFeedback.getTimeCreated()));
+                                            preparedStatement.addBatch();
+                                        }
+                                    }, null);
+                        }
+                    }
+                    // The auto-generated feedback IDs are resolved by the insert itself, using the UUIDs.
+                    for (List<Pair<Integer, String>> chunk :
+                            partition(tagMappings, FeedbackMgtConstants.BATCH_INSERT_CHUNK_SIZE)) {
+                        template.executeBatchInsert(FeedbackMgtSQLConstants.STORE_FEEDBACK_TAG_MAPPINGS_BY_UUID,
+                                preparedStatement -> {
+                                    for (Pair<Integer, String> tagMapping : chunk) {
+                                        preparedStatement.setInt(1, tagMapping.getLeft());
+                                        preparedStatement.setObject(2, JdbcUtils.toStoredUuid(tagMapping.getRight()));
+                                        preparedStatement.addBatch();
+                                    }
+                                }, null);
+                    }
+                    feedbackMessageIndexDAO.indexMessages(userFeedbackList);
+                    feedbackEmailIndexDAO.indexEmails(userFeedbackList);
+                    feedbackSimilarityDAO.indexSignatures(userFeedbackList);
+                    for (Map.Entry<Integer, Map<Integer, Integer>> countDeltas : countDeltasByTenant.entrySet()) {
+                        feedbackCounterDAO.updateCounters(countDeltas.getKey(), countDeltas.getValue());
+                    }
+                    List<String> uuids = new ArrayList<>();
+                    for (Feedback userFeedback : userFeedbackList) {
+                        uuids.add(userFeedback.getUuid());
+                    }
+                    feedbackCounterDAO.addToDailyCounters(uuids);
+                    return null;
+                });
+            } catch (TransactionException e) {
+                throw FeedbackExceptionManagementUtil.buildServerException(
+                        ErrorMessages.ERROR_CODE_ADD_USER_FEEDBACK_LIST, String.valueOf(userFeedbackList.size()), e);
+            }
+            for (Feedback userFeedback : userFeedbackList) {
+                userFeedback.setVersion(0);
+            }
+            return userFeedbackList;
+        });
+    }
+
+    /**
+     * Set the columns of a feedback entry which are common to the inserts of a feedback entry.
+     *
+     * @param preparedStatement insert statement of the feedback entry
+     * @param userFeedback      feedback entry
+     * @throws SQLException
+     */
+    private void setFeedbackInfo(PreparedStatement preparedStatement, Feedback userFeedback) throws SQLException {
+
+        preparedStatement.setString(1, userFeedback.getMessage());
+        preparedStatement.setString(2, userFeedback.getEmail());
+        preparedStatement.setString(3, userFeedback.getContactNo());
+        preparedStatement.setString(4, userFeedback.getUserId());
+        preparedStatement.setInt(5, userFeedback.getTenantId());
+        preparedStatement.setObject(6, JdbcUtils.toStoredUuid(userFeedback.getUuid()));
+        preparedStatement.setString(7, EmailAnalyzer.reverse(userFeedback.getEmail()));
     }
 
     @Override
     public List<Feedback> listFeedbackEntries(String filter, int limit, int offset, String sortBy, String sortOrder)
             throws FeedbackManagementException {
 
-        int limitValidated = validateLimitForPagination(limit);
-        int offsetValidated = validateOffsetForPagination(offset);
+        return listEntries(null, filter, limit, offset, sortBy, sortOrder);
+    }
+
+    @Override
+    public List<Feedback> listFeedbackEntries(int tenantId, String filter, int limit, int offset, String sortBy,
+                                              String sortOrder) throws FeedbackManagementException {
+
+        return listEntries(tenantId, filter, limit, offset, sortBy, sortOrder);
+    }
+
+    @Override
+    public FeedbackPage listFeedbackEntries(String filter, int limit, String cursor, String sortBy, String sortOrder)
+            throws FeedbackManagementException {
+
+        return listPage(null, filter, limit, cursor, sortBy, sortOrder);
+    }
+
+    @Override
+    public FeedbackPage listFeedbackEntries(int tenantId, String filter, int limit, String cursor, String sortBy,
+                                            String sortOrder) throws FeedbackManagementException {
+
+        return listPage(tenantId, filter, limit, cursor, sortBy, sortOrder);
+    }
+
+    @Override
+    public Feedback getFeedbackEntry(String feedbackID) throws FeedbackManagementException {
+
+        return getEntry(null, feedbackID);
+    }
+
+    @Override
+    public Feedback getFeedbackEntry(int tenantId, String feedbackID) throws FeedbackManagementException {
+
+        return getEntry(tenantId, feedbackID);
+    }
+
+    @Override
+    public String deleteFeedbackEntry(String feedbackID) throws FeedbackManagementException {
+
+        return deleteEntry(null, feedbackID);
+    }
+
+    @Override
+    public String deleteFeedbackEntry(int tenantId, String feedbackID) throws FeedbackManagementException {
+
+        return deleteEntry(tenantId, feedbackID);
+    }
+
+    @Override
+    public List<Feedback> searchFeedbackEntries(String query, int limit) throws FeedbackManagementException {
+
+        return searchEntries(null, query, limit);
+    }
+
+    @Override
+    public List<Feedback> searchFeedbackEntries(int tenantId, String query, int limit)
+            throws FeedbackManagementException {
+
+        return searchEntries(tenantId, query, limit);
+    }
+
+    /**
+     * Retrieve a list of user feedback entries according to the specified conditions. If there are archived entries,
+     * the page is taken from the entries of the feedback table and the archived entries in their merged order.
+     *
+     * @param tenantId  tenant ID, or null to list the entries of all the tenants
+     * @param filter    filter condition
+     * @param limit     max entries in list
+     * @param offset    entries to skip
+     * @param sortBy    how to sort the list
+     * @param sortOrder order of sorting (ASC/DESC)
+     * @return A list of user feedback entries
+     * @throws FeedbackManagementException
+     */
+    private List<Feedback> listEntries(Integer tenantId, String filter, int limit, int offset, String sortBy,
+                                       String sortOrder) throws FeedbackManagementException {
+
+        return JdbcUtils.executeInTransaction(() -> {
+            int limitValidated = FeedbackPaginationUtil.validateLimitForPagination(limit);
+            int offsetValidated = FeedbackPaginationUtil.validateOffsetForPagination(offset);
+
+            String sortByValidated = FeedbackPaginationUtil.validateSortingAttribute(sortBy);
+            String sortOrderValidated = FeedbackPaginationUtil.validateSortingOrder(sortOrder);
+            boolean sortByTime = FeedbackPaginationUtil.isSortedByTimeCreated(sortByValidated);
+            boolean descending = FeedbackPaginationUtil.isDescending(sortOrderValidated);
+
+            FilterExpression filterExpression = StringUtils.isBlank(filter) ? null : FilterExpression.parse(filter);
+            List<String> conditions = new ArrayList<>();
+            List<Object> parameters = new ArrayList<>();
+            buildTenantCondition(tenantId, conditions, parameters);
+            if (filterExpression != null) {
+                buildFilterConditions(filterExpression, conditions, parameters);
+            }
+
+            FeedbackArchive archive = getArchive();
+            if (archive == null) {
+                List<Feedback> feedbackResultsList = listRows(conditions, parameters, sortByTime, descending,
+                        offsetValidated, limitValidated);
+                populateTags(feedbackResultsList);
+                return feedbackResultsList;
+            }
+            return listWithArchivedEntries(archive, tenantId, filterExpression, conditions, parameters, sortByTime,
+                    descending, offsetValidated, limitValidated);
+        });
+    }
+
+    /**
+     * Retrieve a page of the entries of the feedback table merged with the archived entries. The rows of the table
+     * with IDs up to the last archived ID are being archived, and are taken from the archive. Since the other rows
+     * have greater IDs, the rows created after the latest archived entry follow all the archived entries, and the
+     * offset is pushed down to the archive or to the table depending on which of them the page starts in. The rows
+     * created before the latest archived entry, such as imported entries, are ordered among the archived entries, and
+     * are merged with them up to the end of the page.
+     *
+     * @param archive          feedback archive
+     * @param tenantId         tenant ID, or null to list the entries of all the tenants
+     * @param filterExpression parsed filter, or null to list all the entries
+     * @param conditions       SQL conditions of the tenant and the filter
+     * @param parameters       bind parameters of the conditions
+     * @param sortByTime       whether the entries are sorted by their creation time rather than by their IDs
+     * @param descending       whether the entries are sorted in the descending order
+     * @param offset           entries to skip
+     * @param limit            max entries in list
+     * @return A list of user feedback entries of the page
+     * @throws FeedbackManagementException
+     */
+    private List<Feedback> listWithArchivedEntries(FeedbackArchive archive, Integer tenantId,
+                                                   FilterExpression filterExpression, List<String> conditions,
+                                                   List<Object> parameters, boolean sortByTime, boolean descending,
+                                                   int offset, int limit) throws FeedbackManagementException {
+
+        List<String> laterConditions = new ArrayList<>(conditions);
+        List<Object> laterParameters = new ArrayList<>(parameters);
+        laterConditions.add(FeedbackMgtSQLConstants.FILTER_BY_UNARCHIVED_ID);
+        laterParameters.add(archive.getLastArchivedId());
+        List<String> earlierConditions = null;
+        List<Object> earlierParameters = null;
+        int earlierCount = 0;
+        Long latestArchivedTime = sortByTime ? archive.getLatestTimeCreated(tenantId) : null;
+        if (latestArchivedTime != null) {
+            // The time index is in milliseconds, so that the archived entries are all created before the next one.
+            Timestamp boundaryTime = new Timestamp(latestArchivedTime + 1);
+            earlierConditions = new ArrayList<>(laterConditions);
+            earlierParameters = new ArrayList<>(laterParameters);
+            earlierConditions.add(FeedbackMgtSQLConstants.FILTER_BY_TIME_CREATED_BEFORE);
+            earlierParameters.add(boundaryTime);
+            laterConditions.add(FeedbackMgtSQLConstants.FILTER_BY_TIME_CREATED_FROM);
+            laterParameters.add(boundaryTime);
+            earlierCount = countRows(earlierConditions, earlierParameters);
+        }
+
+        // The later rows come first in the descending order, and the archived entries first in the ascending order.
+        List<Feedback> feedbackResultsList = new ArrayList<>();
+        int skippedCount;
+        if (descending) {
+            skippedCount = listLaterRows(laterConditions, laterParameters, sortByTime, true, offset, limit,
+                    feedbackResultsList);
+        } else {
+            skippedCount = listArchivedRange(archive, tenantId, filterExpression, earlierConditions,
+                    earlierParameters, earlierCount, sortByTime, false, offset, limit, feedbackResultsList);
+        }
+        if (feedbackResultsList.size() < limit) {
+            int remainingOffset = offset - skippedCount;
+            int remainingLimit = limit - feedbackResultsList.size();
+            if (descending) {
+                listArchivedRange(archive, tenantId, filterExpression, earlierConditions, earlierParameters,
+                        earlierCount, sortByTime, true, remainingOffset, remainingLimit, feedbackResultsList);
+            } else {
+                listLaterRows(laterConditions, laterParameters, sortByTime, false, remainingOffset, remainingLimit,
+                        feedbackResultsList);
+            }
+        }
+        return feedbackResultsList;
+    }
 
-        String sortByValidated = validateSortingAttribute(sortBy);
-        String sortOrderValidated = validateSortingOrder(sortOrder);
+    /**
+     * Retrieve the rows of the feedback table which are created after all the archived entries, in the given order,
+     * after skipping a number of them.
+     *
+     * @param conditions          SQL conditions of the rows
+     * @param parameters          bind parameters of the conditions
+     * @param sortByTime          whether the entries are sorted by their creation time rather than by their IDs
+     * @param descending          whether the entries are sorted in the descending order
+     * @param offset              rows to skip
+     * @param limit               max entries in list
+     * @param feedbackResultsList list to which the entries are added
+     * @return Number of rows which were skipped
+     * @throws FeedbackManagementException
+     */
+    private int listLaterRows(List<String> conditions, List<Object> parameters, boolean sortByTime,
+                              boolean descending, int offset, int limit, List<Feedback> feedbackResultsList)
+            throws FeedbackManagementException {
 
-        Pair<String, String> filterExpression = buildFilter(filter);
+        List<Feedback> feedbackList = listRows(conditions, parameters, sortByTime, descending, offset, limit);
+        populateTags(feedbackList);
+        feedbackResultsList.addAll(feedbackList);
+        if (!feedbackList.isEmpty() || offset == 0) {
+            return offset;
+        }
+        // The page starts after the rows, so that the rows are counted to find where it starts after them.
+        return Math.min(offset, countRows(conditions, parameters));
+    }
 
-        if (filterExpression == null) {
-            return listFeedbackEntries(limitValidated, offsetValidated, sortByValidated, sortOrderValidated);
+    /**
+     * Retrieve the archived entries merged with the rows of the feedback table which are created before the latest
+     * archived entry, in the given order, after skipping a number of them. Without such rows, the offset is pushed
+     * down to the archive. Otherwise, the first entries of both up to the end of the page are merged, unless the page
+     * starts after all of them.
+     *
+     * @param archive             feedback archive
+     * @param tenantId            tenant ID, or null to list the entries of all the tenants
+     * @param filterExpression    parsed filter, or null to list all the entries
+     * @param earlierConditions   SQL conditions of the rows created before the latest archived entry, or null
+     * @param earlierParameters   bind parameters of the conditions
+     * @param earlierCount        number of the rows created before the latest archived entry
+     * @param sortByTime          whether the entries are sorted by their creation time rather than by their IDs
+     * @param descending          whether the entries are sorted in the descending order
+     * @param offset              entries to skip
+     * @param limit               max entries in list
+     * @param feedbackResultsList list to which the entries are added
+     * @return Number of entries which were skipped
+     * @throws FeedbackManagementException
+     */
+    private int listArchivedRange(FeedbackArchive archive, Integer tenantId, FilterExpression filterExpression,
+                                  List<String> earlierConditions, List<Object> earlierParameters, int earlierCount,
+                                  boolean sortByTime, boolean descending, int offset, int limit,
+                                  List<Feedback> feedbackResultsList) throws FeedbackManagementException {
+
+        if (earlierCount == 0) {
+            return archive.listEntries(tenantId, filterExpression, sortByTime, descending, offset, limit,
+                    feedbackResultsList);
+        }
+        int rangeCount = archive.countEntries(tenantId, filterExpression) + earlierCount;
+        if (offset >= rangeCount) {
+            return rangeCount;
         }
+        int pageEnd = (int) Math.min(rangeCount, (long) offset + limit);
+        List<Feedback> feedbackList = listRows(earlierConditions, earlierParameters, sortByTime, descending, 0,
+                pageEnd);
+        List<Feedback> mergedList = mergeArchivedEntries(feedbackList, archive.listEntries(tenantId,
+                filterExpression, sortByTime, descending, pageEnd), sortByTime, descending, pageEnd);
+        List<Feedback> pageList = mergedList.subList(offset, mergedList.size());
+        // Only the tags of the rows which are in the page are loaded.
+        Set<Feedback> rows = Collections.newSetFromMap(new IdentityHashMap<>());
+        rows.addAll(feedbackList);
+        populateTags(pageList.stream().filter(rows::contains).collect(Collectors.toList()));
+        feedbackResultsList.addAll(pageList);
+        return offset;
+    }
 
-        String filterAttribute = filterExpression.getLeft();
-        String filterResolvedForSQL = filterExpression.getRight();
+    /**
+     * Retrieve the rows of the feedback table which match the given conditions in the given order, without their
+     * tags. The rows created at the same time are ordered by their IDs, so that the order is stable across pages.
+     *
+     * @param conditions SQL conditions of the rows
+     * @param parameters bind parameters of the conditions
+     * @param sortByTime whether the rows are sorted by their creation time rather than by their IDs
+     * @param descending whether the rows are sorted in the descending order
+     * @param offset     rows to skip
+     * @param limit      max rows in list
+     * @return A list of user feedback entries without their tags
+     * @throws FeedbackManagementException
+     */
+    private List<Feedback> listRows(List<String> conditions, List<Object> parameters, boolean sortByTime,
+                                    boolean descending, int offset, int limit) throws FeedbackManagementException {
 
-        List<Feedback> feedbackResultsList;
-        JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
+        StringBuilder sqlStatement = new StringBuilder(FeedbackMgtSQLConstants.LIST_FEEDBACK);
+        appendConditions(sqlStatement, conditions);
+        appendOrderBy(sqlStatement, sortByTime, descending);
+        sqlStatement.append(FeedbackMgtSQLConstants.LIST_FEEDBACK_PAGINATION_TAIL);
+        List<Object> pageParameters = new ArrayList<>(parameters);
+        pageParameters.add(limit);
+        pageParameters.add(offset);
 
+        JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
         try {
-            switch (FeedbackMgtConstants.FilterableAttributes.valueOf(filterAttribute.toLowerCase())) {
-
-                case email:
-                    String sqlStatementWithSorting =
-                            FeedbackMgtSQLConstants.LIST_FEEDBACK_WITH_FILTER + " " + sortByValidated + " " +
-                                    sortOrderValidated + " " + FeedbackMgtSQLConstants.LIST_FEEDBACK_PAGINATION_TAIL;
-                    try {
-                        feedbackResultsList = jdbcTemplate.withTransaction(template -> {
-                            List<Feedback> feedbackInfoList =
-                                    jdbcTemplate.executeQuery(sqlStatementWithSorting,
-                                            (resultSet, rowNumber) -> {
-                                                Feedback feedbackResult = new Feedback();
-                                                feedbackResult.setId(resultSet.getInt(1));
-                                                feedbackResult.setMessage(resultSet.getString(2));
-                                                feedbackResult.setEmail(resultSet.getString(3));
-                                                feedbackResult.setContactNo(resultSet.getString(4));
-                                                feedbackResult.setUserId(resultSet.getString(5));
-                                                feedbackResult.setTenantId(resultSet.getInt(6));
-                                                feedbackResult.setUuid(resultSet.getString(7));
-                                                feedbackResult.setTimeCreated(resultSet.getString(8));
-                                                return feedbackResult;
-                                            }, preparedStatement -> {
-                                                preparedStatement.setString(1, filterResolvedForSQL);
-                                                preparedStatement.setInt(2, limitValidated);
-                                                preparedStatement.setInt(3, offsetValidated);
-                                            });
-
-                            if (feedbackInfoList != null) {
-                                feedbackInfoList.forEach(rethrowConsumer(feedbackInfo -> {
-                                    feedbackInfo.setTags(listTags(feedbackInfo.getId()));
-                                }));
-                            }
-                            return feedbackInfoList;
-                        });
-                    } catch (TransactionException e) {
-                        throw FeedbackExceptionManagementUtil
-                                .buildServerException(ErrorMessages.ERROR_CODE_LIST_FEEDBACK, e);
-                    }
-                    return feedbackResultsList;
+            return jdbcTemplate.executeQuery(sqlStatement.toString(),
+                    (resultSet, rowNumber) -> buildFeedback(resultSet),
+                    preparedStatement -> bindParameters(preparedStatement, pageParameters));
+        } catch (DataAccessException e) {
+            throw FeedbackExceptionManagementUtil.buildServerException(ErrorMessages.ERROR_CODE_LIST_FEEDBACK, e);
+        }
+    }
 
-                case tag:
+    /**
+     * Count the rows of the feedback table which match the given conditions.
+     *
+     * @param conditions SQL conditions of the rows
+     * @param parameters bind parameters of the conditions
+     * @return Number of matching rows
+     * @throws FeedbackManagementException
+     */
+    private int countRows(List<String> conditions, List<Object> parameters) throws FeedbackManagementException {
 
-                    String sqlStatementForTagsWithSorting =
-                            FeedbackMgtSQLConstants.LIST_FEEDBACK_WITH_TAGS_FILTER + " " + sortByValidated + " " +
-                                    sortOrderValidated + " " + FeedbackMgtSQLConstants.LIST_FEEDBACK_PAGINATION_TAIL;
-                    try {
-                        feedbackResultsList = jdbcTemplate.withTransaction(template -> {
-                            List<Feedback> feedbackInfoList =
-                                    jdbcTemplate.executeQuery(sqlStatementForTagsWithSorting,
-                                            (resultSet, rowNumber) -> {
-                                                Feedback feedbackResult = new Feedback();
-                                                feedbackResult.setId(resultSet.getInt(1));
-                                                feedbackResult.setMessage(resultSet.getString(2));
-                                                feedbackResult.setEmail(resultSet.getString(3));
-                                                feedbackResult.setContactNo(resultSet.getString(4));
-                                                feedbackResult.setUserId(resultSet.getString(5));
-                                                feedbackResult.setTenantId(resultSet.getInt(6));
-                                                feedbackResult.setUuid(resultSet.getString(7));
-                                                feedbackResult.setTimeCreated(resultSet.getString(8));
-                                                feedbackResult.setTags(
-                                                        new ArrayList<>(Arrays.asList(resultSet.getString(9))));
-                                                return feedbackResult;
-                                            }, preparedStatement -> {
-                                                preparedStatement.setString(1, filterResolvedForSQL);
-                                                preparedStatement.setInt(2, limit);
-                                                preparedStatement.setInt(3, offset);
-                                            });
-
-                            return feedbackInfoList;
-                        });
-                    } catch (TransactionException e) {
-                        throw FeedbackExceptionManagementUtil
-                                .buildServerException(ErrorMessages.ERROR_CODE_LIST_FEEDBACK, e);
+        StringBuilder sqlStatement = new StringBuilder(FeedbackMgtSQLConstants.GET_FEEDBACK_COUNT);
+        appendConditions(sqlStatement, conditions);
+        JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
+        try {
+            Integer count = jdbcTemplate.fetchSingleRecord(sqlStatement.toString(), (resultSet, rowNumber) ->
+                    resultSet.getInt(1), preparedStatement -> bindParameters(preparedStatement, parameters));
+            return count == null ? 0 : count;
+        } catch (DataAccessException e) {
+            throw FeedbackExceptionManagementUtil.buildServerException(ErrorMessages.ERROR_CODE_LIST_FEEDBACK, e);
+        }
+    }
 
-                    }
-                    return feedbackResultsList;
+    /**
+     * Merge the first entries of the feedback table with the first archived entries in the given order. An entry
+     * which is in both, since its chunk is being archived, is taken from the feedback table.
+     *
+     * @param feedbackList    first entries of the feedback table
+     * @param archivedEntries first archived entries
+     * @param sortByTime      whether the entries are sorted by their creation time rather than by their IDs
+     * @param descending      whether the entries are sorted in the descending order
+     * @param count           max entries in list
+     * @return A list of the first merged entries
+     */
+    private List<Feedback> mergeArchivedEntries(List<Feedback> feedbackList, List<Feedback> archivedEntries,
+                                                boolean sortByTime, boolean descending, int count) {
+
+        Set<String> feedbackUuids = feedbackList.stream().map(Feedback::getUuid).collect(Collectors.toSet());
+        List<Feedback> mergedList = new ArrayList<>(feedbackList);
+        for (Feedback archivedFeedback : archivedEntries) {
+            if (!feedbackUuids.contains(archivedFeedback.getUuid())) {
+                mergedList.add(archivedFeedback);
             }
-        } catch (IllegalArgumentException e) {
-            throw FeedbackExceptionManagementUtil
-                    .buildClientException(ErrorMessages.ERROR_CODE_UNSUPPORTED_FILTER_ATTRIBUTE, filterAttribute, e);
         }
-        return null;
+        mergedList.sort(FeedbackArchive.getComparator(sortByTime, descending));
+        return mergedList.size() > count ? new ArrayList<>(mergedList.subList(0, count)) : mergedList;
+    }
+
+    /**
+     * Search the messages of the feedback entries for a query, and retrieve the matching entries in the order of their
+     * relevance to the query. The matching archived entries follow the matching entries of the feedback table.
+     *
+     * @param tenantId tenant ID, or null to search the entries of all the tenants
+     * @param query    search query
+     * @param limit    max entries in list
+     * @return A list of matching user feedback entries
+     * @throws FeedbackManagementException
+     */
+    private List<Feedback> searchEntries(Integer tenantId, String query, int limit)
+            throws FeedbackManagementException {
+
+        MessageQuery messageQuery = MessageQuery.parse(query);
+        int limitValidated = FeedbackPaginationUtil.validateLimitForPagination(limit);
+        return JdbcUtils.executeInTransaction(() -> {
+            List<Integer> feedbackIds = feedbackMessageIndexDAO.searchMessages(tenantId, messageQuery, limitValidated);
+            List<Feedback> feedbackResultsList = listEntriesInOrder(feedbackIds,
+                    ErrorMessages.ERROR_CODE_SEARCH_FEEDBACK, query);
+            FeedbackArchive archive = getArchive();
+            if (archive == null || feedbackResultsList.size() >= limitValidated) {
+                return feedbackResultsList;
+            }
+            // The archived entries are not in the message index, so that they are ranked after the entries of the
+            // feedback table.
+            Set<String> feedbackUuids = feedbackResultsList.stream().map(Feedback::getUuid)
+                    .collect(Collectors.toSet());
+            for (Feedback archivedFeedback : archive.searchEntries(tenantId, messageQuery, limitValidated)) {
+                if (feedbackResultsList.size() == limitValidated) {
+                    break;
+                }
+                if (!feedbackUuids.contains(archivedFeedback.getUuid())) {
+                    feedbackResultsList.add(archivedFeedback);
+                }
+            }
+            return feedbackResultsList;
+        });
     }
 
     @Override
-    public Feedback getFeedbackEntry(String feedbackID) throws FeedbackManagementException {
+    public List<SimilarFeedback> findSimilarFeedbackEntries(String feedbackID, double threshold)
+            throws FeedbackManagementException {
+
+        MessageSignature.validateThreshold(threshold);
+        return JdbcUtils.executeInTransaction(() -> {
+            List<Pair<Integer, Double>> similarEntries = feedbackSimilarityDAO.findSimilar(feedbackID, threshold);
+            List<Integer> feedbackIds = new ArrayList<>();
+            for (Pair<Integer, Double> similarEntry : similarEntries) {
+                feedbackIds.add(similarEntry.getLeft());
+            }
+
+            List<Feedback> feedbackList = listEntriesInOrder(feedbackIds,
+                    ErrorMessages.ERROR_CODE_FIND_SIMILAR_FEEDBACK, feedbackID);
+            Map<Integer, Double> similarityById = new HashMap<>();
+            for (Pair<Integer, Double> similarEntry : similarEntries) {
+                similarityById.put(similarEntry.getLeft(), similarEntry.getRight());
+            }
+            List<SimilarFeedback> similarFeedbackList = new ArrayList<>();
+            for (Feedback feedback : feedbackList) {
+                similarFeedbackList.add(new SimilarFeedback(feedback, similarityById.get(feedback.getId())));
+            }
+            return similarFeedbackList;
+        });
+    }
 
-        Feedback userFeedback;
+    /**
+     * Retrieve the feedback entries of a list of IDs with their tags, in the order of the list. The IDs of the entries
+     * which no longer exist are skipped.
+     *
+     * @param feedbackIds  IDs of the feedback entries
+     * @param errorMessage error reported if the entries cannot be retrieved
+     * @param errorData    data of the error message
+     * @return A list of user feedback entries
+     * @throws FeedbackManagementException
+     */
+    private List<Feedback> listEntriesInOrder(List<Integer> feedbackIds, ErrorMessages errorMessage, String errorData)
+            throws FeedbackManagementException {
+
+        if (feedbackIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Map<Integer, Feedback> feedbackById = new HashMap<>();
         JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
         try {
-            userFeedback = jdbcTemplate.fetchSingleRecord(FeedbackMgtSQLConstants.GET_FEEDBACK_FROM_ID, (resultSet,
-                                                                                                         rowNumber) ->
-                            new Feedback(resultSet.getInt(1),
-                                    resultSet.getString(2),
-                                    resultSet.getString(3),
-                                    resultSet.getString(4),
-                                    resultSet.getString(5),
-                                    resultSet.getInt(6),
-                                    resultSet.getString(7),
-                                    resultSet.getString(8)),
-                    preparedStatement -> preparedStatement.setString(1, feedbackID));
+            jdbcTemplate.executeQuery(String.format(FeedbackMgtSQLConstants.LIST_FEEDBACK_FROM_IDS,
+                    JdbcUtils.buildPlaceholders(feedbackIds.size())), (resultSet, rowNumber) -> {
+                Feedback feedback = buildFeedback(resultSet);
+                return feedbackById.put(feedback.getId(), feedback);
+            }, preparedStatement -> {
+                for (int i = 0; i < feedbackIds.size(); i++) {
+                    preparedStatement.setInt(i + 1, feedbackIds.get(i));
+                }
+            });
         } catch (DataAccessException e) {
-            throw FeedbackExceptionManagementUtil
-                    .buildServerException(ErrorMessages.ERROR_CODE_SELECT_FEEDBACK_BY_ID, feedbackID, e);
+            throw FeedbackExceptionManagementUtil.buildServerException(errorMessage, errorData, e);
         }
 
-        if (userFeedback != null) {
-            userFeedback.setTags(listTags(userFeedback.getId()));
+        List<Feedback> feedbackResultsList = new ArrayList<>();
+        for (Integer feedbackId : feedbackIds) {
+            if (feedbackById.containsKey(feedbackId)) {
+                feedbackResultsList.add(feedbackById.get(feedbackId));
+            }
         }
+        populateTags(feedbackResultsList);
+        return feedbackResultsList;
+    }
 
-        return userFeedback;
+    /**
+     * Retrieve a page of user feedback entries according to the specified conditions using cursor based pagination.
+     * If there are archived entries, the page is taken from the entries of the feedback table which follow the cursor
+     * merged with the archived entries which follow the cursor.
+     *
+     * @param tenantId  tenant ID, or null to list the entries of all the tenants
+     * @param filter    filter condition
+     * @param limit     max entries in page
+     * @param cursor    cursor returned with the previous page, or null to retrieve the first page
+     * @param sortBy    how to sort the list
+     * @param sortOrder order of sorting (ASC/DESC)
+     * @return A page of user feedback entries with the cursor of the next page
+     * @throws FeedbackManagementException
+     */
+    private FeedbackPage listPage(Integer tenantId, String filter, int limit, String cursor, String sortBy,
+                                  String sortOrder) throws FeedbackManagementException {
+
+        return JdbcUtils.executeInTransaction(() -> {
+            int limitValidated = FeedbackPaginationUtil.validateLimitForPagination(limit);
+            String sortByValidated = FeedbackPaginationUtil.validateSortingAttribute(sortBy).trim().toLowerCase();
+            String sortOrderValidated = FeedbackPaginationUtil.validateSortingOrder(sortOrder).toUpperCase();
+
+            FilterExpression filterExpression = StringUtils.isBlank(filter) ? null : FilterExpression.parse(filter);
+            List<String> conditions = new ArrayList<>();
+            List<Object> parameters = new ArrayList<>();
+            buildTenantCondition(tenantId, conditions, parameters);
+            if (filterExpression != null) {
+                buildFilterConditions(filterExpression, conditions, parameters);
+            }
+            Pair<Integer, Timestamp> position = null;
+            if (StringUtils.isNotBlank(cursor)) {
+                position = FeedbackPaginationUtil.decodeCursor(cursor, sortByValidated, sortOrderValidated);
+                buildSeekCondition(position, sortOrderValidated, conditions, parameters);
+            }
+
+            boolean sortByTimeCreated =
+                    FeedbackMgtConstants.SortableAttributes.time_created.name().equals(sortByValidated);
+            StringBuilder sqlStatement = new StringBuilder(FeedbackMgtSQLConstants.LIST_FEEDBACK);
+            appendConditions(sqlStatement, conditions);
+            appendOrderBy(sqlStatement, sortByTimeCreated, FeedbackPaginationUtil.isDescending(sortOrderValidated));
+            sqlStatement.append(FeedbackMgtSQLConstants.LIST_FEEDBACK_SEEK_TAIL);
+            // One extra record is fetched to find out whether there is a next page.
+            parameters.add(limitValidated + 1);
+
+            List<Feedback> feedbackResultsList;
+            Map<String, Timestamp> timesCreated = new HashMap<>();
+            JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
+            try {
+                feedbackResultsList = jdbcTemplate.executeQuery(sqlStatement.toString(), (resultSet, rowNumber) -> {
+                    Feedback feedback = buildFeedback(resultSet);
+                    timesCreated.put(feedback.getUuid(), resultSet.getTimestamp(8));
+                    return feedback;
+                }, preparedStatement -> bindParameters(preparedStatement, parameters));
+            } catch (DataAccessException e) {
+                throw FeedbackExceptionManagementUtil.buildServerException(ErrorMessages.ERROR_CODE_LIST_FEEDBACK, e);
+            }
+            populateTags(feedbackResultsList);
+
+            FeedbackArchive archive = getArchive();
+            if (archive != null) {
+                boolean descending = FeedbackPaginationUtil.isDescending(sortOrderValidated);
+                List<Feedback> archivedEntries = archive.listEntries(tenantId, filterExpression, sortByTimeCreated,
+                        descending, position, limitValidated + 1);
+                feedbackResultsList = mergeArchivedEntries(feedbackResultsList, archivedEntries, sortByTimeCreated,
+                        descending, limitValidated + 1);
+            }
+
+            String nextCursor = null;
+            if (feedbackResultsList.size() > limitValidated) {
+                feedbackResultsList = new ArrayList<>(feedbackResultsList.subList(0, limitValidated));
+                Feedback lastFeedback = feedbackResultsList.get(limitValidated - 1);
+                Timestamp lastTimeCreated = timesCreated.get(lastFeedback.getUuid());
+                nextCursor = FeedbackPaginationUtil.encodeCursor(sortByValidated, sortOrderValidated,
+                        lastFeedback.getId(), lastTimeCreated != null ? lastTimeCreated :
+                                Timestamp.valueOf(lastFeedback.getTimeCreated()));
+            }
+            return new FeedbackPage(feedbackResultsList, nextCursor);
+        });
     }
 
-    @Override
-    public String deleteFeedbackEntry(String feedbackID) throws FeedbackManagementException {
+    /**
+     * Retrieve a feedback entry, reading through the {@link FeedbackEntryCache}. An entry which is not in the feedback
+     * table is looked up in the archive.
+     *
+     * @param tenantId   tenant ID, or null to retrieve the entry of any tenant
+     * @param feedbackID Resource ID
+     * @return Feedback entry, or null if the entry does not exist
+     * @throws FeedbackManagementException
+     */
+    private Feedback getEntry(Integer tenantId, String feedbackID) throws FeedbackManagementException {
+
+        Feedback cachedFeedback = FeedbackEntryCache.getInstance().get(feedbackID);
+        if (cachedFeedback != null) {
+            return tenantId == null || tenantId == cachedFeedback.getTenantId() ? cachedFeedback : null;
+        }
 
-        Integer id = checkIfFeedbackExists(feedbackID);
-        if (id != null) {
+        return JdbcUtils.executeInTransaction(() -> {
+            Feedback userFeedback;
             JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
+            try {
+                userFeedback = jdbcTemplate.fetchSingleRecord(tenantId == null ?
+                                FeedbackMgtSQLConstants.GET_FEEDBACK_FROM_ID :
+                                FeedbackMgtSQLConstants.GET_FEEDBACK_FROM_ID_IN_TENANT,
+                        (resultSet, rowNumber) -> buildFeedback(resultSet),
+                        preparedStatement -> {
+                            preparedStatement.setObject(1, JdbcUtils.toStoredUuid(feedbackID));
+                            if (tenantId != null) {
+                                preparedStatement.setInt(2, tenantId);
+                            }
+                        });
+            } catch (DataAccessException e) {
+                throw FeedbackExceptionManagementUtil
+                        .buildServerException(ErrorMessages.ERROR_CODE_SELECT_FEEDBACK_BY_ID, feedbackID, e);
+            }
+
+            if (userFeedback == null) {
+                FeedbackArchive archive = getArchive();
+                return archive == null ? null : archive.getEntry(tenantId, feedbackID);
+            }
+
+            userFeedback.setTags(listTags(userFeedback.getId()));
+            Feedback loadedFeedback = userFeedback;
+            JdbcUtils.runAfterCommit(() -> FeedbackEntryCache.getInstance().put(loadedFeedback));
+            return userFeedback;
+        });
+    }
+
+    /**
+     * Delete a feedback entry using the feedback ID.
+     *
+     * @param tenantId   tenant ID, or null to delete the entry of any tenant
+     * @param feedbackID Resource ID
+     * @return Resource ID of the feedback deleted
+     * @throws FeedbackManagementException
+     */
+    private String deleteEntry(Integer tenantId, String feedbackID) throws FeedbackManagementException {
+
+        return JdbcUtils.executeInTransaction(() -> {
+            // The feedback record is locked before its stored state is read, so that the state stays as it is until
+            // the record is deleted. Its tags are uncounted by the deletion.
+            Triple<Feedback, LocalDate, List<Integer>> storedState = lockEntry(tenantId, feedbackID) == null ? null :
+                    getStoredState(tenantId, feedbackID);
+            if (storedState == null) {
+                // An archived entry is deleted from its segment. It was uncounted and unindexed when it was archived.
+                FeedbackArchive archive = getArchive();
+                if (archive != null && archive.deleteEntry(tenantId, feedbackID) != null) {
+                    invalidateCachedEntry(feedbackID);
+                    return feedbackID;
+                }
+                throw FeedbackExceptionManagementUtil
+                        .buildClientException(ErrorMessages.ERROR_NOT_FOUND_RESOURCE_ID, feedbackID);
+            }
+            Feedback storedFeedback = storedState.getLeft();
+            int id = storedFeedback.getId();
+
+            JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
+            int deletedCount;
+            try {
+                deletedCount = jdbcTemplate.executeUpdate(FeedbackMgtSQLConstants.REMOVE_FEEDBACK,
+                        preparedStatement -> preparedStatement.setInt(1, id));
+            } catch (DataAccessException e) {
+                throw FeedbackExceptionManagementUtil
+                        .buildServerException(ErrorMessages.ERROR_CODE_DELETE_FEEDBACK, feedbackID, e);
+            }
+            if (deletedCount == 0) {
+                throw buildUnchangedEntryException(feedbackID, false);
+            }
+
             try {
                 jdbcTemplate.withTransaction(namedTemplate -> {
-                    namedTemplate.executeUpdate(FeedbackMgtSQLConstants.REMOVE_FEEDBACK, preparedStatement ->
-                            preparedStatement.setString(1, feedbackID));
+                    feedbackMessageIndexDAO.removeMessage(id);
+                    feedbackEmailIndexDAO.removeEmail(id);
+                    feedbackSimilarityDAO.removeSignature(id);
                     deleteTags(id, feedbackID);
+                    invalidateCachedEntry(feedbackID);
+
+                    Map<Integer, Integer> countDeltas = new HashMap<>();
+                    countDeltas.put(FeedbackMgtConstants.TOTAL_COUNTER_TAG_ID, -1);
+                    addCountDeltas(countDeltas, storedState.getRight(), -1);
+                    feedbackCounterDAO.updateCounters(storedFeedback.getTenantId(), countDeltas);
+                    feedbackCounterDAO.updateDailyCounters(storedFeedback.getTenantId(),
+                            Collections.singletonMap(storedState.getMiddle(), -1));
                     return null;
                 });
             } catch (TransactionException e) {
@@ -230,31 +901,66 @@ public class FeedbackMgtDAOImpl implements FeedbackMgtDAO {
                         .buildServerException(ErrorMessages.ERROR_CODE_DELETE_FEEDBACK, feedbackID, e);
             }
             return feedbackID;
-        } else {
-            throw FeedbackExceptionManagementUtil
-                    .buildClientException(ErrorMessages.ERROR_NOT_FOUND_RESOURCE_ID, feedbackID);
-        }
+        });
     }
 
     @Override
     public Feedback updateFeedbackEntry(String feedbackID, Feedback feedbackEntry) throws FeedbackManagementException {
 
-        Integer id = checkIfFeedbackExists(feedbackID);
-        if (id != null) {
+        return JdbcUtils.executeInTransaction(() -> {
+            // Updating the feedback record first locks it, so that the stored state read next stays as it is until
+            // the update is committed.
+            Integer expectedVersion = feedbackEntry.getVersion();
             JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
+            int updatedCount;
             try {
-                jdbcTemplate.withTransaction(namedTemplate -> {
-                    namedTemplate.executeUpdate(FeedbackMgtSQLConstants.UPDATE_FEEDBACK_INFO, preparedStatement -> {
-                        preparedStatement.setString(1, feedbackEntry.getMessage());
-                        preparedStatement.setString(2, feedbackEntry.getEmail());
-                        preparedStatement.setString(3, feedbackEntry.getContactNo());
-                        preparedStatement.setString(4, feedbackID);
-                    });
-
-                    deleteTags(id, feedbackID);
-                    if (feedbackEntry.getTags() != null) {
-                        addTags(id, feedbackEntry.getTags());
+                updatedCount = jdbcTemplate.executeUpdate(expectedVersion == null ?
+                        FeedbackMgtSQLConstants.UPDATE_FEEDBACK_INFO :
+                        FeedbackMgtSQLConstants.UPDATE_FEEDBACK_INFO_OF_VERSION, preparedStatement -> {
+                    preparedStatement.setString(1, feedbackEntry.getMessage());
+                    preparedStatement.setString(2, feedbackEntry.getEmail());
+                    preparedStatement.setString(3, feedbackEntry.getContactNo());
+                    preparedStatement.setString(4, EmailAnalyzer.reverse(feedbackEntry.getEmail()));
+                    preparedStatement.setObject(5, JdbcUtils.toStoredUuid(feedbackID));
+                    if (expectedVersion != null) {
+                        preparedStatement.setInt(6, expectedVersion);
                     }
+                });
+            } catch (DataAccessException e) {
+                throw FeedbackExceptionManagementUtil
+                        .buildServerException(ErrorMessages.ERROR_CODE_UPDATE_USER_FEEDBACK, feedbackID, e);
+            }
+            if (updatedCount == 0) {
+                // An archived entry is updated in its segment, which holds the entry with its tags.
+                FeedbackArchive archive = getArchive();
+                Feedback archivedFeedback = archive == null ? null : archive.updateEntry(feedbackID, feedbackEntry);
+                if (archivedFeedback != null) {
+                    invalidateCachedEntry(feedbackID);
+                    return archivedFeedback;
+                }
+                throw buildUnchangedEntryException(feedbackID, expectedVersion != null);
+            }
+
+            Triple<Feedback, LocalDate, List<Integer>> storedState = getStoredState(null, feedbackID);
+            if (storedState == null) {
+                throw FeedbackExceptionManagementUtil
+                        .buildClientException(ErrorMessages.ERROR_NOT_FOUND_RESOURCE_ID, feedbackID);
+            }
+            Feedback updatedFeedback = storedState.getLeft();
+            int id = updatedFeedback.getId();
+            try {
+                jdbcTemplate.withTransaction(namedTemplate -> {
+                    feedbackMessageIndexDAO.removeMessage(id);
+                    feedbackMessageIndexDAO.indexMessage(id, feedbackEntry.getMessage());
+                    feedbackEmailIndexDAO.removeEmail(id);
+                    feedbackEmailIndexDAO.indexEmail(id, feedbackEntry.getEmail());
+                    feedbackSimilarityDAO.removeSignature(id);
+                    feedbackSimilarityDAO.indexSignature(id, feedbackEntry.getMessage());
+
+                    Map<Integer, Integer> countDeltas = new HashMap<>();
+                    updateTags(id, feedbackID, storedState.getRight(), feedbackEntry.getTags(), countDeltas);
+                    invalidateCachedEntry(feedbackID);
+                    feedbackCounterDAO.updateCounters(updatedFeedback.getTenantId(), countDeltas);
                     return null;
                 });
             } catch (TransactionException e) {
@@ -262,70 +968,301 @@ public class FeedbackMgtDAOImpl implements FeedbackMgtDAO {
                         .buildServerException(ErrorMessages.ERROR_CODE_UPDATE_USER_FEEDBACK,
                                 feedbackID, e);
             }
-            return getFeedbackEntry(feedbackID);
-        } else {
-            throw FeedbackExceptionManagementUtil
-                    .buildClientException(ErrorMessages.ERROR_NOT_FOUND_RESOURCE_ID, feedbackID);
-        }
+
+            // The updated entry is built from the given fields and the stored ones, instead of being read again.
+            updatedFeedback.setMessage(feedbackEntry.getMessage());
+            updatedFeedback.setEmail(feedbackEntry.getEmail());
+            updatedFeedback.setContactNo(feedbackEntry.getContactNo());
+            updatedFeedback.setUuid(feedbackID);
+            updatedFeedback.setTags(feedbackEntry.getTags() == null ? new ArrayList<>() :
+                    new ArrayList<>(new LinkedHashSet<>(feedbackEntry.getTags())));
+            JdbcUtils.runAfterCommit(() -> FeedbackEntryCache.getInstance().put(updatedFeedback));
+            return updatedFeedback;
+        });
     }
 
     @Override
     public Integer countListResults(String filter) throws FeedbackManagementException {
 
-        Pair<String, String> filterExpression = buildFilter(filter);
+        return countEntries(null, filter);
+    }
 
-        if (filterExpression == null) {
-            return countListResults();
-        }
+    @Override
+    public Integer countListResults(int tenantId, String filter) throws FeedbackManagementException {
 
-        String filterAttribute = filterExpression.getLeft();
-        String filterQueryValue = filterExpression.getRight();
+        return countEntries(tenantId, filter);
+    }
 
-        int count;
+    /**
+     * Get the count of Feedback entries that match the given condition, including the archived entries.
+     *
+     * @param tenantId tenant ID, or null to count the entries of all the tenants
+     * @param filter   Condition to filter records
+     * @return Number of matching entries
+     * @throws FeedbackManagementException
+     */
+    private Integer countEntries(Integer tenantId, String filter) throws FeedbackManagementException {
+
+        return JdbcUtils.executeInTransaction(() -> {
+            // Counts without a filter or by a single tag are read from the maintained counters, and from the counts
+            // of the archive segments.
+            FeedbackArchive archive = getArchive();
+            if (StringUtils.isBlank(filter)) {
+                return getCount(tenantId, FeedbackMgtConstants.TOTAL_COUNTER_TAG_ID) +
+                        (archive == null ? 0 : archive.getCount(tenantId, null));
+            }
+            FilterExpression filterExpression = FilterExpression.parse(filter);
+            String tag = filterExpression.getTagEqualityValue();
+            if (tag != null) {
+                Integer tagId = feedbackTagDAO.getTagId(tag);
+                return (tagId == null ? 0 : getCount(tenantId, tagId)) +
+                        (archive == null ? 0 : archive.getCount(tenantId, tag));
+            }
 
-        String sqlStatementWithFilter = generateSqlFilterForCount(filterAttribute);
+            List<String> conditions = new ArrayList<>();
+            List<Object> parameters = new ArrayList<>();
+            buildTenantCondition(tenantId, conditions, parameters);
+            buildFilterConditions(filterExpression, conditions, parameters);
 
-        JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
-        try {
-            count = jdbcTemplate.fetchSingleRecord(sqlStatementWithFilter, (resultSet, rowNumber) ->
-                    resultSet.getInt(1), preparedStatement -> preparedStatement.setString(1, filterQueryValue));
-        } catch (DataAccessException e) {
-            throw FeedbackExceptionManagementUtil
-                    .buildServerException(ErrorMessages.ERROR_CODE_GET_COUNT_WITH_FILTER, filter, e);
+            StringBuilder sqlStatement = new StringBuilder(FeedbackMgtSQLConstants.GET_FEEDBACK_COUNT);
+            appendConditions(sqlStatement, conditions);
+            JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
+            int count;
+            try {
+                count = jdbcTemplate.fetchSingleRecord(sqlStatement.toString(), (resultSet, rowNumber) ->
+                        resultSet.getInt(1), preparedStatement -> bindParameters(preparedStatement, parameters));
+            } catch (DataAccessException e) {
+                throw FeedbackExceptionManagementUtil
+                        .buildServerException(ErrorMessages.ERROR_CODE_GET_COUNT_WITH_FILTER, filter, e);
+            }
+            return archive == null ? count : count + archive.countEntries(tenantId, filterExpression);
+        });
+    }
+
+    @Override
+    public int exportFeedbackEntries(String filter, FeedbackExporter exporter) throws FeedbackManagementException {
+
+        return exportEntries(null, filter, exporter);
+    }
+
+    @Override
+    public int exportFeedbackEntries(int tenantId, String filter, FeedbackExporter exporter)
+            throws FeedbackManagementException {
+
+        return exportEntries(tenantId, filter, exporter);
+    }
+
+    /**
+     * Export the feedback entries that match the given condition. The entries are read with their tags in a single
+     * forward-only query ordered by the feedback ID, so that the tags of an entry are merged from consecutive rows and
+     * the entry is written as soon as its last row is read.
+     * <p>
+     * The rows are fetched in batches of {@link FeedbackMgtConstants#EXPORT_FETCH_SIZE}. The query runs outside the
+     * auto commit mode, which some drivers, such as the PostgreSQL driver, require to fetch in batches. The MySQL
+     * driver fetches in batches only if the useCursorFetch property of the data source is set.
+     * <p>
+     * The matching archived entries are exported after the entries of the feedback table, except the ones which were
+     * still in the table when it was read, since their chunk was being archived.
+     *
+     * @param tenantId tenant ID, or null to export the entries of all the tenants
+     * @param filter   Condition to filter records
+     * @param exporter exporter the entries are written to
+     * @return Number of exported entries
+     * @throws FeedbackManagementException
+     */
+    private int exportEntries(Integer tenantId, String filter, FeedbackExporter exporter)
+            throws FeedbackManagementException {
+
+        FilterExpression filterExpression = StringUtils.isBlank(filter) ? null : FilterExpression.parse(filter);
+        List<String> conditions = new ArrayList<>();
+        List<Object> parameters = new ArrayList<>();
+        buildTenantCondition(tenantId, conditions, parameters);
+        if (filterExpression != null) {
+            buildFilterConditions(filterExpression, conditions, parameters);
+        }
+        StringBuilder sqlStatement = new StringBuilder(FeedbackMgtSQLConstants.EXPORT_FEEDBACK);
+        appendConditions(sqlStatement, conditions);
+        sqlStatement.append(FeedbackMgtSQLConstants.EXPORT_FEEDBACK_TAIL);
+
+        FeedbackArchive archive = getArchive();
+        FeedbackIdSet exportedIds = archive == null ? null : new FeedbackIdSet();
+        int exportedCount;
+        DataSource dataSource = FeedbackManagementServiceDataHolder.getInstance().getDataSource();
+        try (Connection connection = dataSource.getConnection()) {
+            exporter.begin();
+            connection.setAutoCommit(false);
+            try (PreparedStatement preparedStatement = connection.prepareStatement(sqlStatement.toString(),
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                preparedStatement.setFetchSize(FeedbackMgtConstants.EXPORT_FETCH_SIZE);
+                bindParameters(preparedStatement, parameters);
+                try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                    exportedCount = exportRows(resultSet, exporter, exportedIds);
+                }
+            } finally {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+            if (archive != null) {
+                exportedCount += exportArchivedEntries(archive, tenantId, filterExpression, exporter, exportedIds);
+            }
+            exporter.end();
+        } catch (SQLException | IOException e) {
+            throw FeedbackExceptionManagementUtil.buildServerException(ErrorMessages.ERROR_CODE_EXPORT_FEEDBACK, e);
         }
-        return count;
+        return exportedCount;
+    }
 
+    /**
+     * Write the feedback entries of a result set ordered by the feedback ID, with a row per tag of each entry.
+     *
+     * @param resultSet   result set with the columns of {@link FeedbackMgtSQLConstants#EXPORT_FEEDBACK}
+     * @param exporter    exporter the entries are written to
+     * @param exportedIds set to which the IDs of the exported entries are added, or null
+     * @return Number of exported entries
+     * @throws SQLException
+     * @throws IOException
+     */
+    private int exportRows(ResultSet resultSet, FeedbackExporter exporter, FeedbackIdSet exportedIds)
+            throws SQLException, IOException {
+
+        int exportedCount = 0;
+        Feedback feedback = null;
+        while (resultSet.next()) {
+            if (feedback == null || feedback.getId() != resultSet.getInt(1)) {
+                if (feedback != null) {
+                    exporter.write(feedback);
+                    exportedCount++;
+                }
+                feedback = buildFeedback(resultSet);
+                feedback.setTags(new ArrayList<>());
+                if (exportedIds != null) {
+                    exportedIds.add(feedback.getId());
+                }
+            }
+            String tag = resultSet.getString(10);
+            if (tag != null) {
+                feedback.getTags().add(tag);
+            }
+        }
+        if (feedback != null) {
+            exporter.write(feedback);
+            exportedCount++;
+        }
+        return exportedCount;
+    }
+
+    /**
+     * Write the archived feedback entries which match a filter in the order of their IDs, except the given ones.
+     *
+     * @param archive          feedback archive
+     * @param tenantId         tenant ID, or null to export the entries of all the tenants
+     * @param filterExpression parsed filter, or null to export all the entries
+     * @param exporter         exporter the entries are written to
+     * @param exportedIds      IDs of the entries which have been exported from the feedback table
+     * @return Number of exported entries
+     * @throws IOException
+     * @throws FeedbackManagementException
+     */
+    private int exportArchivedEntries(FeedbackArchive archive, Integer tenantId, FilterExpression filterExpression,
+                                      FeedbackExporter exporter, FeedbackIdSet exportedIds)
+            throws IOException, FeedbackManagementException {
+
+        int[] exportedCount = new int[1];
+        try {
+            archive.scanEntries(tenantId, filterExpression, feedback -> {
+                if (!exportedIds.contains(feedback.getId())) {
+                    try {
+                        exporter.write(feedback);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    exportedCount[0]++;
+                }
+                return true;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return exportedCount[0];
     }
 
     @Override
     public Integer checkIfFeedbackExists(String feedbackId) throws FeedbackManagementException {
 
         JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
+        Integer id;
         try {
-            return (jdbcTemplate.fetchSingleRecord(FeedbackMgtSQLConstants.CHECK_RESOURCE_EXISTS, (resultSet,
-                                                                                                   rowNumber) ->
+            id = (jdbcTemplate.fetchSingleRecord(FeedbackMgtSQLConstants.CHECK_RESOURCE_EXISTS, (resultSet,
+                                                                                                 rowNumber) ->
                             resultSet.getInt(1),
-                    preparedStatement -> preparedStatement.setString(1, feedbackId)));
+                    preparedStatement -> preparedStatement.setObject(1, JdbcUtils.toStoredUuid(feedbackId))));
         } catch (DataAccessException e) {
             throw FeedbackExceptionManagementUtil
                     .buildServerException(ErrorMessages.ERROR_CODE_SELECT_FEEDBACK_BY_ID, feedbackId, e);
         }
+        FeedbackArchive archive = getArchive();
+        if (id == null && archive != null) {
+            Feedback archivedFeedback = archive.getEntry(null, feedbackId);
+            return archivedFeedback == null ? null : archivedFeedback.getId();
+        }
+        return id;
+    }
+
+    /**
+     * Get the archive of the feedback entries which are moved out of the feedback table.
+     *
+     * @return feedback archive, or null if the archive is not configured or holds no entries
+     */
+    private FeedbackArchive getArchive() {
+
+        FeedbackArchive archive = FeedbackManagementServiceDataHolder.getInstance().getFeedbackArchive();
+        return archive == null || archive.isEmpty() ? null : archive;
+    }
+
+    /**
+     * Remove a feedback entry which is being changed from the {@link FeedbackEntryCache}. The entry is removed right
+     * away and again once the transaction is committed, since a concurrent read may cache the entry as it was before
+     * the change until then.
+     *
+     * @param feedbackUuid feedback resource ID
+     */
+    private void invalidateCachedEntry(String feedbackUuid) {
+
+        FeedbackEntryCache.getInstance().invalidate(feedbackUuid);
+        JdbcUtils.runAfterCommit(() -> FeedbackEntryCache.getInstance().invalidate(feedbackUuid));
     }
 
     /**
-     * Insert tags corresponding to a feedback record in the database.
+     * Get the number of feedback entries with the given tag from the maintained counters.
+     *
+     * @param tenantId tenant ID, or null to count the entries of all the tenants
+     * @param tagId    ID of the tag, or {@link FeedbackMgtConstants#TOTAL_COUNTER_TAG_ID} for the total count
+     * @return number of feedback entries
+     * @throws FeedbackManagementException
+     */
+    private int getCount(Integer tenantId, int tagId) throws FeedbackManagementException {
+
+        return tenantId == null ? feedbackCounterDAO.getCount(tagId) : feedbackCounterDAO.getCount(tenantId, tagId);
+    }
+
+    /**
+     * Insert tags corresponding to a feedback record in the database. A tag which is repeated is mapped only once.
      *
      * @param feedbackId auto-generated ID of the feedback record in the database
+     * @param tags       tags of the feedback record
+     * @return IDs of the inserted tags
      * @throws FeedbackManagementException
      */
-    private void addTags(int feedbackId, ArrayList<String> tags) throws FeedbackManagementException {
+    private List<Integer> addTags(int feedbackId, ArrayList<String> tags) throws FeedbackManagementException {
 
+        List<Integer> tagIds = new ArrayList<>(tags.size());
         JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
         try {
             jdbcTemplate.withTransaction(template -> {
                 template.executeBatchInsert(FeedbackMgtSQLConstants.STORE_FEEDBACK_TAG_MAPPINGS, preparedStatement -> {
-                    tags.forEach(rethrowConsumer(tagName -> {
-                        Integer tagID = getTagId(tagName);
+                    new LinkedHashSet<>(tags).forEach(rethrowConsumer(tagName -> {
+                        Integer tagID = feedbackTagDAO.getOrAddTagId(tagName);
+                        tagIds.add(tagID);
                         preparedStatement.setInt(1, feedbackId);
                         preparedStatement.setInt(2, tagID);
                         preparedStatement.addBatch();
@@ -337,51 +1274,71 @@ public class FeedbackMgtDAOImpl implements FeedbackMgtDAO {
             throw FeedbackExceptionManagementUtil
                     .buildServerException(ErrorMessages.ERROR_CODE_ADD_FEEDBACK_TAG_MAPPINGS, e);
         }
+        return tagIds;
     }
 
     /**
-     * Get the ID of the tag from in the database if the tag exists, and if it does not
-     * add the tag to the database.
+     * Replace the tags of a feedback record in the database. Only the mappings of the tags which are removed or added
+     * are written, so that the mappings of the tags which are kept are left untouched.
      *
-     * @param tag name
-     * @return Auto-generated ID of the tag
+     * @param id           auto-generated ID of the feedback record in the database
+     * @param feedbackUuid feedback resource ID
+     * @param storedTagIds IDs of the current tags of the feedback record
+     * @param tags         requested tags, or null to remove all the tags
+     * @param countDeltas  Map of tag ID to the change of the count of that tag, to which the changes are added
      * @throws FeedbackManagementException
      */
-    private Integer getTagId(String tag) throws FeedbackManagementException {
+    private void updateTags(int id, String feedbackUuid, List<Integer> storedTagIds, List<String> tags,
+                            Map<Integer, Integer> countDeltas) throws FeedbackManagementException {
+
+        Set<Integer> requestedTagIds = new LinkedHashSet<>();
+        if (tags != null && !tags.isEmpty()) {
+            Map<String, Integer> tagIds = feedbackTagDAO.getOrAddTagIds(new LinkedHashSet<>(tags));
+            for (String tag : tags) {
+                requestedTagIds.add(tagIds.get(tag));
+            }
+        }
+        List<Integer> removedTagIds = new ArrayList<>(storedTagIds);
+        removedTagIds.removeAll(requestedTagIds);
+        List<Integer> addedTagIds = new ArrayList<>(requestedTagIds);
+        addedTagIds.removeAll(storedTagIds);
+        if (removedTagIds.isEmpty() && addedTagIds.isEmpty()) {
+            return;
+        }
 
         JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
         try {
-            Integer tagId = jdbcTemplate.fetchSingleRecord(FeedbackMgtSQLConstants.GET_TAG_ID, (resultSet, rowNumber) ->
-                    resultSet.getInt(1), preparedStatement -> preparedStatement.setString(1, tag));
-            if (tagId == null) {
-                tagId = addTagToDB(tag);
+            for (List<Integer> chunk : partition(removedTagIds, FeedbackMgtConstants.IN_CLAUSE_CHUNK_SIZE)) {
+                String query = String.format(FeedbackMgtSQLConstants.REMOVE_FEEDBACK_TAG_MAPPINGS_BY_TAG_IDS,
+                        JdbcUtils.buildPlaceholders(chunk.size()));
+                jdbcTemplate.executeUpdate(query, preparedStatement -> {
+                    preparedStatement.setInt(1, id);
+                    for (int i = 0; i < chunk.size(); i++) {
+                        preparedStatement.setInt(i + 2, chunk.get(i));
+                    }
+                });
             }
-            return tagId;
         } catch (DataAccessException e) {
-            throw FeedbackExceptionManagementUtil.buildServerException(ErrorMessages.ERROR_CODE_ADD_FEEDBACK_TAG, e);
+            throw FeedbackExceptionManagementUtil
+                    .buildServerException(ErrorMessages.ERROR_CODE_DELETE_FEEDBACK_TAGS, feedbackUuid, e);
         }
-    }
-
-    /**
-     * Insert a new tag to the database.
-     *
-     * @param tag name of the tag
-     * @return tagId auto-generated ID of the tag in the database
-     * @throws FeedbackManagementException
-     */
-
-    private Integer addTagToDB(String tag) throws FeedbackManagementException {
-
-        JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
         try {
-            Integer insertedId = jdbcTemplate.executeInsert(FeedbackMgtSQLConstants.INSERT_TAG, (preparedStatement -> {
-                preparedStatement.setString(1, tag);
-            }), null, true);
-            return insertedId;
+            for (List<Integer> chunk : partition(addedTagIds, FeedbackMgtConstants.BATCH_INSERT_CHUNK_SIZE)) {
+                jdbcTemplate.executeBatchInsert(FeedbackMgtSQLConstants.STORE_FEEDBACK_TAG_MAPPINGS,
+                        preparedStatement -> {
+                            for (Integer tagId : chunk) {
+                                preparedStatement.setInt(1, id);
+                                preparedStatement.setInt(2, tagId);
+                                preparedStatement.addBatch();
+                            }
+                        }, null);
+            }
         } catch (DataAccessException e) {
-            throw FeedbackExceptionManagementUtil.buildServerException(ErrorMessages.ERROR_CODE_GET_FEEDBACK_TAG, e);
+            throw FeedbackExceptionManagementUtil
+                    .buildServerException(ErrorMessages.ERROR_CODE_ADD_FEEDBACK_TAG_MAPPINGS, e);
         }
-
+        addCountDeltas(countDeltas, removedTagIds, -1);
+        addCountDeltas(countDeltas, addedTagIds, 1);
     }
 
     /**
@@ -407,310 +1364,336 @@ public class FeedbackMgtDAOImpl implements FeedbackMgtDAO {
     }
 
     /**
-     * Delete tags corresponding to a feedback record in the database.
+     * Set the tags of a list of feedback records by loading the tags of all the records with one query per chunk of
+     * feedback IDs, instead of one query per record.
      *
-     * @param id           auto-generated ID of the feedback record in the database
-     * @param feedbackUuid feedback resource ID
+     * @param feedbackList list of feedback records retrieved from the database
      * @throws FeedbackManagementException
      */
-    private void deleteTags(int id, String feedbackUuid) throws FeedbackManagementException {
+    private void populateTags(List<Feedback> feedbackList) throws FeedbackManagementException {
 
-        JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
-        try {
-            jdbcTemplate.withTransaction(namedTemplate -> {
-                namedTemplate.executeUpdate(FeedbackMgtSQLConstants.REMOVE_FEEDBACK_TAG_MAPPINGS, preparedStatement ->
-                        preparedStatement.setInt(1, id));
-                return null;
-            });
-        } catch (TransactionException e) {
-            throw FeedbackExceptionManagementUtil
-                    .buildServerException(ErrorMessages.ERROR_CODE_DELETE_FEEDBACK_TAGS, feedbackUuid, e);
+        List<Integer> feedbackIds = new ArrayList<>(feedbackList.size());
+        for (Feedback feedback : feedbackList) {
+            feedbackIds.add(feedback.getId());
+        }
+        Map<Integer, ArrayList<String>> tagsById = listTags(feedbackIds);
+        for (Feedback feedback : feedbackList) {
+            ArrayList<String> tags = tagsById.get(feedback.getId());
+            feedback.setTags(tags != null ? tags : new ArrayList<>());
         }
     }
 
     /**
-     * Get the count of Feedback entries when no filter is given.
+     * List tags corresponding to a set of feedback records in the database, grouped by the feedback ID. The IDs are
+     * queried in chunks so that the number of bind parameters of a single statement stays bounded.
      *
-     * @return Number of matching entries
+     * @param feedbackIds auto-generated IDs of the feedback records in the database
+     * @return Map of feedback ID to the list of tags of that feedback record
      * @throws FeedbackManagementException
      */
-    private Integer countListResults() throws FeedbackManagementException {
-
-        Integer count = 0;
+    private Map<Integer, ArrayList<String>> listTags(List<Integer> feedbackIds) throws FeedbackManagementException {
 
+        Map<Integer, ArrayList<String>> tagsById = new HashMap<>();
         JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
         try {
-            count = jdbcTemplate.fetchSingleRecord(FeedbackMgtSQLConstants.GET_FEEDBACK_COUNT, (resultSet, rowNumber) ->
-                    resultSet.getInt(1), null);
+            for (int from = 0; from < feedbackIds.size(); from += FeedbackMgtConstants.IN_CLAUSE_CHUNK_SIZE) {
+                List<Integer> chunk = feedbackIds.subList(from,
+                        Math.min(from + FeedbackMgtConstants.IN_CLAUSE_CHUNK_SIZE, feedbackIds.size()));
+                String sqlStatement = String.format(FeedbackMgtSQLConstants.GET_FEEDBACK_TAGS_FROM_IDS,
+                        JdbcUtils.buildPlaceholders(chunk.size()));
+                jdbcTemplate.executeQuery(sqlStatement, (resultSet, rowNumber) ->
+                                tagsById.computeIfAbsent(resultSet.getInt(1), id -> new ArrayList<>())
+                                        .add(resultSet.getString(2)),
+                        preparedStatement -> {
+                            for (int i = 0; i < chunk.size(); i++) {
+                                preparedStatement.setInt(i + 1, chunk.get(i));
+                            }
+                        });
+            }
         } catch (DataAccessException e) {
             throw FeedbackExceptionManagementUtil
-                    .buildServerException(ErrorMessages.ERROR_CODE_GET_COUNT_WITHOUT_FILTER, e);
+                    .buildServerException(ErrorMessages.ERROR_CODE_LIST_FEEDBACK_TAGS, e);
         }
-        return count;
+        return tagsById;
     }
 
     /**
-     * Retrieve a list of user feedback entries when no filter is given.
+     * Delete tags corresponding to a feedback record in the database.
      *
-     * @param limit     max entries in list
-     * @param offset    entries to skip
-     * @param sortBy    how to sort the list
-     * @param sortOrder order of sorting (ASC/DESC)
-     * @return A list of user feedback entries
+     * @param id           auto-generated ID of the feedback record in the database
+     * @param feedbackUuid feedback resource ID
      * @throws FeedbackManagementException
      */
-    private List<Feedback> listFeedbackEntries(int limit, int offset, String sortBy, String sortOrder)
-            throws FeedbackManagementException {
+    private void deleteTags(int id, String feedbackUuid) throws FeedbackManagementException {
 
-        List<Feedback> feedbackResultsList;
         JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
-
-        String sqlStatementWithSorting =
-                FeedbackMgtSQLConstants.LIST_FEEDBACK_WITHOUT_FILTER + sortBy + " " + sortOrder +
-                        FeedbackMgtSQLConstants.LIST_FEEDBACK_PAGINATION_TAIL;
         try {
-            feedbackResultsList = jdbcTemplate.withTransaction(template -> {
-                List<Feedback> feedbackInfoList =
-                        jdbcTemplate.executeQuery(sqlStatementWithSorting,
-                                (resultSet, rowNumber) -> {
-                                    Feedback feedbackResult = new Feedback();
-                                    feedbackResult.setId(resultSet.getInt(1));
-                                    feedbackResult.setMessage(resultSet.getString(2));
-                                    feedbackResult.setEmail(resultSet.getString(3));
-                                    feedbackResult.setContactNo(resultSet.getString(4));
-                                    feedbackResult.setUserId(resultSet.getString(5));
-                                    feedbackResult.setTenantId(resultSet.getInt(6));
-                                    feedbackResult.setUuid(resultSet.getString(7));
-                                    feedbackResult.setTimeCreated(resultSet.getString(8));
-                                    return feedbackResult;
-                                }, preparedStatement -> {
-                                    preparedStatement.setInt(1, limit);
-                                    preparedStatement.setInt(2, offset);
-                                });
-
-                if (feedbackInfoList != null) {
-                    feedbackInfoList.forEach(rethrowConsumer(feedbackInfo -> {
-                        feedbackInfo.setTags(listTags(feedbackInfo.getId()));
-                    }));
-                }
-                return feedbackInfoList;
+            jdbcTemplate.withTransaction(namedTemplate -> {
+                namedTemplate.executeUpdate(FeedbackMgtSQLConstants.REMOVE_FEEDBACK_TAG_MAPPINGS, preparedStatement ->
+                        preparedStatement.setInt(1, id));
+                return null;
             });
         } catch (TransactionException e) {
-            throw FeedbackExceptionManagementUtil.buildServerException(ErrorMessages.ERROR_CODE_LIST_FEEDBACK, e);
+            throw FeedbackExceptionManagementUtil
+                    .buildServerException(ErrorMessages.ERROR_CODE_DELETE_FEEDBACK_TAGS, feedbackUuid, e);
         }
-        return feedbackResultsList;
     }
 
     /**
-     * Validate the limit value for pagination.
+     * Build the SQL condition which restricts a query to the entries of a tenant. The condition is added first, so
+     * that it matches the leading column of the tenant indexes.
      *
-     * @param limit Count value.
-     * @return Validated limit value
-     * @throws FeedbackManagementException
+     * @param tenantId   tenant ID, or null to include the entries of all the tenants
+     * @param conditions list to which the SQL condition is added
+     * @param parameters list to which the bind parameter is added
      */
-    private int validateLimitForPagination(int limit) throws FeedbackManagementException {
+    private void buildTenantCondition(Integer tenantId, List<String> conditions, List<Object> parameters) {
 
-        if (limit == 0) {
-            limit = FeedbackMgtConstants.DEFAULT_SEARCH_LIMIT;
-            if (log.isDebugEnabled()) {
-                log.debug("Limit is not defined the request, hence set to default value: " + limit);
-            }
-        } else if (limit < 0) {
-            throw FeedbackExceptionManagementUtil.buildClientException(ErrorMessages.ERROR_CODE_INVALID_LIMIT,
-                    String.valueOf(limit));
+        if (tenantId != null) {
+            conditions.add(FeedbackMgtSQLConstants.FILTER_BY_TENANT_ID);
+            parameters.add(tenantId);
         }
-        return limit;
     }
 
     /**
-     * Validate the offset value for pagination.
+     * Build the SQL conditions and the bind parameters of a parsed filter. The IDs of the tags in "tag eq" terms are
+     * resolved up front, so that those terms are matched with semi-joins on the tag mappings alone.
      *
-     * @param offset Starting index.
-     * @return Validated offset value
+     * @param filterExpression parsed filter
+     * @param conditions       list to which the SQL conditions are added
+     * @param parameters       list to which the bind parameters are added
      * @throws FeedbackManagementException
      */
-    private int validateOffsetForPagination(int offset) throws FeedbackManagementException {
+    private void buildFilterConditions(FilterExpression filterExpression, List<String> conditions,
+                                       List<Object> parameters) throws FeedbackManagementException {
 
-        if (offset < 0) {
-            throw FeedbackExceptionManagementUtil.buildClientException(ErrorMessages.ERROR_CODE_INVALID_OFFSET,
-                    String.valueOf(offset));
-        }
-        return offset;
+        Set<String> tagNames = filterExpression.getTagNames();
+        Map<String, Integer> tagIds = tagNames.isEmpty() ? new HashMap<>() : feedbackTagDAO.getTagIds(tagNames);
+        conditions.add(filterExpression.getCondition());
+        parameters.addAll(filterExpression.getParameters(tagIds));
     }
 
     /**
-     * Validate the attribute provided to sort by.
+     * Lock a feedback record until the end of the current transaction.
      *
-     * @param sortBy attribute by which sorting should be done
-     * @return Validated sortBy attribute
+     * @param tenantId     tenant ID, or null to lock the record of any tenant
+     * @param feedbackUuid feedback resource ID
+     * @return ID of the locked feedback record, or null if the record does not exist
      * @throws FeedbackManagementException
      */
-    private String validateSortingAttribute(String sortBy) throws FeedbackManagementException {
+    private Integer lockEntry(Integer tenantId, String feedbackUuid) throws FeedbackManagementException {
 
-        // If sortBy is not provided, it is set to the default value
-        if (sortBy == null || sortBy.isEmpty()) {
-            sortBy = FeedbackMgtConstants.DEFAULT_SORT_BY;
-
-        } else if (!isSortableAttribute(sortBy)) {
+        JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
+        try {
+            return jdbcTemplate.fetchSingleRecord(tenantId == null ? FeedbackMgtSQLConstants.LOCK_FEEDBACK :
+                            FeedbackMgtSQLConstants.LOCK_FEEDBACK_IN_TENANT, (resultSet, rowNumber) ->
+                            resultSet.getInt(1), preparedStatement -> {
+                        preparedStatement.setObject(1, JdbcUtils.toStoredUuid(feedbackUuid));
+                        if (tenantId != null) {
+                            preparedStatement.setInt(2, tenantId);
+                        }
+                    });
+        } catch (DataAccessException e) {
             throw FeedbackExceptionManagementUtil
-                    .buildClientException(ErrorMessages.ERROR_CODE_UNSUPPORTED_SORT_BY_ATTRIBUTE, sortBy);
+                    .buildServerException(ErrorMessages.ERROR_CODE_SELECT_FEEDBACK_BY_ID, feedbackUuid, e);
         }
-
-        return sortBy;
     }
 
     /**
-     * Validate the sort order parameter.
+     * Get the stored fields of a feedback record which are not changed by an update, together with the day of
+     * creation and the IDs of the tags of the record, which identify the counters the record is counted in.
      *
-     * @param sortOrder how the retrieved records should be ordered
-     * @return Validated sortOrder parameter
+     * @param tenantId     tenant ID, or null to get the record of any tenant
+     * @param feedbackUuid feedback resource ID
+     * @return Triple of the feedback with its ID, user ID, tenant ID, time of creation and version, the day of
+     * creation and the IDs of the tags of the feedback record, or null if the record does not exist
      * @throws FeedbackManagementException
      */
-    private String validateSortingOrder(String sortOrder) throws FeedbackManagementException {
+    private Triple<Feedback, LocalDate, List<Integer>> getStoredState(Integer tenantId, String feedbackUuid)
+            throws FeedbackManagementException {
 
-        //If sortOrder is not provided, it is set to the default value
-        if (sortOrder == null || sortOrder.isEmpty()) {
-            sortOrder = FeedbackMgtConstants.DEFAULT_SORT_ORDER;
-        } else if (!isValidSortOrder(sortOrder)) {
+        List<Integer> tagIds = new ArrayList<>();
+        JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
+        try {
+            List<Pair<Feedback, LocalDate>> records = jdbcTemplate.executeQuery(tenantId == null ?
+                            FeedbackMgtSQLConstants.GET_FEEDBACK_STORED_STATE :
+                            FeedbackMgtSQLConstants.GET_FEEDBACK_STORED_STATE_IN_TENANT,
+                    (resultSet, rowNumber) -> {
+                        int tagId = resultSet.getInt(7);
+                        if (!resultSet.wasNull()) {
+                            tagIds.add(tagId);
+                        }
+                        Feedback storedFeedback = new Feedback();
+                        storedFeedback.setId(resultSet.getInt(1));
+                        storedFeedback.setUserId(resultSet.getString(2));
+                        storedFeedback.setTenantId(resultSet.getInt(3));
+                        storedFeedback.setTimeCreated(resultSet.getString(4));
+                        storedFeedback.setVersion(resultSet.getInt(5));
+                        return Pair.of(storedFeedback, resultSet.getDate(6).toLocalDate());
+                    }, preparedStatement -> {
+                        preparedStatement.setObject(1, JdbcUtils.toStoredUuid(feedbackUuid));
+                        if (tenantId != null) {
+                            preparedStatement.setInt(2, tenantId);
+                        }
+                    });
+            if (records.isEmpty()) {
+                return null;
+            }
+            return Triple.of(records.get(0).getLeft(), records.get(0).getRight(), tagIds);
+        } catch (DataAccessException e) {
             throw FeedbackExceptionManagementUtil
-                    .buildClientException(ErrorMessages.ERROR_CODE_INVALID_SORT_ORDER, sortOrder);
+                    .buildServerException(ErrorMessages.ERROR_CODE_SELECT_FEEDBACK_BY_ID, feedbackUuid, e);
         }
-        return sortOrder;
     }
 
     /**
-     * Check if provided sortBy attribute is supported.
+     * Build the error of a conditional change of a feedback record which changed no record. The record has either
+     * been deleted, or been changed since the version the change was conditioned on.
      *
-     * @param attribute by which sorting should be done
-     * @return true if sort by attribute is supported
+     * @param feedbackUuid feedback resource ID
+     * @param versioned    whether the change was conditioned on the version of the record
+     * @return Client exception of the missing or changed record
+     * @throws FeedbackManagementException
      */
-    private boolean isSortableAttribute(String attribute) {
+    private FeedbackManagementException buildUnchangedEntryException(String feedbackUuid, boolean versioned)
+            throws FeedbackManagementException {
 
-        return Arrays.stream(FeedbackMgtConstants.SortableAttributes.values())
-                .anyMatch(sortableAttribute -> sortableAttribute.name().equals(attribute.toLowerCase()));
+        // Only a failed change needs the extra round trip to tell the two cases apart.
+        if (versioned && checkIfFeedbackExists(feedbackUuid) != null) {
+            return FeedbackExceptionManagementUtil
+                    .buildClientException(ErrorMessages.ERROR_CODE_FEEDBACK_VERSION_CONFLICT, feedbackUuid);
+        }
+        return FeedbackExceptionManagementUtil
+                .buildClientException(ErrorMessages.ERROR_NOT_FOUND_RESOURCE_ID, feedbackUuid);
     }
 
     /**
-     * Check if provided sortBy attribute is supported.
+     * Add the same change to the counters of each of the given tags.
      *
-     * @param sortOrder by which records should be ordered
-     * @return true if sort order value is supported
+     * @param countDeltas Map of tag ID to the change of the count of that tag
+     * @param tagIds      IDs of the tags
+     * @param delta       change of the count of each tag
      */
-    private boolean isValidSortOrder(String sortOrder) {
+    private void addCountDeltas(Map<Integer, Integer> countDeltas, Collection<Integer> tagIds, int delta) {
 
-        return Arrays.stream(FeedbackMgtConstants.SortOrderOperators.values())
-                .anyMatch(sortableAttribute -> sortableAttribute.name().equals(sortOrder.toLowerCase()));
+        for (Integer tagId : tagIds) {
+            countDeltas.merge(tagId, delta, Integer::sum);
+        }
     }
 
     /**
-     * Parse the user given filter parameter.
+     * Append the given SQL conditions to a statement as a WHERE clause.
      *
-     * @param filter value provided by the user
-     * @return A pair of string values (filterAttribute -> filterOperation)
-     * @throws FeedbackManagementException
+     * @param sqlStatement SQL statement
+     * @param conditions   SQL conditions to be combined with AND
      */
-    private Pair<String, String> buildFilter(String filter) throws FeedbackManagementException {
-
-        if (StringUtils.isNotBlank(filter)) {
-            String[] filterArgs = filter.split(" ");
-            if (filterArgs.length == 3) {
-
-                String filterAttribute = filterArgs[0];
+    private void appendConditions(StringBuilder sqlStatement, List<String> conditions) {
 
-                if (isFilterableAttribute(filterAttribute)) {
-                    String operation = filterArgs[1];
-                    String attributeValue = filterArgs[2];
-                    if (attributeValue.isEmpty()) {
-                        attributeValue = "*";
-                    }
-                    return Pair.of(filterAttribute, generateFilterString(operation, attributeValue.trim()));
-                } else {
-                    throw FeedbackExceptionManagementUtil.buildClientException(FeedbackMgtConstants.ErrorMessages.
-                            ERROR_CODE_UNSUPPORTED_FILTER_ATTRIBUTE, filterAttribute);
-                }
-            } else {
-                throw FeedbackExceptionManagementUtil.buildClientException(FeedbackMgtConstants.ErrorMessages.
-                        ERROR_CODE_INVALID_FILTER_QUERY, filter);
-            }
-        } else {
-            return null;
+        if (!conditions.isEmpty()) {
+            sqlStatement.append(" ").append(FeedbackMgtConstants.WHERE)
+                    .append(StringUtils.join(conditions, FeedbackMgtConstants.AND));
         }
     }
 
     /**
-     * Generate the sql filter string from filter operation and attribute value.
+     * Append the ORDER BY clause of a listing. The records created at the same time are ordered by their IDs.
      *
-     * @param operation      filter operation specified (eq, co, sw, ew)
-     * @param attributeValue value to which filtering is applied
-     * @return sql formatted filter term
-     * @throws FeedbackManagementException
+     * @param sqlStatement SQL statement of the listing
+     * @param sortByTime   whether the records are sorted by their creation time rather than by their IDs
+     * @param descending   whether the records are sorted in the descending order
      */
-    private String generateFilterString(String operation, String attributeValue)
-            throws FeedbackManagementException {
+    private void appendOrderBy(StringBuilder sqlStatement, boolean sortByTime, boolean descending) {
 
-        String formattedFilter = null;
-        try {
-            switch (FeedbackMgtConstants.AttributeOperators.valueOf(operation.toLowerCase())) {
-                case sw:
-                    formattedFilter = attributeValue + "%";
-                    break;
-                case ew:
-                    formattedFilter = "%" + attributeValue;
-                    break;
-                case eq:
-                    formattedFilter = attributeValue;
-                    break;
-                case co:
-                    formattedFilter = "%" + attributeValue + "%";
-                    break;
-            }
-        } catch (IllegalArgumentException e) {
-            throw FeedbackExceptionManagementUtil
-                    .buildClientException(ErrorMessages.ERROR_CODE_UNSUPPORTED_FILTER_OPERATION, operation, e);
+        String sortOrder = descending ? FeedbackMgtConstants.SortOrderOperators.desc.name().toUpperCase() :
+                FeedbackMgtConstants.SortOrderOperators.asc.name().toUpperCase();
+        sqlStatement.append(FeedbackMgtConstants.ORDER_BY);
+        if (sortByTime) {
+            sqlStatement.append("TIME_CREATED ").append(sortOrder).append(", ");
         }
+        sqlStatement.append("ID ").append(sortOrder);
+    }
 
-        return formattedFilter;
+    /**
+     * Build the SQL condition which seeks to the position after the record the cursor points to.
+     *
+     * @param position   Pair of the ID and the time of creation of the record, decoded from the cursor
+     * @param sortOrder  validated sort order
+     * @param conditions list to which the SQL condition is added
+     * @param parameters list to which the bind parameters are added
+     */
+    private void buildSeekCondition(Pair<Integer, Timestamp> position, String sortOrder, List<String> conditions,
+                                    List<Object> parameters) {
+
+        boolean descending = FeedbackPaginationUtil.isDescending(sortOrder);
+        if (position.getRight() != null) {
+            conditions.add(descending ? FeedbackMgtSQLConstants.SEEK_BY_TIME_CREATED_DESC :
+                    FeedbackMgtSQLConstants.SEEK_BY_TIME_CREATED_ASC);
+            parameters.add(position.getRight());
+            parameters.add(position.getRight());
+        } else {
+            conditions.add(descending ? FeedbackMgtSQLConstants.SEEK_BY_ID_DESC :
+                    FeedbackMgtSQLConstants.SEEK_BY_ID_ASC);
+        }
+        parameters.add(position.getLeft());
     }
 
     /**
-     * Check if provided attribute is supported for filtering.
+     * Split a list into consecutive sub lists of the given maximum size.
      *
-     * @param attribute by which filtering should be done
-     * @return true if filter by attribute is supported
+     * @param list      list to be split
+     * @param chunkSize maximum size of a sub list
+     * @return List of sub lists
      */
-    private boolean isFilterableAttribute(String attribute) {
+    private <T> List<List<T>> partition(List<T> list, int chunkSize) {
 
-        return Arrays.stream(FeedbackMgtConstants.FilterableAttributes.values())
-                .anyMatch(filterableAttribute -> filterableAttribute.name().equals(attribute.toLowerCase()));
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < list.size(); from += chunkSize) {
+            chunks.add(list.subList(from, Math.min(from + chunkSize, list.size())));
+        }
+        return chunks;
     }
 
     /**
-     * Generate sql statement part to count feedback records with filter.
+     * Bind the given parameters to a prepared statement in order.
      *
-     * @param filterAttribute to be applied for sql command
-     * @return sql statement part to be appended to base sql statement
-     * @throws FeedbackManagementException
+     * @param preparedStatement prepared statement
+     * @param parameters        parameters to be bound
+     * @throws SQLException
      */
-    private String generateSqlFilterForCount(String filterAttribute) throws FeedbackManagementException {
-
-        String sqlQueryPart = "";
-        try {
-            switch (FeedbackMgtConstants.FilterableAttributes.valueOf(filterAttribute.toLowerCase())) {
-                case email:
-                    sqlQueryPart =
-                            FeedbackMgtSQLConstants.GET_FEEDBACK_COUNT + FeedbackMgtConstants.WHERE +
-                                    FeedbackMgtConstants.EMAIL + FeedbackMgtConstants.LIKE;
-                    break;
-                case tag:
-                    sqlQueryPart =
-                            FeedbackMgtSQLConstants.GET_FEEDBACK_COUNT_WITH_TAGS + FeedbackMgtConstants.WHERE +
-                                    FeedbackMgtConstants.TAG + FeedbackMgtConstants.LIKE;
-                    break;
+    private void bindParameters(PreparedStatement preparedStatement, List<Object> parameters) throws SQLException {
+
+        for (int i = 0; i < parameters.size(); i++) {
+            Object parameter = parameters.get(i);
+            if (parameter instanceof Integer) {
+                preparedStatement.setInt(i + 1, (Integer) parameter);
+            } else if (parameter instanceof Timestamp) {
+                preparedStatement.setTimestamp(i + 1, (Timestamp) parameter);
+            } else {
+                preparedStatement.setString(i + 1, (String) parameter);
             }
-        } catch (IllegalArgumentException e) {
-            throw FeedbackExceptionManagementUtil
-                    .buildClientException(ErrorMessages.ERROR_CODE_UNSUPPORTED_FILTER_ATTRIBUTE, filterAttribute, e);
         }
-        return sqlQueryPart;
+    }
+
+    /**
+     * Build a feedback object from the current row of a result set with the columns ID, MESSAGE, EMAIL, CONTACT_NO,
+     * USER_ID, TENANT_ID, UUID, TIME_CREATED and VERSION.
+     *
+     * @param resultSet result set
+     * @return Feedback object
+     * @throws SQLException
+     */
+    private Feedback buildFeedback(ResultSet resultSet) throws SQLException {
+
+        Feedback feedbackResult = new Feedback();
+        feedbackResult.setId(resultSet.getInt(1));
+        feedbackResult.setMessage(resultSet.getString(2));
+        feedbackResult.setEmail(resultSet.getString(3));
+        feedbackResult.setContactNo(resultSet.getString(4));
+        feedbackResult.setUserId(resultSet.getString(5));
+        feedbackResult.setTenantId(resultSet.getInt(6));
+        feedbackResult.setUuid(JdbcUtils.getStoredUuid(resultSet, 7));
+        feedbackResult.setTimeCreated(resultSet.getString(8));
+        feedbackResult.setVersion(resultSet.getInt(9));
+        return feedbackResult;
     }
 }
@@ -0,0 +1,280 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.impl;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.database.utils.jdbc.JdbcTemplate;
+import org.wso2.carbon.database.utils.jdbc.QueryFilter;
+import org.wso2.carbon.database.utils.jdbc.exceptions.DataAccessException;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.cache.FeedbackEntryCache;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants.ErrorMessages;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtSQLConstants;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.FeedbackCounterDAO;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.FeedbackRetentionDAO;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.exception.FeedbackManagementException;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.FeedbackRetentionPolicy;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.util.FeedbackExceptionManagementUtil;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.util.JdbcUtils;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * This class purges the feedback entries past their retention from the Feedback database, and records the progress
+ * of each retention policy in the CLD_FEEDBACK_PURGE_PROGRESS table.
+ *
+ * A chunk covers the entries of a policy with IDs from the last purged ID up to the last entry of the chunk which is
+ * old enough to be purged. Since the IDs grow with the creation time, the first entry which is not old enough ends the
+ * purge of the policy until its next run. Each chunk is purged in its own short transaction, which also decrements
+ * the feedback counters and moves the recorded progress forward, so that the progress always matches the purged
+ * entries. The progress row of the policy is locked by the chunk, so that the nodes of a cluster purging concurrently
+ * do not purge the same chunk twice.
+ */
+public class FeedbackRetentionDAOImpl implements FeedbackRetentionDAO {
+
+    private static final Log log = LogFactory.getLog(FeedbackRetentionDAOImpl.class);
+    private final FeedbackCounterDAO feedbackCounterDAO = new FeedbackCounterDAOImpl();
+
+    @Override
+    public int purgeChunk(FeedbackRetentionPolicy policy, Timestamp createdBefore, int chunkSize)
+            throws FeedbackManagementException {
+
+        String scope = policy.getScope();
+        addPurgeProgress(scope);
+        return JdbcUtils.executeInTransaction(() -> {
+            JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
+            try {
+                Integer lastPurgedId = jdbcTemplate.fetchSingleRecord(FeedbackMgtSQLConstants.LOCK_PURGE_PROGRESS,
+                        (resultSet, rowNumber) -> resultSet.getInt(1),
+                        preparedStatement -> preparedStatement.setString(1, scope));
+                int fromId = lastPurgedId == null ? 0 : lastPurgedId;
+
+                String tenantCondition = buildTenantCondition(policy);
+                List<Pair<Integer, String>> candidates = jdbcTemplate.executeQuery(
+                        String.format(FeedbackMgtSQLConstants.GET_PURGE_CANDIDATES, tenantCondition),
+                        (resultSet, rowNumber) -> resultSet.getTimestamp(3).before(createdBefore) ?
+                                Pair.of(resultSet.getInt(1), JdbcUtils.getStoredUuid(resultSet, 2)) : null,
+                        preparedStatement -> {
+                            int index = 1;
+                            preparedStatement.setInt(index++, fromId);
+                            index = setTenantParameters(preparedStatement, index, policy);
+                            preparedStatement.setInt(index, chunkSize);
+                        });
+                List<String> purgedUuids = new ArrayList<>();
+                int toId = fromId;
+                for (Pair<Integer, String> candidate : candidates) {
+                    if (candidate == null) {
+                        break;
+                    }
+                    toId = candidate.getLeft();
+                    purgedUuids.add(candidate.getRight());
+                }
+                if (purgedUuids.isEmpty()) {
+                    return 0;
+                }
+
+                String rangeCondition = String.format(FeedbackMgtSQLConstants.PURGE_RANGE_CONDITION, tenantCondition);
+                int rangeToId = toId;
+                QueryFilter rangeFilter = preparedStatement -> {
+                    preparedStatement.setInt(1, fromId);
+                    preparedStatement.setInt(2, rangeToId);
+                    preparedStatement.setTimestamp(3, createdBefore);
+                    setTenantParameters(preparedStatement, 4, policy);
+                };
+                int purgedCount = deleteEntries(jdbcTemplate, rangeCondition, rangeFilter);
+                jdbcTemplate.executeUpdate(FeedbackMgtSQLConstants.UPDATE_PURGE_PROGRESS, preparedStatement -> {
+                    preparedStatement.setInt(1, rangeToId);
+                    preparedStatement.setInt(2, purgedCount);
+                    preparedStatement.setString(3, scope);
+                });
+                JdbcUtils.runAfterCommit(() -> {
+                    FeedbackEntryCache feedbackCache = FeedbackEntryCache.getInstance();
+                    purgedUuids.forEach(feedbackCache::invalidate);
+                });
+
+                if (log.isDebugEnabled()) {
+                    log.debug("Purged " + purgedCount + " feedback entries with IDs up to " + rangeToId +
+                            " under the retention scope: " + scope);
+                }
+                return purgedCount;
+            } catch (DataAccessException e) {
+                throw FeedbackExceptionManagementUtil.buildServerException(ErrorMessages.ERROR_CODE_PURGE_FEEDBACK,
+                        scope, e);
+            }
+        });
+    }
+
+    @Override
+    public int getLastPurgedId(String scope) throws FeedbackManagementException {
+
+        JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
+        try {
+            Integer lastPurgedId = fetchLastPurgedId(jdbcTemplate, scope);
+            return lastPurgedId == null ? 0 : lastPurgedId;
+        } catch (DataAccessException e) {
+            throw FeedbackExceptionManagementUtil.buildServerException(ErrorMessages.ERROR_CODE_PURGE_FEEDBACK,
+                    scope, e);
+        }
+    }
+
+    /**
+     * Delete the feedback entries of a range together with their tag mappings and their index entries, and take them
+     * off the feedback counters.
+     *
+     * @param jdbcTemplate   JDBC template of the transaction
+     * @param rangeCondition condition of the deleted entries on the CLD_FEEDBACK table
+     * @param rangeFilter    binds the parameters of the range condition
+     * @return number of deleted entries
+     * @throws DataAccessException
+     * @throws FeedbackManagementException
+     */
+    int deleteEntries(JdbcTemplate jdbcTemplate, String rangeCondition, QueryFilter rangeFilter)
+            throws DataAccessException, FeedbackManagementException {
+
+        Map<Integer, Map<Integer, Integer>> countDeltas = new TreeMap<>();
+        jdbcTemplate.executeQuery(String.format(FeedbackMgtSQLConstants.COUNT_PURGED_FEEDBACK_BY_TENANT,
+                rangeCondition), (resultSet, rowNumber) -> countDeltas
+                .computeIfAbsent(resultSet.getInt(1), tenantId -> new HashMap<>())
+                .put(FeedbackMgtConstants.TOTAL_COUNTER_TAG_ID, -resultSet.getInt(2)), rangeFilter);
+        jdbcTemplate.executeQuery(String.format(
+                FeedbackMgtSQLConstants.COUNT_PURGED_FEEDBACK_BY_TENANT_AND_TAG, rangeCondition),
+                (resultSet, rowNumber) -> countDeltas
+                        .computeIfAbsent(resultSet.getInt(1), tenantId -> new HashMap<>())
+                        .put(resultSet.getInt(2), -resultSet.getInt(3)), rangeFilter);
+        Map<Integer, Map<LocalDate, Integer>> dailyCountDeltas = new TreeMap<>();
+        jdbcTemplate.executeQuery(String.format(
+                FeedbackMgtSQLConstants.COUNT_PURGED_FEEDBACK_BY_TENANT_AND_DAY, rangeCondition),
+                (resultSet, rowNumber) -> dailyCountDeltas
+                        .computeIfAbsent(resultSet.getInt(1), tenantId -> new HashMap<>())
+                        .put(resultSet.getDate(2).toLocalDate(), -resultSet.getInt(3)), rangeFilter);
+
+        jdbcTemplate.executeUpdate(String.format(FeedbackMgtSQLConstants.PURGE_FEEDBACK_TAG_MAPPINGS,
+                rangeCondition), rangeFilter);
+        jdbcTemplate.executeUpdate(String.format(FeedbackMgtSQLConstants.PURGE_FEEDBACK_MESSAGE_TERMS,
+                rangeCondition), rangeFilter);
+        jdbcTemplate.executeUpdate(String.format(FeedbackMgtSQLConstants.PURGE_FEEDBACK_EMAIL_GRAMS,
+                rangeCondition), rangeFilter);
+        jdbcTemplate.executeUpdate(String.format(FeedbackMgtSQLConstants.PURGE_FEEDBACK_SIGNATURE_BUCKETS,
+                rangeCondition), rangeFilter);
+        jdbcTemplate.executeUpdate(String.format(FeedbackMgtSQLConstants.PURGE_FEEDBACK_SIGNATURES,
+                rangeCondition), rangeFilter);
+        int deletedCount = jdbcTemplate.executeUpdate(String.format(FeedbackMgtSQLConstants.PURGE_FEEDBACK,
+                rangeCondition), rangeFilter);
+        for (Map.Entry<Integer, Map<Integer, Integer>> tenantCountDeltas : countDeltas.entrySet()) {
+            feedbackCounterDAO.updateCounters(tenantCountDeltas.getKey(), tenantCountDeltas.getValue());
+        }
+        for (Map.Entry<Integer, Map<LocalDate, Integer>> tenantCountDeltas : dailyCountDeltas.entrySet()) {
+            feedbackCounterDAO.updateDailyCounters(tenantCountDeltas.getKey(), tenantCountDeltas.getValue());
+        }
+        return deletedCount;
+    }
+
+    /**
+     * Add the progress row of a retention scope if it does not exist, so that the purge of a chunk can lock it.
+     *
+     * @param scope scope of the retention policy
+     * @throws FeedbackManagementException
+     */
+    private void addPurgeProgress(String scope) throws FeedbackManagementException {
+
+        JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
+        try {
+            if (fetchLastPurgedId(jdbcTemplate, scope) != null) {
+                return;
+            }
+            try {
+                jdbcTemplate.executeInsert(FeedbackMgtSQLConstants.INSERT_PURGE_PROGRESS,
+                        preparedStatement -> preparedStatement.setString(1, scope), null, false);
+            } catch (DataAccessException e) {
+                // The progress row may have been added concurrently by another node.
+                if (fetchLastPurgedId(jdbcTemplate, scope) == null) {
+                    throw e;
+                }
+            }
+        } catch (DataAccessException e) {
+            throw FeedbackExceptionManagementUtil.buildServerException(ErrorMessages.ERROR_CODE_PURGE_FEEDBACK,
+                    scope, e);
+        }
+    }
+
+    /**
+     * Get the ID of the last feedback entry purged under a retention scope.
+     *
+     * @param jdbcTemplate JDBC template
+     * @param scope        scope of the retention policy
+     * @return ID of the last purged entry, or null if the progress of the scope is not recorded
+     * @throws DataAccessException
+     */
+    private Integer fetchLastPurgedId(JdbcTemplate jdbcTemplate, String scope) throws DataAccessException {
+
+        return jdbcTemplate.fetchSingleRecord(FeedbackMgtSQLConstants.GET_PURGE_PROGRESS,
+                (resultSet, rowNumber) -> resultSet.getInt(1),
+                preparedStatement -> preparedStatement.setString(1, scope));
+    }
+
+    /**
+     * Build the condition which restricts the purged entries to the tenants of a retention policy.
+     *
+     * @param policy retention policy
+     * @return tenant condition, which is empty if the policy applies to all the tenants
+     */
+    private String buildTenantCondition(FeedbackRetentionPolicy policy) {
+
+        if (policy.getTenantId() != null) {
+            return FeedbackMgtSQLConstants.PURGE_TENANT_CONDITION;
+        }
+        if (policy.getExcludedTenantIds().isEmpty()) {
+            return "";
+        }
+        return String.format(FeedbackMgtSQLConstants.PURGE_EXCLUDED_TENANTS_CONDITION,
+                JdbcUtils.buildPlaceholders(policy.getExcludedTenantIds().size()));
+    }
+
+    /**
+     * Bind the parameters of the tenant condition of a retention policy.
+     *
+     * @param preparedStatement prepared statement
+     * @param index             index of the first tenant parameter
+     * @param policy            retention policy
+     * @return index of the parameter following the tenant parameters
+     * @throws SQLException
+     */
+    private int setTenantParameters(PreparedStatement preparedStatement, int index, FeedbackRetentionPolicy policy)
+            throws SQLException {
+
+        if (policy.getTenantId() != null) {
+            preparedStatement.setInt(index++, policy.getTenantId());
+            return index;
+        }
+        for (int excludedTenantId : policy.getExcludedTenantIds()) {
+            preparedStatement.setInt(index++, excludedTenantId);
+        }
+        return index;
+    }
+}
@@ -0,0 +1,276 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.impl;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.commons.lang3.tuple.Triple;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.database.utils.jdbc.JdbcTemplate;
+import org.wso2.carbon.database.utils.jdbc.exceptions.DataAccessException;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants.ErrorMessages;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtSQLConstants;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.FeedbackSimilarityDAO;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.exception.FeedbackManagementException;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.Feedback;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.search.MessageSignature;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.util.FeedbackExceptionManagementUtil;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.util.JdbcUtils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * This class maintains the MinHash signatures of the feedback messages in the CLD_FEEDBACK_SIGNATURES table, and the
+ * locality sensitive hashing buckets of the signatures in the CLD_FEEDBACK_SIGNATURE_BUCKETS table, which holds a row
+ * for each band of a signature.
+ */
+public class FeedbackSimilarityDAOImpl implements FeedbackSimilarityDAO {
+
+    private static final Log log = LogFactory.getLog(FeedbackSimilarityDAOImpl.class);
+
+    @Override
+    public void indexSignature(int feedbackId, String message) throws FeedbackManagementException {
+
+        List<Pair<MessageSignature, Object>> signatures = new ArrayList<>();
+        addSignature(signatures, message, feedbackId);
+        try {
+            insertSignatures(FeedbackMgtSQLConstants.INSERT_SIGNATURE,
+                    FeedbackMgtSQLConstants.INSERT_SIGNATURE_BUCKET, signatures);
+        } catch (DataAccessException e) {
+            throw FeedbackExceptionManagementUtil.buildServerException(
+                    ErrorMessages.ERROR_CODE_INDEX_FEEDBACK_SIGNATURE, String.valueOf(feedbackId), e);
+        }
+    }
+
+    @Override
+    public void indexSignatures(List<Feedback> feedbackList) throws FeedbackManagementException {
+
+        List<Pair<MessageSignature, Object>> signatures = new ArrayList<>();
+        for (Feedback feedback : feedbackList) {
+            addSignature(signatures, feedback.getMessage(), JdbcUtils.toStoredUuid(feedback.getUuid()));
+        }
+        try {
+            // The auto-generated feedback IDs are resolved by the insert itself, using the UUIDs.
+            insertSignatures(FeedbackMgtSQLConstants.INSERT_SIGNATURE_BY_UUID,
+                    FeedbackMgtSQLConstants.INSERT_SIGNATURE_BUCKET_BY_UUID, signatures);
+        } catch (DataAccessException e) {
+            throw FeedbackExceptionManagementUtil.buildServerException(
+                    ErrorMessages.ERROR_CODE_INDEX_FEEDBACK_SIGNATURE, feedbackList.size() + " entries", e);
+        }
+    }
+
+    @Override
+    public void removeSignature(int feedbackId) throws FeedbackManagementException {
+
+        JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
+        try {
+            jdbcTemplate.executeUpdate(FeedbackMgtSQLConstants.REMOVE_SIGNATURE_BUCKETS,
+                    preparedStatement -> preparedStatement.setInt(1, feedbackId));
+            jdbcTemplate.executeUpdate(FeedbackMgtSQLConstants.REMOVE_SIGNATURE,
+                    preparedStatement -> preparedStatement.setInt(1, feedbackId));
+        } catch (DataAccessException e) {
+            throw FeedbackExceptionManagementUtil.buildServerException(
+                    ErrorMessages.ERROR_CODE_INDEX_FEEDBACK_SIGNATURE, String.valueOf(feedbackId), e);
+        }
+    }
+
+    @Override
+    public int rebuildIndex(int chunkSize) throws FeedbackManagementException {
+
+        int indexedCount = 0;
+        int fromId = 0;
+        while (true) {
+            int chunkFromId = fromId;
+            List<Pair<Integer, String>> messages =
+                    JdbcUtils.executeInTransaction(() -> rebuildChunk(chunkFromId, chunkSize));
+            indexedCount += messages.size();
+            if (messages.size() < chunkSize) {
+                break;
+            }
+            fromId = messages.get(messages.size() - 1).getLeft();
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug("Rebuilt the signatures of " + indexedCount + " feedback entries.");
+        }
+        return indexedCount;
+    }
+
+    @Override
+    public List<Pair<Integer, Double>> findSimilar(String feedbackID, double threshold)
+            throws FeedbackManagementException {
+
+        JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
+        List<Pair<Integer, Double>> similarEntries = new ArrayList<>();
+        try {
+            Triple<Integer, Integer, String> entry = jdbcTemplate.fetchSingleRecord(
+                    FeedbackMgtSQLConstants.GET_SIGNATURE, (resultSet, rowNumber) -> Triple.of(resultSet.getInt(1),
+                            resultSet.getInt(2), resultSet.getString(3)),
+                    preparedStatement -> preparedStatement.setObject(1, JdbcUtils.toStoredUuid(feedbackID)));
+            if (entry == null) {
+                throw FeedbackExceptionManagementUtil
+                        .buildClientException(ErrorMessages.ERROR_NOT_FOUND_RESOURCE_ID, feedbackID);
+            }
+            // A message without terms has no signature, and is similar to no other message.
+            if (entry.getRight() == null) {
+                return similarEntries;
+            }
+
+            MessageSignature signature = MessageSignature.decode(entry.getRight());
+            long[] bucketKeys = signature.getBucketKeys();
+            List<Pair<Integer, MessageSignature>> candidates = jdbcTemplate.executeQuery(
+                    String.format(FeedbackMgtSQLConstants.GET_SIMILARITY_CANDIDATES,
+                            JdbcUtils.buildPlaceholders(bucketKeys.length)),
+                    (resultSet, rowNumber) -> Pair.of(resultSet.getInt(1),
+                            MessageSignature.decode(resultSet.getString(2))),
+                    preparedStatement -> {
+                        int index = 1;
+                        for (long bucketKey : bucketKeys) {
+                            preparedStatement.setLong(index++, bucketKey);
+                        }
+                        preparedStatement.setInt(index++, entry.getLeft());
+                        preparedStatement.setInt(index++, entry.getMiddle());
+                        preparedStatement.setInt(index, FeedbackMgtConstants.MAX_SIMILARITY_CANDIDATES);
+                    });
+            for (Pair<Integer, MessageSignature> candidate : candidates) {
+                double similarity = signature.estimateSimilarity(candidate.getRight());
+                if (similarity >= threshold) {
+                    similarEntries.add(Pair.of(candidate.getLeft(), similarity));
+                }
+            }
+        } catch (DataAccessException e) {
+            throw FeedbackExceptionManagementUtil.buildServerException(
+                    ErrorMessages.ERROR_CODE_FIND_SIMILAR_FEEDBACK, feedbackID, e);
+        }
+        similarEntries.sort(Comparator.comparing((Pair<Integer, Double> similarEntry) -> similarEntry.getRight())
+                .reversed().thenComparing(Pair::getLeft));
+        return similarEntries;
+    }
+
+    @Override
+    public List<Triple<String, Integer, MessageSignature>> listSignatures() throws FeedbackManagementException {
+
+        JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
+        try {
+            return jdbcTemplate.executeQuery(FeedbackMgtSQLConstants.LIST_SIGNATURES,
+                    (resultSet, rowNumber) -> Triple.of(JdbcUtils.getStoredUuid(resultSet, 1), resultSet.getInt(2),
+                            MessageSignature.decode(resultSet.getString(3))), null);
+        } catch (DataAccessException e) {
+            throw FeedbackExceptionManagementUtil.buildServerException(ErrorMessages.ERROR_CODE_CLUSTER_FEEDBACK, e);
+        }
+    }
+
+    /**
+     * Reindex a chunk of feedback entries. The entries of the chunk are locked, so that a concurrent update of a
+     * message is not overwritten by its previous signature.
+     *
+     * @param fromId    ID after which the chunk starts
+     * @param chunkSize maximum number of entries of the chunk
+     * @return IDs and messages of the reindexed entries
+     * @throws FeedbackManagementException
+     */
+    private List<Pair<Integer, String>> rebuildChunk(int fromId, int chunkSize) throws FeedbackManagementException {
+
+        JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
+        try {
+            List<Pair<Integer, String>> messages = jdbcTemplate.executeQuery(
+                    FeedbackMgtSQLConstants.LOCK_MESSAGES_FROM_ID,
+                    (resultSet, rowNumber) -> Pair.of(resultSet.getInt(1), resultSet.getString(2)),
+                    preparedStatement -> {
+                        preparedStatement.setInt(1, fromId);
+                        preparedStatement.setInt(2, chunkSize);
+                    });
+            if (messages.isEmpty()) {
+                return messages;
+            }
+
+            int toId = messages.get(messages.size() - 1).getLeft();
+            for (String sqlStatement : new String[]{FeedbackMgtSQLConstants.REMOVE_SIGNATURE_BUCKETS_IN_RANGE,
+                    FeedbackMgtSQLConstants.REMOVE_SIGNATURES_IN_RANGE}) {
+                jdbcTemplate.executeUpdate(sqlStatement, preparedStatement -> {
+                    preparedStatement.setInt(1, fromId);
+                    preparedStatement.setInt(2, toId);
+                });
+            }
+            List<Pair<MessageSignature, Object>> signatures = new ArrayList<>();
+            for (Pair<Integer, String> message : messages) {
+                addSignature(signatures, message.getRight(), message.getLeft());
+            }
+            insertSignatures(FeedbackMgtSQLConstants.INSERT_SIGNATURE, FeedbackMgtSQLConstants.INSERT_SIGNATURE_BUCKET,
+                    signatures);
+            return messages;
+        } catch (DataAccessException e) {
+            throw FeedbackExceptionManagementUtil.buildServerException(
+                    ErrorMessages.ERROR_CODE_REBUILD_SIMILARITY_INDEX, String.valueOf(fromId), e);
+        }
+    }
+
+    /**
+     * Add the signature of a message with the key of its entry, unless the message has no terms.
+     *
+     * @param signatures  signatures to be inserted
+     * @param message     feedback message
+     * @param feedbackKey ID or UUID of the feedback entry
+     */
+    private void addSignature(List<Pair<MessageSignature, Object>> signatures, String message, Object feedbackKey) {
+
+        MessageSignature signature = MessageSignature.of(message);
+        if (signature != null) {
+            signatures.add(Pair.of(signature, feedbackKey));
+        }
+    }
+
+    /**
+     * Insert signatures and their buckets using JDBC batches.
+     *
+     * @param signatureStatement insert statement taking the encoded signature and the key of the entry
+     * @param bucketStatement    insert statement taking the bucket key and the key of the entry
+     * @param signatures         signatures to be inserted
+     * @throws DataAccessException
+     */
+    private void insertSignatures(String signatureStatement, String bucketStatement,
+                                  List<Pair<MessageSignature, Object>> signatures) throws DataAccessException {
+
+        JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
+        int chunkSize = FeedbackMgtConstants.BATCH_INSERT_CHUNK_SIZE / FeedbackMgtConstants.SIMILARITY_BAND_COUNT;
+        for (int from = 0; from < signatures.size(); from += chunkSize) {
+            List<Pair<MessageSignature, Object>> chunk =
+                    signatures.subList(from, Math.min(from + chunkSize, signatures.size()));
+            jdbcTemplate.executeBatchInsert(signatureStatement, preparedStatement -> {
+                for (Pair<MessageSignature, Object> signature : chunk) {
+                    preparedStatement.setString(1, signature.getLeft().encode());
+                    preparedStatement.setObject(2, signature.getRight());
+                    preparedStatement.addBatch();
+                }
+            }, null);
+            jdbcTemplate.executeBatchInsert(bucketStatement, preparedStatement -> {
+                for (Pair<MessageSignature, Object> signature : chunk) {
+                    for (long bucketKey : signature.getLeft().getBucketKeys()) {
+                        preparedStatement.setLong(1, bucketKey);
+                        preparedStatement.setObject(2, signature.getRight());
+                        preparedStatement.addBatch();
+                    }
+                }
+            }, null);
+        }
+    }
+}
@@ -0,0 +1,286 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.impl;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.database.utils.jdbc.JdbcTemplate;
+import org.wso2.carbon.database.utils.jdbc.exceptions.DataAccessException;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.cache.FeedbackTagCache;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants.ErrorMessages;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtSQLConstants;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.FeedbackTagDAO;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.exception.FeedbackManagementException;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.util.FeedbackExceptionManagementUtil;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.util.JdbcUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This class access the CLD_FEEDBACK_TAGS table in Feedback database to resolve and store feedback tags. Resolved
+ * tags are kept in the {@link FeedbackTagCache}, so that a tag is looked up in the database only on a cache miss.
+ */
+public class FeedbackTagDAOImpl implements FeedbackTagDAO {
+
+    private static final Log log = LogFactory.getLog(FeedbackTagDAOImpl.class);
+
+    @Override
+    public Integer getTagId(String tag) throws FeedbackManagementException {
+
+        FeedbackTagCache tagCache = FeedbackTagCache.getInstance();
+        Integer tagId = tagCache.getTagId(tag);
+        if (tagId != null) {
+            return tagId;
+        }
+
+        tagId = fetchTagId(tag);
+        if (tagId != null) {
+            cacheTag(tag, tagId);
+        }
+        return tagId;
+    }
+
+    @Override
+    public Map<String, Integer> getTagIds(Collection<String> tags) throws FeedbackManagementException {
+
+        Map<String, Integer> tagIds = new HashMap<>();
+        Set<String> missingTags = new LinkedHashSet<>();
+        FeedbackTagCache tagCache = FeedbackTagCache.getInstance();
+        for (String tag : tags) {
+            Integer tagId = tagCache.getTagId(tag);
+            if (tagId != null) {
+                tagIds.put(tag, tagId);
+            } else {
+                missingTags.add(tag);
+            }
+        }
+        if (!missingTags.isEmpty()) {
+            fetchTagIds(missingTags, tagIds);
+        }
+        return tagIds;
+    }
+
+    @Override
+    public Integer getOrAddTagId(String tag) throws FeedbackManagementException {
+
+        Integer tagId = getTagId(tag);
+        if (tagId != null) {
+            return tagId;
+        }
+
+        try {
+            tagId = JdbcUtils.executeWithSavepoint(() -> addTagToDB(tag));
+        } catch (FeedbackManagementException e) {
+            // The tag may have been added concurrently by another request or node. Within a transaction, the failed
+            // insert is rolled back to its savepoint, so that the tag can be read by the same transaction.
+            tagId = fetchTagId(tag);
+            if (tagId == null) {
+                throw e;
+            }
+        }
+        cacheTag(tag, tagId);
+        return tagId;
+    }
+
+    @Override
+    public Map<String, Integer> getOrAddTagIds(Collection<String> tags) throws FeedbackManagementException {
+
+        Map<String, Integer> tagIds = new HashMap<>();
+        Set<String> missingTags = new LinkedHashSet<>();
+        FeedbackTagCache tagCache = FeedbackTagCache.getInstance();
+        for (String tag : tags) {
+            Integer tagId = tagCache.getTagId(tag);
+            if (tagId != null) {
+                tagIds.put(tag, tagId);
+            } else {
+                missingTags.add(tag);
+            }
+        }
+        if (missingTags.isEmpty()) {
+            return tagIds;
+        }
+
+        fetchTagIds(missingTags, tagIds);
+        missingTags.removeAll(tagIds.keySet());
+        if (missingTags.isEmpty()) {
+            return tagIds;
+        }
+
+        try {
+            JdbcUtils.executeWithSavepoint(() -> {
+                addTagsToDB(missingTags);
+                return null;
+            });
+        } catch (FeedbackManagementException e) {
+            // Some of the tags may have been added concurrently by another request or node.
+            if (log.isDebugEnabled()) {
+                log.debug("Error while adding " + missingTags.size() + " tags in a batch. Adding them one by one.", e);
+            }
+            for (String tag : missingTags) {
+                tagIds.put(tag, getOrAddTagId(tag));
+            }
+            return tagIds;
+        }
+        fetchTagIds(missingTags, tagIds);
+        return tagIds;
+    }
+
+    @Override
+    public int loadTagCache(int maxTags) throws FeedbackManagementException {
+
+        if (maxTags <= 0) {
+            return 0;
+        }
+
+        FeedbackTagCache tagCache = FeedbackTagCache.getInstance();
+        JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
+        try {
+            List<Integer> loadedTagIds = jdbcTemplate.executeQuery(FeedbackMgtSQLConstants.LIST_TAGS,
+                    (resultSet, rowNumber) -> {
+                        int tagId = resultSet.getInt(1);
+                        tagCache.put(resultSet.getString(2), tagId);
+                        return tagId;
+                    }, preparedStatement -> preparedStatement.setInt(1, maxTags));
+            if (log.isDebugEnabled()) {
+                log.debug("Loaded " + loadedTagIds.size() + " feedback tags to the tag cache.");
+            }
+            return loadedTagIds.size();
+        } catch (DataAccessException e) {
+            throw FeedbackExceptionManagementUtil.buildServerException(ErrorMessages.ERROR_CODE_LOAD_FEEDBACK_TAGS, e);
+        }
+    }
+
+    /**
+     * Add a resolved tag to the tag cache. Within a transaction, the tag is cached only after the transaction is
+     * committed, since a tag added by the transaction does not exist if it is rolled back.
+     *
+     * @param tag   name of the tag
+     * @param tagId ID of the tag
+     */
+    private void cacheTag(String tag, int tagId) {
+
+        JdbcUtils.runAfterCommit(() -> FeedbackTagCache.getInstance().put(tag, tagId));
+    }
+
+    /**
+     * Get the ID of the tag from the database.
+     *
+     * @param tag name of the tag
+     * @return ID of the tag, or null if the tag does not exist
+     * @throws FeedbackManagementException
+     */
+    private Integer fetchTagId(String tag) throws FeedbackManagementException {
+
+        JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
+        try {
+            return jdbcTemplate.fetchSingleRecord(FeedbackMgtSQLConstants.GET_TAG_ID, (resultSet, rowNumber) ->
+                    resultSet.getInt(1), preparedStatement -> preparedStatement.setString(1, tag));
+        } catch (DataAccessException e) {
+            throw FeedbackExceptionManagementUtil
+                    .buildServerException(ErrorMessages.ERROR_CODE_GET_FEEDBACK_TAG, tag, e);
+        }
+    }
+
+    /**
+     * Get the IDs of a set of tags from the database, querying the tags in chunks.
+     *
+     * @param tags   names of the tags
+     * @param tagIds map to which the IDs of the existing tags are added
+     * @throws FeedbackManagementException
+     */
+    private void fetchTagIds(Collection<String> tags, Map<String, Integer> tagIds)
+            throws FeedbackManagementException {
+
+        List<String> tagList = new ArrayList<>(tags);
+        JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
+        try {
+            for (int from = 0; from < tagList.size(); from += FeedbackMgtConstants.IN_CLAUSE_CHUNK_SIZE) {
+                List<String> chunk = tagList.subList(from,
+                        Math.min(from + FeedbackMgtConstants.IN_CLAUSE_CHUNK_SIZE, tagList.size()));
+                jdbcTemplate.executeQuery(String.format(FeedbackMgtSQLConstants.GET_TAG_IDS,
+                        JdbcUtils.buildPlaceholders(chunk.size())), (resultSet, rowNumber) -> {
+                    int tagId = resultSet.getInt(1);
+                    String tag = resultSet.getString(2);
+                    cacheTag(tag, tagId);
+                    return tagIds.put(tag, tagId);
+                }, preparedStatement -> {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        preparedStatement.setString(i + 1, chunk.get(i));
+                    }
+                });
+            }
+        } catch (DataAccessException e) {
+            throw FeedbackExceptionManagementUtil
+                    .buildServerException(ErrorMessages.ERROR_CODE_GET_FEEDBACK_TAG, String.join(", ", tags), e);
+        }
+    }
+
+    /**
+     * Insert a set of new tags to the database using JDBC batches.
+     *
+     * @param tags names of the tags
+     * @throws FeedbackManagementException
+     */
+    private void addTagsToDB(Collection<String> tags) throws FeedbackManagementException {
+
+        List<String> tagList = new ArrayList<>(tags);
+        JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
+        try {
+            for (int from = 0; from < tagList.size(); from += FeedbackMgtConstants.BATCH_INSERT_CHUNK_SIZE) {
+                List<String> chunk = tagList.subList(from,
+                        Math.min(from + FeedbackMgtConstants.BATCH_INSERT_CHUNK_SIZE, tagList.size()));
+                jdbcTemplate.executeBatchInsert(FeedbackMgtSQLConstants.INSERT_TAG, preparedStatement -> {
+                    for (String tag : chunk) {
+                        preparedStatement.setString(1, tag);
+                        preparedStatement.addBatch();
+                    }
+                }, null);
+            }
+        } catch (DataAccessException e) {
+            throw FeedbackExceptionManagementUtil
+                    .buildServerException(ErrorMessages.ERROR_CODE_ADD_FEEDBACK_TAG, String.join(", ", tags), e);
+        }
+    }
+
+    /**
+     * Insert a new tag to the database.
+     *
+     * @param tag name of the tag
+     * @return tagId auto-generated ID of the tag in the database
+     * @throws FeedbackManagementException
+     */
+    private Integer addTagToDB(String tag) throws FeedbackManagementException {
+
+        JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
+        try {
+            return jdbcTemplate.executeInsert(FeedbackMgtSQLConstants.INSERT_TAG,
+                    preparedStatement -> preparedStatement.setString(1, tag), null, true);
+        } catch (DataAccessException e) {
+            throw FeedbackExceptionManagementUtil.buildServerException(ErrorMessages.ERROR_CODE_ADD_FEEDBACK_TAG, tag,
+                    e);
+        }
+    }
+}
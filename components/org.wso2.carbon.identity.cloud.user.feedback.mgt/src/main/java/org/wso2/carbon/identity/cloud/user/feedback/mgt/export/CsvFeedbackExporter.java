@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.export;
+
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.Feedback;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes feedback entries as CSV as described by RFC 4180, with a header line followed by a line per entry. The tags
+ * of an entry are written in a single column, separated by semicolons.
+ */
+public class CsvFeedbackExporter implements FeedbackExporter {
+
+    private static final String HEADER = "uuid,message,email,contactNo,userId,tenantId,timeCreated,tags";
+    private static final String LINE_SEPARATOR = "\r\n";
+    private static final char FIELD_SEPARATOR = ',';
+    private static final String TAG_SEPARATOR = ";";
+    private static final char QUOTE = '"';
+
+    private final Writer writer;
+
+    public CsvFeedbackExporter(Writer writer) {
+
+        this.writer = writer;
+    }
+
+    @Override
+    public void begin() throws IOException {
+
+        writer.write(HEADER);
+        writer.write(LINE_SEPARATOR);
+    }
+
+    @Override
+    public void write(Feedback feedback) throws IOException {
+
+        writeField(feedback.getUuid());
+        writer.write(FIELD_SEPARATOR);
+        writeField(feedback.getMessage());
+        writer.write(FIELD_SEPARATOR);
+        writeField(feedback.getEmail());
+        writer.write(FIELD_SEPARATOR);
+        writeField(feedback.getContactNo());
+        writer.write(FIELD_SEPARATOR);
+        writeField(feedback.getUserId());
+        writer.write(FIELD_SEPARATOR);
+        writeField(String.valueOf(feedback.getTenantId()));
+        writer.write(FIELD_SEPARATOR);
+        writeField(feedback.getTimeCreated());
+        writer.write(FIELD_SEPARATOR);
+        writeField(feedback.getTags() == null ? null : String.join(TAG_SEPARATOR, feedback.getTags()));
+        writer.write(LINE_SEPARATOR);
+    }
+
+    @Override
+    public void end() throws IOException {
+
+        writer.flush();
+    }
+
+    /**
+     * Write a field, quoting it if it contains a separator, a quote or a line break. A null field is written empty.
+     *
+     * @param value value of the field
+     * @throws IOException
+     */
+    private void writeField(String value) throws IOException {
+
+        if (value == null) {
+            return;
+        }
+        boolean quoted = false;
+        for (int i = 0; i < value.length() && !quoted; i++) {
+            char current = value.charAt(i);
+            quoted = current == FIELD_SEPARATOR || current == QUOTE || current == '\r' || current == '\n';
+        }
+        if (!quoted) {
+            writer.write(value);
+            return;
+        }
+        writer.write(QUOTE);
+        for (int i = 0; i < value.length(); i++) {
+            char current = value.charAt(i);
+            if (current == QUOTE) {
+                writer.write(QUOTE);
+            }
+            writer.write(current);
+        }
+        writer.write(QUOTE);
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.export;
+
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants.ExportFormats;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.Feedback;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes exported feedback entries to a character stream one entry at a time, so that an export does not hold more
+ * than a single entry in memory.
+ */
+public interface FeedbackExporter {
+
+    /**
+     * Write what precedes the first feedback entry, such as a header.
+     *
+     * @throws IOException
+     */
+    void begin() throws IOException;
+
+    /**
+     * Write a feedback entry.
+     *
+     * @param feedback feedback entry with its tags
+     * @throws IOException
+     */
+    void write(Feedback feedback) throws IOException;
+
+    /**
+     * Write what follows the last feedback entry and flush the stream. The stream is not closed.
+     *
+     * @throws IOException
+     */
+    void end() throws IOException;
+
+    /**
+     * Create an exporter which writes the given format.
+     *
+     * @param format export format
+     * @param writer stream the entries are written to
+     * @return the exporter
+     */
+    static FeedbackExporter forFormat(ExportFormats format, Writer writer) {
+
+        return format == ExportFormats.csv ? new CsvFeedbackExporter(writer) : new JsonLinesFeedbackExporter(writer);
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.export;
+
+import com.google.gson.stream.JsonWriter;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.Feedback;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes feedback entries as JSON Lines, one JSON object per line. The names of the fields are the names of the
+ * properties of {@link Feedback}, so that an exported line can be read back as a feedback entry.
+ */
+public class JsonLinesFeedbackExporter implements FeedbackExporter {
+
+    private static final char LINE_SEPARATOR = '\n';
+
+    private final Writer writer;
+
+    public JsonLinesFeedbackExporter(Writer writer) {
+
+        this.writer = writer;
+    }
+
+    @Override
+    public void begin() {
+
+    }
+
+    @Override
+    public void write(Feedback feedback) throws IOException {
+
+        // A JSON writer writes a single document, hence each line is written by a writer of its own. The writer is
+        // not closed, since that would close the underlying stream.
+        JsonWriter jsonWriter = new JsonWriter(writer);
+        jsonWriter.beginObject();
+        jsonWriter.name("uuid").value(feedback.getUuid());
+        jsonWriter.name("message").value(feedback.getMessage());
+        jsonWriter.name("email").value(feedback.getEmail());
+        jsonWriter.name("contactNo").value(feedback.getContactNo());
+        jsonWriter.name("userId").value(feedback.getUserId());
+        jsonWriter.name("tenantId").value(feedback.getTenantId());
+        jsonWriter.name("timeCreated").value(feedback.getTimeCreated());
+        jsonWriter.name("tags").beginArray();
+        if (feedback.getTags() != null) {
+            for (String tag : feedback.getTags()) {
+                jsonWriter.value(tag);
+            }
+        }
+        jsonWriter.endArray();
+        jsonWriter.endObject();
+        writer.write(LINE_SEPARATOR);
+    }
+
+    @Override
+    public void end() throws IOException {
+
+        writer.flush();
+    }
+}
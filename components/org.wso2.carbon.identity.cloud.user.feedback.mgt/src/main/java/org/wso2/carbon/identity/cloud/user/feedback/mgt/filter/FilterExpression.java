@@ -0,0 +1,245 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.filter;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.cache.FilterPlanCache;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants.AttributeOperators;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants.ErrorMessages;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants.FilterConnectors;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants.FilterableAttributes;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.exception.FeedbackManagementException;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.Feedback;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.search.EmailAnalyzer;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.search.MessageAnalyzer;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.search.MessageQuery;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.util.FeedbackExceptionManagementUtil;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A filter provided by the user, made of the compiled plan of its shape and its values. The shape of a filter is the
+ * filter with its values replaced by placeholders and its keywords in lower case, so that filters which differ only
+ * by their values share the same plan from the {@link FilterPlanCache}, and are parsed and compiled only once.
+ */
+public class FilterExpression {
+
+    private static final String VALUE_PLACEHOLDER = "?";
+    // Placeholder of a value without n-grams, since such an "email co" value is not matched through the index
+    private static final String SHORT_VALUE_PLACEHOLDER = "?-";
+
+    private final FilterPlan plan;
+    private final List<String> values;
+
+    private FilterExpression(FilterPlan plan, List<String> values) {
+
+        this.plan = plan;
+        this.values = Collections.unmodifiableList(values);
+    }
+
+    /**
+     * Parse a filter provided by the user.
+     *
+     * @param filter filter provided by the user
+     * @return the filter expression
+     * @throws FeedbackManagementException
+     */
+    public static FilterExpression parse(String filter) throws FeedbackManagementException {
+
+        List<FilterToken> tokens = FilterTokenizer.tokenize(filter);
+        StringBuilder shape = new StringBuilder();
+        List<String> values = new ArrayList<>();
+        for (FilterToken token : tokens) {
+            if (shape.length() > 0) {
+                shape.append(' ');
+            }
+            if (token.getType() == FilterToken.Type.VALUE) {
+                shape.append(EmailAnalyzer.hasQueryGrams(token.getText()) ? VALUE_PLACEHOLDER :
+                        SHORT_VALUE_PLACEHOLDER);
+                values.add(token.getText());
+            } else {
+                shape.append(token.getText().toLowerCase());
+            }
+        }
+
+        FilterPlanCache planCache = FilterPlanCache.getInstance();
+        FilterPlan plan = planCache.get(shape.toString());
+        if (plan == null) {
+            plan = new FilterPlan(FilterParser.parse(filter, tokens));
+            planCache.put(shape.toString(), plan);
+        }
+        // Time values and message searches are checked up front, so that they are reported as invalid filters.
+        for (FilterParameter parameter : plan.getParameters()) {
+            String value = values.get(parameter.getValueIndex());
+            if (parameter.isTimestamp() && FilterParameter.parseTimestamp(value) == null) {
+                throw FeedbackExceptionManagementUtil.buildClientException(
+                        ErrorMessages.ERROR_CODE_INVALID_FILTER_TIME, value);
+            }
+            if (parameter.isMessageTermCount()) {
+                MessageQuery.validateTermCount(value, MessageAnalyzer.getDistinctTerms(value).size());
+            }
+        }
+        return new FilterExpression(plan, values);
+    }
+
+    public FilterNode getRoot() {
+
+        return plan.getRoot();
+    }
+
+    public List<String> getValues() {
+
+        return values;
+    }
+
+    /**
+     * Get the SQL condition of the filter on the CLD_FEEDBACK table.
+     *
+     * @return SQL condition
+     */
+    public String getCondition() {
+
+        return plan.getCondition();
+    }
+
+    /**
+     * Get the tag of a filter which is made of a single "tag eq" term.
+     *
+     * @return name of the tag, or null if the filter is not a single "tag eq" term
+     */
+    public String getTagEqualityValue() {
+
+        FilterNode root = plan.getRoot();
+        if (root instanceof FilterTerm && ((FilterTerm) root).isTagEquality()) {
+            return values.get(((FilterTerm) root).getValueIndex());
+        }
+        return null;
+    }
+
+    /**
+     * Get the names of the tags which have to be resolved to IDs to bind the parameters of the filter.
+     *
+     * @return names of the tags
+     */
+    public Set<String> getTagNames() {
+
+        Set<String> tagNames = new LinkedHashSet<>();
+        for (FilterParameter parameter : plan.getParameters()) {
+            if (parameter.isTagId()) {
+                tagNames.add(values.get(parameter.getValueIndex()));
+            }
+        }
+        return tagNames;
+    }
+
+    /**
+     * Get the bind parameters of the SQL condition, in order.
+     *
+     * @param tagIds IDs of the tags returned by {@link #getTagNames()}. Tags which do not exist match no feedback.
+     * @return bind parameters
+     */
+    public List<Object> getParameters(Map<String, Integer> tagIds) {
+
+        List<Object> parameters = new ArrayList<>(plan.getParameters().size());
+        for (FilterParameter parameter : plan.getParameters()) {
+            parameters.add(parameter.bind(values, tagIds));
+        }
+        return parameters;
+    }
+
+    /**
+     * Check whether a feedback entry matches the filter, for the entries which are not in the CLD_FEEDBACK table.
+     *
+     * @param feedback feedback entry with its tags
+     * @return true if the entry matches the filter
+     */
+    public boolean matches(Feedback feedback) {
+
+        return plan.getRoot().matches(feedback, values);
+    }
+
+    /**
+     * Get the range of creation times the matching entries are bound to by the time terms of the filter. Only the
+     * time terms which every matching entry has to match are taken into account, which are the filter itself or the
+     * terms of a top level conjunction.
+     *
+     * @return Pair of the earliest and the latest creation time of the matching entries, either of which is null if
+     * the filter does not bound it
+     */
+    public Pair<Timestamp, Timestamp> getTimeCreatedRange() {
+
+        FilterNode root = plan.getRoot();
+        List<FilterNode> terms = root instanceof FilterGroup &&
+                ((FilterGroup) root).getConnector() == FilterConnectors.and ?
+                ((FilterGroup) root).getChildren() : Collections.singletonList(root);
+        Timestamp from = null;
+        Timestamp to = null;
+        for (FilterNode node : terms) {
+            if (!(node instanceof FilterTerm) ||
+                    ((FilterTerm) node).getAttribute() != FilterableAttributes.time_created) {
+                continue;
+            }
+            FilterTerm term = (FilterTerm) node;
+            AttributeOperators operator = term.getOperator();
+            Timestamp time = FilterParameter.parseTimestamp(values.get(term.getValueIndex()));
+            if (operator == AttributeOperators.between) {
+                from = later(from, time);
+                to = earlier(to, FilterParameter.parseTimestamp(values.get(term.getValueIndex() + 1)));
+            } else if (operator == AttributeOperators.gt || operator == AttributeOperators.ge) {
+                from = later(from, time);
+            } else if (operator == AttributeOperators.lt || operator == AttributeOperators.le) {
+                to = earlier(to, time);
+            } else {
+                from = later(from, time);
+                to = earlier(to, time);
+            }
+        }
+        return Pair.of(from, to);
+    }
+
+    /**
+     * Get the later of two bounds of a range of times.
+     *
+     * @param time      current bound, or null if the range is not bounded yet
+     * @param otherTime another bound
+     * @return the later bound
+     */
+    private static Timestamp later(Timestamp time, Timestamp otherTime) {
+
+        return time == null || time.before(otherTime) ? otherTime : time;
+    }
+
+    /**
+     * Get the earlier of two bounds of a range of times.
+     *
+     * @param time      current bound, or null if the range is not bounded yet
+     * @param otherTime another bound
+     * @return the earlier bound
+     */
+    private static Timestamp earlier(Timestamp time, Timestamp otherTime) {
+
+        return time == null || time.after(otherTime) ? otherTime : time;
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.filter;
+
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants.FilterConnectors;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtSQLConstants;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.Feedback;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.util.JdbcUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A group of filter nodes joined by the same connector.
+ */
+public class FilterGroup extends FilterNode {
+
+    private final FilterConnectors connector;
+    private final List<FilterNode> children;
+
+    public FilterGroup(FilterConnectors connector, List<FilterNode> children) {
+
+        this.connector = connector;
+        this.children = Collections.unmodifiableList(new ArrayList<>(children));
+    }
+
+    public FilterConnectors getConnector() {
+
+        return connector;
+    }
+
+    public List<FilterNode> getChildren() {
+
+        return children;
+    }
+
+    @Override
+    public void appendCondition(StringBuilder condition, List<FilterParameter> parameters) {
+
+        // In a disjunction, all the "tag eq" terms are matched together with a single semi-join.
+        List<FilterTerm> tagTerms = new ArrayList<>();
+        if (connector == FilterConnectors.or) {
+            for (FilterNode child : children) {
+                if (child instanceof FilterTerm && ((FilterTerm) child).isTagEquality()) {
+                    tagTerms.add((FilterTerm) child);
+                }
+            }
+            if (tagTerms.size() < 2) {
+                tagTerms.clear();
+            }
+        }
+
+        String separator = connector == FilterConnectors.and ? FeedbackMgtConstants.AND : FeedbackMgtConstants.OR;
+        boolean first = true;
+        condition.append("(");
+        if (!tagTerms.isEmpty()) {
+            condition.append(String.format(FeedbackMgtSQLConstants.FILTER_BY_TAG_IDS,
+                    JdbcUtils.buildPlaceholders(tagTerms.size())));
+            for (FilterTerm tagTerm : tagTerms) {
+                parameters.add(FilterParameter.tagId(tagTerm.getValueIndex()));
+            }
+            first = false;
+        }
+        for (FilterNode child : children) {
+            if (tagTerms.contains(child)) {
+                continue;
+            }
+            if (!first) {
+                condition.append(separator);
+            }
+            child.appendCondition(condition, parameters);
+            first = false;
+        }
+        condition.append(")");
+    }
+
+    @Override
+    public boolean matches(Feedback feedback, List<String> values) {
+
+        // A conjunction fails on its first child which does not match, and a disjunction succeeds on its first child
+        // which matches.
+        boolean conjunction = connector == FilterConnectors.and;
+        for (FilterNode child : children) {
+            if (child.matches(feedback, values) != conjunction) {
+                return !conjunction;
+            }
+        }
+        return conjunction;
+    }
+}
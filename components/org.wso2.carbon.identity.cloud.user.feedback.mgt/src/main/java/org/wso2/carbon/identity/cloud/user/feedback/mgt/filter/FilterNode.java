@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.filter;
+
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.Feedback;
+
+import java.util.List;
+
+/**
+ * A node of the abstract syntax tree of a filter. Nodes refer to the values of the filter by their position, so that
+ * a tree describes the shape of a filter and can be shared by all the filters of that shape.
+ */
+public abstract class FilterNode {
+
+    /**
+     * Append the SQL condition of this node to a condition of the CLD_FEEDBACK table, adding a parameter for each
+     * bind placeholder appended.
+     *
+     * @param condition  SQL condition being built
+     * @param parameters list to which the parameters of the condition are added
+     */
+    public abstract void appendCondition(StringBuilder condition, List<FilterParameter> parameters);
+
+    /**
+     * Check whether a feedback entry matches this node, as its SQL condition would match the entry in the
+     * CLD_FEEDBACK table.
+     *
+     * @param feedback feedback entry with its tags
+     * @param values   values of the filter
+     * @return true if the entry matches this node
+     */
+    public abstract boolean matches(Feedback feedback, List<String> values);
+}
@@ -0,0 +1,266 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.filter;
+
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants.AttributeOperators;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.search.EmailAnalyzer;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.search.MessageAnalyzer;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A bind parameter of a compiled filter, which refers to a value of the filter by its position.
+ */
+public class FilterParameter {
+
+    // Length of a time value given as a date alone, such as 2020-01-31
+    private static final int DATE_LENGTH = 10;
+
+    private enum Kind {
+        PATTERN, REVERSED_PATTERN, TAG_ID, TIMESTAMP, MESSAGE_TERM, MESSAGE_TERM_COUNT, MESSAGE_PHRASE, EMAIL_GRAM,
+        EMAIL_GRAM_COUNT
+    }
+
+    private final int valueIndex;
+    private final AttributeOperators operator;
+    private final Kind kind;
+    private final int termIndex;
+
+    private FilterParameter(int valueIndex, AttributeOperators operator, Kind kind) {
+
+        this(valueIndex, operator, kind, 0);
+    }
+
+    private FilterParameter(int valueIndex, AttributeOperators operator, Kind kind, int termIndex) {
+
+        this.valueIndex = valueIndex;
+        this.operator = operator;
+        this.kind = kind;
+        this.termIndex = termIndex;
+    }
+
+    /**
+     * Create a parameter bound to a LIKE pattern built from a value.
+     *
+     * @param valueIndex position of the value in the filter
+     * @param operator   filter operation applied to the value
+     * @return the parameter
+     */
+    public static FilterParameter pattern(int valueIndex, AttributeOperators operator) {
+
+        return new FilterParameter(valueIndex, operator, Kind.PATTERN);
+    }
+
+    /**
+     * Create a parameter bound to the reversed LIKE pattern of an "ew" value, which matches the start of a reversed
+     * text.
+     *
+     * @param valueIndex position of the value in the filter
+     * @return the parameter
+     */
+    public static FilterParameter reversedPattern(int valueIndex) {
+
+        return new FilterParameter(valueIndex, AttributeOperators.ew, Kind.REVERSED_PATTERN);
+    }
+
+    /**
+     * Create a parameter bound to the ID of the tag named by a value.
+     *
+     * @param valueIndex position of the value in the filter
+     * @return the parameter
+     */
+    public static FilterParameter tagId(int valueIndex) {
+
+        return new FilterParameter(valueIndex, AttributeOperators.eq, Kind.TAG_ID);
+    }
+
+    /**
+     * Create a parameter bound to the time given by a value.
+     *
+     * @param valueIndex position of the value in the filter
+     * @param operator   filter operation applied to the value
+     * @return the parameter
+     */
+    public static FilterParameter timestamp(int valueIndex, AttributeOperators operator) {
+
+        return new FilterParameter(valueIndex, operator, Kind.TIMESTAMP);
+    }
+
+    /**
+     * Create a parameter bound to a distinct term of the message search given by a value, or to null if the value
+     * has fewer terms.
+     *
+     * @param valueIndex position of the value in the filter
+     * @param termIndex  position of the term among the distinct terms of the value
+     * @return the parameter
+     */
+    public static FilterParameter messageTerm(int valueIndex, int termIndex) {
+
+        return new FilterParameter(valueIndex, AttributeOperators.co, Kind.MESSAGE_TERM, termIndex);
+    }
+
+    /**
+     * Create a parameter bound to the number of distinct terms of the message search given by a value.
+     *
+     * @param valueIndex position of the value in the filter
+     * @return the parameter
+     */
+    public static FilterParameter messageTermCount(int valueIndex) {
+
+        return new FilterParameter(valueIndex, AttributeOperators.co, Kind.MESSAGE_TERM_COUNT);
+    }
+
+    /**
+     * Create a parameter bound to a LIKE pattern of the message phrase given by a value.
+     *
+     * @param valueIndex position of the value in the filter
+     * @return the parameter
+     */
+    public static FilterParameter messagePhrase(int valueIndex) {
+
+        return new FilterParameter(valueIndex, AttributeOperators.phrase, Kind.MESSAGE_PHRASE);
+    }
+
+    /**
+     * Create a parameter bound to an n-gram of the email search given by a value, or to null if the value has fewer
+     * grams.
+     *
+     * @param valueIndex position of the value in the filter
+     * @param gramIndex  position of the gram among the query grams of the value
+     * @return the parameter
+     */
+    public static FilterParameter emailGram(int valueIndex, int gramIndex) {
+
+        return new FilterParameter(valueIndex, AttributeOperators.co, Kind.EMAIL_GRAM, gramIndex);
+    }
+
+    /**
+     * Create a parameter bound to the number of query grams of the email search given by a value.
+     *
+     * @param valueIndex position of the value in the filter
+     * @return the parameter
+     */
+    public static FilterParameter emailGramCount(int valueIndex) {
+
+        return new FilterParameter(valueIndex, AttributeOperators.co, Kind.EMAIL_GRAM_COUNT);
+    }
+
+    public int getValueIndex() {
+
+        return valueIndex;
+    }
+
+    public boolean isTagId() {
+
+        return kind == Kind.TAG_ID;
+    }
+
+    public boolean isTimestamp() {
+
+        return kind == Kind.TIMESTAMP;
+    }
+
+    public boolean isMessageTermCount() {
+
+        return kind == Kind.MESSAGE_TERM_COUNT;
+    }
+
+    /**
+     * Resolve the value bound to this parameter.
+     *
+     * @param values values of the filter
+     * @param tagIds IDs of the tags named in the filter
+     * @return the value to be bound
+     */
+    public Object bind(List<String> values, Map<String, Integer> tagIds) {
+
+        String value = values.get(valueIndex);
+        if (kind == Kind.TAG_ID) {
+            Integer id = tagIds.get(value);
+            return id != null ? id : FeedbackMgtConstants.UNKNOWN_TAG_ID;
+        }
+        if (kind == Kind.TIMESTAMP) {
+            return parseTimestamp(value);
+        }
+        if (kind == Kind.MESSAGE_TERM) {
+            List<String> terms = MessageAnalyzer.getDistinctTerms(value);
+            return termIndex < terms.size() ? terms.get(termIndex) : null;
+        }
+        if (kind == Kind.MESSAGE_TERM_COUNT) {
+            return MessageAnalyzer.getDistinctTerms(value).size();
+        }
+        if (kind == Kind.MESSAGE_PHRASE) {
+            return "%" + MessageAnalyzer.normalizePhrase(value) + "%";
+        }
+        if (kind == Kind.REVERSED_PATTERN) {
+            return EmailAnalyzer.reverse(value) + "%";
+        }
+        if (kind == Kind.EMAIL_GRAM) {
+            List<String> grams = EmailAnalyzer.getQueryGrams(value);
+            return termIndex < grams.size() ? grams.get(termIndex) : null;
+        }
+        if (kind == Kind.EMAIL_GRAM_COUNT) {
+            return EmailAnalyzer.getQueryGrams(value).size();
+        }
+        switch (operator) {
+            case sw:
+                return value + "%";
+            case ew:
+                return "%" + value;
+            case co:
+                return "%" + value + "%";
+            default:
+                return value;
+        }
+    }
+
+    /**
+     * Parse a time value of a filter. A date is taken as the start of the day, and a date and time without an offset
+     * is taken in the time zone of the server, as the creation times are.
+     *
+     * @param value time value given as yyyy-MM-dd, yyyy-MM-dd HH:mm:ss or an ISO-8601 date and time
+     * @return the time, or null if the value is not a valid time
+     */
+    public static Timestamp parseTimestamp(String value) {
+
+        String time = value.trim();
+        try {
+            if (time.length() == DATE_LENGTH) {
+                return Timestamp.valueOf(LocalDate.parse(time).atStartOfDay());
+            }
+            if (time.indexOf('T') < 0) {
+                return Timestamp.valueOf(time);
+            }
+            try {
+                return Timestamp.valueOf(LocalDateTime.parse(time));
+            } catch (DateTimeParseException e) {
+                return Timestamp.from(OffsetDateTime.parse(time).toInstant());
+            }
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.filter;
+
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants.AttributeOperators;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants.ErrorMessages;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants.FilterConnectors;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants.FilterableAttributes;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.exception.FeedbackManagementException;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.search.EmailAnalyzer;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.util.FeedbackExceptionManagementUtil;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Builds the abstract syntax tree of a tokenized filter. "and" binds tighter than "or", and parentheses can be used
+ * to group terms.
+ */
+public class FilterParser {
+
+    private static final Set<AttributeOperators> TEXT_OPERATORS = EnumSet.of(AttributeOperators.co,
+            AttributeOperators.eq, AttributeOperators.ew, AttributeOperators.sw);
+    private static final Set<AttributeOperators> TIME_OPERATORS = EnumSet.of(AttributeOperators.eq,
+            AttributeOperators.gt, AttributeOperators.ge, AttributeOperators.lt, AttributeOperators.le,
+            AttributeOperators.between);
+    private static final Set<AttributeOperators> MESSAGE_OPERATORS = EnumSet.of(AttributeOperators.co,
+            AttributeOperators.phrase);
+
+    private final String filter;
+    private final List<FilterToken> tokens;
+    private int position;
+    private int valueIndex;
+
+    private FilterParser(String filter, List<FilterToken> tokens) {
+
+        this.filter = filter;
+        this.tokens = tokens;
+    }
+
+    /**
+     * Build the abstract syntax tree of a filter.
+     *
+     * @param filter filter provided by the user
+     * @param tokens tokens of the filter
+     * @return root node of the tree
+     * @throws FeedbackManagementException
+     */
+    public static FilterNode parse(String filter, List<FilterToken> tokens) throws FeedbackManagementException {
+
+        FilterParser parser = new FilterParser(filter, tokens);
+        FilterNode root = parser.parseDisjunction();
+        if (parser.position != tokens.size()) {
+            throw parser.invalidFilter();
+        }
+        return root;
+    }
+
+    private FilterNode parseDisjunction() throws FeedbackManagementException {
+
+        List<FilterNode> children = new ArrayList<>();
+        children.add(parseConjunction());
+        while (consume(FilterToken.Type.OR)) {
+            children.add(parseConjunction());
+        }
+        return children.size() == 1 ? children.get(0) : new FilterGroup(FilterConnectors.or, children);
+    }
+
+    private FilterNode parseConjunction() throws FeedbackManagementException {
+
+        List<FilterNode> children = new ArrayList<>();
+        children.add(parsePrimary());
+        while (consume(FilterToken.Type.AND)) {
+            children.add(parsePrimary());
+        }
+        return children.size() == 1 ? children.get(0) : new FilterGroup(FilterConnectors.and, children);
+    }
+
+    private FilterNode parsePrimary() throws FeedbackManagementException {
+
+        if (consume(FilterToken.Type.LEFT_PARENTHESIS)) {
+            FilterNode node = parseDisjunction();
+            if (!consume(FilterToken.Type.RIGHT_PARENTHESIS)) {
+                throw invalidFilter();
+            }
+            return node;
+        }
+
+        String attribute = expect(FilterToken.Type.ATTRIBUTE).getText();
+        String operator = expect(FilterToken.Type.OPERATOR).getText();
+        String value = expect(FilterToken.Type.VALUE).getText();
+        boolean range = AttributeOperators.between.name().equalsIgnoreCase(operator);
+        if (range) {
+            expect(FilterToken.Type.AND);
+            expect(FilterToken.Type.VALUE);
+        }
+
+        FilterableAttributes filterableAttribute;
+        try {
+            filterableAttribute = FilterableAttributes.valueOf(attribute.toLowerCase());
+        } catch (IllegalArgumentException e) {
+            throw FeedbackExceptionManagementUtil
+                    .buildClientException(ErrorMessages.ERROR_CODE_UNSUPPORTED_FILTER_ATTRIBUTE, attribute, e);
+        }
+        AttributeOperators attributeOperator;
+        try {
+            attributeOperator = AttributeOperators.valueOf(operator.toLowerCase());
+        } catch (IllegalArgumentException e) {
+            throw FeedbackExceptionManagementUtil
+                    .buildClientException(ErrorMessages.ERROR_CODE_UNSUPPORTED_FILTER_OPERATION, operator, e);
+        }
+        Set<AttributeOperators> supportedOperators;
+        switch (filterableAttribute) {
+            case time_created:
+                supportedOperators = TIME_OPERATORS;
+                break;
+            case message:
+                supportedOperators = MESSAGE_OPERATORS;
+                break;
+            default:
+                supportedOperators = TEXT_OPERATORS;
+        }
+        if (!supportedOperators.contains(attributeOperator)) {
+            throw FeedbackExceptionManagementUtil
+                    .buildClientException(ErrorMessages.ERROR_CODE_UNSUPPORTED_FILTER_OPERATION, operator);
+        }
+
+        boolean gramIndexed = filterableAttribute == FilterableAttributes.email &&
+                attributeOperator == AttributeOperators.co && EmailAnalyzer.hasQueryGrams(value);
+        FilterTerm term = new FilterTerm(filterableAttribute, attributeOperator, valueIndex, gramIndexed);
+        valueIndex += range ? 2 : 1;
+        return term;
+    }
+
+    private boolean consume(FilterToken.Type type) {
+
+        if (position < tokens.size() && tokens.get(position).getType() == type) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private FilterToken expect(FilterToken.Type type) throws FeedbackManagementException {
+
+        if (position < tokens.size() && tokens.get(position).getType() == type) {
+            return tokens.get(position++);
+        }
+        throw invalidFilter();
+    }
+
+    private FeedbackManagementException invalidFilter() {
+
+        return FeedbackExceptionManagementUtil.buildClientException(ErrorMessages.ERROR_CODE_INVALID_FILTER_QUERY,
+                filter);
+    }
+}
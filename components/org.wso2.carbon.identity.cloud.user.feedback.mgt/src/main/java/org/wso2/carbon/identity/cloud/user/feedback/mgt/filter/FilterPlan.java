@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.filter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The compiled form of a filter shape, made of the SQL condition and its bind parameters. A plan holds no filter
+ * values, hence it can be shared by all the filters of the same shape.
+ */
+public class FilterPlan {
+
+    private final FilterNode root;
+    private final String condition;
+    private final List<FilterParameter> parameters;
+
+    public FilterPlan(FilterNode root) {
+
+        StringBuilder condition = new StringBuilder();
+        List<FilterParameter> parameters = new ArrayList<>();
+        root.appendCondition(condition, parameters);
+        this.root = root;
+        this.condition = condition.toString();
+        this.parameters = Collections.unmodifiableList(parameters);
+    }
+
+    public FilterNode getRoot() {
+
+        return root;
+    }
+
+    public String getCondition() {
+
+        return condition;
+    }
+
+    public List<FilterParameter> getParameters() {
+
+        return parameters;
+    }
+}
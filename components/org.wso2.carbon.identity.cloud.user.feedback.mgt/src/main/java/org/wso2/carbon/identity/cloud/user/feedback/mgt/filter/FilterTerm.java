@@ -0,0 +1,310 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.filter;
+
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants.AttributeOperators;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants.FilterableAttributes;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtSQLConstants;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.Feedback;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.search.MessageAnalyzer;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.util.JdbcUtils;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A filter term of the form "attribute operation value", or "attribute between value and value" for a range of times.
+ * The two values of a range are consecutive, so that the upper bound of a range follows the value index of the term.
+ * A message term searches the full-text index for the words of its value, or for its value as a phrase. An "email ew"
+ * term is matched through the reversed email, and an "email co" term through the n-grams of the email when its value
+ * has any.
+ */
+public class FilterTerm extends FilterNode {
+
+    private static final char LIKE_ESCAPE = '\\';
+    private static final byte ANY_CHARACTER = 1;
+    private static final byte ANY_CHARACTERS = 2;
+    private final FilterableAttributes attribute;
+    private final AttributeOperators operator;
+    private final int valueIndex;
+    private final boolean gramIndexed;
+
+    public FilterTerm(FilterableAttributes attribute, AttributeOperators operator, int valueIndex) {
+
+        this(attribute, operator, valueIndex, false);
+    }
+
+    /**
+     * Create a filter term.
+     *
+     * @param attribute   filtered attribute
+     * @param operator    filter operation
+     * @param valueIndex  position of the value of the term in the filter
+     * @param gramIndexed whether the value of an "email co" term is long enough to be matched by the n-gram index
+     */
+    public FilterTerm(FilterableAttributes attribute, AttributeOperators operator, int valueIndex,
+                      boolean gramIndexed) {
+
+        this.attribute = attribute;
+        this.operator = operator;
+        this.valueIndex = valueIndex;
+        this.gramIndexed = gramIndexed;
+    }
+
+    public FilterableAttributes getAttribute() {
+
+        return attribute;
+    }
+
+    public AttributeOperators getOperator() {
+
+        return operator;
+    }
+
+    public int getValueIndex() {
+
+        return valueIndex;
+    }
+
+    /**
+     * Check whether the term matches a tag by equality. Such a term is matched by the ID of the tag.
+     *
+     * @return true if the term is a "tag eq" term
+     */
+    public boolean isTagEquality() {
+
+        return attribute == FilterableAttributes.tag && operator == AttributeOperators.eq;
+    }
+
+    @Override
+    public void appendCondition(StringBuilder condition, List<FilterParameter> parameters) {
+
+        if (isTagEquality()) {
+            condition.append(FeedbackMgtSQLConstants.FILTER_BY_TAG_ID);
+            parameters.add(FilterParameter.tagId(valueIndex));
+            return;
+        }
+        if (attribute == FilterableAttributes.message) {
+            // The terms are matched through the full-text index, which narrows down the entries whose messages are
+            // matched against the phrase.
+            boolean phrase = operator == AttributeOperators.phrase;
+            if (phrase) {
+                condition.append("(");
+            }
+            condition.append(String.format(FeedbackMgtSQLConstants.FILTER_BY_MESSAGE_TERMS,
+                    JdbcUtils.buildPlaceholders(FeedbackMgtConstants.MAX_MESSAGE_QUERY_TERMS)));
+            for (int i = 0; i < FeedbackMgtConstants.MAX_MESSAGE_QUERY_TERMS; i++) {
+                parameters.add(FilterParameter.messageTerm(valueIndex, i));
+            }
+            parameters.add(FilterParameter.messageTermCount(valueIndex));
+            if (phrase) {
+                condition.append(FeedbackMgtConstants.AND).append(FeedbackMgtSQLConstants.FILTER_BY_MESSAGE_PHRASE)
+                        .append(")");
+                parameters.add(FilterParameter.messagePhrase(valueIndex));
+            }
+            return;
+        }
+        if (attribute == FilterableAttributes.email && operator == AttributeOperators.ew) {
+            // The end of the email is matched as the start of the reversed email, which can use an index.
+            condition.append(FeedbackMgtSQLConstants.FILTER_BY_EMAIL_REVERSED);
+            parameters.add(FilterParameter.reversedPattern(valueIndex));
+            return;
+        }
+        if (attribute == FilterableAttributes.email && operator == AttributeOperators.co && gramIndexed) {
+            // The n-gram index narrows down the entries whose emails are matched against the pattern.
+            condition.append(String.format(FeedbackMgtSQLConstants.FILTER_BY_EMAIL_GRAMS,
+                    JdbcUtils.buildPlaceholders(FeedbackMgtConstants.MAX_EMAIL_QUERY_GRAMS)));
+            for (int i = 0; i < FeedbackMgtConstants.MAX_EMAIL_QUERY_GRAMS; i++) {
+                parameters.add(FilterParameter.emailGram(valueIndex, i));
+            }
+            parameters.add(FilterParameter.emailGramCount(valueIndex));
+            parameters.add(FilterParameter.pattern(valueIndex, operator));
+            return;
+        }
+        if (attribute == FilterableAttributes.time_created) {
+            if (operator == AttributeOperators.between) {
+                condition.append(FeedbackMgtSQLConstants.FILTER_BY_TIME_CREATED_RANGE);
+                parameters.add(FilterParameter.timestamp(valueIndex, AttributeOperators.ge));
+                parameters.add(FilterParameter.timestamp(valueIndex + 1, AttributeOperators.le));
+            } else {
+                condition.append(String.format(FeedbackMgtSQLConstants.FILTER_BY_TIME_CREATED,
+                        getComparisonOperator()));
+                parameters.add(FilterParameter.timestamp(valueIndex, operator));
+            }
+            return;
+        }
+        switch (attribute) {
+            case email:
+                condition.append(FeedbackMgtSQLConstants.FILTER_BY_EMAIL);
+                break;
+            case tag:
+                condition.append(FeedbackMgtSQLConstants.FILTER_BY_TAG);
+                break;
+        }
+        parameters.add(FilterParameter.pattern(valueIndex, operator));
+    }
+
+    @Override
+    public boolean matches(Feedback feedback, List<String> values) {
+
+        String value = values.get(valueIndex);
+        switch (attribute) {
+            case email:
+                return matchesPattern(feedback.getEmail(), value);
+            case tag:
+                if (feedback.getTags() == null) {
+                    return false;
+                }
+                for (String tag : feedback.getTags()) {
+                    if (isTagEquality() ? tag.equals(value) : matchesPattern(tag, value)) {
+                        return true;
+                    }
+                }
+                return false;
+            case time_created:
+                return matchesTime(feedback.getTimeCreated(), values);
+            default:
+                String message = feedback.getMessage();
+                if (message == null || !MessageAnalyzer.getDistinctTerms(message)
+                        .containsAll(MessageAnalyzer.getDistinctTerms(value))) {
+                    return false;
+                }
+                return operator != AttributeOperators.phrase ||
+                        message.toLowerCase(Locale.ROOT).contains(MessageAnalyzer.normalizePhrase(value));
+        }
+    }
+
+    /**
+     * Match a text against a value as the LIKE pattern of the operation of this term would. The "%" and "_"
+     * characters of the value are wildcards, and a character following a backslash is matched as it is. The pattern
+     * is matched directly rather than through a regular expression, as it is matched against many entries.
+     *
+     * @param text  text of the feedback entry
+     * @param value value of the term
+     * @return true if the text matches the value
+     */
+    private boolean matchesPattern(String text, String value) {
+
+        if (text == null) {
+            return false;
+        }
+        // The pattern is parsed into its characters, with a wildcard marked by the kind of its position.
+        char[] characters = new char[value.length() + 2];
+        byte[] kinds = new byte[value.length() + 2];
+        int length = 0;
+        if (operator == AttributeOperators.ew || operator == AttributeOperators.co) {
+            kinds[length++] = ANY_CHARACTERS;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char character = value.charAt(i);
+            if (character == LIKE_ESCAPE && i + 1 < value.length()) {
+                characters[length++] = value.charAt(++i);
+            } else if (character == '%') {
+                kinds[length++] = ANY_CHARACTERS;
+            } else if (character == '_') {
+                kinds[length++] = ANY_CHARACTER;
+            } else {
+                characters[length++] = character;
+            }
+        }
+        if (operator == AttributeOperators.sw || operator == AttributeOperators.co) {
+            kinds[length++] = ANY_CHARACTERS;
+        }
+
+        // On a mismatch, the last "%" is retried with one more character of the text.
+        int textIndex = 0;
+        int patternIndex = 0;
+        int wildcardIndex = -1;
+        int wildcardTextIndex = 0;
+        while (textIndex < text.length()) {
+            if (patternIndex < length && kinds[patternIndex] == ANY_CHARACTERS) {
+                wildcardIndex = patternIndex++;
+                wildcardTextIndex = textIndex;
+            } else if (patternIndex < length && (kinds[patternIndex] == ANY_CHARACTER ||
+                    characters[patternIndex] == text.charAt(textIndex))) {
+                patternIndex++;
+                textIndex++;
+            } else if (wildcardIndex >= 0) {
+                patternIndex = wildcardIndex + 1;
+                textIndex = ++wildcardTextIndex;
+            } else {
+                return false;
+            }
+        }
+        while (patternIndex < length && kinds[patternIndex] == ANY_CHARACTERS) {
+            patternIndex++;
+        }
+        return patternIndex == length;
+    }
+
+    /**
+     * Match the creation time of a feedback entry against the time or the range of times of this term.
+     *
+     * @param timeCreated creation time of the feedback entry
+     * @param values      values of the filter
+     * @return true if the time matches the term
+     */
+    private boolean matchesTime(String timeCreated, List<String> values) {
+
+        Timestamp time = timeCreated == null ? null : FilterParameter.parseTimestamp(timeCreated);
+        if (time == null) {
+            return false;
+        }
+        if (operator == AttributeOperators.between) {
+            return !time.before(FilterParameter.parseTimestamp(values.get(valueIndex))) &&
+                    !time.after(FilterParameter.parseTimestamp(values.get(valueIndex + 1)));
+        }
+        int comparison = time.compareTo(FilterParameter.parseTimestamp(values.get(valueIndex)));
+        switch (operator) {
+            case gt:
+                return comparison > 0;
+            case ge:
+                return comparison >= 0;
+            case lt:
+                return comparison < 0;
+            case le:
+                return comparison <= 0;
+            default:
+                return comparison == 0;
+        }
+    }
+
+    /**
+     * Get the SQL comparison operator of a time term.
+     *
+     * @return SQL comparison operator
+     */
+    private String getComparisonOperator() {
+
+        switch (operator) {
+            case gt:
+                return ">";
+            case ge:
+                return ">=";
+            case lt:
+                return "<";
+            case le:
+                return "<=";
+            default:
+                return "=";
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.filter;
+
+/**
+ * A token of a filter, classified by its role in the filter.
+ */
+public class FilterToken {
+
+    /**
+     * Roles of filter tokens.
+     */
+    public enum Type {
+        LEFT_PARENTHESIS, RIGHT_PARENTHESIS, ATTRIBUTE, OPERATOR, VALUE, AND, OR
+    }
+
+    private final Type type;
+    private final String text;
+
+    public FilterToken(Type type, String text) {
+
+        this.type = type;
+        this.text = text;
+    }
+
+    public Type getType() {
+
+        return type;
+    }
+
+    public String getText() {
+
+        return text;
+    }
+}
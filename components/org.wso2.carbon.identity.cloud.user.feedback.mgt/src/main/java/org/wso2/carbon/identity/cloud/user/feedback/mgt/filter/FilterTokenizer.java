@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.filter;
+
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants.ErrorMessages;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.exception.FeedbackManagementException;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.util.FeedbackExceptionManagementUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits a filter into tokens. A filter consists of terms of the form "attribute operation value", joined by "and"
+ * or "or" and optionally grouped with parentheses. Values containing spaces or parentheses can be given in double
+ * quotes, in which a double quote or a backslash is escaped with a backslash. The "between" operation takes two
+ * values joined by "and", as in "time_created between 2020-01-01 and 2020-02-01".
+ * <p>
+ * The role of each token is decided by its position, so that a value is never mistaken for a keyword, and so that
+ * the shape of a filter can be derived without parsing it.
+ */
+public class FilterTokenizer {
+
+    private static final char QUOTE = '"';
+    private static final char ESCAPE = '\\';
+
+    private enum Expectation {
+        OPERAND, OPERATOR, VALUE, RANGE_CONNECTOR, CONNECTOR
+    }
+
+    private final String filter;
+    private int position;
+
+    private FilterTokenizer(String filter) {
+
+        this.filter = filter;
+    }
+
+    /**
+     * Split a filter into tokens.
+     *
+     * @param filter filter provided by the user
+     * @return List of tokens
+     * @throws FeedbackManagementException
+     */
+    public static List<FilterToken> tokenize(String filter) throws FeedbackManagementException {
+
+        return new FilterTokenizer(filter).tokenize();
+    }
+
+    private List<FilterToken> tokenize() throws FeedbackManagementException {
+
+        List<FilterToken> tokens = new ArrayList<>();
+        Expectation expectation = Expectation.OPERAND;
+        boolean range = false;
+        while (skipWhitespace()) {
+            char current = filter.charAt(position);
+            if (current == '(' && expectation == Expectation.OPERAND) {
+                tokens.add(new FilterToken(FilterToken.Type.LEFT_PARENTHESIS, "("));
+                position++;
+                continue;
+            }
+            if (current == ')' && expectation == Expectation.CONNECTOR) {
+                tokens.add(new FilterToken(FilterToken.Type.RIGHT_PARENTHESIS, ")"));
+                position++;
+                continue;
+            }
+            if (current == QUOTE && expectation == Expectation.VALUE) {
+                tokens.add(new FilterToken(FilterToken.Type.VALUE, readQuotedValue()));
+                expectation = range ? Expectation.RANGE_CONNECTOR : Expectation.CONNECTOR;
+                range = false;
+                continue;
+            }
+
+            String word = readWord(expectation == Expectation.VALUE);
+            switch (expectation) {
+                case OPERAND:
+                    tokens.add(new FilterToken(FilterToken.Type.ATTRIBUTE, word));
+                    expectation = Expectation.OPERATOR;
+                    break;
+                case OPERATOR:
+                    tokens.add(new FilterToken(FilterToken.Type.OPERATOR, word));
+                    range = FeedbackMgtConstants.AttributeOperators.between.name().equalsIgnoreCase(word);
+                    expectation = Expectation.VALUE;
+                    break;
+                case VALUE:
+                    tokens.add(new FilterToken(FilterToken.Type.VALUE, word));
+                    expectation = range ? Expectation.RANGE_CONNECTOR : Expectation.CONNECTOR;
+                    range = false;
+                    break;
+                case RANGE_CONNECTOR:
+                    if (!FeedbackMgtConstants.FilterConnectors.and.name().equalsIgnoreCase(word)) {
+                        throw invalidFilter();
+                    }
+                    tokens.add(new FilterToken(FilterToken.Type.AND, word.toLowerCase()));
+                    expectation = Expectation.VALUE;
+                    break;
+                case CONNECTOR:
+                    String connector = word.toLowerCase();
+                    if (FeedbackMgtConstants.FilterConnectors.and.name().equals(connector)) {
+                        tokens.add(new FilterToken(FilterToken.Type.AND, connector));
+                    } else if (FeedbackMgtConstants.FilterConnectors.or.name().equals(connector)) {
+                        tokens.add(new FilterToken(FilterToken.Type.OR, connector));
+                    } else {
+                        throw invalidFilter();
+                    }
+                    expectation = Expectation.OPERAND;
+                    break;
+            }
+        }
+        if (expectation != Expectation.CONNECTOR) {
+            throw invalidFilter();
+        }
+        return tokens;
+    }
+
+    /**
+     * Move the position past any whitespace.
+     *
+     * @return true if there are more characters to read
+     */
+    private boolean skipWhitespace() {
+
+        while (position < filter.length() && Character.isWhitespace(filter.charAt(position))) {
+            position++;
+        }
+        return position < filter.length();
+    }
+
+    /**
+     * Read a word up to the next whitespace or parenthesis. An unquoted value may contain a left parenthesis.
+     *
+     * @param value whether the word is a value
+     * @return the word
+     * @throws FeedbackManagementException
+     */
+    private String readWord(boolean value) throws FeedbackManagementException {
+
+        int start = position;
+        while (position < filter.length()) {
+            char current = filter.charAt(position);
+            if (Character.isWhitespace(current) || current == ')' || (current == '(' && !value)) {
+                break;
+            }
+            position++;
+        }
+        if (position == start) {
+            throw invalidFilter();
+        }
+        return filter.substring(start, position);
+    }
+
+    /**
+     * Read a value given in double quotes.
+     *
+     * @return the unescaped value
+     * @throws FeedbackManagementException
+     */
+    private String readQuotedValue() throws FeedbackManagementException {
+
+        StringBuilder value = new StringBuilder();
+        position++;
+        while (position < filter.length()) {
+            char current = filter.charAt(position++);
+            if (current == QUOTE) {
+                return value.toString();
+            }
+            if (current == ESCAPE) {
+                if (position == filter.length()) {
+                    break;
+                }
+                current = filter.charAt(position++);
+            }
+            value.append(current);
+        }
+        throw invalidFilter();
+    }
+
+    private FeedbackManagementException invalidFilter() {
+
+        return FeedbackExceptionManagementUtil.buildClientException(ErrorMessages.ERROR_CODE_INVALID_FILTER_QUERY,
+                filter);
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.id;
+
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants.FeedbackIdGenerators;
+
+/**
+ * Generates the resource IDs of new feedback entries, which are UUIDs in their canonical string form.
+ */
+public interface FeedbackIdGenerator {
+
+    /**
+     * Generate a new feedback resource ID.
+     *
+     * @return UUID string
+     */
+    String generateId();
+
+    /**
+     * Create a generator of the given kind.
+     *
+     * @param generator kind of the generator
+     * @return the generator
+     */
+    static FeedbackIdGenerator forGenerator(FeedbackIdGenerators generator) {
+
+        return generator == FeedbackIdGenerators.time_ordered ? new TimeOrderedFeedbackIdGenerator() :
+                new RandomFeedbackIdGenerator();
+    }
+}
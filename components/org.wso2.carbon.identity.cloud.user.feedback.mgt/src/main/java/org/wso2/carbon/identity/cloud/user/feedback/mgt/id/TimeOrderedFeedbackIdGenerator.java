@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.id;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+import java.util.function.LongSupplier;
+
+/**
+ * Generates time-ordered (version 7) UUIDs. A UUID starts with the milliseconds since the epoch followed by a counter
+ * of the UUIDs generated in the same millisecond, and ends with random bits. Since the UUIDs generated one after the
+ * other are increasing, new entries are inserted at the end of the UUID index instead of at random pages of it.
+ */
+public class TimeOrderedFeedbackIdGenerator implements FeedbackIdGenerator {
+
+    private static final int COUNTER_BITS = 12;
+    private static final long MAX_COUNTER = (1L << COUNTER_BITS) - 1;
+    private static final long VERSION_BITS = 0x7000L;
+    private static final long VARIANT_BITS = 0x8000000000000000L;
+    private static final long RANDOM_BITS_MASK = 0x3FFFFFFFFFFFFFFFL;
+
+    private final SecureRandom random = new SecureRandom();
+    private final LongSupplier clock;
+    private long lastMillis;
+    private long counter;
+
+    public TimeOrderedFeedbackIdGenerator() {
+
+        this(System::currentTimeMillis);
+    }
+
+    /**
+     * Create a generator which reads the time from the given clock.
+     *
+     * @param clock clock returning the milliseconds since the epoch
+     */
+    TimeOrderedFeedbackIdGenerator(LongSupplier clock) {
+
+        this.clock = clock;
+    }
+
+    @Override
+    public String generateId() {
+
+        long millis;
+        long sequence;
+        synchronized (this) {
+            long now = clock.getAsLong();
+            if (now > lastMillis) {
+                // The counter of a millisecond starts at a random value of its lower half, so that the UUIDs of a
+                // millisecond are not predictable from each other and the counter is unlikely to run out.
+                lastMillis = now;
+                counter = random.nextInt(1 << (COUNTER_BITS - 1));
+            } else if (++counter > MAX_COUNTER) {
+                // The counter has run out or the clock has gone back, hence the UUIDs continue in the next
+                // millisecond to stay increasing.
+                lastMillis++;
+                counter = 0;
+            }
+            millis = lastMillis;
+            sequence = counter;
+        }
+        long mostSigBits = (millis << 16) | VERSION_BITS | sequence;
+        long leastSigBits = (random.nextLong() & RANDOM_BITS_MASK) | VARIANT_BITS;
+        return new UUID(mostSigBits, leastSigBits).toString();
+    }
+}
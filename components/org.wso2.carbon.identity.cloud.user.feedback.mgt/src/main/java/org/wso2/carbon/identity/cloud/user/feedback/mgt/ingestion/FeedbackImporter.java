@@ -0,0 +1,394 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.ingestion;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants.ErrorMessages;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.FeedbackImportDAO;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.exception.FeedbackManagementClientException;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.exception.FeedbackManagementException;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.internal.FeedbackManagementServiceDataHolder;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.Feedback;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.FeedbackEntryResult;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.FeedbackImportResult;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.util.FeedbackExceptionManagementUtil;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.util.JdbcUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Imports feedback entries from a stream of JSON Lines, in the format written by the JSON Lines export. The stream is
+ * read one line at a time, so that an import of any size runs in constant memory. Each record is validated with the
+ * rules of a feedback submission, and a record which is not valid is rejected without stopping the import.
+ *
+ * The valid entries are written in chunks of the batch size through the {@link FeedbackImportDAO}, which records the
+ * offset of the stream up to which the import is written together with each chunk. A later run of the same import
+ * skips the stream up to the recorded offset, so that an interrupted import resumes after its last written chunk
+ * without writing an entry twice. The UUIDs of the records are kept, and the entries get the time of the import as
+ * their creation time.
+ */
+public class FeedbackImporter {
+
+    private static final Log log = LogFactory.getLog(FeedbackImporter.class);
+
+    private final FeedbackImportDAO feedbackImportDAO;
+    private final EntryValidator entryValidator;
+    private final int batchSize;
+
+    public FeedbackImporter(FeedbackImportDAO feedbackImportDAO, EntryValidator entryValidator, int batchSize) {
+
+        this.feedbackImportDAO = feedbackImportDAO;
+        this.entryValidator = entryValidator;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Import the feedback entries of a stream, resuming the import from its recorded offset. The stream is read
+     * from its start, but not closed.
+     *
+     * @param importId    ID of the import, under which its offset is recorded
+     * @param inputStream stream of JSON Lines encoded in UTF-8
+     * @return Result of the run of the import
+     * @throws FeedbackManagementException
+     */
+    public FeedbackImportResult importEntries(String importId, InputStream inputStream)
+            throws FeedbackManagementException {
+
+        long checkpoint = feedbackImportDAO.getImportOffset(importId);
+        FeedbackImportResult importResult = new FeedbackImportResult(importId, checkpoint);
+        LineReader lineReader = new LineReader(inputStream);
+        try {
+            if (!lineReader.skip(checkpoint)) {
+                throw FeedbackExceptionManagementUtil.buildClientException(
+                        ErrorMessages.ERROR_CODE_INVALID_IMPORT_OFFSET, importId);
+            }
+
+            List<Feedback> batch = new ArrayList<>(batchSize);
+            int rejectedCount = 0;
+            long lineOffset = lineReader.getOffset();
+            String line;
+            while ((line = lineReader.readLine()) != null) {
+                if (lineReader.isTruncated() || !StringUtils.isBlank(line)) {
+                    try {
+                        batch.add(readEntry(line, lineOffset, lineReader.isTruncated()));
+                    } catch (FeedbackManagementClientException e) {
+                        rejectedCount++;
+                        reportRejection(importResult, e);
+                    }
+                }
+                lineOffset = lineReader.getOffset();
+                if (batch.size() >= batchSize) {
+                    writeBatch(importResult, batch, rejectedCount, lineOffset);
+                    rejectedCount = 0;
+                }
+            }
+            if (lineReader.getOffset() > importResult.getOffset()) {
+                writeBatch(importResult, batch, rejectedCount, lineReader.getOffset());
+            }
+        } catch (IOException e) {
+            throw FeedbackExceptionManagementUtil.buildServerException(ErrorMessages.ERROR_CODE_IMPORT_FEEDBACK,
+                    importId, e);
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug("Imported " + importResult.getImportedCount() + " feedback entries of the import: " + importId +
+                    " and rejected " + importResult.getRejectedCount() + " records.");
+        }
+        return importResult;
+    }
+
+    /**
+     * Write a batch of feedback entries, and move the result of the import to the end of the batch.
+     *
+     * @param importResult  result of the import
+     * @param batch         feedback entries of the batch, which is cleared once written
+     * @param rejectedCount number of records of the batch which were rejected
+     * @param toOffset      offset of the stream at which the batch ends
+     * @throws FeedbackManagementException
+     */
+    private void writeBatch(FeedbackImportResult importResult, List<Feedback> batch, int rejectedCount,
+                            long toOffset) throws FeedbackManagementException {
+
+        feedbackImportDAO.importChunk(importResult.getImportId(), importResult.getOffset(), toOffset, batch,
+                rejectedCount);
+        importResult.setImportedCount(importResult.getImportedCount() + batch.size());
+        importResult.setRejectedCount(importResult.getRejectedCount() + rejectedCount);
+        importResult.setOffset(toOffset);
+        batch.clear();
+    }
+
+    /**
+     * Report a rejected record in the result of the import, as long as the number of reported records is within the
+     * limit.
+     *
+     * @param importResult result of the import
+     * @param e            client exception which rejected the record
+     */
+    private void reportRejection(FeedbackImportResult importResult, FeedbackManagementClientException e) {
+
+        if (log.isDebugEnabled()) {
+            log.debug("Rejected a record of the import: " + importResult.getImportId() + ". " + e.getMessage());
+        }
+        if (importResult.getRejectedEntries().size() < FeedbackMgtConstants.MAX_REPORTED_IMPORT_REJECTIONS) {
+            importResult.getRejectedEntries().add(new FeedbackEntryResult(null, e.getErrorCode(), e.getMessage()));
+        }
+    }
+
+    /**
+     * Read and validate the feedback entry of a line. A UUID is generated for an entry without one.
+     *
+     * @param line      line of the stream
+     * @param offset    offset of the stream at which the line starts
+     * @param truncated whether the line is longer than the maximum length of a line
+     * @return Feedback entry
+     * @throws FeedbackManagementClientException
+     */
+    private Feedback readEntry(String line, long offset, boolean truncated) throws FeedbackManagementClientException {
+
+        if (truncated) {
+            throw FeedbackExceptionManagementUtil.buildClientException(
+                    ErrorMessages.ERROR_CODE_INVALID_IMPORT_RECORD, String.valueOf(offset));
+        }
+        Feedback feedback;
+        try {
+            feedback = parseEntry(line);
+        } catch (IOException | IllegalStateException | IllegalArgumentException e) {
+            throw FeedbackExceptionManagementUtil.buildClientException(
+                    ErrorMessages.ERROR_CODE_INVALID_IMPORT_RECORD, String.valueOf(offset), e);
+        }
+        if (StringUtils.isBlank(feedback.getUuid())) {
+            feedback.setUuid(FeedbackManagementServiceDataHolder.getInstance().getFeedbackIdGenerator()
+                    .generateId());
+        } else if (JdbcUtils.toStoredUuid(feedback.getUuid()) == null) {
+            // An ID which is not a UUID cannot be stored in the binary storage format.
+            throw FeedbackExceptionManagementUtil.buildClientException(
+                    ErrorMessages.ERROR_CODE_INVALID_IMPORT_RECORD, String.valueOf(offset));
+        }
+        entryValidator.validate(feedback);
+        return feedback;
+    }
+
+    /**
+     * Parse a feedback entry from a JSON object. Unknown fields are ignored. The time of creation of an entry, such as
+     * the time of an exported entry, is kept in the format of {@link Timestamp#toString()}.
+     *
+     * @param line JSON object
+     * @return Feedback entry
+     * @throws IOException if the line is not a single JSON object
+     * @throws IllegalArgumentException if the time of creation is not in the format of {@link Timestamp}
+     */
+    private Feedback parseEntry(String line) throws IOException {
+
+        JsonReader jsonReader = new JsonReader(new StringReader(line));
+        Feedback feedback = new Feedback();
+        jsonReader.beginObject();
+        while (jsonReader.hasNext()) {
+            String name = jsonReader.nextName();
+            if (jsonReader.peek() == JsonToken.NULL) {
+                jsonReader.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "uuid":
+                    feedback.setUuid(jsonReader.nextString());
+                    break;
+                case "message":
+                    feedback.setMessage(jsonReader.nextString());
+                    break;
+                case "email":
+                    feedback.setEmail(jsonReader.nextString());
+                    break;
+                case "contactNo":
+                    feedback.setContactNo(jsonReader.nextString());
+                    break;
+                case "userId":
+                    feedback.setUserId(jsonReader.nextString());
+                    break;
+                case "tenantId":
+                    feedback.setTenantId(jsonReader.nextInt());
+                    break;
+                case "timeCreated":
+                    feedback.setTimeCreated(Timestamp.valueOf(jsonReader.nextString().trim()).toString());
+                    break;
+                case "tags":
+                    ArrayList<String> tags = new ArrayList<>();
+                    jsonReader.beginArray();
+                    while (jsonReader.hasNext()) {
+                        tags.add(jsonReader.nextString());
+                    }
+                    jsonReader.endArray();
+                    feedback.setTags(tags);
+                    break;
+                default:
+                    jsonReader.skipValue();
+            }
+        }
+        jsonReader.endObject();
+        if (jsonReader.peek() != JsonToken.END_DOCUMENT) {
+            throw new MalformedJsonException("Unexpected content after the feedback entry.");
+        }
+        return feedback;
+    }
+
+    /**
+     * Validates a feedback entry read from the stream.
+     */
+    @FunctionalInterface
+    public interface EntryValidator {
+
+        /**
+         * Validate a feedback entry.
+         *
+         * @param feedback Feedback object
+         * @throws FeedbackManagementClientException
+         */
+        void validate(Feedback feedback) throws FeedbackManagementClientException;
+    }
+
+    /**
+     * Reads the lines of a UTF-8 encoded stream, keeping the offset in bytes of the end of the last read line. Lines
+     * are separated by LF, with an optional CR before it. A line longer than the maximum length is truncated.
+     */
+    private static class LineReader {
+
+        private final InputStream inputStream;
+        private final byte[] buffer = new byte[FeedbackMgtConstants.IMPORT_READ_BUFFER_SIZE];
+        private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+        private int position;
+        private int limit;
+        private long offset;
+        private boolean truncated;
+
+        LineReader(InputStream inputStream) {
+
+            this.inputStream = inputStream;
+        }
+
+        /**
+         * Skip the stream up to the given offset.
+         *
+         * @param toOffset offset in bytes
+         * @return false if the stream ends before the offset
+         * @throws IOException
+         */
+        boolean skip(long toOffset) throws IOException {
+
+            while (offset < toOffset) {
+                if (position == limit && !fill()) {
+                    return false;
+                }
+                int skipped = (int) Math.min(limit - position, toOffset - offset);
+                position += skipped;
+                offset += skipped;
+            }
+            return true;
+        }
+
+        /**
+         * Read the next line.
+         *
+         * @return Line without the line separator, or null at the end of the stream
+         * @throws IOException
+         */
+        String readLine() throws IOException {
+
+            line.reset();
+            truncated = false;
+            while (true) {
+                if (position == limit && !fill()) {
+                    return line.size() == 0 && !truncated ? null : decodeLine();
+                }
+                int start = position;
+                while (position < limit && buffer[position] != '\n') {
+                    position++;
+                }
+                append(start, position);
+                offset += position - start;
+                if (position < limit) {
+                    position++;
+                    offset++;
+                    return decodeLine();
+                }
+            }
+        }
+
+        /**
+         * Get the offset of the stream up to which it has been read.
+         *
+         * @return Offset in bytes
+         */
+        long getOffset() {
+
+            return offset;
+        }
+
+        /**
+         * Check whether the last read line was longer than the maximum length of a line.
+         *
+         * @return true if the last read line was truncated
+         */
+        boolean isTruncated() {
+
+            return truncated;
+        }
+
+        private void append(int start, int end) {
+
+            int length = Math.min(end - start, FeedbackMgtConstants.MAX_IMPORT_LINE_LENGTH - line.size());
+            if (length < end - start) {
+                truncated = true;
+            }
+            line.write(buffer, start, length);
+        }
+
+        private String decodeLine() {
+
+            byte[] bytes = line.toByteArray();
+            int length = bytes.length;
+            if (length > 0 && bytes[length - 1] == '\r') {
+                length--;
+            }
+            return new String(bytes, 0, length, StandardCharsets.UTF_8);
+        }
+
+        private boolean fill() throws IOException {
+
+            int read = inputStream.read(buffer);
+            if (read <= 0) {
+                return false;
+            }
+            position = 0;
+            limit = read;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,288 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.ingestion;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.FeedbackMgtDAO;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.exception.FeedbackManagementClientException;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.exception.FeedbackManagementException;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.Feedback;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded write-behind queue for feedback submissions. Submitted entries are drained by a single writer thread,
+ * which group-commits them through the {@link FeedbackMgtDAO} in batches of up to the configured batch size. A
+ * batch is written once it is full, or once the linger time has passed since its first entry was taken. The entries
+ * of a batch which fails are retried one by one, and the entries which cannot be written are counted.
+ */
+public class FeedbackIngestionQueue {
+
+    private static final Log log = LogFactory.getLog(FeedbackIngestionQueue.class);
+    private static final String WRITER_THREAD_NAME = "feedback-ingestion-writer";
+
+    private final FeedbackMgtDAO feedbackMgtDAO;
+    private final BlockingQueue<Feedback> queue;
+    private final int batchSize;
+    private final long lingerTimeMillis;
+    private final Thread writerThread;
+    private final AtomicLong failedCount = new AtomicLong();
+    private volatile boolean running;
+
+    /**
+     * Create an ingestion queue. A size or a linger time which is not positive is replaced with its default value,
+     * since the queue cannot be created with such a size, and the writer thread would spin with such a batch size or
+     * linger time.
+     *
+     * @param feedbackMgtDAO   DAO the entries are written through
+     * @param queueSize        maximum number of entries waiting to be written
+     * @param batchSize        maximum number of entries written in a single transaction
+     * @param lingerTimeMillis time to wait for a batch to fill up before it is written
+     */
+    public FeedbackIngestionQueue(FeedbackMgtDAO feedbackMgtDAO, int queueSize, int batchSize,
+                                  long lingerTimeMillis) {
+
+        this.feedbackMgtDAO = feedbackMgtDAO;
+        this.queue = new ArrayBlockingQueue<>((int) validate("queue size", queueSize,
+                FeedbackMgtConstants.DEFAULT_INGESTION_QUEUE_SIZE));
+        this.batchSize = (int) validate("batch size", batchSize, FeedbackMgtConstants.DEFAULT_INGESTION_BATCH_SIZE);
+        this.lingerTimeMillis = validate("linger time", lingerTimeMillis,
+                FeedbackMgtConstants.DEFAULT_INGESTION_LINGER_TIME);
+        this.writerThread = new Thread(this::drain, WRITER_THREAD_NAME);
+        this.writerThread.setDaemon(true);
+    }
+
+    /**
+     * Validate a setting of the queue, which should be positive.
+     *
+     * @param name         name of the setting
+     * @param value        configured value
+     * @param defaultValue value to be used if the configured value is not positive
+     * @return configured value, or the default value
+     */
+    private static long validate(String name, long value, long defaultValue) {
+
+        if (value > 0) {
+            return value;
+        }
+        log.warn("Invalid " + name + ": " + value + " configured for the feedback ingestion queue. Using the " +
+                "default value: " + defaultValue);
+        return defaultValue;
+    }
+
+    /**
+     * Start the writer thread.
+     */
+    public void start() {
+
+        running = true;
+        writerThread.start();
+        if (log.isDebugEnabled()) {
+            log.debug("Feedback ingestion queue started. Batch size: " + batchSize + ", linger time: " +
+                    lingerTimeMillis + "ms.");
+        }
+    }
+
+    /**
+     * Submit a feedback entry to be written asynchronously. If the queue is full, the entry is written
+     * synchronously on the calling thread, which slows down the submissions until the writer catches up.
+     *
+     * @param userFeedback Feedback object
+     * @throws FeedbackManagementException
+     */
+    public void submit(Feedback userFeedback) throws FeedbackManagementException {
+
+        if (running && queue.offer(userFeedback)) {
+            // The queue may have been flushed by a concurrent shutdown, in which case the entry is written here.
+            if (running || !queue.remove(userFeedback)) {
+                return;
+            }
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Feedback ingestion queue is not accepting entries. Adding the feedback entry: " +
+                    userFeedback.getUuid() + " synchronously.");
+        }
+        feedbackMgtDAO.insertFeedbackEntry(userFeedback);
+    }
+
+    /**
+     * Stop accepting entries, wait for the writer thread to write the pending entries and flush the entries submitted
+     * after it finished. The writer thread is not interrupted, since an interrupt in the middle of a write closes the
+     * channels of some drivers, such as the H2 driver, and it finishes once the queue is empty, as no more entries
+     * are accepted. Thereby the queue is drained by a single thread at a time.
+     * <p>
+     * The wait is bounded by the timeout, so that a write which is stuck does not block the shutdown. If the writer
+     * thread is still running by then, the IDs of the pending entries are logged and the entries are left to the
+     * writer thread, which writes them once its current write returns.
+     *
+     * @param timeoutMillis maximum time to wait for the writer thread
+     */
+    public void shutdown(long timeoutMillis) {
+
+        running = false;
+        boolean interrupted = false;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        long remaining;
+        while (writerThread.isAlive() && (remaining = deadline - System.nanoTime()) > 0) {
+            try {
+                TimeUnit.NANOSECONDS.timedJoin(writerThread, remaining);
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (writerThread.isAlive()) {
+            List<String> pendingIds = new ArrayList<>();
+            for (Feedback userFeedback : queue) {
+                pendingIds.add(userFeedback.getUuid());
+            }
+            log.warn("Feedback ingestion writer did not finish within " + timeoutMillis + "ms. The " +
+                    pendingIds.size() + " pending feedback entries are left to the writer: " + pendingIds);
+        } else {
+            // Flush any entries submitted after the writer thread saw the shutdown.
+            List<Feedback> batch = new ArrayList<>(batchSize);
+            while (queue.drainTo(batch, batchSize) > 0) {
+                write(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Feedback ingestion queue is shut down.");
+        }
+    }
+
+    /**
+     * Get the number of entries which were accepted by the queue but could not be written, even after their retries.
+     *
+     * @return number of failed entries
+     */
+    public long getFailedCount() {
+
+        return failedCount.get();
+    }
+
+    /**
+     * Get the number of entries waiting to be written.
+     *
+     * @return number of pending entries
+     */
+    public int getPendingCount() {
+
+        return queue.size();
+    }
+
+    private void drain() {
+
+        List<Feedback> batch = new ArrayList<>(batchSize);
+        try {
+            while (running || !queue.isEmpty()) {
+                Feedback first = queue.poll(lingerTimeMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerTimeMillis);
+                while (batch.size() < batchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    Feedback next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                write(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        } catch (InterruptedException e) {
+            // The interrupt status is cleared until the batch is written, since an interrupted thread cannot write
+            // through some drivers. The entries are written synchronously from now on, and the pending ones are
+            // flushed by the shutdown.
+            running = false;
+            log.warn("Feedback ingestion writer is interrupted. The feedback entries are written synchronously " +
+                    "until the queue is shut down.");
+            if (!batch.isEmpty()) {
+                write(batch);
+            }
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Write a batch of entries. If the batch cannot be written, the entries are retried one by one, so that a single
+     * bad entry does not drop the rest of the batch. A failed entry is retried with an exponential backoff, except an
+     * entry which is not valid, and an entry which still fails is counted as failed.
+     *
+     * @param batch entries to be written
+     */
+    private void write(List<Feedback> batch) {
+
+        try {
+            feedbackMgtDAO.insertFeedbackEntries(batch);
+            if (log.isDebugEnabled()) {
+                log.debug(batch.size() + " feedback entries added by the ingestion queue.");
+            }
+            return;
+        } catch (FeedbackManagementException e) {
+            log.error("Error while adding a batch of " + batch.size() + " feedback entries. Retrying them " +
+                    "individually.", e);
+        }
+        boolean interrupted = false;
+        for (Feedback userFeedback : batch) {
+            long backoffMillis = FeedbackMgtConstants.INGESTION_RETRY_BACKOFF;
+            for (int retry = 0; ; retry++) {
+                try {
+                    feedbackMgtDAO.insertFeedbackEntry(userFeedback);
+                    break;
+                } catch (FeedbackManagementException e) {
+                    if (e instanceof FeedbackManagementClientException ||
+                            retry == FeedbackMgtConstants.INGESTION_RETRY_COUNT) {
+                        failedCount.incrementAndGet();
+                        log.error("Error while adding the feedback entry: " + userFeedback.getUuid() + ". The " +
+                                "entry is dropped after " + retry + " retries.", e);
+                        break;
+                    }
+                    log.warn("Error while adding the feedback entry: " + userFeedback.getUuid() + ". Retrying in " +
+                            (interrupted ? 0 : backoffMillis) + "ms.");
+                }
+                if (!interrupted) {
+                    try {
+                        Thread.sleep(backoffMillis);
+                    } catch (InterruptedException e) {
+                        // The remaining retries are not delayed, and the interrupt status is restored once the batch
+                        // is written, since an interrupted thread cannot write through some drivers.
+                        interrupted = true;
+                    }
+                    backoffMillis *= 2;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -31,11 +31,36 @@ import org.osgi.service.component.annotations.ReferenceCardinality;
 import org.osgi.service.component.annotations.ReferencePolicy;
 import org.wso2.carbon.identity.cloud.user.feedback.mgt.FeedbackManagementService;
 import org.wso2.carbon.identity.cloud.user.feedback.mgt.FeedbackManagementServiceImpl;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.archive.FeedbackArchive;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.archive.FeedbackArchiveJob;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.cache.FeedbackEntryCache;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.cache.FeedbackTagCache;
 import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants.FeedbackStorageTypes;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.FeedbackMgtDAO;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.impl.FeedbackArchiveDAOImpl;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.impl.FeedbackCounterDAOImpl;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.impl.FeedbackLogDAOImpl;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.impl.FeedbackMemoryDAOImpl;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.impl.FeedbackMgtDAOImpl;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.impl.FeedbackRetentionDAOImpl;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.impl.FeedbackTagDAOImpl;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.exception.FeedbackManagementException;
 import org.wso2.carbon.identity.cloud.user.feedback.mgt.exception.FeedbackManagementRuntimeException;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.id.FeedbackIdGenerator;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.ingestion.FeedbackIngestionQueue;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.FeedbackRetentionPolicy;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.retention.FeedbackRetentionJob;
 import org.wso2.carbon.identity.cloud.user.feedback.mgt.util.FeedbackConfigParser;
 import org.wso2.carbon.user.core.service.RealmService;
 
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
 import javax.naming.Context;
 import javax.naming.InitialContext;
 import javax.naming.NamingException;
@@ -52,17 +77,35 @@ import javax.sql.DataSource;
 public class FeedbackManagementServiceComponent {
 
     private static final Log log = LogFactory.getLog(FeedbackManagementServiceComponent.class);
+    private static final String MAINTENANCE_THREAD_NAME = "feedback-maintenance";
     private ServiceRegistration serviceRegistration = null;
     private RealmService realmService;
+    private ScheduledExecutorService maintenanceExecutor;
+    private FeedbackRetentionJob retentionJob;
+    private FeedbackArchiveJob archiveJob;
+    private FeedbackLogDAOImpl feedbackLogDAO;
 
     @Activate
     protected void activate(ComponentContext context) {
 
         BundleContext bundleContext = context.getBundleContext();
         FeedbackConfigParser configParser = new FeedbackConfigParser();
-        DataSource dataSource = initDataSource(configParser);
-
-        setDataSourceToDataHolder(dataSource);
+        initFeedbackIds(configParser);
+        initFeedbackCache(configParser);
+        initFeedbackStorage(configParser);
+        initMaintenanceExecutor();
+        // The database and its maintenance jobs are needed only if the feedback entries are stored in the database,
+        // so that the other storage types can be used without a database.
+        if (FeedbackManagementServiceDataHolder.getInstance().getFeedbackMgtDAO() == null) {
+            setDataSourceToDataHolder(initDataSource(configParser));
+            initTagCache(configParser);
+            initCounterReconciliation(configParser);
+            // The archive is opened first, since the retention job purges the archived entries as well.
+            initArchive(configParser);
+            initRetention(configParser);
+        }
+        initIngestionQueue(configParser);
+        initLogCompaction(configParser);
 
         serviceRegistration = bundleContext.registerService(FeedbackManagementService.class,
                 FeedbackManagementServiceImpl.getInstance(), null);
@@ -79,11 +122,217 @@ public class FeedbackManagementServiceComponent {
             log.debug("Cloud Feedback Management bundle is deactivated.");
         }
 
+        FeedbackIngestionQueue ingestionQueue = FeedbackManagementServiceDataHolder.getInstance()
+                .getFeedbackIngestionQueue();
+        if (ingestionQueue != null) {
+            ingestionQueue.shutdown(FeedbackMgtConstants.INGESTION_SHUTDOWN_TIMEOUT);
+            FeedbackManagementServiceDataHolder.getInstance().setFeedbackIngestionQueue(null);
+        }
+
+        if (retentionJob != null) {
+            retentionJob.stop();
+            retentionJob = null;
+        }
+        if (archiveJob != null) {
+            archiveJob.stop();
+            archiveJob = null;
+        }
+        if (maintenanceExecutor != null) {
+            maintenanceExecutor.shutdownNow();
+            maintenanceExecutor = null;
+        }
+        FeedbackManagementServiceDataHolder.getInstance().setFeedbackArchive(null);
+        FeedbackManagementServiceDataHolder.getInstance().setFeedbackMgtDAO(null);
+        if (feedbackLogDAO != null) {
+            try {
+                feedbackLogDAO.close();
+            } catch (IOException e) {
+                log.error("Error while closing the feedback log.", e);
+            }
+            feedbackLogDAO = null;
+        }
+
         if (serviceRegistration != null) {
             serviceRegistration.unregister();
         }
     }
 
+    private void initFeedbackIds(FeedbackConfigParser configParser) {
+
+        FeedbackManagementServiceDataHolder dataHolder = FeedbackManagementServiceDataHolder.getInstance();
+        dataHolder.setFeedbackIdGenerator(FeedbackIdGenerator.forGenerator(configParser.getFeedbackIdGenerator()));
+        dataHolder.setFeedbackIdStorageFormat(configParser.getFeedbackIdStorageFormat());
+    }
+
+    private void initTagCache(FeedbackConfigParser configParser) {
+
+        int tagCacheMaxSize = configParser.getTagCacheMaxSize();
+        FeedbackTagCache.getInstance().setMaxSize(tagCacheMaxSize);
+        try {
+            new FeedbackTagDAOImpl().loadTagCache(tagCacheMaxSize);
+        } catch (FeedbackManagementException e) {
+            // The cache is populated on demand if the warm up fails.
+            log.error("Error while loading the feedback tags to the tag cache.", e);
+        }
+    }
+
+    private void initFeedbackCache(FeedbackConfigParser configParser) {
+
+        FeedbackEntryCache feedbackCache = FeedbackEntryCache.getInstance();
+        feedbackCache.setMaxSize(configParser.getFeedbackCacheMaxSize());
+        feedbackCache.setTimeToLive(configParser.getFeedbackCacheTimeToLive(), TimeUnit.SECONDS);
+    }
+
+    private void initFeedbackStorage(FeedbackConfigParser configParser) {
+
+        FeedbackStorageTypes storageType = configParser.getStorageType();
+        if (storageType == FeedbackStorageTypes.memory) {
+            log.warn("The feedback entries are stored in memory, and are lost when the server is stopped.");
+            FeedbackManagementServiceDataHolder.getInstance().setFeedbackMgtDAO(new FeedbackMemoryDAOImpl());
+            return;
+        }
+        if (storageType != FeedbackStorageTypes.log) {
+            return;
+        }
+        String logDirectory = configParser.getStorageLogDirectory();
+        if (logDirectory == null) {
+            log.error("The feedback log directory is not configured. The feedback entries are stored in the " +
+                    "database.");
+            return;
+        }
+        try {
+            feedbackLogDAO = new FeedbackLogDAOImpl(Paths.get(logDirectory), configParser.isStorageLogSync());
+        } catch (FeedbackManagementException e) {
+            log.error("Error while opening the feedback log. The feedback entries are stored in the database.", e);
+            return;
+        }
+        FeedbackManagementServiceDataHolder.getInstance().setFeedbackMgtDAO(feedbackLogDAO);
+    }
+
+    private void initIngestionQueue(FeedbackConfigParser configParser) {
+
+        if (!configParser.isAsyncIngestionEnabled()) {
+            return;
+        }
+        FeedbackMgtDAO feedbackMgtDAO = FeedbackManagementServiceDataHolder.getInstance().getFeedbackMgtDAO();
+        if (feedbackMgtDAO == null) {
+            feedbackMgtDAO = new FeedbackMgtDAOImpl();
+        }
+        FeedbackIngestionQueue ingestionQueue = new FeedbackIngestionQueue(feedbackMgtDAO,
+                configParser.getAsyncIngestionQueueSize(), configParser.getAsyncIngestionBatchSize(),
+                configParser.getAsyncIngestionLingerTime());
+        ingestionQueue.start();
+        FeedbackManagementServiceDataHolder.getInstance().setFeedbackIngestionQueue(ingestionQueue);
+    }
+
+    private void initMaintenanceExecutor() {
+
+        // The counter reconciliation, the retention purge and the archiving share a single thread, so that they do not
+        // contend with each other for the locks of the counters.
+        maintenanceExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, MAINTENANCE_THREAD_NAME);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private void initCounterReconciliation(FeedbackConfigParser configParser) {
+
+        // Only the tenants without counters are reconciled at activation, so that the entries added before the
+        // counters were introduced are counted without recounting every tenant at each start.
+        maintenanceExecutor.execute(() -> reconcileCounters(true));
+        int reconcileInterval = configParser.getCounterReconcileInterval();
+        if (reconcileInterval > 0) {
+            maintenanceExecutor.scheduleWithFixedDelay(() -> reconcileCounters(false), reconcileInterval,
+                    reconcileInterval, TimeUnit.SECONDS);
+        }
+    }
+
+    private void initRetention(FeedbackConfigParser configParser) {
+
+        List<FeedbackRetentionPolicy> policies = FeedbackRetentionJob.buildPolicies(configParser.getRetentionMaxAge(),
+                configParser.getRetentionTenantMaxAges());
+        int retentionInterval = configParser.getRetentionInterval();
+        if (policies.isEmpty() || retentionInterval <= 0) {
+            return;
+        }
+        retentionJob = new FeedbackRetentionJob(new FeedbackRetentionDAOImpl(),
+                FeedbackManagementServiceDataHolder.getInstance().getFeedbackArchive(), policies,
+                configParser.getRetentionChunkSize());
+        maintenanceExecutor.scheduleWithFixedDelay(retentionJob, 0, retentionInterval, TimeUnit.SECONDS);
+        if (log.isDebugEnabled()) {
+            log.debug("Scheduled the feedback retention job with the policies: " + policies);
+        }
+    }
+
+    private void initArchive(FeedbackConfigParser configParser) {
+
+        // The archived entries are read whenever the archive directory is configured, even if no more entries are
+        // to be archived.
+        String archiveDirectory = configParser.getArchiveDirectory();
+        if (archiveDirectory == null) {
+            return;
+        }
+        FeedbackArchive archive;
+        try {
+            archive = new FeedbackArchive(Paths.get(archiveDirectory));
+        } catch (FeedbackManagementException e) {
+            log.error("Error while opening the feedback archive. The archived feedback entries are not available.",
+                    e);
+            return;
+        }
+        FeedbackManagementServiceDataHolder.getInstance().setFeedbackArchive(archive);
+
+        int archiveMaxAge = configParser.getArchiveMaxAge();
+        int archiveInterval = configParser.getArchiveInterval();
+        if (archiveMaxAge <= 0 || archiveInterval <= 0) {
+            return;
+        }
+        archiveJob = new FeedbackArchiveJob(new FeedbackArchiveDAOImpl(), archive, archiveMaxAge,
+                configParser.getArchiveChunkSize());
+        maintenanceExecutor.scheduleWithFixedDelay(archiveJob, 0, archiveInterval, TimeUnit.SECONDS);
+        if (log.isDebugEnabled()) {
+            log.debug("Scheduled the feedback archive job for the entries older than " + archiveMaxAge + " days.");
+        }
+    }
+
+    private void initLogCompaction(FeedbackConfigParser configParser) {
+
+        int compactionInterval = configParser.getStorageLogCompactionInterval();
+        if (feedbackLogDAO == null || compactionInterval <= 0) {
+            return;
+        }
+        FeedbackLogDAOImpl compactedDAO = feedbackLogDAO;
+        maintenanceExecutor.scheduleWithFixedDelay(() -> compactLog(compactedDAO), compactionInterval,
+                compactionInterval, TimeUnit.SECONDS);
+    }
+
+    private void compactLog(FeedbackLogDAOImpl compactedDAO) {
+
+        try {
+            compactedDAO.compact();
+        } catch (FeedbackManagementException | RuntimeException e) {
+            // The exception is not propagated, since it would cancel the subsequent compactions.
+            log.error("Error while compacting the feedback log.", e);
+        }
+    }
+
+    private void reconcileCounters(boolean uncountedOnly) {
+
+        try {
+            FeedbackCounterDAOImpl feedbackCounterDAO = new FeedbackCounterDAOImpl();
+            int correctedCounters = uncountedOnly ? feedbackCounterDAO.reconcileUncountedCounters() :
+                    feedbackCounterDAO.reconcileCounters();
+            if (correctedCounters > 0) {
+                log.info("Corrected " + correctedCounters + " feedback counters which did not match the feedback " +
+                        "entries.");
+            }
+        } catch (FeedbackManagementException | RuntimeException e) {
+            // The exception is not propagated, since it would cancel the subsequent reconciliations.
+            log.error("Error while reconciling the feedback counters.", e);
+        }
+    }
+
     private DataSource initDataSource(FeedbackConfigParser configParser) {
 
         String dataSourceName = configParser.getFeedbackDataSource();
@@ -18,6 +18,13 @@
 
 package org.wso2.carbon.identity.cloud.user.feedback.mgt.internal;
 
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.archive.FeedbackArchive;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants.FeedbackIdStorageFormats;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.FeedbackMgtDAO;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.id.FeedbackIdGenerator;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.id.RandomFeedbackIdGenerator;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.ingestion.FeedbackIngestionQueue;
+
 import javax.sql.DataSource;
 
 /**
@@ -27,6 +34,11 @@ public class FeedbackManagementServiceDataHolder {
 
     private static FeedbackManagementServiceDataHolder instance = new FeedbackManagementServiceDataHolder();
     private DataSource dataSource;
+    private FeedbackIngestionQueue feedbackIngestionQueue;
+    private FeedbackIdGenerator feedbackIdGenerator = new RandomFeedbackIdGenerator();
+    private FeedbackIdStorageFormats feedbackIdStorageFormat = FeedbackIdStorageFormats.string;
+    private FeedbackArchive feedbackArchive;
+    private FeedbackMgtDAO feedbackMgtDAO;
 
     public static FeedbackManagementServiceDataHolder getInstance() {
 
@@ -42,4 +54,54 @@ public class FeedbackManagementServiceDataHolder {
 
         this.dataSource = dataSource;
     }
+
+    public FeedbackIngestionQueue getFeedbackIngestionQueue() {
+
+        return feedbackIngestionQueue;
+    }
+
+    public void setFeedbackIngestionQueue(FeedbackIngestionQueue feedbackIngestionQueue) {
+
+        this.feedbackIngestionQueue = feedbackIngestionQueue;
+    }
+
+    public FeedbackIdGenerator getFeedbackIdGenerator() {
+
+        return feedbackIdGenerator;
+    }
+
+    public void setFeedbackIdGenerator(FeedbackIdGenerator feedbackIdGenerator) {
+
+        this.feedbackIdGenerator = feedbackIdGenerator;
+    }
+
+    public FeedbackIdStorageFormats getFeedbackIdStorageFormat() {
+
+        return feedbackIdStorageFormat;
+    }
+
+    public void setFeedbackIdStorageFormat(FeedbackIdStorageFormats feedbackIdStorageFormat) {
+
+        this.feedbackIdStorageFormat = feedbackIdStorageFormat;
+    }
+
+    public FeedbackArchive getFeedbackArchive() {
+
+        return feedbackArchive;
+    }
+
+    public void setFeedbackArchive(FeedbackArchive feedbackArchive) {
+
+        this.feedbackArchive = feedbackArchive;
+    }
+
+    public FeedbackMgtDAO getFeedbackMgtDAO() {
+
+        return feedbackMgtDAO;
+    }
+
+    public void setFeedbackMgtDAO(FeedbackMgtDAO feedbackMgtDAO) {
+
+        this.feedbackMgtDAO = feedbackMgtDAO;
+    }
 }
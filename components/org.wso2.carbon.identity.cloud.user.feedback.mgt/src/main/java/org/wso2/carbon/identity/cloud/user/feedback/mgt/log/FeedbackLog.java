@@ -0,0 +1,679 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.log;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.Feedback;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only log file of the feedback entries. Each added or changed entry is appended as a put record which
+ * holds the whole entry, and each deleted entry as a delete record, so that the last record of an entry gives its
+ * state. Every record is framed by the length and the CRC-32 checksum of its content. A log file is laid out as:
+ * <pre>
+ * header | length | checksum | record | length | checksum | record | ...
+ * </pre>
+ * Since records are only ever appended, a last record which is cut short or does not match its checksum is the tail
+ * of a write interrupted by a crash. The log is truncated at such a record when it is replayed, so that it ends with
+ * the last complete record. A record in the middle of the log which does not match its checksum is skipped by its
+ * length and reported as lost, so that the records after it are kept.
+ * <p>
+ * The log is compacted by copying the records of the live entries to a new file, which then atomically replaces the
+ * log. Records are read by their offsets, and reads may run concurrently with each other and with appends, but not
+ * with a compaction, which moves the records.
+ * <p>
+ * Appends only write the records. A synced log is forced to the storage device by {@link #sync()}, which is called
+ * once the appended records are to be made durable, outside of any lock held over the appends. The appends made
+ * while a force is running are forced together by the next force, so that concurrent writers share the forces.
+ */
+public class FeedbackLog implements Closeable {
+
+    private static final Log log = LogFactory.getLog(FeedbackLog.class);
+
+    // The header holds the magic number, the format version and the last ID assigned when the log was written, so
+    // that the IDs of the entries dropped by a compaction are not assigned again.
+    private static final int HEADER_SIZE = 12;
+    private static final int FRAME_SIZE = 8;
+    private static final byte PUT_RECORD = 1;
+    private static final byte DELETE_RECORD = 2;
+    private static final int NULL_LENGTH = -1;
+    private static final int ZERO_CHECK_CHUNK_SIZE = 8192;
+
+    private final Path path;
+    private final Path compactionPath;
+    private final boolean sync;
+    private final Object syncLock = new Object();
+    private FileChannel channel;
+    private int lastId;
+    private long size;
+    private long garbageSize;
+    // Number of bytes appended and forced since the log was opened, which is not reset by a compaction.
+    private long appendedBytes;
+    private long syncedBytes;
+
+    private FeedbackLog(Path directory, boolean sync) {
+
+        this.path = directory.resolve(FeedbackMgtConstants.FEEDBACK_LOG_FILE_NAME);
+        this.compactionPath = directory.resolve(FeedbackMgtConstants.FEEDBACK_LOG_COMPACTION_FILE_NAME);
+        this.sync = sync;
+    }
+
+    /**
+     * Handler of the records of the log, which are passed to it in the order they were appended.
+     */
+    public interface RecordHandler {
+
+        /**
+         * Handle a put record.
+         *
+         * @param offset   offset of the record in the log
+         * @param feedback feedback entry with its tags
+         * @throws IOException
+         */
+        void onPut(long offset, Feedback feedback) throws IOException;
+
+        /**
+         * Handle a delete record.
+         *
+         * @param uuid resource ID of the deleted entry
+         * @throws IOException
+         */
+        void onDelete(String uuid) throws IOException;
+    }
+
+    /**
+     * Open the log of a directory, which is created with an empty log if it has none. A compaction file left behind
+     * by an interrupted compaction is removed, as the log has not been replaced by it.
+     *
+     * @param directory directory of the log
+     * @param sync      whether appended records are forced to the storage device by {@link #sync()}
+     * @return the log, which has to be replayed before records are appended to it
+     * @throws IOException
+     */
+    public static FeedbackLog open(Path directory, boolean sync) throws IOException {
+
+        Files.createDirectories(directory);
+        FeedbackLog feedbackLog = new FeedbackLog(directory, sync);
+        Files.deleteIfExists(feedbackLog.compactionPath);
+        feedbackLog.channel = FileChannel.open(feedbackLog.path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            feedbackLog.readHeader();
+        } catch (IOException e) {
+            feedbackLog.close();
+            throw e;
+        }
+        return feedbackLog;
+    }
+
+    /**
+     * Pass the records of the log to a handler in order. The log is truncated at a torn tail, which is a last record
+     * cut short or not matching its checksum, or a tail of zeros left by a write which was not completely flushed. A
+     * record in the middle of the log which does not match its checksum is skipped and counted as garbage. A record
+     * in the middle of the log with an invalid length fails the replay, since the records after it cannot be found.
+     * Delete records are counted as garbage right away, while the handler has to {@link #discard(long)} the put
+     * records of the entries which are overwritten or deleted.
+     *
+     * @param handler record handler
+     * @throws IOException
+     */
+    public synchronized void replay(RecordHandler handler) throws IOException {
+
+        long fileSize = channel.size();
+        long position = HEADER_SIZE;
+        int skippedCount = 0;
+        while (position + FRAME_SIZE <= fileSize) {
+            ByteBuffer frame = readFully(position, FRAME_SIZE);
+            int length = frame.getInt();
+            int checksum = frame.getInt();
+            if (length <= 0 || length > FeedbackMgtConstants.MAX_FEEDBACK_LOG_RECORD_SIZE) {
+                if (isZeroFilled(position, fileSize)) {
+                    break;
+                }
+                throw new IOException("The record at the offset: " + position + " of the feedback log: " + path +
+                        " has an invalid length: " + length + ", and the records after it cannot be read.");
+            }
+            if (position + FRAME_SIZE + length > fileSize) {
+                break;
+            }
+            ByteBuffer record = readFully(position + FRAME_SIZE, length);
+            if (checksum(record) != checksum) {
+                if (position + FRAME_SIZE + length == fileSize) {
+                    break;
+                }
+                log.error("Skipping the record at the offset: " + position + " of the feedback log: " + path +
+                        ", as it does not match its checksum. The change of the feedback entry in the record is " +
+                        "lost.");
+                skippedCount++;
+                garbageSize += FRAME_SIZE + length;
+                position += FRAME_SIZE + length;
+                continue;
+            }
+            try {
+                if (record.get() == PUT_RECORD) {
+                    handler.onPut(position, readEntry(record));
+                } else {
+                    record.getInt();
+                    handler.onDelete(readString(record));
+                    garbageSize += FRAME_SIZE + length;
+                }
+            } catch (BufferUnderflowException | IllegalArgumentException e) {
+                throw new IOException("The record at the offset: " + position + " of the feedback log: " + path +
+                        " is corrupted.", e);
+            }
+            position += FRAME_SIZE + length;
+        }
+
+        if (skippedCount > 0) {
+            log.error("Skipped " + skippedCount + " corrupted records while replaying the feedback log: " + path +
+                    ".");
+        }
+        if (position < fileSize) {
+            log.warn("Truncating the feedback log: " + path + " at the offset: " + position + " from the size: " +
+                    fileSize + ", as its last record was not completely written.");
+            channel.truncate(position);
+            channel.force(true);
+        }
+        size = position;
+    }
+
+    /**
+     * Force the records appended so far to the storage device, if the log is synced. If a force is already running,
+     * the call waits for it, and then either returns if that force covered the records, or runs the next force, which
+     * covers the records appended meanwhile by the other waiting writers as well.
+     *
+     * @throws IOException
+     */
+    public void sync() throws IOException {
+
+        if (!sync) {
+            return;
+        }
+        long appendedSequence;
+        synchronized (this) {
+            appendedSequence = appendedBytes;
+        }
+        synchronized (syncLock) {
+            long forcedSequence;
+            FileChannel forcedChannel;
+            synchronized (this) {
+                if (syncedBytes >= appendedSequence) {
+                    return;
+                }
+                forcedSequence = appendedBytes;
+                forcedChannel = channel;
+            }
+            try {
+                forcedChannel.force(false);
+            } catch (ClosedChannelException e) {
+                // The channel is closed by a compaction, which forces the records it keeps.
+                synchronized (this) {
+                    if (syncedBytes >= appendedSequence) {
+                        return;
+                    }
+                }
+                throw e;
+            }
+            synchronized (this) {
+                syncedBytes = Math.max(syncedBytes, forcedSequence);
+            }
+        }
+    }
+
+    /**
+     * Append a put record of a feedback entry.
+     *
+     * @param feedback feedback entry with its ID, version, creation time and tags
+     * @return offset of the record
+     * @throws IOException
+     */
+    public long append(Feedback feedback) throws IOException {
+
+        return append(Collections.singletonList(feedback))[0];
+    }
+
+    /**
+     * Append the put records of a list of feedback entries with a single write.
+     *
+     * @param feedbackList feedback entries with their IDs, versions, creation times and tags
+     * @return offsets of the records, in the order of the entries
+     * @throws IOException
+     */
+    public synchronized long[] append(List<Feedback> feedbackList) throws IOException {
+
+        ByteArrayOutputStream records = new ByteArrayOutputStream();
+        long[] offsets = new long[feedbackList.size()];
+        for (int i = 0; i < feedbackList.size(); i++) {
+            offsets[i] = size + records.size();
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            DataOutputStream output = new DataOutputStream(content);
+            output.writeByte(PUT_RECORD);
+            writeEntry(output, feedbackList.get(i));
+            writeRecord(records, content.toByteArray());
+        }
+        write(records.toByteArray());
+        return offsets;
+    }
+
+    /**
+     * Append a delete record of a feedback entry. The record is garbage as soon as it is written, since it is dropped
+     * by the next compaction together with the put records of the entry.
+     *
+     * @param id   ID of the entry
+     * @param uuid resource ID of the entry
+     * @throws IOException
+     */
+    public synchronized void appendDelete(int id, String uuid) throws IOException {
+
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(content);
+        output.writeByte(DELETE_RECORD);
+        output.writeInt(id);
+        writeString(output, uuid);
+        ByteArrayOutputStream record = new ByteArrayOutputStream();
+        writeRecord(record, content.toByteArray());
+        write(record.toByteArray());
+        garbageSize += record.size();
+    }
+
+    /**
+     * Read the feedback entry of a put record.
+     *
+     * @param offset offset of the record
+     * @return Feedback entry with its tags
+     * @throws IOException
+     */
+    public Feedback read(long offset) throws IOException {
+
+        try {
+            ByteBuffer record = readRecord(offset);
+            if (record.get() != PUT_RECORD) {
+                throw new IOException("The record at the offset: " + offset + " of the feedback log: " + path +
+                        " is not a put record.");
+            }
+            return readEntry(record);
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("The record at the offset: " + offset + " of the feedback log: " + path +
+                    " is corrupted.", e);
+        }
+    }
+
+    /**
+     * Count a put record as garbage, since its entry has been overwritten or deleted.
+     *
+     * @param offset offset of the record
+     * @throws IOException
+     */
+    public synchronized void discard(long offset) throws IOException {
+
+        garbageSize += FRAME_SIZE + readFully(offset, FRAME_SIZE).getInt();
+    }
+
+    /**
+     * Copy the put records of the live entries to a new log file, which then atomically replaces the log. A crash
+     * before the replacement leaves the log as it was, and the compaction file is removed when the log is opened.
+     *
+     * @param liveOffsets offsets of the put records of the live entries
+     * @param lastId      last ID assigned to an entry
+     * @return new offsets of the records, in the order of the given offsets
+     * @throws IOException
+     */
+    public synchronized long[] compact(long[] liveOffsets, int lastId) throws IOException {
+
+        long[] newOffsets = new long[liveOffsets.length];
+        long position = HEADER_SIZE;
+        try (FileChannel compactionChannel = FileChannel.open(compactionPath, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.WRITE)) {
+            writeFully(compactionChannel, buildHeader(lastId), 0);
+            for (int i = 0; i < liveOffsets.length; i++) {
+                int length = readFully(liveOffsets[i], FRAME_SIZE).getInt();
+                ByteBuffer record = readFully(liveOffsets[i], FRAME_SIZE + length);
+                newOffsets[i] = position;
+                writeFully(compactionChannel, record, position);
+                position += record.capacity();
+            }
+            compactionChannel.force(true);
+        } catch (IOException e) {
+            Files.deleteIfExists(compactionPath);
+            throw e;
+        }
+
+        Files.move(compactionPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        channel.close();
+        channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.lastId = lastId;
+        size = position;
+        garbageSize = 0;
+        syncedBytes = appendedBytes;
+        return newOffsets;
+    }
+
+    /**
+     * Get the last ID assigned to an entry when the log was last compacted.
+     *
+     * @return last ID, or 0 if the log has never been compacted
+     */
+    public int getLastId() {
+
+        return lastId;
+    }
+
+    public Path getPath() {
+
+        return path;
+    }
+
+    public synchronized long getSize() {
+
+        return size;
+    }
+
+    /**
+     * Get the share of the records of the log after its header which are garbage.
+     *
+     * @return ratio of the size of the garbage records to the size of all the records
+     */
+    public synchronized double getGarbageRatio() {
+
+        return size == HEADER_SIZE ? 0 : (double) garbageSize / (size - HEADER_SIZE);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+
+        channel.close();
+    }
+
+    /**
+     * Read the header of the log, or write it if the log is new. A log shorter than the header can only be a new log
+     * whose header was not completely written.
+     *
+     * @throws IOException
+     */
+    private void readHeader() throws IOException {
+
+        if (channel.size() < HEADER_SIZE) {
+            channel.truncate(0);
+            writeFully(channel, buildHeader(0), 0);
+            channel.force(true);
+            return;
+        }
+        ByteBuffer header = readFully(0, HEADER_SIZE);
+        if (header.getInt() != FeedbackMgtConstants.FEEDBACK_LOG_MAGIC ||
+                header.getInt() != FeedbackMgtConstants.FEEDBACK_LOG_FORMAT_VERSION) {
+            throw new IOException("The file: " + path + " is not a feedback log of a supported format.");
+        }
+        lastId = header.getInt();
+    }
+
+    /**
+     * Build the header of a log file.
+     *
+     * @param lastId last ID assigned to an entry
+     * @return the header
+     */
+    private static ByteBuffer buildHeader(int lastId) {
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(FeedbackMgtConstants.FEEDBACK_LOG_MAGIC);
+        header.putInt(FeedbackMgtConstants.FEEDBACK_LOG_FORMAT_VERSION);
+        header.putInt(lastId);
+        header.flip();
+        return header;
+    }
+
+    /**
+     * Write records at the end of the log. The end of the log is moved only once the records are written, so that the
+     * records of a failed write are overwritten by the next write.
+     *
+     * @param records framed records
+     * @throws IOException
+     */
+    private void write(byte[] records) throws IOException {
+
+        writeFully(channel, ByteBuffer.wrap(records), size);
+        size += records.length;
+        appendedBytes += records.length;
+    }
+
+    /**
+     * Read the content of a record, after checking it against its checksum.
+     *
+     * @param offset offset of the record
+     * @return content of the record
+     * @throws IOException
+     */
+    private ByteBuffer readRecord(long offset) throws IOException {
+
+        ByteBuffer frame = readFully(offset, FRAME_SIZE);
+        int length = frame.getInt();
+        int checksum = frame.getInt();
+        if (length <= 0 || length > FeedbackMgtConstants.MAX_FEEDBACK_LOG_RECORD_SIZE) {
+            throw new IOException("The record at the offset: " + offset + " of the feedback log: " + path +
+                    " has an invalid length: " + length + ".");
+        }
+        ByteBuffer record = readFully(offset + FRAME_SIZE, length);
+        if (checksum(record) != checksum) {
+            throw new IOException("The record at the offset: " + offset + " of the feedback log: " + path +
+                    " does not match its checksum.");
+        }
+        return record;
+    }
+
+    /**
+     * Check whether a range of the log holds only zeros, as the space of a write which was not completely flushed
+     * before a crash may do.
+     *
+     * @param from start of the range
+     * @param to   end of the range
+     * @return true if every byte of the range is zero
+     * @throws IOException
+     */
+    private boolean isZeroFilled(long from, long to) throws IOException {
+
+        for (long position = from; position < to; ) {
+            ByteBuffer buffer = readFully(position, (int) Math.min(ZERO_CHECK_CHUNK_SIZE, to - position));
+            while (buffer.hasRemaining()) {
+                if (buffer.get() != 0) {
+                    return false;
+                }
+            }
+            position += buffer.capacity();
+        }
+        return true;
+    }
+
+    /**
+     * Read a number of bytes of the log at a position.
+     *
+     * @param position position in the log
+     * @param length   number of bytes
+     * @return buffer of the bytes, positioned at the first byte
+     * @throws IOException
+     */
+    private ByteBuffer readFully(long position, int length) throws IOException {
+
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("The feedback log: " + path + " ends before the offset: " +
+                        (position + length) + ".");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Write a buffer to a file at a position.
+     *
+     * @param fileChannel channel of the file
+     * @param buffer      buffer to write
+     * @param position    position in the file
+     * @throws IOException
+     */
+    private static void writeFully(FileChannel fileChannel, ByteBuffer buffer, long position) throws IOException {
+
+        long writePosition = position;
+        while (buffer.hasRemaining()) {
+            writePosition += fileChannel.write(buffer, writePosition);
+        }
+    }
+
+    /**
+     * Frame the content of a record with its length and checksum.
+     *
+     * @param output  output of the records
+     * @param content content of the record
+     * @throws IOException
+     */
+    private static void writeRecord(ByteArrayOutputStream output, byte[] content) throws IOException {
+
+        if (content.length > FeedbackMgtConstants.MAX_FEEDBACK_LOG_RECORD_SIZE) {
+            throw new IOException("The feedback log record of " + content.length + " bytes exceeds the maximum " +
+                    "size of a record.");
+        }
+        DataOutputStream frame = new DataOutputStream(output);
+        frame.writeInt(content.length);
+        frame.writeInt(checksum(ByteBuffer.wrap(content)));
+        frame.write(content);
+    }
+
+    /**
+     * Compute the CRC-32 checksum of the remaining bytes of a buffer, without moving its position.
+     *
+     * @param buffer buffer
+     * @return the checksum
+     */
+    private static int checksum(ByteBuffer buffer) {
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate());
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Write a feedback entry to the content of a put record.
+     *
+     * @param output   output of the record
+     * @param feedback feedback entry with its tags
+     * @throws IOException
+     */
+    private static void writeEntry(DataOutputStream output, Feedback feedback) throws IOException {
+
+        output.writeInt(feedback.getId());
+        writeString(output, feedback.getUuid());
+        output.writeInt(feedback.getTenantId());
+        writeString(output, feedback.getMessage());
+        writeString(output, feedback.getEmail());
+        writeString(output, feedback.getContactNo());
+        writeString(output, feedback.getUserId());
+        writeString(output, feedback.getTimeCreated());
+        output.writeInt(feedback.getVersion() == null ? 0 : feedback.getVersion());
+        List<String> tags = feedback.getTags() == null ? Collections.emptyList() : feedback.getTags();
+        output.writeInt(tags.size());
+        for (String tag : tags) {
+            writeString(output, tag);
+        }
+    }
+
+    /**
+     * Read the feedback entry of a put record.
+     *
+     * @param input content of the record, positioned after the record type
+     * @return Feedback entry with its tags
+     */
+    private static Feedback readEntry(ByteBuffer input) {
+
+        Feedback feedback = new Feedback();
+        feedback.setId(input.getInt());
+        feedback.setUuid(readString(input));
+        feedback.setTenantId(input.getInt());
+        feedback.setMessage(readString(input));
+        feedback.setEmail(readString(input));
+        feedback.setContactNo(readString(input));
+        feedback.setUserId(readString(input));
+        feedback.setTimeCreated(readString(input));
+        feedback.setVersion(input.getInt());
+        int tagCount = input.getInt();
+        ArrayList<String> tags = new ArrayList<>(Math.min(tagCount, input.remaining()));
+        for (int i = 0; i < tagCount; i++) {
+            tags.add(readString(input));
+        }
+        feedback.setTags(tags);
+        return feedback;
+    }
+
+    /**
+     * Write a string, which may be null, as its length in bytes followed by its UTF-8 bytes.
+     *
+     * @param output output
+     * @param value  string, or null
+     * @throws IOException
+     */
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+
+        if (value == null) {
+            output.writeInt(NULL_LENGTH);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    /**
+     * Read a string written by {@link #writeString(DataOutputStream, String)}.
+     *
+     * @param input input, positioned at the string
+     * @return the string, or null
+     */
+    private static String readString(ByteBuffer input) {
+
+        int length = input.getInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        if (length < 0) {
+            throw new IllegalArgumentException("Invalid string length: " + length);
+        }
+        byte[] bytes = new byte[length];
+        input.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
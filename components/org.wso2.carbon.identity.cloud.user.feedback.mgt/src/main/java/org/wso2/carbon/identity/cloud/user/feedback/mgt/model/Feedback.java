@@ -34,6 +34,7 @@ public class Feedback {
     private ArrayList<String> tags;
     private String uuid;
     private String timeCreated;
+    private Integer version;
 
     public Feedback() {
 
@@ -205,6 +206,27 @@ public class Feedback {
         this.timeCreated = timeCreated;
     }
 
+    /**
+     * Get the version of the feedback, which is incremented by each update of the feedback.
+     *
+     * @return Version of the feedback
+     */
+    public Integer getVersion() {
+
+        return version;
+    }
+
+    /**
+     * Set the version of the feedback. An update of a feedback with a version is applied only if the feedback has not
+     * been changed since that version was retrieved.
+     *
+     * @param version Version of the feedback, or null to update the feedback regardless of its version
+     */
+    public void setVersion(Integer version) {
+
+        this.version = version;
+    }
+
     /**
      * Get the unique id of the user that submitted the feedback.
      *
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.model;
+
+/**
+ * Result of processing a single feedback entry of a bulk request.
+ */
+public class FeedbackEntryResult {
+
+    private Feedback feedback;
+    private boolean successful;
+    private String errorCode;
+    private String errorMessage;
+
+    public FeedbackEntryResult() {
+
+    }
+
+    public FeedbackEntryResult(Feedback feedback) {
+
+        this.feedback = feedback;
+        this.successful = true;
+    }
+
+    public FeedbackEntryResult(Feedback feedback, String errorCode, String errorMessage) {
+
+        this.feedback = feedback;
+        this.successful = false;
+        this.errorCode = errorCode;
+        this.errorMessage = errorMessage;
+    }
+
+    /**
+     * Get the feedback entry the result belongs to.
+     *
+     * @return Feedback entry
+     */
+    public Feedback getFeedback() {
+
+        return feedback;
+    }
+
+    /**
+     * Set the feedback entry the result belongs to.
+     *
+     * @param feedback Feedback entry
+     */
+    public void setFeedback(Feedback feedback) {
+
+        this.feedback = feedback;
+    }
+
+    /**
+     * Check whether the feedback entry was processed successfully.
+     *
+     * @return true if the entry was processed successfully
+     */
+    public boolean isSuccessful() {
+
+        return successful;
+    }
+
+    /**
+     * Set whether the feedback entry was processed successfully.
+     *
+     * @param successful true if the entry was processed successfully
+     */
+    public void setSuccessful(boolean successful) {
+
+        this.successful = successful;
+    }
+
+    /**
+     * Get the code of the error occurred while processing the feedback entry.
+     *
+     * @return Error code, or null if the entry was processed successfully
+     */
+    public String getErrorCode() {
+
+        return errorCode;
+    }
+
+    /**
+     * Set the code of the error occurred while processing the feedback entry.
+     *
+     * @param errorCode Error code
+     */
+    public void setErrorCode(String errorCode) {
+
+        this.errorCode = errorCode;
+    }
+
+    /**
+     * Get the description of the error occurred while processing the feedback entry.
+     *
+     * @return Error message, or null if the entry was processed successfully
+     */
+    public String getErrorMessage() {
+
+        return errorMessage;
+    }
+
+    /**
+     * Set the description of the error occurred while processing the feedback entry.
+     *
+     * @param errorMessage Error message
+     */
+    public void setErrorMessage(String errorMessage) {
+
+        this.errorMessage = errorMessage;
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Result of a run of an import of feedback entries.
+ */
+public class FeedbackImportResult {
+
+    private String importId;
+    private long offset;
+    private int importedCount;
+    private int rejectedCount;
+    private List<FeedbackEntryResult> rejectedEntries = new ArrayList<>();
+
+    public FeedbackImportResult() {
+
+    }
+
+    public FeedbackImportResult(String importId, long offset) {
+
+        this.importId = importId;
+        this.offset = offset;
+    }
+
+    /**
+     * Get the ID of the import.
+     *
+     * @return Import ID
+     */
+    public String getImportId() {
+
+        return importId;
+    }
+
+    /**
+     * Set the ID of the import.
+     *
+     * @param importId Import ID
+     */
+    public void setImportId(String importId) {
+
+        this.importId = importId;
+    }
+
+    /**
+     * Get the offset of the input up to which the import has been written.
+     *
+     * @return Offset of the input in bytes
+     */
+    public long getOffset() {
+
+        return offset;
+    }
+
+    /**
+     * Set the offset of the input up to which the import has been written.
+     *
+     * @param offset Offset of the input in bytes
+     */
+    public void setOffset(long offset) {
+
+        this.offset = offset;
+    }
+
+    /**
+     * Get the number of feedback entries imported by the run.
+     *
+     * @return Number of imported entries
+     */
+    public int getImportedCount() {
+
+        return importedCount;
+    }
+
+    /**
+     * Set the number of feedback entries imported by the run.
+     *
+     * @param importedCount Number of imported entries
+     */
+    public void setImportedCount(int importedCount) {
+
+        this.importedCount = importedCount;
+    }
+
+    /**
+     * Get the number of records rejected by the run.
+     *
+     * @return Number of rejected records
+     */
+    public int getRejectedCount() {
+
+        return rejectedCount;
+    }
+
+    /**
+     * Set the number of records rejected by the run.
+     *
+     * @param rejectedCount Number of rejected records
+     */
+    public void setRejectedCount(int rejectedCount) {
+
+        this.rejectedCount = rejectedCount;
+    }
+
+    /**
+     * Get the results of the first records rejected by the run, with the reasons of the rejections.
+     *
+     * @return Results of the rejected records
+     */
+    public List<FeedbackEntryResult> getRejectedEntries() {
+
+        return rejectedEntries;
+    }
+
+    /**
+     * Set the results of the records rejected by the run.
+     *
+     * @param rejectedEntries Results of the rejected records
+     */
+    public void setRejectedEntries(List<FeedbackEntryResult> rejectedEntries) {
+
+        this.rejectedEntries = rejectedEntries;
+    }
+}
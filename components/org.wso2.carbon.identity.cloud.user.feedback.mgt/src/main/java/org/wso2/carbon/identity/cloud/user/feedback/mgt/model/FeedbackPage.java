@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.model;
+
+import java.util.List;
+
+/**
+ * A page of feedback entries retrieved with cursor based pagination.
+ */
+public class FeedbackPage {
+
+    private List<Feedback> feedbackEntries;
+    private String nextCursor;
+
+    public FeedbackPage() {
+
+    }
+
+    public FeedbackPage(List<Feedback> feedbackEntries, String nextCursor) {
+
+        this.feedbackEntries = feedbackEntries;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Get the feedback entries of the page.
+     *
+     * @return List of feedback entries
+     */
+    public List<Feedback> getFeedbackEntries() {
+
+        return feedbackEntries;
+    }
+
+    /**
+     * Set the feedback entries of the page.
+     *
+     * @param feedbackEntries List of feedback entries
+     */
+    public void setFeedbackEntries(List<Feedback> feedbackEntries) {
+
+        this.feedbackEntries = feedbackEntries;
+    }
+
+    /**
+     * Get the opaque cursor to be used to retrieve the next page.
+     *
+     * @return Cursor of the next page, or null if this is the last page
+     */
+    public String getNextCursor() {
+
+        return nextCursor;
+    }
+
+    /**
+     * Set the opaque cursor to be used to retrieve the next page.
+     *
+     * @param nextCursor Cursor of the next page
+     */
+    public void setNextCursor(String nextCursor) {
+
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.model;
+
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Retention policy, which removes the feedback entries older than a maximum age. A policy applies either to the
+ * entries of a single tenant, or to the entries of all the tenants except the ones which have a policy of their own.
+ * The progress of purging the entries is recorded per policy, under the scope of the policy.
+ */
+public class FeedbackRetentionPolicy {
+
+    private final Integer tenantId;
+    private final Set<Integer> excludedTenantIds;
+    private final int maxAge;
+
+    /**
+     * Create the retention policy of a single tenant.
+     *
+     * @param tenantId tenant ID
+     * @param maxAge   maximum age of the feedback entries in days
+     */
+    public FeedbackRetentionPolicy(int tenantId, int maxAge) {
+
+        this.tenantId = tenantId;
+        this.excludedTenantIds = Collections.emptySet();
+        this.maxAge = maxAge;
+    }
+
+    /**
+     * Create the default retention policy, which applies to all the tenants except the given ones.
+     *
+     * @param excludedTenantIds IDs of the tenants the policy does not apply to
+     * @param maxAge            maximum age of the feedback entries in days
+     */
+    public FeedbackRetentionPolicy(Set<Integer> excludedTenantIds, int maxAge) {
+
+        this.tenantId = null;
+        this.excludedTenantIds = Collections.unmodifiableSet(new TreeSet<>(excludedTenantIds));
+        this.maxAge = maxAge;
+    }
+
+    /**
+     * Get the tenant the policy applies to.
+     *
+     * @return tenant ID, or null if the policy is the default policy
+     */
+    public Integer getTenantId() {
+
+        return tenantId;
+    }
+
+    /**
+     * Get the tenants the default policy does not apply to.
+     *
+     * @return IDs of the excluded tenants
+     */
+    public Set<Integer> getExcludedTenantIds() {
+
+        return excludedTenantIds;
+    }
+
+    /**
+     * Check whether the policy applies to the feedback entries of a tenant.
+     *
+     * @param tenantId tenant ID
+     * @return true if the entries of the tenant are purged under the policy
+     */
+    public boolean appliesTo(int tenantId) {
+
+        return this.tenantId == null ? !excludedTenantIds.contains(tenantId) : this.tenantId == tenantId;
+    }
+
+    /**
+     * Get the maximum age of the feedback entries.
+     *
+     * @return maximum age in days
+     */
+    public int getMaxAge() {
+
+        return maxAge;
+    }
+
+    /**
+     * Get the scope under which the progress of the policy is recorded.
+     *
+     * @return scope of the policy
+     */
+    public String getScope() {
+
+        return tenantId == null ? FeedbackMgtConstants.RETENTION_DEFAULT_SCOPE :
+                FeedbackMgtConstants.RETENTION_TENANT_SCOPE_PREFIX + tenantId;
+    }
+
+    @Override
+    public String toString() {
+
+        return "FeedbackRetentionPolicy{scope=" + getScope() + ", maxAge=" + maxAge + ", excludedTenantIds=" +
+                excludedTenantIds + "}";
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.model;
+
+/**
+ * A feedback entry found to be similar to another entry, with the estimated similarity of their messages.
+ */
+public class SimilarFeedback {
+
+    private final Feedback feedback;
+    private final double similarity;
+
+    public SimilarFeedback(Feedback feedback, double similarity) {
+
+        this.feedback = feedback;
+        this.similarity = similarity;
+    }
+
+    /**
+     * Get the similar feedback entry.
+     *
+     * @return Feedback entry
+     */
+    public Feedback getFeedback() {
+
+        return feedback;
+    }
+
+    /**
+     * Get the estimated similarity of the messages, from 0 to 1.
+     *
+     * @return Estimated similarity
+     */
+    public double getSimilarity() {
+
+        return similarity;
+    }
+}
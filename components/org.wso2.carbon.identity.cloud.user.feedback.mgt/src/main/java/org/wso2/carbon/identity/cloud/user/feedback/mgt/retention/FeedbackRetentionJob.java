@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.retention;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.archive.FeedbackArchive;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.FeedbackRetentionDAO;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.exception.FeedbackManagementException;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.FeedbackRetentionPolicy;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Job which purges the feedback entries past their retention. Each run purges the entries of every retention policy
+ * chunk by chunk until no entries older than the maximum age of the policy are left. Since the progress of a policy
+ * is recorded with every chunk, a run which is stopped is resumed by the next run from the last purged chunk. The
+ * archived entries of the policy are purged from the segments of the {@link FeedbackArchive} once the feedback table
+ * is purged.
+ */
+public class FeedbackRetentionJob implements Runnable {
+
+    private static final Log log = LogFactory.getLog(FeedbackRetentionJob.class);
+    private final FeedbackRetentionDAO retentionDAO;
+    private final FeedbackArchive archive;
+    private final List<FeedbackRetentionPolicy> policies;
+    private final int chunkSize;
+    private volatile boolean stopped;
+
+    /**
+     * Create a retention job.
+     *
+     * @param retentionDAO DAO used to purge the feedback entries
+     * @param policies     retention policies
+     * @param chunkSize    maximum number of entries purged in a single transaction
+     */
+    public FeedbackRetentionJob(FeedbackRetentionDAO retentionDAO, List<FeedbackRetentionPolicy> policies,
+                                int chunkSize) {
+
+        this(retentionDAO, null, policies, chunkSize);
+    }
+
+    /**
+     * Create a retention job which purges the archived entries as well.
+     *
+     * @param retentionDAO DAO used to purge the feedback entries
+     * @param archive      archive of the feedback entries, or null if the entries are not archived
+     * @param policies     retention policies
+     * @param chunkSize    maximum number of entries purged in a single transaction
+     */
+    public FeedbackRetentionJob(FeedbackRetentionDAO retentionDAO, FeedbackArchive archive,
+                                List<FeedbackRetentionPolicy> policies, int chunkSize) {
+
+        this.retentionDAO = retentionDAO;
+        this.archive = archive;
+        this.policies = Collections.unmodifiableList(new ArrayList<>(policies));
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Build the retention policies from the configured maximum ages. A tenant with a maximum age of its own gets a
+     * policy of its own and is excluded from the default policy. A maximum age of zero or less keeps the entries
+     * forever, so that no policy is built for it.
+     *
+     * @param defaultMaxAge maximum age in days of the entries of the tenants without a maximum age of their own
+     * @param tenantMaxAges Map of tenant ID to the maximum age in days of the entries of the tenant
+     * @return retention policies
+     */
+    public static List<FeedbackRetentionPolicy> buildPolicies(int defaultMaxAge, Map<Integer, Integer> tenantMaxAges) {
+
+        List<FeedbackRetentionPolicy> policies = new ArrayList<>();
+        Set<Integer> excludedTenantIds = new HashSet<>();
+        for (Map.Entry<Integer, Integer> tenantMaxAge : tenantMaxAges.entrySet()) {
+            excludedTenantIds.add(tenantMaxAge.getKey());
+            if (tenantMaxAge.getValue() > 0) {
+                policies.add(new FeedbackRetentionPolicy(tenantMaxAge.getKey(), tenantMaxAge.getValue()));
+            }
+        }
+        if (defaultMaxAge > 0) {
+            policies.add(new FeedbackRetentionPolicy(excludedTenantIds, defaultMaxAge));
+        }
+        return policies;
+    }
+
+    @Override
+    public void run() {
+
+        for (FeedbackRetentionPolicy policy : policies) {
+            if (stopped) {
+                return;
+            }
+            try {
+                int purgedCount = purge(policy);
+                if (purgedCount > 0) {
+                    log.info("Purged " + purgedCount + " feedback entries older than " + policy.getMaxAge() +
+                            " days under the retention scope: " + policy.getScope());
+                }
+            } catch (FeedbackManagementException | RuntimeException e) {
+                // The exception is not propagated, since it would cancel the subsequent runs of the job.
+                log.error("Error while purging the feedback entries under the retention scope: " + policy.getScope(),
+                        e);
+            }
+        }
+    }
+
+    /**
+     * Purge the feedback entries of a retention policy which are older than the maximum age of the policy.
+     *
+     * @param policy retention policy
+     * @return number of purged entries
+     * @throws FeedbackManagementException
+     */
+    public int purge(FeedbackRetentionPolicy policy) throws FeedbackManagementException {
+
+        Timestamp createdBefore = new Timestamp(System.currentTimeMillis() -
+                TimeUnit.DAYS.toMillis(policy.getMaxAge()));
+        int purgedCount = 0;
+        int chunkCount;
+        while (!stopped && (chunkCount = retentionDAO.purgeChunk(policy, createdBefore, chunkSize)) > 0) {
+            purgedCount += chunkCount;
+        }
+        if (!stopped && archive != null) {
+            purgedCount += archive.purgeEntries(policy, createdBefore);
+        }
+        return purgedCount;
+    }
+
+    /**
+     * Stop the job after the chunk which is being purged.
+     */
+    public void stop() {
+
+        stopped = true;
+    }
+
+    /**
+     * Get the retention policies of the job.
+     *
+     * @return retention policies
+     */
+    public List<FeedbackRetentionPolicy> getPolicies() {
+
+        return policies;
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.search;
+
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Derives the index keys of the feedback emails. A suffix of an email is a prefix of the reversed email, which can be
+ * matched through an ordinary index, and a part of an email is matched through the n-grams of the email, which are
+ * taken in lower case so that the index narrows down the entries regardless of the collation of the database.
+ */
+public class EmailAnalyzer {
+
+    private static final String LIKE_WILDCARDS = "%_";
+
+    private EmailAnalyzer() {
+
+    }
+
+    /**
+     * Reverse an email, or a value matched against the end of an email.
+     *
+     * @param email email
+     * @return Reversed email, or null for a null email
+     */
+    public static String reverse(String email) {
+
+        return email == null ? null : new StringBuilder(email).reverse().toString();
+    }
+
+    /**
+     * Get the distinct n-grams of an email.
+     *
+     * @param email email
+     * @return Distinct n-grams of the email, or an empty list for a null email
+     */
+    public static List<String> getGrams(String email) {
+
+        Set<String> grams = new LinkedHashSet<>();
+        if (email != null) {
+            addGrams(email.toLowerCase(Locale.ROOT), grams);
+        }
+        return new ArrayList<>(grams);
+    }
+
+    /**
+     * Get the n-grams by which an "email co" value is matched through the index. The grams are taken from the parts
+     * of the value between the LIKE wildcards, and are spread over the value when it has more grams than can be
+     * matched.
+     *
+     * @param value filter value
+     * @return Distinct n-grams of the value, or an empty list if the value is too short to be matched by the index
+     */
+    public static List<String> getQueryGrams(String value) {
+
+        Set<String> grams = new LinkedHashSet<>();
+        if (value != null) {
+            String lowerCaseValue = value.toLowerCase(Locale.ROOT);
+            int start = 0;
+            for (int position = 0; position <= lowerCaseValue.length(); position++) {
+                if (position == lowerCaseValue.length() ||
+                        LIKE_WILDCARDS.indexOf(lowerCaseValue.charAt(position)) >= 0) {
+                    addGrams(lowerCaseValue.substring(start, position), grams);
+                    start = position + 1;
+                }
+            }
+        }
+
+        List<String> gramList = new ArrayList<>(grams);
+        int maxGrams = FeedbackMgtConstants.MAX_EMAIL_QUERY_GRAMS;
+        if (gramList.size() <= maxGrams) {
+            return gramList;
+        }
+        List<String> spreadGrams = new ArrayList<>(maxGrams);
+        for (int i = 0; i < maxGrams; i++) {
+            spreadGrams.add(gramList.get(i * (gramList.size() - 1) / (maxGrams - 1)));
+        }
+        return spreadGrams;
+    }
+
+    /**
+     * Check whether an "email co" value can be matched through the n-gram index.
+     *
+     * @param value filter value
+     * @return true if the value has any n-grams
+     */
+    public static boolean hasQueryGrams(String value) {
+
+        return !getQueryGrams(value).isEmpty();
+    }
+
+    /**
+     * Add the n-grams of a text, where each gram is made of whole code points.
+     *
+     * @param text  text in lower case
+     * @param grams n-grams to which the grams of the text are added
+     */
+    private static void addGrams(String text, Set<String> grams) {
+
+        int[] codePoints = text.codePoints().toArray();
+        int gramLength = FeedbackMgtConstants.EMAIL_GRAM_LENGTH;
+        for (int start = 0; start + gramLength <= codePoints.length; start++) {
+            grams.add(new String(codePoints, start, gramLength));
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.search;
+
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Splits feedback messages and search queries into the terms of the full-text index. A term is a run of letters and
+ * digits in lower case, so that the terms of a message and of a query match regardless of case and punctuation.
+ */
+public class MessageAnalyzer {
+
+    private static final char PHRASE_SEPARATOR = ' ';
+
+    private MessageAnalyzer() {
+
+    }
+
+    /**
+     * Split a text into its terms, in the order they appear in the text.
+     *
+     * @param text message or query
+     * @return Terms of the text, or an empty list for a null text
+     */
+    public static List<String> tokenize(String text) {
+
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        String lowerCaseText = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        int position = 0;
+        while (position < lowerCaseText.length()) {
+            int codePoint = lowerCaseText.codePointAt(position);
+            if (Character.isLetterOrDigit(codePoint)) {
+                if (start < 0) {
+                    start = position;
+                }
+            } else if (start >= 0) {
+                terms.add(toTerm(lowerCaseText.substring(start, position)));
+                start = -1;
+            }
+            position += Character.charCount(codePoint);
+        }
+        if (start >= 0) {
+            terms.add(toTerm(lowerCaseText.substring(start)));
+        }
+        return terms;
+    }
+
+    /**
+     * Get the distinct terms of a text, in the order they first appear in the text.
+     *
+     * @param text message or query
+     * @return Distinct terms of the text
+     */
+    public static List<String> getDistinctTerms(String text) {
+
+        return new ArrayList<>(new LinkedHashSet<>(tokenize(text)));
+    }
+
+    /**
+     * Count the occurrences of each term of a message.
+     *
+     * @param message feedback message
+     * @return Number of occurrences of each distinct term of the message
+     */
+    public static Map<String, Integer> countTerms(String message) {
+
+        Map<String, Integer> termFrequencies = new LinkedHashMap<>();
+        for (String term : tokenize(message)) {
+            termFrequencies.merge(term, 1, Integer::sum);
+        }
+        return termFrequencies;
+    }
+
+    /**
+     * Normalize a phrase to its terms separated by single spaces, which is how the phrase appears in a message in
+     * lower case.
+     *
+     * @param phrase phrase
+     * @return Normalized phrase
+     */
+    public static String normalizePhrase(String phrase) {
+
+        return String.join(String.valueOf(PHRASE_SEPARATOR), tokenize(phrase));
+    }
+
+    private static String toTerm(String word) {
+
+        if (word.length() <= FeedbackMgtConstants.MAX_MESSAGE_TERM_LENGTH) {
+            return word;
+        }
+        int length = FeedbackMgtConstants.MAX_MESSAGE_TERM_LENGTH;
+        if (Character.isHighSurrogate(word.charAt(length - 1))) {
+            length--;
+        }
+        return word.substring(0, length);
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.search;
+
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants.ErrorMessages;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.exception.FeedbackManagementClientException;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.util.FeedbackExceptionManagementUtil;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A full-text search query over the feedback messages. A query is made of words, which a matching message contains
+ * in any order, and of phrases given in double quotes, which a matching message contains in the given order.
+ */
+public class MessageQuery {
+
+    private static final char QUOTE = '"';
+
+    private final String query;
+    private final List<String> terms;
+    private final List<String> phrases;
+
+    private MessageQuery(String query, List<String> terms, List<String> phrases) {
+
+        this.query = query;
+        this.terms = Collections.unmodifiableList(terms);
+        this.phrases = Collections.unmodifiableList(phrases);
+    }
+
+    /**
+     * Parse a search query.
+     *
+     * @param query search query, such as: login "takes too long"
+     * @return the parsed query
+     * @throws FeedbackManagementClientException
+     */
+    public static MessageQuery parse(String query) throws FeedbackManagementClientException {
+
+        Set<String> terms = new LinkedHashSet<>();
+        List<String> phrases = new ArrayList<>();
+        if (query != null) {
+            int position = 0;
+            while (position < query.length()) {
+                boolean quoted = query.charAt(position) == QUOTE;
+                int start = quoted ? position + 1 : position;
+                int end = query.indexOf(QUOTE, start);
+                if (end < 0) {
+                    end = query.length();
+                }
+                String part = query.substring(start, end);
+                List<String> partTerms = MessageAnalyzer.tokenize(part);
+                terms.addAll(partTerms);
+                // A phrase of a single term is matched as the term alone.
+                if (quoted && partTerms.size() > 1) {
+                    phrases.add(MessageAnalyzer.normalizePhrase(part));
+                }
+                position = quoted ? end + 1 : end;
+            }
+        }
+        validateTermCount(query, terms.size());
+        return new MessageQuery(query, new ArrayList<>(terms), phrases);
+    }
+
+    /**
+     * Validate the number of distinct terms of a query, which is limited to bound the cost of a search.
+     *
+     * @param query     search query
+     * @param termCount number of distinct terms of the query
+     * @throws FeedbackManagementClientException
+     */
+    public static void validateTermCount(String query, int termCount) throws FeedbackManagementClientException {
+
+        if (termCount == 0 || termCount > FeedbackMgtConstants.MAX_MESSAGE_QUERY_TERMS) {
+            throw FeedbackExceptionManagementUtil.buildClientException(ErrorMessages.ERROR_CODE_INVALID_SEARCH_QUERY,
+                    query);
+        }
+    }
+
+    public String getQuery() {
+
+        return query;
+    }
+
+    /**
+     * Get the distinct terms of the query, including the terms of its phrases.
+     *
+     * @return Distinct terms
+     */
+    public List<String> getTerms() {
+
+        return terms;
+    }
+
+    /**
+     * Get the phrases of the query, normalized by {@link MessageAnalyzer#normalizePhrase(String)}.
+     *
+     * @return Normalized phrases
+     */
+    public List<String> getPhrases() {
+
+        return phrases;
+    }
+
+    /**
+     * Count the occurrences of the terms of the query in a message which matches the query, for a message which is
+     * not in the message index.
+     *
+     * @param message feedback message
+     * @return Number of occurrences of the terms, or zero if the message does not have all the terms and phrases
+     */
+    public int countOccurrences(String message) {
+
+        Map<String, Integer> termFrequencies = MessageAnalyzer.countTerms(message);
+        int occurrenceCount = 0;
+        for (String term : terms) {
+            Integer termFrequency = termFrequencies.get(term);
+            if (termFrequency == null) {
+                return 0;
+            }
+            occurrenceCount += termFrequency;
+        }
+        String lowerCaseMessage = message.toLowerCase(Locale.ROOT);
+        for (String phrase : phrases) {
+            if (!lowerCaseMessage.contains(phrase)) {
+                return 0;
+            }
+        }
+        return occurrenceCount;
+    }
+}
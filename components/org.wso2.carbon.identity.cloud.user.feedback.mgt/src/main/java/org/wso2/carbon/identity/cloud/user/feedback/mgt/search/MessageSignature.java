@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.search;
+
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants.ErrorMessages;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.exception.FeedbackManagementClientException;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.util.FeedbackExceptionManagementUtil;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The MinHash signature of a feedback message. The signature is made of the minimum hashes of the shingles of the
+ * message, which are runs of consecutive terms, under a fixed set of hash functions. The fraction of equal values in
+ * the signatures of two messages estimates the Jaccard similarity of their shingles.
+ *
+ * For locality sensitive hashing, the signature is split into bands of consecutive values and each band is hashed to
+ * a bucket, so that two messages share a bucket with a probability which grows steeply with their similarity. The
+ * signatures and the buckets are stored, hence the hash functions must never change.
+ */
+public class MessageSignature {
+
+    private static final int ROWS_PER_BAND =
+            FeedbackMgtConstants.SIMILARITY_SIGNATURE_SIZE / FeedbackMgtConstants.SIMILARITY_BAND_COUNT;
+    private static final long[] SEEDS = new long[FeedbackMgtConstants.SIMILARITY_SIGNATURE_SIZE];
+
+    static {
+        for (int i = 0; i < SEEDS.length; i++) {
+            SEEDS[i] = mix(0x9E3779B97F4A7C15L * (i + 1));
+        }
+    }
+
+    private final int[] values;
+
+    private MessageSignature(int[] values) {
+
+        this.values = values;
+    }
+
+    /**
+     * Compute the signature of a message.
+     *
+     * @param message feedback message
+     * @return Signature of the message, or null if the message has no terms
+     */
+    public static MessageSignature of(String message) {
+
+        List<String> terms = MessageAnalyzer.tokenize(message);
+        if (terms.isEmpty()) {
+            return null;
+        }
+        Set<String> shingles = new LinkedHashSet<>();
+        int shingleSize = Math.min(FeedbackMgtConstants.SIMILARITY_SHINGLE_SIZE, terms.size());
+        for (int start = 0; start + shingleSize <= terms.size(); start++) {
+            shingles.add(String.join(" ", terms.subList(start, start + shingleSize)));
+        }
+
+        int[] values = new int[FeedbackMgtConstants.SIMILARITY_SIGNATURE_SIZE];
+        Arrays.fill(values, Integer.MAX_VALUE);
+        for (String shingle : shingles) {
+            long shingleHash = hash(shingle);
+            for (int i = 0; i < values.length; i++) {
+                values[i] = Math.min(values[i], (int) (mix(shingleHash ^ SEEDS[i]) >>> 33));
+            }
+        }
+        return new MessageSignature(values);
+    }
+
+    /**
+     * Validate a similarity threshold.
+     *
+     * @param threshold minimum estimated similarity
+     * @throws FeedbackManagementClientException
+     */
+    public static void validateThreshold(double threshold) throws FeedbackManagementClientException {
+
+        if (!(threshold > 0 && threshold <= 1)) {
+            throw FeedbackExceptionManagementUtil.buildClientException(
+                    ErrorMessages.ERROR_CODE_INVALID_SIMILARITY_THRESHOLD, String.valueOf(threshold));
+        }
+    }
+
+    /**
+     * Decode a signature encoded by {@link #encode()}.
+     *
+     * @param encodedSignature encoded signature
+     * @return Signature
+     */
+    public static MessageSignature decode(String encodedSignature) {
+
+        ByteBuffer buffer = ByteBuffer.wrap(Base64.getDecoder().decode(encodedSignature));
+        int[] values = new int[FeedbackMgtConstants.SIMILARITY_SIGNATURE_SIZE];
+        buffer.asIntBuffer().get(values);
+        return new MessageSignature(values);
+    }
+
+    /**
+     * Encode the signature as text to be stored.
+     *
+     * @return Encoded signature
+     */
+    public String encode() {
+
+        ByteBuffer buffer = ByteBuffer.allocate(values.length * Integer.BYTES);
+        buffer.asIntBuffer().put(values);
+        return Base64.getEncoder().encodeToString(buffer.array());
+    }
+
+    /**
+     * Get the keys of the buckets of the signature, one for each band. The band is kept in the high bits of a key, so
+     * that only the same bands of two signatures share a bucket.
+     *
+     * @return Bucket keys
+     */
+    public long[] getBucketKeys() {
+
+        long[] bucketKeys = new long[FeedbackMgtConstants.SIMILARITY_BAND_COUNT];
+        for (int band = 0; band < bucketKeys.length; band++) {
+            long bandHash = band;
+            for (int row = band * ROWS_PER_BAND; row < (band + 1) * ROWS_PER_BAND; row++) {
+                bandHash = mix(bandHash * 31 + values[row]);
+            }
+            bucketKeys[band] = ((long) band << 32) | (bandHash & 0xFFFFFFFFL);
+        }
+        return bucketKeys;
+    }
+
+    /**
+     * Estimate the similarity of the shingles of two messages from their signatures.
+     *
+     * @param other signature of the other message
+     * @return Estimated Jaccard similarity, from 0 to 1
+     */
+    public double estimateSimilarity(MessageSignature other) {
+
+        int equalValues = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == other.values[i]) {
+                equalValues++;
+            }
+        }
+        return (double) equalValues / values.length;
+    }
+
+    /**
+     * Hash a shingle with the 64-bit FNV-1a hash of its UTF-8 bytes.
+     *
+     * @param shingle shingle of a message
+     * @return Hash of the shingle
+     */
+    private static long hash(String shingle) {
+
+        long hash = 0xCBF29CE484222325L;
+        for (byte b : shingle.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001B3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Mix the bits of a value with the finalizer of SplitMix64.
+     *
+     * @param value value
+     * @return Mixed value
+     */
+    private static long mix(long value) {
+
+        long z = value;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
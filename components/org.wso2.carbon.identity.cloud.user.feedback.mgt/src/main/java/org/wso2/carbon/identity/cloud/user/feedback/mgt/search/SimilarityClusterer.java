@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.search;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.commons.lang3.tuple.Triple;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Groups feedback messages into clusters of near-duplicates using their MinHash signatures. The signatures are first
+ * grouped into the locality sensitive hashing buckets of their tenants, and only the signatures which share a bucket
+ * are compared, so that the comparisons grow with the sizes of the buckets instead of the square of the entries.
+ * Within a bucket, each signature is compared to the representatives of the bucket found so far, and becomes a new
+ * representative if it is similar to none of them. The similar pairs are then joined into clusters.
+ *
+ * The grouping and the comparisons run as fork-join tasks on the common pool.
+ */
+public class SimilarityClusterer {
+
+    private SimilarityClusterer() {
+
+    }
+
+    /**
+     * Cluster the feedback entries whose messages are near-duplicates.
+     *
+     * @param entries   UUID, tenant ID and message signature of each entry
+     * @param threshold minimum estimated similarity of two linked entries
+     * @return UUIDs of the entries of each cluster of two or more entries, the largest cluster first
+     */
+    public static List<List<String>> cluster(List<Triple<String, Integer, MessageSignature>> entries,
+                                             double threshold) {
+
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        Map<Pair<Integer, Long>, List<Integer>> buckets = pool.invoke(new BucketTask(entries, 0, entries.size()));
+        List<List<Integer>> sharedBuckets = new ArrayList<>();
+        for (List<Integer> bucket : buckets.values()) {
+            if (bucket.size() > 1) {
+                sharedBuckets.add(bucket);
+            }
+        }
+        List<int[]> links = pool.invoke(new LinkTask(entries, sharedBuckets, threshold, 0, sharedBuckets.size()));
+
+        int[] parents = new int[entries.size()];
+        for (int i = 0; i < parents.length; i++) {
+            parents[i] = i;
+        }
+        for (int[] link : links) {
+            parents[find(parents, link[0])] = find(parents, link[1]);
+        }
+
+        Map<Integer, List<String>> clustersByRoot = new HashMap<>();
+        for (int i = 0; i < entries.size(); i++) {
+            clustersByRoot.computeIfAbsent(find(parents, i), root -> new ArrayList<>()).add(entries.get(i).getLeft());
+        }
+        List<List<String>> clusters = new ArrayList<>();
+        for (List<String> cluster : clustersByRoot.values()) {
+            if (cluster.size() > 1) {
+                clusters.add(cluster);
+            }
+        }
+        clusters.sort(Comparator.comparing((List<String> cluster) -> cluster.size()).reversed()
+                .thenComparing(cluster -> cluster.get(0)));
+        return clusters;
+    }
+
+    /**
+     * Find the root of an entry in a union-find forest, halving the path on the way.
+     *
+     * @param parents parent of each entry
+     * @param entry   index of the entry
+     * @return Index of the root entry
+     */
+    private static int find(int[] parents, int entry) {
+
+        int current = entry;
+        while (parents[current] != current) {
+            parents[current] = parents[parents[current]];
+            current = parents[current];
+        }
+        return current;
+    }
+
+    /**
+     * Groups the indices of a range of entries by their tenant and bucket key.
+     */
+    private static class BucketTask extends RecursiveTask<Map<Pair<Integer, Long>, List<Integer>>> {
+
+        private final List<Triple<String, Integer, MessageSignature>> entries;
+        private final int from;
+        private final int to;
+
+        BucketTask(List<Triple<String, Integer, MessageSignature>> entries, int from, int to) {
+
+            this.entries = entries;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Map<Pair<Integer, Long>, List<Integer>> compute() {
+
+            if (to - from > FeedbackMgtConstants.SIMILARITY_CLUSTER_TASK_SIZE) {
+                int middle = (from + to) >>> 1;
+                BucketTask left = new BucketTask(entries, from, middle);
+                left.fork();
+                Map<Pair<Integer, Long>, List<Integer>> buckets = new BucketTask(entries, middle, to).compute();
+                Map<Pair<Integer, Long>, List<Integer>> leftBuckets = left.join();
+                // The indices of the left range are kept first, so that each bucket lists its entries in order.
+                for (Map.Entry<Pair<Integer, Long>, List<Integer>> bucket : buckets.entrySet()) {
+                    leftBuckets.merge(bucket.getKey(), bucket.getValue(), (leftIndices, rightIndices) -> {
+                        leftIndices.addAll(rightIndices);
+                        return leftIndices;
+                    });
+                }
+                return leftBuckets;
+            }
+
+            Map<Pair<Integer, Long>, List<Integer>> buckets = new HashMap<>();
+            for (int i = from; i < to; i++) {
+                Triple<String, Integer, MessageSignature> entry = entries.get(i);
+                for (long bucketKey : entry.getRight().getBucketKeys()) {
+                    buckets.computeIfAbsent(Pair.of(entry.getMiddle(), bucketKey), key -> new ArrayList<>()).add(i);
+                }
+            }
+            return buckets;
+        }
+    }
+
+    /**
+     * Links the similar entries of a range of buckets to the representatives of their buckets.
+     */
+    private static class LinkTask extends RecursiveTask<List<int[]>> {
+
+        private final List<Triple<String, Integer, MessageSignature>> entries;
+        private final List<List<Integer>> buckets;
+        private final double threshold;
+        private final int from;
+        private final int to;
+
+        LinkTask(List<Triple<String, Integer, MessageSignature>> entries, List<List<Integer>> buckets,
+                 double threshold, int from, int to) {
+
+            this.entries = entries;
+            this.buckets = buckets;
+            this.threshold = threshold;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<int[]> compute() {
+
+            if (to - from > FeedbackMgtConstants.SIMILARITY_CLUSTER_TASK_SIZE) {
+                int middle = (from + to) >>> 1;
+                LinkTask left = new LinkTask(entries, buckets, threshold, from, middle);
+                left.fork();
+                List<int[]> links = new LinkTask(entries, buckets, threshold, middle, to).compute();
+                links.addAll(left.join());
+                return links;
+            }
+
+            List<int[]> links = new ArrayList<>();
+            for (List<Integer> bucket : buckets.subList(from, to)) {
+                List<Integer> representatives = new ArrayList<>();
+                for (Integer entry : bucket) {
+                    MessageSignature signature = entries.get(entry).getRight();
+                    Integer similarRepresentative = null;
+                    for (Integer representative : representatives) {
+                        if (signature.estimateSimilarity(entries.get(representative).getRight()) >= threshold) {
+                            similarRepresentative = representative;
+                            break;
+                        }
+                    }
+                    if (similarRepresentative == null) {
+                        representatives.add(entry);
+                    } else {
+                        links.add(new int[]{entry, similarRepresentative});
+                    }
+                }
+            }
+            return links;
+        }
+    }
+}
@@ -23,6 +23,9 @@ import org.apache.axiom.om.impl.builder.StAXOMBuilder;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants.FeedbackIdGenerators;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants.FeedbackIdStorageFormats;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants.FeedbackStorageTypes;
 import org.wso2.carbon.identity.cloud.user.feedback.mgt.exception.FeedbackManagementRuntimeException;
 import org.wso2.carbon.utils.CarbonUtils;
 import org.wso2.carbon.utils.ServerConstants;
@@ -37,6 +40,7 @@ import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Stack;
 
@@ -51,6 +55,28 @@ import static org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.Feedback
 public class FeedbackConfigParser {
 
     private static final String DATA_SOURCE_NAME = "DataSource.Name";
+    private static final String TAG_CACHE_MAX_SIZE = "TagCache.MaxSize";
+    private static final String FEEDBACK_CACHE_MAX_SIZE = "FeedbackCache.MaxSize";
+    private static final String FEEDBACK_CACHE_TIME_TO_LIVE = "FeedbackCache.TimeToLive";
+    private static final String ASYNC_INGESTION_ENABLED = "AsyncIngestion.Enabled";
+    private static final String ASYNC_INGESTION_QUEUE_SIZE = "AsyncIngestion.QueueSize";
+    private static final String ASYNC_INGESTION_BATCH_SIZE = "AsyncIngestion.BatchSize";
+    private static final String ASYNC_INGESTION_LINGER_TIME = "AsyncIngestion.LingerTime";
+    private static final String COUNTER_RECONCILE_INTERVAL = "Counters.ReconcileInterval";
+    private static final String RETENTION_MAX_AGE = "Retention.MaxAge";
+    private static final String RETENTION_TENANT_MAX_AGE = "Retention.TenantMaxAge";
+    private static final String RETENTION_CHUNK_SIZE = "Retention.ChunkSize";
+    private static final String RETENTION_INTERVAL = "Retention.Interval";
+    private static final String FEEDBACK_ID_GENERATOR = "FeedbackId.Generator";
+    private static final String FEEDBACK_ID_STORAGE_FORMAT = "FeedbackId.StorageFormat";
+    private static final String ARCHIVE_DIRECTORY = "Archive.Directory";
+    private static final String ARCHIVE_MAX_AGE = "Archive.MaxAge";
+    private static final String ARCHIVE_CHUNK_SIZE = "Archive.ChunkSize";
+    private static final String ARCHIVE_INTERVAL = "Archive.Interval";
+    private static final String STORAGE_TYPE = "Storage.Type";
+    private static final String STORAGE_LOG_DIRECTORY = "Storage.LogDirectory";
+    private static final String STORAGE_LOG_SYNC = "Storage.LogSync";
+    private static final String STORAGE_LOG_COMPACTION_INTERVAL = "Storage.LogCompactionInterval";
     private static Map<String, Object> configuration = new HashMap<>();
     private static SecretResolver secretResolver;
     private static final Log log = LogFactory.getLog(FeedbackConfigParser.class);
@@ -72,6 +98,302 @@ public class FeedbackConfigParser {
         return configuration.get(DATA_SOURCE_NAME) == null ? null : configuration.get(DATA_SOURCE_NAME).toString();
     }
 
+    /**
+     * Get the maximum number of tags kept in the in-memory tag dictionary.
+     *
+     * @return maximum tag cache size
+     */
+    public int getTagCacheMaxSize() {
+
+        return getIntProperty(TAG_CACHE_MAX_SIZE, FeedbackMgtConstants.DEFAULT_TAG_CACHE_SIZE);
+    }
+
+    /**
+     * Get the maximum number of feedback entries kept in the in-memory feedback cache. A value of zero disables the
+     * cache.
+     *
+     * @return maximum feedback cache size
+     */
+    public int getFeedbackCacheMaxSize() {
+
+        return getIntProperty(FEEDBACK_CACHE_MAX_SIZE, FeedbackMgtConstants.DEFAULT_FEEDBACK_CACHE_SIZE);
+    }
+
+    /**
+     * Get the time in seconds a feedback entry is kept in the in-memory feedback cache.
+     *
+     * @return feedback cache time to live
+     */
+    public int getFeedbackCacheTimeToLive() {
+
+        return getIntProperty(FEEDBACK_CACHE_TIME_TO_LIVE, FeedbackMgtConstants.DEFAULT_FEEDBACK_CACHE_TIME_TO_LIVE);
+    }
+
+    /**
+     * Check whether feedback submissions are written asynchronously through the ingestion queue.
+     *
+     * @return true if asynchronous ingestion is enabled
+     */
+    public boolean isAsyncIngestionEnabled() {
+
+        Object value = configuration.get(ASYNC_INGESTION_ENABLED);
+        return value != null && Boolean.parseBoolean(value.toString().trim());
+    }
+
+    /**
+     * Get the maximum number of feedback entries waiting in the ingestion queue.
+     *
+     * @return ingestion queue size
+     */
+    public int getAsyncIngestionQueueSize() {
+
+        return getIntProperty(ASYNC_INGESTION_QUEUE_SIZE, FeedbackMgtConstants.DEFAULT_INGESTION_QUEUE_SIZE);
+    }
+
+    /**
+     * Get the maximum number of feedback entries written in a single transaction by the ingestion queue.
+     *
+     * @return ingestion batch size
+     */
+    public int getAsyncIngestionBatchSize() {
+
+        return getIntProperty(ASYNC_INGESTION_BATCH_SIZE, FeedbackMgtConstants.DEFAULT_INGESTION_BATCH_SIZE);
+    }
+
+    /**
+     * Get the time in milliseconds the ingestion queue waits for a batch to fill up before writing it.
+     *
+     * @return ingestion linger time
+     */
+    public int getAsyncIngestionLingerTime() {
+
+        return getIntProperty(ASYNC_INGESTION_LINGER_TIME, FeedbackMgtConstants.DEFAULT_INGESTION_LINGER_TIME);
+    }
+
+    /**
+     * Get the interval in seconds between two reconciliations of the feedback counters. A value of zero or less
+     * disables the periodic reconciliation.
+     *
+     * @return counter reconciliation interval
+     */
+    public int getCounterReconcileInterval() {
+
+        return getIntProperty(COUNTER_RECONCILE_INTERVAL, FeedbackMgtConstants.DEFAULT_COUNTER_RECONCILE_INTERVAL);
+    }
+
+    /**
+     * Get the maximum age in days of the feedback entries of the tenants without a maximum age of their own. A value
+     * of zero or less keeps the entries forever.
+     *
+     * @return default retention maximum age
+     */
+    public int getRetentionMaxAge() {
+
+        return getIntProperty(RETENTION_MAX_AGE, FeedbackMgtConstants.DEFAULT_RETENTION_MAX_AGE);
+    }
+
+    /**
+     * Get the maximum ages in days of the feedback entries of the tenants which override the default maximum age.
+     * Each override is configured as a TenantMaxAge element with the value tenantId:maxAge.
+     *
+     * @return Map of tenant ID to the maximum age of the entries of the tenant
+     */
+    public Map<Integer, Integer> getRetentionTenantMaxAges() {
+
+        Object value = configuration.get(RETENTION_TENANT_MAX_AGE);
+        List<Object> overrides = new ArrayList<>();
+        if (value instanceof List) {
+            overrides.addAll((List<?>) value);
+        } else if (value != null) {
+            overrides.add(value);
+        }
+
+        Map<Integer, Integer> tenantMaxAges = new HashMap<>();
+        for (Object override : overrides) {
+            String[] parts = override.toString().split(FeedbackMgtConstants.RETENTION_TENANT_MAX_AGE_SEPARATOR, 2);
+            try {
+                tenantMaxAges.put(Integer.parseInt(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                log.warn("Invalid value: " + override + " configured for " + RETENTION_TENANT_MAX_AGE +
+                        ". The value should be of the form tenantId" +
+                        FeedbackMgtConstants.RETENTION_TENANT_MAX_AGE_SEPARATOR + "maxAge.");
+            }
+        }
+        return tenantMaxAges;
+    }
+
+    /**
+     * Get the maximum number of feedback entries purged in a single transaction by the retention job.
+     *
+     * @return retention chunk size
+     */
+    public int getRetentionChunkSize() {
+
+        return getIntProperty(RETENTION_CHUNK_SIZE, FeedbackMgtConstants.DEFAULT_RETENTION_CHUNK_SIZE);
+    }
+
+    /**
+     * Get the interval in seconds between two runs of the retention job.
+     *
+     * @return retention interval
+     */
+    public int getRetentionInterval() {
+
+        return getIntProperty(RETENTION_INTERVAL, FeedbackMgtConstants.DEFAULT_RETENTION_INTERVAL);
+    }
+
+    /**
+     * Get the generator of the resource IDs of new feedback entries.
+     *
+     * @return feedback ID generator
+     */
+    public FeedbackIdGenerators getFeedbackIdGenerator() {
+
+        return getEnumProperty(FEEDBACK_ID_GENERATOR, FeedbackIdGenerators.class, FeedbackIdGenerators.random);
+    }
+
+    /**
+     * Get the format the resource IDs of the feedback entries are stored in, which should match the type of the UUID
+     * column of the feedback table.
+     *
+     * @return feedback ID storage format
+     */
+    public FeedbackIdStorageFormats getFeedbackIdStorageFormat() {
+
+        return getEnumProperty(FEEDBACK_ID_STORAGE_FORMAT, FeedbackIdStorageFormats.class,
+                FeedbackIdStorageFormats.string);
+    }
+
+    /**
+     * Get the directory of the segment files of the feedback archive.
+     *
+     * @return archive directory, or null if the archive is not configured
+     */
+    public String getArchiveDirectory() {
+
+        Object value = configuration.get(ARCHIVE_DIRECTORY);
+        return value == null || value.toString().trim().isEmpty() ? null : value.toString().trim();
+    }
+
+    /**
+     * Get the maximum age in days of the feedback entries kept in the feedback table, after which they are archived.
+     *
+     * @return archive maximum age
+     */
+    public int getArchiveMaxAge() {
+
+        return getIntProperty(ARCHIVE_MAX_AGE, FeedbackMgtConstants.DEFAULT_ARCHIVE_MAX_AGE);
+    }
+
+    /**
+     * Get the maximum number of feedback entries archived in a single segment.
+     *
+     * @return archive chunk size
+     */
+    public int getArchiveChunkSize() {
+
+        return getIntProperty(ARCHIVE_CHUNK_SIZE, FeedbackMgtConstants.DEFAULT_ARCHIVE_CHUNK_SIZE);
+    }
+
+    /**
+     * Get the interval in seconds between two runs of the archive job.
+     *
+     * @return archive interval
+     */
+    public int getArchiveInterval() {
+
+        return getIntProperty(ARCHIVE_INTERVAL, FeedbackMgtConstants.DEFAULT_ARCHIVE_INTERVAL);
+    }
+
+    /**
+     * Get the type of the storage of the feedback entries.
+     *
+     * @return feedback storage type
+     */
+    public FeedbackStorageTypes getStorageType() {
+
+        return getEnumProperty(STORAGE_TYPE, FeedbackStorageTypes.class, FeedbackStorageTypes.jdbc);
+    }
+
+    /**
+     * Get the directory of the log file of the log storage.
+     *
+     * @return log directory, or null if it is not configured
+     */
+    public String getStorageLogDirectory() {
+
+        Object value = configuration.get(STORAGE_LOG_DIRECTORY);
+        return value == null || value.toString().trim().isEmpty() ? null : value.toString().trim();
+    }
+
+    /**
+     * Check whether each write to the log of the log storage is forced to the storage device before it completes.
+     * Otherwise the writes of the last moments before a crash of the host may be lost.
+     *
+     * @return true if the writes are synchronous, which is the default
+     */
+    public boolean isStorageLogSync() {
+
+        Object value = configuration.get(STORAGE_LOG_SYNC);
+        return value == null || Boolean.parseBoolean(value.toString().trim());
+    }
+
+    /**
+     * Get the interval in seconds between two checks of whether the log of the log storage is to be compacted.
+     *
+     * @return log compaction interval
+     */
+    public int getStorageLogCompactionInterval() {
+
+        return getIntProperty(STORAGE_LOG_COMPACTION_INTERVAL,
+                FeedbackMgtConstants.DEFAULT_FEEDBACK_LOG_COMPACTION_INTERVAL);
+    }
+
+    /**
+     * Get an integer configuration value.
+     *
+     * @param key          configuration key
+     * @param defaultValue value to be used if the configuration is not available or invalid
+     * @return configured value, or the default value
+     */
+    private int getIntProperty(String key, int defaultValue) {
+
+        Object value = configuration.get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.toString().trim());
+        } catch (NumberFormatException e) {
+            log.warn("Invalid value: " + value + " configured for " + key + ". Using the default value: " +
+                    defaultValue);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Get an enum configuration value, matched to the enum constants in lower case.
+     *
+     * @param key          configuration key
+     * @param enumType     type of the enum
+     * @param defaultValue value to be used if the configuration is not available or invalid
+     * @return configured value, or the default value
+     */
+    private <E extends Enum<E>> E getEnumProperty(String key, Class<E> enumType, E defaultValue) {
+
+        Object value = configuration.get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Enum.valueOf(enumType, value.toString().trim().toLowerCase());
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid value: " + value + " configured for " + key + ". Using the default value: " +
+                    defaultValue);
+            return defaultValue;
+        }
+    }
+
     private void buildConfiguration() {
 
         InputStream inStream = null;
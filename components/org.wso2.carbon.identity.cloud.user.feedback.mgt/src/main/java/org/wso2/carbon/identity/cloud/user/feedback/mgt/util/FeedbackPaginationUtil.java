@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.util;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants.ErrorMessages;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.exception.FeedbackManagementException;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.regex.Pattern;
+
+/**
+ * A util class to validate the pagination parameters of the feedback listings and to encode and decode the cursors
+ * of the pages, which are shared by the implementations of the feedback DAO.
+ */
+public class FeedbackPaginationUtil {
+
+    private static final Log log = LogFactory.getLog(FeedbackPaginationUtil.class);
+
+    /**
+     * Validate the limit value for pagination.
+     *
+     * @param limit Count value.
+     * @return Validated limit value
+     * @throws FeedbackManagementException
+     */
+    public static int validateLimitForPagination(int limit) throws FeedbackManagementException {
+
+        if (limit == 0) {
+            limit = FeedbackMgtConstants.DEFAULT_SEARCH_LIMIT;
+            if (log.isDebugEnabled()) {
+                log.debug("Limit is not defined the request, hence set to default value: " + limit);
+            }
+        } else if (limit < 0) {
+            throw FeedbackExceptionManagementUtil.buildClientException(ErrorMessages.ERROR_CODE_INVALID_LIMIT,
+                    String.valueOf(limit));
+        }
+        return limit;
+    }
+
+    /**
+     * Validate the offset value for pagination.
+     *
+     * @param offset Starting index.
+     * @return Validated offset value
+     * @throws FeedbackManagementException
+     */
+    public static int validateOffsetForPagination(int offset) throws FeedbackManagementException {
+
+        if (offset < 0) {
+            throw FeedbackExceptionManagementUtil.buildClientException(ErrorMessages.ERROR_CODE_INVALID_OFFSET,
+                    String.valueOf(offset));
+        }
+        return offset;
+    }
+
+    /**
+     * Validate the attribute provided to sort by.
+     *
+     * @param sortBy attribute by which sorting should be done
+     * @return Validated sortBy attribute
+     * @throws FeedbackManagementException
+     */
+    public static String validateSortingAttribute(String sortBy) throws FeedbackManagementException {
+
+        // If sortBy is not provided, it is set to the default value
+        if (sortBy == null || sortBy.isEmpty()) {
+            sortBy = FeedbackMgtConstants.DEFAULT_SORT_BY;
+
+        } else if (!isSortableAttribute(sortBy)) {
+            throw FeedbackExceptionManagementUtil
+                    .buildClientException(ErrorMessages.ERROR_CODE_UNSUPPORTED_SORT_BY_ATTRIBUTE, sortBy);
+        }
+
+        return sortBy;
+    }
+
+    /**
+     * Validate the sort order parameter.
+     *
+     * @param sortOrder how the retrieved records should be ordered
+     * @return Validated sortOrder parameter
+     * @throws FeedbackManagementException
+     */
+    public static String validateSortingOrder(String sortOrder) throws FeedbackManagementException {
+
+        //If sortOrder is not provided, it is set to the default value
+        if (sortOrder == null || sortOrder.isEmpty()) {
+            sortOrder = FeedbackMgtConstants.DEFAULT_SORT_ORDER;
+        } else if (!isValidSortOrder(sortOrder)) {
+            throw FeedbackExceptionManagementUtil
+                    .buildClientException(ErrorMessages.ERROR_CODE_INVALID_SORT_ORDER, sortOrder);
+        }
+        return sortOrder;
+    }
+
+    /**
+     * Check whether a validated sortBy attribute sorts the entries by their creation time rather than by their IDs.
+     *
+     * @param sortBy validated sortBy attribute
+     * @return true if the entries are sorted by their creation time
+     */
+    public static boolean isSortedByTimeCreated(String sortBy) {
+
+        return FeedbackMgtConstants.SortableAttributes.time_created.name().equalsIgnoreCase(sortBy.trim());
+    }
+
+    /**
+     * Check whether a validated sort order is the descending order.
+     *
+     * @param sortOrder validated sort order
+     * @return true if the entries are sorted in the descending order
+     */
+    public static boolean isDescending(String sortOrder) {
+
+        return FeedbackMgtConstants.SortOrderOperators.desc.name().equalsIgnoreCase(sortOrder.trim());
+    }
+
+    /**
+     * Build the opaque cursor pointing to the given record.
+     *
+     * @param sortBy      validated sortBy attribute, in lower case
+     * @param sortOrder   validated sort order, in upper case
+     * @param id          auto-generated ID of the feedback record
+     * @param timeCreated time the feedback record was created
+     * @return cursor pointing to the record
+     */
+    public static String encodeCursor(String sortBy, String sortOrder, int id, Timestamp timeCreated) {
+
+        StringBuilder cursor = new StringBuilder(sortBy).append(FeedbackMgtConstants.CURSOR_SEPARATOR)
+                .append(sortOrder).append(FeedbackMgtConstants.CURSOR_SEPARATOR).append(id);
+        if (FeedbackMgtConstants.SortableAttributes.time_created.name().equals(sortBy)) {
+            cursor.append(FeedbackMgtConstants.CURSOR_SEPARATOR).append(timeCreated);
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(cursor.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode the position of the record a cursor points to. A cursor is valid only with the sorting parameters it
+     * was built for.
+     *
+     * @param cursor    cursor returned with the previous page
+     * @param sortBy    validated sortBy attribute, in lower case
+     * @param sortOrder validated sort order, in upper case
+     * @return Pair of the ID of the record and its time of creation, which is null unless the records are sorted by
+     * the time of creation
+     * @throws FeedbackManagementException
+     */
+    public static Pair<Integer, Timestamp> decodeCursor(String cursor, String sortBy, String sortOrder)
+            throws FeedbackManagementException {
+
+        boolean sortByTimeCreated = FeedbackMgtConstants.SortableAttributes.time_created.name().equals(sortBy);
+        try {
+            String[] cursorArgs = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8)
+                    .split(Pattern.quote(FeedbackMgtConstants.CURSOR_SEPARATOR));
+            if (cursorArgs.length != (sortByTimeCreated ? 4 : 3) || !cursorArgs[0].equals(sortBy) ||
+                    !cursorArgs[1].equals(sortOrder)) {
+                throw FeedbackExceptionManagementUtil
+                        .buildClientException(ErrorMessages.ERROR_CODE_INVALID_CURSOR, cursor);
+            }
+            return Pair.of(Integer.valueOf(cursorArgs[2]), sortByTimeCreated ? Timestamp.valueOf(cursorArgs[3]) : null);
+        } catch (IllegalArgumentException e) {
+            throw FeedbackExceptionManagementUtil
+                    .buildClientException(ErrorMessages.ERROR_CODE_INVALID_CURSOR, cursor, e);
+        }
+    }
+
+    /**
+     * Check if provided sortBy attribute is supported.
+     *
+     * @param attribute by which sorting should be done
+     * @return true if sort by attribute is supported
+     */
+    private static boolean isSortableAttribute(String attribute) {
+
+        return Arrays.stream(FeedbackMgtConstants.SortableAttributes.values())
+                .anyMatch(sortableAttribute -> sortableAttribute.name().equals(attribute.toLowerCase()));
+    }
+
+    /**
+     * Check if provided sortBy attribute is supported.
+     *
+     * @param sortOrder by which records should be ordered
+     * @return true if sort order value is supported
+     */
+    private static boolean isValidSortOrder(String sortOrder) {
+
+        return Arrays.stream(FeedbackMgtConstants.SortOrderOperators.values())
+                .anyMatch(sortableAttribute -> sortableAttribute.name().equals(sortOrder.toLowerCase()));
+    }
+}
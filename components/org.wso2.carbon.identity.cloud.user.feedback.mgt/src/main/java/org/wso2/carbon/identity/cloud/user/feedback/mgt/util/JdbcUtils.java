@@ -18,21 +18,327 @@
 
 package org.wso2.carbon.identity.cloud.user.feedback.mgt.util;
 
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.database.utils.jdbc.JdbcTemplate;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants.ErrorMessages;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants.FeedbackIdStorageFormats;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.exception.FeedbackManagementException;
 import org.wso2.carbon.identity.cloud.user.feedback.mgt.internal.FeedbackManagementServiceDataHolder;
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
 /**
  * A util class to support the JDBC executions.
  */
 public class JdbcUtils {
 
+    private static final Log log = LogFactory.getLog(JdbcUtils.class);
+    private static final ThreadLocal<TransactionContext> TRANSACTION_CONTEXT = new ThreadLocal<>();
+
     /**
-     * Get a new Jdbc Template.
+     * Get a new Jdbc Template. Within a transaction started by {@link #executeInTransaction}, the template uses the
+     * connection of that transaction.
      *
      * @return a new Jdbc Template.
      */
     public static JdbcTemplate getNewTemplate() {
 
+        TransactionContext transactionContext = TRANSACTION_CONTEXT.get();
+        if (transactionContext != null) {
+            return new JdbcTemplate(transactionContext.getDataSource());
+        }
         return new JdbcTemplate(FeedbackManagementServiceDataHolder.getInstance().getDataSource());
     }
+
+    /**
+     * Execute an operation within a transaction, using a single connection for all the database calls made by the
+     * operation. The transaction is committed once the operation completes and rolled back if it fails. If a
+     * transaction is already active in the current thread, the operation joins it.
+     *
+     * @param operation operation to be executed
+     * @return result of the operation
+     * @throws FeedbackManagementException
+     */
+    public static <T> T executeInTransaction(TransactionalOperation<T> operation)
+            throws FeedbackManagementException {
+
+        if (TRANSACTION_CONTEXT.get() != null) {
+            return operation.execute();
+        }
+
+        DataSource dataSource = FeedbackManagementServiceDataHolder.getInstance().getDataSource();
+        Connection connection;
+        try {
+            connection = dataSource.getConnection();
+            connection.setAutoCommit(false);
+        } catch (SQLException e) {
+            throw FeedbackExceptionManagementUtil.buildServerException(ErrorMessages.ERROR_CODE_EXECUTE_TRANSACTION,
+                    e);
+        }
+
+        TransactionContext transactionContext = new TransactionContext(dataSource, connection);
+        TRANSACTION_CONTEXT.set(transactionContext);
+        boolean committed = false;
+        try {
+            T result = operation.execute();
+            connection.commit();
+            committed = true;
+            return result;
+        } catch (SQLException e) {
+            throw FeedbackExceptionManagementUtil.buildServerException(ErrorMessages.ERROR_CODE_EXECUTE_TRANSACTION,
+                    e);
+        } finally {
+            TRANSACTION_CONTEXT.remove();
+            if (!committed) {
+                rollback(connection);
+            }
+            close(connection);
+            if (committed) {
+                transactionContext.runAfterCommitActions();
+            }
+        }
+    }
+
+    /**
+     * Execute an operation which is expected to fail on a race, such as an insert of a row which may have been added
+     * concurrently. Within a transaction, the operation runs under a savepoint, which is rolled back if it fails, so
+     * that the transaction can continue after the failure. Some databases, such as PostgreSQL, reject every further
+     * statement of a transaction once a statement has failed. Without a transaction, the operation is executed as is.
+     *
+     * @param operation operation to be executed
+     * @return result of the operation
+     * @throws E
+     * @throws FeedbackManagementException
+     */
+    public static <T, E extends Exception> T executeWithSavepoint(SavepointOperation<T, E> operation)
+            throws E, FeedbackManagementException {
+
+        TransactionContext transactionContext = TRANSACTION_CONTEXT.get();
+        if (transactionContext == null) {
+            return operation.execute();
+        }
+
+        Connection connection = transactionContext.getConnection();
+        Savepoint savepoint;
+        try {
+            savepoint = connection.setSavepoint();
+        } catch (SQLException e) {
+            throw FeedbackExceptionManagementUtil.buildServerException(ErrorMessages.ERROR_CODE_EXECUTE_TRANSACTION,
+                    e);
+        }
+        int afterCommitActionCount = transactionContext.getAfterCommitActionCount();
+        T result;
+        try {
+            result = operation.execute();
+        } catch (Exception e) {
+            transactionContext.discardAfterCommitActions(afterCommitActionCount);
+            try {
+                connection.rollback(savepoint);
+            } catch (SQLException rollbackException) {
+                log.error("Error while rolling back to the savepoint.", rollbackException);
+            }
+            throw e;
+        }
+        try {
+            connection.releaseSavepoint(savepoint);
+        } catch (SQLException e) {
+            // Some drivers do not support releasing a savepoint, which is then released with the transaction.
+            if (log.isDebugEnabled()) {
+                log.debug("Error while releasing the savepoint.", e);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Run an action once the current transaction is committed, or immediately if there is no active transaction.
+     * This is used to keep in-memory state, such as caches, from seeing changes which may be rolled back.
+     *
+     * @param action action to be run
+     */
+    public static void runAfterCommit(Runnable action) {
+
+        TransactionContext transactionContext = TRANSACTION_CONTEXT.get();
+        if (transactionContext != null) {
+            transactionContext.addAfterCommitAction(action);
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Build a comma separated list of bind parameter placeholders to be used in an IN clause.
+     *
+     * @param count number of placeholders
+     * @return placeholders string, e.g. "?,?,?"
+     */
+    public static String buildPlaceholders(int count) {
+
+        return StringUtils.repeat("?", ",", count);
+    }
+
+    /**
+     * Convert a feedback resource ID to the value it is stored as, which is the ID itself in the string storage format
+     * and the 16 bytes of the UUID in the binary storage format. The value is bound to a statement with setObject.
+     *
+     * @param uuid feedback resource ID
+     * @return stored value of the ID, or null if the ID is not a UUID in the binary storage format, which matches no
+     * stored feedback
+     */
+    public static Object toStoredUuid(String uuid) {
+
+        if (!isBinaryUuidStorage()) {
+            return uuid;
+        }
+        UUID parsedUuid;
+        try {
+            parsedUuid = UUID.fromString(uuid);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return null;
+        }
+        return ByteBuffer.allocate(16).putLong(parsedUuid.getMostSignificantBits())
+                .putLong(parsedUuid.getLeastSignificantBits()).array();
+    }
+
+    /**
+     * Read a feedback resource ID stored in the configured storage format from a column of a result set.
+     *
+     * @param resultSet   result set
+     * @param columnIndex index of the UUID column
+     * @return feedback resource ID
+     * @throws SQLException
+     */
+    public static String getStoredUuid(ResultSet resultSet, int columnIndex) throws SQLException {
+
+        if (!isBinaryUuidStorage()) {
+            return resultSet.getString(columnIndex);
+        }
+        byte[] bytes = resultSet.getBytes(columnIndex);
+        if (bytes == null) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong()).toString();
+    }
+
+    private static boolean isBinaryUuidStorage() {
+
+        return FeedbackManagementServiceDataHolder.getInstance().getFeedbackIdStorageFormat() ==
+                FeedbackIdStorageFormats.binary;
+    }
+
+    private static void rollback(Connection connection) {
+
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            log.error("Error while rolling back the transaction.", e);
+        }
+    }
+
+    private static void close(Connection connection) {
+
+        try {
+            connection.setAutoCommit(true);
+        } catch (SQLException e) {
+            log.error("Error while resetting the auto commit mode of the connection.", e);
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            log.error("Error while closing the connection.", e);
+        }
+    }
+
+    /**
+     * State of a transaction bound to a thread. The data source of the context hands out the connection of the
+     * transaction, wrapped so that the templates using it cannot commit, roll back or close it.
+     */
+    private static class TransactionContext {
+
+        private final DataSource dataSource;
+        private final Connection connection;
+        private final List<Runnable> afterCommitActions = new ArrayList<>();
+
+        TransactionContext(DataSource targetDataSource, Connection connection) {
+
+            this.connection = connection;
+            Connection boundConnection = (Connection) Proxy.newProxyInstance(JdbcUtils.class.getClassLoader(),
+                    new Class[]{Connection.class}, (proxy, method, args) -> {
+                        if (isTransactionControl(method)) {
+                            return null;
+                        }
+                        return invoke(connection, method, args);
+                    });
+            this.dataSource = (DataSource) Proxy.newProxyInstance(JdbcUtils.class.getClassLoader(),
+                    new Class[]{DataSource.class}, (proxy, method, args) -> {
+                        if ("getConnection".equals(method.getName())) {
+                            return boundConnection;
+                        }
+                        return invoke(targetDataSource, method, args);
+                    });
+        }
+
+        DataSource getDataSource() {
+
+            return dataSource;
+        }
+
+        Connection getConnection() {
+
+            return connection;
+        }
+
+        int getAfterCommitActionCount() {
+
+            return afterCommitActions.size();
+        }
+
+        void discardAfterCommitActions(int fromIndex) {
+
+            afterCommitActions.subList(fromIndex, afterCommitActions.size()).clear();
+        }
+
+        void addAfterCommitAction(Runnable action) {
+
+            afterCommitActions.add(action);
+        }
+
+        void runAfterCommitActions() {
+
+            for (Runnable action : afterCommitActions) {
+                action.run();
+            }
+        }
+
+        private static boolean isTransactionControl(Method method) {
+
+            String name = method.getName();
+            return "close".equals(name) || "commit".equals(name) || "setAutoCommit".equals(name) ||
+                    ("rollback".equals(name) && method.getParameterCount() == 0);
+        }
+
+        private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
 }
@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.util;
+
+/**
+ * An operation executed under a savepoint by {@link JdbcUtils#executeWithSavepoint}.
+ *
+ * @param <T> type of the result of the operation
+ * @param <E> type of the exception thrown by the operation
+ */
+@FunctionalInterface
+public interface SavepointOperation<T, E extends Exception> {
+
+    /**
+     * Execute the operation.
+     *
+     * @return result of the operation
+     * @throws E
+     */
+    T execute() throws E;
+}
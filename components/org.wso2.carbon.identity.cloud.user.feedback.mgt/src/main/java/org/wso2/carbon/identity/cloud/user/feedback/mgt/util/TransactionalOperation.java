@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.util;
+
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.exception.FeedbackManagementException;
+
+/**
+ * An operation executed within a transaction started by {@link JdbcUtils#executeInTransaction}.
+ *
+ * @param <T> type of the result of the operation
+ */
+@FunctionalInterface
+public interface TransactionalOperation<T> {
+
+    /**
+     * Execute the operation.
+     *
+     * @return result of the operation
+     * @throws FeedbackManagementException
+     */
+    T execute() throws FeedbackManagementException;
+}
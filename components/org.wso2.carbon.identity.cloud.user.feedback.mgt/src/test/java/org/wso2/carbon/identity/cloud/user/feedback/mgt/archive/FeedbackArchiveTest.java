@@ -0,0 +1,328 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.archive;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants.ErrorMessages;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.exception.FeedbackManagementClientException;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.filter.FilterExpression;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.Feedback;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.FeedbackRetentionPolicy;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.search.MessageQuery;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class FeedbackArchiveTest {
+
+    private Path directory;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+
+        directory = Files.createTempDirectory("feedback-archive");
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Test
+    public void testSegment() throws Exception {
+
+        // Enough entries for several blocks and several entries of the sparse index of resource IDs.
+        List<Feedback> entries = createEntries(1, 300);
+        Path path = directory.resolve("segment.seg");
+        FeedbackArchiveSegment.write(path, 0, 300, entries);
+
+        FeedbackArchiveSegment segment = FeedbackArchiveSegment.open(path);
+        Assert.assertEquals(segment.getFromId(), 0);
+        Assert.assertEquals(segment.getToId(), 300);
+        Assert.assertEquals(segment.getEntryCount(), 300);
+        Assert.assertTrue(segment.getBlockCount() > 1);
+        for (Feedback feedback : entries) {
+            Feedback archivedFeedback = segment.getEntry(feedback.getUuid());
+            Assert.assertNotNull(archivedFeedback);
+            Assert.assertEquals(archivedFeedback.getId(), feedback.getId());
+            Assert.assertEquals(archivedFeedback.getMessage(), feedback.getMessage());
+            Assert.assertEquals(archivedFeedback.getContactNo(), feedback.getContactNo());
+            Assert.assertEquals(archivedFeedback.getTags(), feedback.getTags());
+            Assert.assertEquals(archivedFeedback.getTimeCreated(), feedback.getTimeCreated());
+        }
+        Assert.assertNull(segment.getEntry("00000000-0000-0000-0000-000000000000"));
+        Assert.assertNull(segment.getEntry("ffffffff-ffff-ffff-ffff-ffffffffffff"));
+
+        Assert.assertEquals(segment.getCountsByTenant().get(1).intValue(), 150);
+        Assert.assertEquals(segment.getCountsByTenant().get(2).intValue(), 150);
+        Assert.assertEquals(segment.getCountsByTag(1).get("bug").intValue(), 50);
+        Assert.assertEquals(segment.getCountsByDay(2).get(LocalDate.of(2020, 1, 1)).intValue(), 12);
+    }
+
+    @Test
+    public void testArchive() throws Exception {
+
+        FeedbackArchive archive = new FeedbackArchive(directory);
+        Assert.assertTrue(archive.isEmpty());
+        archive.addSegment(0, 300, createEntries(1, 300));
+        archive.addSegment(300, 400, createEntries(301, 100));
+        Assert.assertEquals(archive.getLastArchivedId(), 400);
+
+        // The segments are opened again in the order of their ranges of IDs.
+        archive = new FeedbackArchive(directory);
+        Assert.assertEquals(archive.getLastArchivedId(), 400);
+        Assert.assertEquals(archive.getEntry(null, uuid(350)).getId().intValue(), 350);
+        Assert.assertEquals(archive.getEntry(2, uuid(350)).getId().intValue(), 350);
+        Assert.assertNull(archive.getEntry(1, uuid(350)));
+
+        List<Feedback> page = archive.listEntries(1, null, false, true, 3);
+        Assert.assertEquals(getIds(page), Arrays.asList(399, 397, 395));
+        page = archive.listEntries(null, null, true, false, 3);
+        Assert.assertEquals(getIds(page), Arrays.asList(1, 2, 3));
+        page = archive.listEntries(null, FilterExpression.parse("tag eq bug and time_created ge 2020-01-10"),
+                true, true, 400);
+        Assert.assertEquals(page.size(), 58);
+        Assert.assertEquals(page.get(0).getId().intValue(), 399);
+        Assert.assertTrue(page.stream().allMatch(feedback -> feedback.getTags().contains("bug")));
+
+        Assert.assertEquals(archive.countEntries(null, null), 400);
+        Assert.assertEquals(archive.countEntries(1, FilterExpression.parse("message phrase \"number 1\"")), 1);
+        Assert.assertEquals(archive.countEntries(2, FilterExpression.parse("message co FEEDBACK")), 200);
+        Assert.assertEquals(archive.getCount(1, "bug"), 67);
+        Assert.assertEquals(archive.getCountsByTag(null).get("ui").intValue(), 267);
+        Assert.assertEquals(archive.getCountsByTenant().get(2).intValue(), 200);
+        Assert.assertEquals(archive.getCountsByDay(null, LocalDate.of(2020, 1, 15),
+                LocalDate.of(2020, 1, 20)).size(), 2);
+
+        archive.removeLastSegment();
+        Assert.assertEquals(archive.getLastArchivedId(), 300);
+        Assert.assertNull(archive.getEntry(null, uuid(350)));
+        Assert.assertEquals(new FeedbackArchive(directory).countEntries(null, null), 300);
+    }
+
+    @Test
+    public void testListEntriesByTime() throws Exception {
+
+        FeedbackArchive archive = new FeedbackArchive(directory);
+        List<Feedback> entries = createEntries(1, 300);
+        // The later entries are created first, so that the order of the creation times is not the order of the IDs.
+        for (Feedback feedback : entries) {
+            feedback.setTimeCreated(LocalDate.of(2020, 3, 1).minusDays(feedback.getId() / 25) + " 10:00:00.0");
+        }
+        archive.addSegment(0, 200, entries.subList(0, 200));
+        archive.addSegment(200, 300, entries.subList(200, 300));
+
+        for (boolean descending : new boolean[]{false, true}) {
+            List<Feedback> sortedEntries = new ArrayList<>(entries);
+            sortedEntries.sort(FeedbackArchive.getComparator(true, descending));
+            Assert.assertEquals(getIds(archive.listEntries(null, null, true, descending, 30)),
+                    getIds(sortedEntries.subList(0, 30)));
+
+            Feedback lastFeedback = sortedEntries.get(29);
+            Pair<Integer, Timestamp> position = Pair.of(lastFeedback.getId(),
+                    Timestamp.valueOf(lastFeedback.getTimeCreated()));
+            Assert.assertEquals(getIds(archive.listEntries(null, null, true, descending, position, 30)),
+                    getIds(sortedEntries.subList(30, 60)));
+        }
+
+        Pair<Integer, Timestamp> position = Pair.of(201, null);
+        Assert.assertEquals(getIds(archive.listEntries(null, null, false, true, position, 3)),
+                Arrays.asList(200, 199, 198));
+        Assert.assertEquals(getIds(archive.listEntries(1, null, false, false, position, 3)),
+                Arrays.asList(203, 205, 207));
+    }
+
+    @Test
+    public void testListEntriesWithOffset() throws Exception {
+
+        FeedbackArchive archive = new FeedbackArchive(directory);
+        List<Feedback> entries = createEntries(1, 300);
+        for (Feedback feedback : entries) {
+            feedback.setTimeCreated(LocalDate.of(2020, 3, 1).minusDays(feedback.getId() / 25) + " 10:00:00.0");
+        }
+        archive.addSegment(0, 200, entries.subList(0, 200));
+        archive.addSegment(200, 300, entries.subList(200, 300));
+        FilterExpression filter = FilterExpression.parse("tag eq bug");
+
+        for (boolean sortByTime : new boolean[]{false, true}) {
+            for (boolean descending : new boolean[]{false, true}) {
+                List<Feedback> sortedEntries = new ArrayList<>(entries);
+                sortedEntries.sort(FeedbackArchive.getComparator(sortByTime, descending));
+                List<Feedback> tenantEntries = sortedEntries.stream().filter(feedback -> feedback.getTenantId() == 1)
+                        .collect(Collectors.toList());
+                List<Feedback> bugEntries = sortedEntries.stream().filter(filter::matches)
+                        .collect(Collectors.toList());
+                for (int offset : new int[]{0, 25, 140, 190, 295, 300, 400}) {
+                    List<Feedback> page = new ArrayList<>();
+                    Assert.assertEquals(archive.listEntries(null, null, sortByTime, descending, offset, 30, page),
+                            Math.min(offset, 300));
+                    Assert.assertEquals(getIds(page),
+                            getIds(sortedEntries.subList(Math.min(offset, 300), Math.min(offset + 30, 300))));
+
+                    page = new ArrayList<>();
+                    Assert.assertEquals(archive.listEntries(1, null, sortByTime, descending, offset, 30, page),
+                            Math.min(offset, 150));
+                    Assert.assertEquals(getIds(page),
+                            getIds(tenantEntries.subList(Math.min(offset, 150), Math.min(offset + 30, 150))));
+
+                    page = new ArrayList<>();
+                    Assert.assertEquals(archive.listEntries(null, filter, sortByTime, descending, offset, 30, page),
+                            Math.min(offset, 100));
+                    Assert.assertEquals(getIds(page),
+                            getIds(bugEntries.subList(Math.min(offset, 100), Math.min(offset + 30, 100))));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testUpdateAndDeleteEntries() throws Exception {
+
+        FeedbackArchive archive = new FeedbackArchive(directory);
+        archive.addSegment(0, 300, createEntries(1, 300));
+        archive.addSegment(300, 400, createEntries(301, 100));
+
+        Feedback feedbackEntry = new Feedback();
+        feedbackEntry.setMessage("Updated feedback");
+        feedbackEntry.setEmail("updated@abc.com");
+        feedbackEntry.setTags(new ArrayList<>(Arrays.asList("sso", "sso", "login")));
+        feedbackEntry.setVersion(0);
+        Feedback updatedFeedback = archive.updateEntry(uuid(10), feedbackEntry);
+        Assert.assertEquals(updatedFeedback.getVersion().intValue(), 1);
+        Assert.assertEquals(updatedFeedback.getTags(), Arrays.asList("sso", "login"));
+        Assert.assertNull(archive.updateEntry(uuid(500), feedbackEntry));
+        try {
+            archive.updateEntry(uuid(10), feedbackEntry);
+            Assert.fail("Updating an archived entry of an earlier version should fail.");
+        } catch (FeedbackManagementClientException e) {
+            Assert.assertEquals(e.getErrorCode(), ErrorMessages.ERROR_CODE_FEEDBACK_VERSION_CONFLICT.getCode());
+        }
+
+        archive = new FeedbackArchive(directory);
+        Feedback archivedFeedback = archive.getEntry(2, uuid(10));
+        Assert.assertEquals(archivedFeedback.getMessage(), "Updated feedback");
+        Assert.assertNull(archivedFeedback.getContactNo());
+        Assert.assertEquals(archivedFeedback.getVersion().intValue(), 1);
+        Assert.assertEquals(archive.getCount(2, "sso"), 1);
+        Assert.assertEquals(archive.countEntries(null, FilterExpression.parse("tag eq login")), 1);
+
+        Assert.assertNull(archive.deleteEntry(1, uuid(10)));
+        Assert.assertEquals(archive.deleteEntry(2, uuid(10)).getId().intValue(), 10);
+        Assert.assertNull(archive.getEntry(null, uuid(10)));
+        Assert.assertEquals(archive.countEntries(null, null), 399);
+
+        // The last segment is kept without entries, since the archive job resumes after its range of IDs.
+        for (int id = 301; id <= 400; id++) {
+            Assert.assertNotNull(archive.deleteEntry(null, uuid(id)));
+        }
+        Assert.assertEquals(archive.getLastArchivedId(), 400);
+        archive = new FeedbackArchive(directory);
+        Assert.assertEquals(archive.getLastArchivedId(), 400);
+        Assert.assertEquals(archive.countEntries(null, null), 299);
+    }
+
+    @Test
+    public void testPurgeEntries() throws Exception {
+
+        FeedbackArchive archive = new FeedbackArchive(directory);
+        archive.addSegment(0, 300, createEntries(1, 300));
+        archive.addSegment(300, 400, createEntries(301, 100));
+
+        // The entries of the tenant 1 created on the first two days.
+        Assert.assertEquals(archive.purgeEntries(new FeedbackRetentionPolicy(1, 30),
+                Timestamp.valueOf("2020-01-03 00:00:00")), 25);
+        Assert.assertNull(archive.getEntry(null, uuid(1)));
+        Assert.assertNotNull(archive.getEntry(null, uuid(2)));
+        Assert.assertNotNull(archive.getEntry(null, uuid(51)));
+
+        // The entries of the tenant 2 created on the first thirteen days, which span both segments.
+        Assert.assertEquals(archive.purgeEntries(new FeedbackRetentionPolicy(Collections.singleton(1), 30),
+                Timestamp.valueOf("2020-01-14 00:00:00")), 162);
+        Assert.assertNull(archive.getEntry(null, uuid(324)));
+        Assert.assertNotNull(archive.getEntry(null, uuid(326)));
+        Assert.assertNotNull(archive.getEntry(null, uuid(325)));
+        Assert.assertEquals(archive.purgeEntries(new FeedbackRetentionPolicy(Collections.singleton(1), 30),
+                Timestamp.valueOf("2020-01-14 00:00:00")), 0);
+        Assert.assertEquals(new FeedbackArchive(directory).countEntries(null, null), 213);
+    }
+
+    @Test
+    public void testSearchEntries() throws Exception {
+
+        FeedbackArchive archive = new FeedbackArchive(directory);
+        List<Feedback> entries = createEntries(1, 4);
+        entries.get(0).setMessage("Login fails");
+        entries.get(1).setMessage("Login fails, login again and login fails.");
+        entries.get(2).setMessage("Logout");
+        entries.get(3).setMessage("Login works but logout fails");
+        archive.addSegment(0, 4, entries);
+
+        Assert.assertEquals(getIds(archive.searchEntries(null, MessageQuery.parse("login fails"), 10)),
+                Arrays.asList(2, 1, 4));
+        Assert.assertEquals(getIds(archive.searchEntries(null, MessageQuery.parse("login fails"), 2)),
+                Arrays.asList(2, 1));
+        Assert.assertEquals(getIds(archive.searchEntries(2, MessageQuery.parse("\"login fails\""), 10)),
+                Arrays.asList(2));
+        Assert.assertEquals(getIds(archive.searchEntries(null, MessageQuery.parse("logout"), 10)),
+                Arrays.asList(3, 4));
+    }
+
+    private List<Feedback> createEntries(int fromId, int count) {
+
+        List<Feedback> entries = new ArrayList<>();
+        for (int id = fromId; id < fromId + count; id++) {
+            Feedback feedback = new Feedback(id, "Feedback number " + id, "user" + id + "@abc.com",
+                    id % 5 == 0 ? null : "07712345" + id, "user" + id, id % 2 == 0 ? 2 : 1, uuid(id),
+                    new ArrayList<>(Arrays.asList(id % 3 == 0 ? "bug" : "ui")));
+            // Twenty-five entries are created on each day.
+            feedback.setTimeCreated(LocalDate.of(2020, 1, 1).plusDays((id - 1) / 25) + " 10:00:00.0");
+            entries.add(feedback);
+        }
+        return entries;
+    }
+
+    private String uuid(int id) {
+
+        return String.format("00000000-0000-4000-8000-%012d", id);
+    }
+
+    private List<Integer> getIds(List<Feedback> entries) {
+
+        return entries.stream().map(Feedback::getId).collect(Collectors.toList());
+    }
+}
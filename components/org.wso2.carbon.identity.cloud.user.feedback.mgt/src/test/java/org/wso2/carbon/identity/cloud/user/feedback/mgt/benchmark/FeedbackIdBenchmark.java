@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.benchmark;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.cache.FeedbackEntryCache;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.cache.FeedbackTagCache;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants.FeedbackIdGenerators;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants.FeedbackIdStorageFormats;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.FeedbackMgtDAO;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.impl.FeedbackMgtDAOImpl;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.id.FeedbackIdGenerator;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.internal.FeedbackManagementServiceDataHolder;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.Feedback;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.wso2.carbon.identity.cloud.user.feedback.mgt.util.TestUtils.DB_NAME;
+import static org.wso2.carbon.identity.cloud.user.feedback.mgt.util.TestUtils.closeH2Base;
+import static org.wso2.carbon.identity.cloud.user.feedback.mgt.util.TestUtils.dataSourceMap;
+import static org.wso2.carbon.identity.cloud.user.feedback.mgt.util.TestUtils.initiateH2Base;
+
+/**
+ * Benchmark of the insertion of feedback entries with each feedback ID generator and storage format. The entries are
+ * inserted in batches and the insert throughput is reported for each interval of rows, so that the slow down of the
+ * random IDs, which are inserted all over the unique index of the IDs, can be seen against the time-ordered IDs,
+ * which are appended to its end. The number of rows defaults to 10 million and can be changed with the
+ * benchmark.rows system property. A large heap is needed for the default number of rows.
+ * <p>
+ * This benchmark is not a part of the unit test suite. Run it with:
+ * mvn test -Dtest=FeedbackIdBenchmark -DfailIfNoTests=false
+ */
+public class FeedbackIdBenchmark {
+
+    private static final int ROW_COUNT = Integer.getInteger("benchmark.rows", 10000000);
+    private static final int BATCH_SIZE = 1000;
+    private static final int REPORT_INTERVAL = 1000000;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        initiateH2Base();
+        FeedbackManagementServiceDataHolder.getInstance().setDataSource(dataSourceMap.get(DB_NAME));
+        FeedbackTagCache.getInstance().clear();
+        FeedbackEntryCache.getInstance().clear();
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+
+        FeedbackManagementServiceDataHolder.getInstance()
+                .setFeedbackIdGenerator(FeedbackIdGenerator.forGenerator(FeedbackIdGenerators.random));
+        FeedbackManagementServiceDataHolder.getInstance().setFeedbackIdStorageFormat(FeedbackIdStorageFormats.string);
+        closeH2Base();
+    }
+
+    @DataProvider(name = "feedbackIdModeProvider")
+    public Object[][] provideFeedbackIdModes() {
+
+        return new Object[][]{
+                {FeedbackIdGenerators.random, FeedbackIdStorageFormats.string},
+                {FeedbackIdGenerators.time_ordered, FeedbackIdStorageFormats.string},
+                {FeedbackIdGenerators.random, FeedbackIdStorageFormats.binary},
+                {FeedbackIdGenerators.time_ordered, FeedbackIdStorageFormats.binary}
+        };
+    }
+
+    @Test(dataProvider = "feedbackIdModeProvider")
+    public void benchmarkInsert(FeedbackIdGenerators generator, FeedbackIdStorageFormats storageFormat)
+            throws Exception {
+
+        FeedbackIdGenerator feedbackIdGenerator = FeedbackIdGenerator.forGenerator(generator);
+        FeedbackManagementServiceDataHolder.getInstance().setFeedbackIdGenerator(feedbackIdGenerator);
+        FeedbackManagementServiceDataHolder.getInstance().setFeedbackIdStorageFormat(storageFormat);
+        if (storageFormat == FeedbackIdStorageFormats.binary) {
+            try (Connection connection = dataSourceMap.get(DB_NAME).getConnection()) {
+                connection.createStatement().executeUpdate("ALTER TABLE CLD_FEEDBACK ALTER COLUMN UUID BINARY(16)");
+            }
+        }
+
+        FeedbackMgtDAO feedbackMgtDAO = new FeedbackMgtDAOImpl();
+        long totalNanos = 0;
+        long intervalNanos = 0;
+        for (int inserted = 0; inserted < ROW_COUNT; inserted += BATCH_SIZE) {
+            List<Feedback> feedbackEntries = new ArrayList<>(BATCH_SIZE);
+            for (int i = inserted; i < inserted + BATCH_SIZE; i++) {
+                feedbackEntries.add(new Feedback(null, "Benchmark message " + i, "user" + i + "@abc.com", null,
+                        UUID.randomUUID().toString(), 1, feedbackIdGenerator.generateId(),
+                        new ArrayList<>(Collections.singletonList("tag" + i % 100))));
+            }
+
+            long start = System.nanoTime();
+            feedbackMgtDAO.insertFeedbackEntries(feedbackEntries);
+            intervalNanos += System.nanoTime() - start;
+
+            if ((inserted + BATCH_SIZE) % REPORT_INTERVAL == 0) {
+                System.out.println(String.format("Generator: %-12s, storage: %-6s, rows: %9d, insert: %9.0f rows/s",
+                        generator, storageFormat, inserted + BATCH_SIZE,
+                        REPORT_INTERVAL / (intervalNanos / 1000000000.0)));
+                totalNanos += intervalNanos;
+                intervalNanos = 0;
+            }
+        }
+        totalNanos += intervalNanos;
+
+        Assert.assertEquals(feedbackMgtDAO.countListResults(null).intValue(), ROW_COUNT);
+        System.out.println(String.format("Generator: %-12s, storage: %-6s, total: %9.0f rows/s",
+                generator, storageFormat, ROW_COUNT / (totalNanos / 1000000000.0)));
+    }
+}
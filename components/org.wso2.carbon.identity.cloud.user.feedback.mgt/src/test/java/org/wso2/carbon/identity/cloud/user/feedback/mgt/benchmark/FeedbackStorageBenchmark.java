@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.benchmark;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.cache.FeedbackEntryCache;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.cache.FeedbackTagCache;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.cache.FilterPlanCache;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants.FeedbackStorageTypes;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.FeedbackMgtDAO;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.impl.FeedbackMemoryDAOImpl;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.impl.FeedbackMgtDAOImpl;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.internal.FeedbackManagementServiceDataHolder;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.Feedback;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.FeedbackPage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.wso2.carbon.identity.cloud.user.feedback.mgt.util.TestUtils.DB_NAME;
+import static org.wso2.carbon.identity.cloud.user.feedback.mgt.util.TestUtils.closeH2Base;
+import static org.wso2.carbon.identity.cloud.user.feedback.mgt.util.TestUtils.dataSourceMap;
+import static org.wso2.carbon.identity.cloud.user.feedback.mgt.util.TestUtils.initiateH2Base;
+
+/**
+ * Benchmark of the database and the in-memory feedback storages under the same work load. The entries are inserted in
+ * batches, and then the latency of reading the first page of a tag by creation time, of counting the entries of a tag
+ * and of counting the entries matching an email filter is measured. The number of rows defaults to 100 thousand and
+ * can be changed with the benchmark.rows system property.
+ * <p>
+ * This benchmark is not a part of the unit test suite. Run it with:
+ * mvn test -Dtest=FeedbackStorageBenchmark -DfailIfNoTests=false
+ */
+public class FeedbackStorageBenchmark {
+
+    private static final int ROW_COUNT = Integer.getInteger("benchmark.rows", 100000);
+    private static final int BATCH_SIZE = 1000;
+    private static final int TAG_COUNT = 100;
+    private static final int PAGE_SIZE = 20;
+    private static final int WARM_UP_ITERATIONS = 200;
+    private static final int MEASURED_ITERATIONS = 1000;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        initiateH2Base();
+        FeedbackManagementServiceDataHolder.getInstance().setDataSource(dataSourceMap.get(DB_NAME));
+        FeedbackTagCache.getInstance().clear();
+        FeedbackEntryCache.getInstance().clear();
+        FilterPlanCache.getInstance().clear();
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+
+        closeH2Base();
+    }
+
+    @DataProvider(name = "storageTypeProvider")
+    public Object[][] provideStorageTypes() {
+
+        return new Object[][]{
+                {FeedbackStorageTypes.jdbc},
+                {FeedbackStorageTypes.memory}
+        };
+    }
+
+    @Test(dataProvider = "storageTypeProvider")
+    public void benchmarkStorage(FeedbackStorageTypes storageType) throws Exception {
+
+        FeedbackMgtDAO feedbackMgtDAO = storageType == FeedbackStorageTypes.memory ? new FeedbackMemoryDAOImpl() :
+                new FeedbackMgtDAOImpl();
+        long insertNanos = 0;
+        for (int inserted = 0; inserted < ROW_COUNT; inserted += BATCH_SIZE) {
+            List<Feedback> feedbackEntries = new ArrayList<>(BATCH_SIZE);
+            for (int i = inserted; i < inserted + BATCH_SIZE; i++) {
+                feedbackEntries.add(new Feedback(null, "Benchmark message " + i, "user" + i + "@abc.com", null,
+                        UUID.randomUUID().toString(), 1, UUID.randomUUID().toString(),
+                        new ArrayList<>(Collections.singletonList("tag" + i % TAG_COUNT))));
+            }
+            long start = System.nanoTime();
+            feedbackMgtDAO.insertFeedbackEntries(feedbackEntries);
+            insertNanos += System.nanoTime() - start;
+        }
+
+        Random random = new Random(ROW_COUNT);
+        for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+            readTagPage(feedbackMgtDAO, random.nextInt(TAG_COUNT));
+        }
+
+        long pageNanos = 0;
+        long tagCountNanos = 0;
+        long filteredCountNanos = 0;
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            int tag = random.nextInt(TAG_COUNT);
+            long start = System.nanoTime();
+            FeedbackPage feedbackPage = readTagPage(feedbackMgtDAO, tag);
+            long pageRead = System.nanoTime();
+            int tagCount = feedbackMgtDAO.countListResults("tag eq tag" + tag);
+            long tagCounted = System.nanoTime();
+            int filteredCount = feedbackMgtDAO.countListResults("email sw user" + tag + "0");
+            filteredCountNanos += System.nanoTime() - tagCounted;
+            tagCountNanos += tagCounted - pageRead;
+            pageNanos += pageRead - start;
+
+            Assert.assertEquals(feedbackPage.getFeedbackEntries().size(), PAGE_SIZE);
+            Assert.assertEquals(tagCount, ROW_COUNT / TAG_COUNT);
+            Assert.assertTrue(filteredCount > 0);
+        }
+
+        System.out.println(String.format("Storage: %-6s, rows: %8d, insert: %9.0f rows/s, tag page: %8.1f us, " +
+                        "tag count: %8.1f us, filtered count: %10.1f us", storageType, ROW_COUNT,
+                ROW_COUNT / (insertNanos / 1000000000.0), pageNanos / 1000.0 / MEASURED_ITERATIONS,
+                tagCountNanos / 1000.0 / MEASURED_ITERATIONS, filteredCountNanos / 1000.0 / MEASURED_ITERATIONS));
+    }
+
+    private FeedbackPage readTagPage(FeedbackMgtDAO feedbackMgtDAO, int tag) throws Exception {
+
+        return feedbackMgtDAO.listFeedbackEntries("tag eq tag" + tag, PAGE_SIZE, (String) null, "time_created",
+                "desc");
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.benchmark;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.cache.FeedbackTagCache;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.impl.FeedbackImportDAOImpl;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.ingestion.FeedbackImporter;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.internal.FeedbackManagementServiceDataHolder;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.FeedbackImportResult;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.wso2.carbon.identity.cloud.user.feedback.mgt.util.TestUtils.DB_NAME;
+import static org.wso2.carbon.identity.cloud.user.feedback.mgt.util.TestUtils.closeH2Base;
+import static org.wso2.carbon.identity.cloud.user.feedback.mgt.util.TestUtils.dataSourceMap;
+import static org.wso2.carbon.identity.cloud.user.feedback.mgt.util.TestUtils.initiateH2Base;
+
+/**
+ * Benchmark of the import of feedback entries from JSON Lines. A stream of generated entries, spread over a few
+ * tenants and tags, is imported with different batch sizes, and the number of imported entries per second is
+ * measured.
+ * <p>
+ * This benchmark is not a part of the unit test suite. Run it with:
+ * mvn test -Dtest=ImportBenchmark -DfailIfNoTests=false
+ */
+public class ImportBenchmark {
+
+    private static final int ENTRY_COUNT = 200000;
+    private static final int TENANT_COUNT = 10;
+    private static final int TAG_COUNT = 20;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        initiateH2Base();
+        FeedbackManagementServiceDataHolder.getInstance().setDataSource(dataSourceMap.get(DB_NAME));
+        FeedbackTagCache.getInstance().clear();
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+
+        closeH2Base();
+    }
+
+    @DataProvider(name = "batchSizeProvider")
+    public Object[][] provideBatchSizes() {
+
+        return new Object[][]{
+                {100},
+                {1000},
+                {5000}
+        };
+    }
+
+    @Test(dataProvider = "batchSizeProvider")
+    public void benchmarkImport(int batchSize) throws Exception {
+
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            input.append("{\"uuid\":\"").append(UUID.randomUUID()).append("\",\"message\":\"Benchmark message ")
+                    .append(i).append("\",\"email\":\"user").append(i % 1000).append("@abc.com\",\"tenantId\":")
+                    .append(i % TENANT_COUNT + 1).append(",\"tags\":[\"tag").append(i % TAG_COUNT)
+                    .append("\",\"tag").append((i + 1) % TAG_COUNT).append("\"]}\n");
+        }
+        byte[] bytes = input.toString().getBytes(StandardCharsets.UTF_8);
+
+        FeedbackImporter feedbackImporter = new FeedbackImporter(new FeedbackImportDAOImpl(), feedback -> {
+        }, batchSize);
+        long start = System.nanoTime();
+        FeedbackImportResult importResult = feedbackImporter.importEntries("benchmark-" + batchSize,
+                new ByteArrayInputStream(bytes));
+        long elapsedNanos = System.nanoTime() - start;
+
+        Assert.assertEquals(importResult.getImportedCount(), ENTRY_COUNT);
+        Assert.assertEquals(importResult.getOffset(), bytes.length);
+        System.out.println(String.format("Batch size: %5d, entries: %7d, time: %8.1f ms, throughput: %9.0f rows/s",
+                batchSize, ENTRY_COUNT, elapsedNanos / 1e6, ENTRY_COUNT * 1e9 / elapsedNanos));
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.benchmark;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.cache.FeedbackEntryCache;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.cache.FeedbackTagCache;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.FeedbackMgtDAO;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.impl.FeedbackMgtDAOImpl;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.internal.FeedbackManagementServiceDataHolder;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.Feedback;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.wso2.carbon.identity.cloud.user.feedback.mgt.util.TestUtils.DB_NAME;
+import static org.wso2.carbon.identity.cloud.user.feedback.mgt.util.TestUtils.closeH2Base;
+import static org.wso2.carbon.identity.cloud.user.feedback.mgt.util.TestUtils.dataSourceMap;
+import static org.wso2.carbon.identity.cloud.user.feedback.mgt.util.TestUtils.initiateH2Base;
+
+/**
+ * Benchmark of the update of feedback entries with many tags. Each update keeps the message and replaces a number of
+ * the tags of an entry, from none to all of them, and the latency of an update is measured. Since only the mappings
+ * of the replaced tags are written, the latency is expected to grow with the number of replaced tags rather than
+ * with the number of tags of the entry.
+ * <p>
+ * This benchmark is not a part of the unit test suite. Run it with:
+ * mvn test -Dtest=TagUpdateBenchmark -DfailIfNoTests=false
+ */
+public class TagUpdateBenchmark {
+
+    private static final int ENTRY_COUNT = 200;
+    private static final int TAGS_PER_ENTRY = 100;
+    private static final int TAG_COUNT = 1000;
+    private static final int WARM_UP_ITERATIONS = 200;
+    private static final int MEASURED_ITERATIONS = 1000;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        initiateH2Base();
+        FeedbackManagementServiceDataHolder.getInstance().setDataSource(dataSourceMap.get(DB_NAME));
+        FeedbackTagCache.getInstance().clear();
+        FeedbackEntryCache.getInstance().clear();
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+
+        closeH2Base();
+    }
+
+    @DataProvider(name = "replacedTagCountProvider")
+    public Object[][] provideReplacedTagCounts() {
+
+        return new Object[][]{
+                {0},
+                {1},
+                {10},
+                {TAGS_PER_ENTRY}
+        };
+    }
+
+    @Test(dataProvider = "replacedTagCountProvider")
+    public void benchmarkTagUpdate(int replacedTagCount) throws Exception {
+
+        FeedbackMgtDAO feedbackMgtDAO = new FeedbackMgtDAOImpl();
+        Random random = new Random(replacedTagCount);
+        List<Feedback> feedbackEntries = new ArrayList<>(ENTRY_COUNT);
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            feedbackEntries.add(new Feedback(null, "Benchmark message " + i, "user" + i + "@abc.com", null,
+                    UUID.randomUUID().toString(), 1, UUID.randomUUID().toString(), buildTags(random, i)));
+        }
+        feedbackMgtDAO.insertFeedbackEntries(feedbackEntries);
+
+        for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+            updateTags(feedbackMgtDAO, feedbackEntries.get(random.nextInt(ENTRY_COUNT)), replacedTagCount, random);
+        }
+
+        long updateNanos = 0;
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            Feedback feedback = feedbackEntries.get(random.nextInt(ENTRY_COUNT));
+            long start = System.nanoTime();
+            Feedback updatedFeedback = updateTags(feedbackMgtDAO, feedback, replacedTagCount, random);
+            updateNanos += System.nanoTime() - start;
+
+            Assert.assertEquals(updatedFeedback.getTags().size(), TAGS_PER_ENTRY);
+        }
+
+        System.out.println(String.format("Tags per entry: %4d, replaced tags: %4d, update: %8.1f us",
+                TAGS_PER_ENTRY, replacedTagCount, updateNanos / 1000.0 / MEASURED_ITERATIONS));
+    }
+
+    private Feedback updateTags(FeedbackMgtDAO feedbackMgtDAO, Feedback feedback, int replacedTagCount,
+                                Random random) throws Exception {
+
+        // The first tags are replaced by tags which the entry does not have, as the tags of an entry are distinct.
+        ArrayList<String> tags = new ArrayList<>(feedback.getTags());
+        for (int i = 0; i < replacedTagCount; i++) {
+            String tag;
+            do {
+                tag = "tag" + random.nextInt(TAG_COUNT);
+            } while (tags.contains(tag));
+            tags.set(i, tag);
+        }
+        feedback.setTags(tags);
+        Feedback updatedFeedback = feedbackMgtDAO.updateFeedbackEntry(feedback.getUuid(), feedback);
+        feedback.setVersion(updatedFeedback.getVersion());
+        return updatedFeedback;
+    }
+
+    private ArrayList<String> buildTags(Random random, int entry) {
+
+        ArrayList<String> tags = new ArrayList<>(TAGS_PER_ENTRY);
+        while (tags.size() < TAGS_PER_ENTRY) {
+            String tag = "tag" + random.nextInt(TAG_COUNT);
+            if (!tags.contains(tag)) {
+                tags.add(tag);
+            }
+        }
+        return tags;
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.benchmark;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.cache.FeedbackTagCache;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.cache.FilterPlanCache;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.FeedbackMgtDAO;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.impl.FeedbackMgtDAOImpl;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.internal.FeedbackManagementServiceDataHolder;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.Feedback;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.FeedbackPage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.wso2.carbon.identity.cloud.user.feedback.mgt.util.TestUtils.DB_NAME;
+import static org.wso2.carbon.identity.cloud.user.feedback.mgt.util.TestUtils.closeH2Base;
+import static org.wso2.carbon.identity.cloud.user.feedback.mgt.util.TestUtils.dataSourceMap;
+import static org.wso2.carbon.identity.cloud.user.feedback.mgt.util.TestUtils.initiateH2Base;
+
+/**
+ * Benchmark of the tenant scoped listing. The number of tenants sharing the feedback tables grows while the number of
+ * entries of each tenant stays the same, and the latency of reading the first page and the count of a tenant is
+ * measured. Since the tenant scoped queries read only the range of the tenant in the tenant indexes, the latency is
+ * expected to stay flat.
+ * <p>
+ * This benchmark is not a part of the unit test suite. Run it with:
+ * mvn test -Dtest=TenantListingBenchmark -DfailIfNoTests=false
+ */
+public class TenantListingBenchmark {
+
+    private static final int ENTRIES_PER_TENANT = 50;
+    private static final int PAGE_SIZE = 20;
+    private static final int WARM_UP_ITERATIONS = 200;
+    private static final int MEASURED_ITERATIONS = 1000;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        initiateH2Base();
+        FeedbackManagementServiceDataHolder.getInstance().setDataSource(dataSourceMap.get(DB_NAME));
+        FeedbackTagCache.getInstance().clear();
+        FilterPlanCache.getInstance().clear();
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+
+        closeH2Base();
+    }
+
+    @DataProvider(name = "tenantCountProvider")
+    public Object[][] provideTenantCounts() {
+
+        return new Object[][]{
+                {10},
+                {100},
+                {1000}
+        };
+    }
+
+    @Test(dataProvider = "tenantCountProvider")
+    public void benchmarkTenantPage(int tenantCount) throws Exception {
+
+        FeedbackMgtDAO feedbackMgtDAO = new FeedbackMgtDAOImpl();
+        List<Feedback> feedbackEntries = new ArrayList<>(tenantCount * ENTRIES_PER_TENANT);
+        for (int tenantId = 1; tenantId <= tenantCount; tenantId++) {
+            for (int i = 0; i < ENTRIES_PER_TENANT; i++) {
+                feedbackEntries.add(new Feedback(null, "Benchmark message " + i,
+                        "user" + i + "@tenant" + tenantId + ".com", null, UUID.randomUUID().toString(), tenantId,
+                        UUID.randomUUID().toString(), new ArrayList<>(Arrays.asList("tag" + (i % 5)))));
+            }
+        }
+        feedbackMgtDAO.insertFeedbackEntries(feedbackEntries);
+
+        Random random = new Random(tenantCount);
+        for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+            readTenantPage(feedbackMgtDAO, random.nextInt(tenantCount) + 1);
+        }
+
+        long pageNanos = 0;
+        long countNanos = 0;
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            int tenantId = random.nextInt(tenantCount) + 1;
+            long start = System.nanoTime();
+            FeedbackPage feedbackPage = readTenantPage(feedbackMgtDAO, tenantId);
+            long pageRead = System.nanoTime();
+            int count = feedbackMgtDAO.countListResults(tenantId, "email sw user1");
+            countNanos += System.nanoTime() - pageRead;
+            pageNanos += pageRead - start;
+
+            Assert.assertEquals(feedbackPage.getFeedbackEntries().size(), PAGE_SIZE);
+            Assert.assertEquals(count, 11);
+        }
+
+        System.out.println(String.format("Tenants: %5d, entries: %7d, page: %8.1f us, filtered count: %8.1f us",
+                tenantCount, feedbackEntries.size(), pageNanos / 1000.0 / MEASURED_ITERATIONS,
+                countNanos / 1000.0 / MEASURED_ITERATIONS));
+    }
+
+    private FeedbackPage readTenantPage(FeedbackMgtDAO feedbackMgtDAO, int tenantId) throws Exception {
+
+        return feedbackMgtDAO.listFeedbackEntries(tenantId, null, PAGE_SIZE, (String) null, "time_created", "desc");
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.cache;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.Feedback;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+public class FeedbackEntryCacheTest {
+
+    private FeedbackEntryCache feedbackCache = FeedbackEntryCache.getInstance();
+
+    @BeforeMethod
+    public void setUp() {
+
+        feedbackCache.clear();
+        feedbackCache.resetCounters();
+    }
+
+    @AfterMethod
+    public void tearDown() {
+
+        feedbackCache.setMaxSize(FeedbackMgtConstants.DEFAULT_FEEDBACK_CACHE_SIZE);
+        feedbackCache.setTimeToLive(FeedbackMgtConstants.DEFAULT_FEEDBACK_CACHE_TIME_TO_LIVE, TimeUnit.SECONDS);
+        feedbackCache.clear();
+    }
+
+    @Test
+    public void testHitsAndMisses() {
+
+        feedbackCache.put(buildFeedback("uuid-1"));
+
+        Assert.assertEquals(feedbackCache.get("uuid-1").getMessage(), "Message of uuid-1");
+        Assert.assertEquals(feedbackCache.get("uuid-1").getVersion().intValue(), 3);
+        Assert.assertNull(feedbackCache.get("uuid-2"));
+        Assert.assertEquals(feedbackCache.getHitCount(), 2);
+        Assert.assertEquals(feedbackCache.getMissCount(), 1);
+
+        feedbackCache.invalidate("uuid-1");
+        Assert.assertNull(feedbackCache.get("uuid-1"));
+        Assert.assertEquals(feedbackCache.getMissCount(), 2);
+    }
+
+    @Test
+    public void testEvictionWhenFull() {
+
+        feedbackCache.setMaxSize(2);
+        feedbackCache.put(buildFeedback("uuid-1"));
+        feedbackCache.put(buildFeedback("uuid-2"));
+        feedbackCache.get("uuid-1");
+        feedbackCache.put(buildFeedback("uuid-3"));
+
+        Assert.assertEquals(feedbackCache.size(), 2);
+        Assert.assertNotNull(feedbackCache.get("uuid-1"));
+        Assert.assertNull(feedbackCache.get("uuid-2"));
+        Assert.assertNotNull(feedbackCache.get("uuid-3"));
+    }
+
+    @Test
+    public void testExpiry() throws Exception {
+
+        feedbackCache.setTimeToLive(50, TimeUnit.MILLISECONDS);
+        feedbackCache.put(buildFeedback("uuid-1"));
+        Assert.assertNotNull(feedbackCache.get("uuid-1"));
+
+        Thread.sleep(100);
+        Assert.assertNull(feedbackCache.get("uuid-1"));
+        Assert.assertEquals(feedbackCache.size(), 0);
+    }
+
+    @Test
+    public void testCachedEntryIsNotModifiedByCallers() {
+
+        Feedback feedback = buildFeedback("uuid-1");
+        feedbackCache.put(feedback);
+        feedback.setMessage("Modified message");
+        feedbackCache.get("uuid-1").getTags().add("modified tag");
+
+        Feedback cachedFeedback = feedbackCache.get("uuid-1");
+        Assert.assertEquals(cachedFeedback.getMessage(), "Message of uuid-1");
+        Assert.assertEquals(cachedFeedback.getTags(), Arrays.asList("issue"));
+    }
+
+    @Test
+    public void testDisabledCache() {
+
+        feedbackCache.setMaxSize(0);
+        feedbackCache.put(buildFeedback("uuid-1"));
+
+        Assert.assertEquals(feedbackCache.size(), 0);
+        Assert.assertNull(feedbackCache.get("uuid-1"));
+    }
+
+    private Feedback buildFeedback(String uuid) {
+
+        Feedback feedback = new Feedback(1, "Message of " + uuid, "kim@abc.com", "0112222222", "user", 1, uuid,
+                new ArrayList<>(Arrays.asList("issue")));
+        feedback.setVersion(3);
+        return feedback;
+    }
+}
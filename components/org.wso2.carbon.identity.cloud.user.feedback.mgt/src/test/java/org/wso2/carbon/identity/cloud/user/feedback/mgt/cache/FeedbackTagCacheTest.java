@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.cache;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants;
+
+public class FeedbackTagCacheTest {
+
+    private FeedbackTagCache tagCache = FeedbackTagCache.getInstance();
+
+    @BeforeMethod
+    public void setUp() {
+
+        tagCache.clear();
+    }
+
+    @AfterMethod
+    public void tearDown() {
+
+        tagCache.setMaxSize(FeedbackMgtConstants.DEFAULT_TAG_CACHE_SIZE);
+        tagCache.clear();
+    }
+
+    @Test
+    public void testLookupByNameAndId() {
+
+        tagCache.put("issue", 1);
+        tagCache.put("improve", 2);
+
+        Assert.assertEquals(tagCache.getTagId("issue"), Integer.valueOf(1));
+        Assert.assertEquals(tagCache.getTagName(2), "improve");
+        Assert.assertNull(tagCache.getTagId("unknown"));
+        Assert.assertNull(tagCache.getTagName(3));
+    }
+
+    @Test
+    public void testEvictionWhenFull() {
+
+        tagCache.setMaxSize(2);
+        tagCache.put("issue", 1);
+        tagCache.put("improve", 2);
+        tagCache.put("suggestion", 3);
+
+        Assert.assertEquals(tagCache.size(), 2);
+        Assert.assertNull(tagCache.getTagId("issue"));
+        Assert.assertNull(tagCache.getTagName(1));
+        Assert.assertEquals(tagCache.getTagId("improve"), Integer.valueOf(2));
+        Assert.assertEquals(tagCache.getTagId("suggestion"), Integer.valueOf(3));
+    }
+
+    @Test
+    public void testDisabledCache() {
+
+        tagCache.setMaxSize(0);
+        tagCache.put("issue", 1);
+
+        Assert.assertEquals(tagCache.size(), 0);
+        Assert.assertNull(tagCache.getTagId("issue"));
+    }
+}
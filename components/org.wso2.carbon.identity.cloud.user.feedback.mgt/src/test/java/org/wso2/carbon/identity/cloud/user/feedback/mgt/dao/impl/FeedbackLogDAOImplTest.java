@@ -0,0 +1,275 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.impl;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants.ErrorMessages;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.FeedbackMgtDAO;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.exception.FeedbackManagementException;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.Feedback;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class FeedbackLogDAOImplTest extends FeedbackMgtDAOContractTest {
+
+    private Path directory;
+    private List<FeedbackLogDAOImpl> openedDAOs = new ArrayList<>();
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+
+        directory = Files.createTempDirectory("feedback-log");
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+
+        for (FeedbackLogDAOImpl feedbackLogDAO : openedDAOs) {
+            feedbackLogDAO.close();
+        }
+        openedDAOs.clear();
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Override
+    protected FeedbackMgtDAO createFeedbackMgtDAO() throws Exception {
+
+        return openFeedbackLogDAO();
+    }
+
+    @Test
+    public void testEntriesAreReplayed() throws Exception {
+
+        FeedbackLogDAOImpl feedbackLogDAO = openFeedbackLogDAO();
+        feedbackLogDAO.insertFeedbackEntry(feedbackEntries.get(0));
+        feedbackLogDAO.insertFeedbackEntries(feedbackEntries.subList(1, 3));
+        Feedback feedbackUpdate = new Feedback(1, "Updated message", "kim@abc.com", "0112222222", null, 1, null,
+                new ArrayList<>(Collections.singletonList("suggestion")));
+        feedbackLogDAO.updateFeedbackEntry(feedbackEntries.get(0).getUuid(), feedbackUpdate);
+        feedbackLogDAO.deleteFeedbackEntry(feedbackEntries.get(1).getUuid());
+        Feedback storedFeedback = feedbackLogDAO.getFeedbackEntry(feedbackEntries.get(2).getUuid());
+        feedbackLogDAO.close();
+
+        // The entries, their versions and the indexes are restored from the log.
+        feedbackLogDAO = openFeedbackLogDAO();
+        Feedback replayedFeedback = feedbackLogDAO.getFeedbackEntry(feedbackEntries.get(0).getUuid());
+        Assert.assertEquals(replayedFeedback.getMessage(), "Updated message");
+        Assert.assertEquals(replayedFeedback.getVersion(), Integer.valueOf(1));
+        Assert.assertEquals(replayedFeedback.getTags(), feedbackUpdate.getTags());
+        Assert.assertNull(feedbackLogDAO.getFeedbackEntry(feedbackEntries.get(1).getUuid()));
+        replayedFeedback = feedbackLogDAO.getFeedbackEntry(feedbackEntries.get(2).getUuid());
+        Assert.assertEquals(replayedFeedback.getId(), storedFeedback.getId());
+        Assert.assertEquals(replayedFeedback.getTimeCreated(), storedFeedback.getTimeCreated());
+        Assert.assertEquals(feedbackLogDAO.countListResults(null).intValue(), 2);
+        Assert.assertEquals(feedbackLogDAO.countListResults("tag eq suggestion").intValue(), 2);
+        Assert.assertEquals(feedbackLogDAO.countListResults("tag eq issue").intValue(), 1);
+        Assert.assertEquals(feedbackLogDAO.searchFeedbackEntries("updated", 5).size(), 1);
+
+        // The IDs of the deleted entries are not handed out again.
+        Feedback feedback = new Feedback(4, "Sample message 4", "kim@abc.com", "0112222222",
+                feedbackEntries.get(1).getUserId(), 1, feedbackEntries.get(1).getUuid(), new ArrayList<>());
+        feedbackLogDAO.insertFeedbackEntry(feedback);
+        Assert.assertTrue(feedbackLogDAO.getFeedbackEntry(feedback.getUuid()).getId() > storedFeedback.getId());
+    }
+
+    @Test
+    public void testTornRecordsAreDiscarded() throws Exception {
+
+        FeedbackLogDAOImpl feedbackLogDAO = openFeedbackLogDAO();
+        feedbackLogDAO.insertFeedbackEntries(feedbackEntries.subList(0, 2));
+        feedbackLogDAO.close();
+        Path logPath = directory.resolve(FeedbackMgtConstants.FEEDBACK_LOG_FILE_NAME);
+        long logSize = Files.size(logPath);
+
+        // A record cut short by a crash is dropped, along with anything after it.
+        try (FileChannel channel = FileChannel.open(logPath, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0, 0, 1, 0, 7}), logSize);
+        }
+        feedbackLogDAO = openFeedbackLogDAO();
+        Assert.assertEquals(Files.size(logPath), logSize);
+        Assert.assertEquals(feedbackLogDAO.countListResults(null).intValue(), 2);
+        feedbackLogDAO.insertFeedbackEntry(feedbackEntries.get(2));
+        feedbackLogDAO.close();
+
+        // A record which does not match its checksum is dropped as well.
+        try (FileChannel channel = FileChannel.open(logPath, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) 0xFF}), Files.size(logPath) - 1);
+        }
+        feedbackLogDAO = openFeedbackLogDAO();
+        Assert.assertEquals(Files.size(logPath), logSize);
+        Assert.assertEquals(feedbackLogDAO.countListResults(null).intValue(), 2);
+        Assert.assertNull(feedbackLogDAO.getFeedbackEntry(feedbackEntries.get(2).getUuid()));
+        Assert.assertNotNull(feedbackLogDAO.getFeedbackEntry(feedbackEntries.get(1).getUuid()));
+    }
+
+    @Test
+    public void testCorruptedRecordsAreSkipped() throws Exception {
+
+        FeedbackLogDAOImpl feedbackLogDAO = openFeedbackLogDAO();
+        Path logPath = directory.resolve(FeedbackMgtConstants.FEEDBACK_LOG_FILE_NAME);
+        feedbackLogDAO.insertFeedbackEntry(feedbackEntries.get(0));
+        long recordOffset = Files.size(logPath);
+        feedbackLogDAO.insertFeedbackEntry(feedbackEntries.get(1));
+        feedbackLogDAO.insertFeedbackEntry(feedbackEntries.get(2));
+        feedbackLogDAO.close();
+        long logSize = Files.size(logPath);
+
+        // A record in the middle of the log which does not match its checksum is skipped, and the records after it
+        // are kept.
+        try (FileChannel channel = FileChannel.open(logPath, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) 0xFF}), recordOffset + 12);
+        }
+        feedbackLogDAO = openFeedbackLogDAO();
+        Assert.assertEquals(Files.size(logPath), logSize);
+        Assert.assertEquals(feedbackLogDAO.countListResults(null).intValue(), 2);
+        Assert.assertNull(feedbackLogDAO.getFeedbackEntry(feedbackEntries.get(1).getUuid()));
+        Assert.assertNotNull(feedbackLogDAO.getFeedbackEntry(feedbackEntries.get(2).getUuid()));
+        feedbackLogDAO.close();
+
+        // A tail of zeros left by a write which was not flushed is dropped.
+        try (FileChannel channel = FileChannel.open(logPath, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[64]), logSize);
+        }
+        feedbackLogDAO = openFeedbackLogDAO();
+        Assert.assertEquals(Files.size(logPath), logSize);
+        Assert.assertEquals(feedbackLogDAO.countListResults(null).intValue(), 2);
+        feedbackLogDAO.close();
+
+        // A record in the middle of the log with an invalid length fails the replay, rather than dropping the
+        // records after it.
+        try (FileChannel channel = FileChannel.open(logPath, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) 0xFF}), recordOffset);
+        }
+        try {
+            openFeedbackLogDAO();
+            Assert.fail("A feedback log with a corrupted record length is opened.");
+        } catch (FeedbackManagementException e) {
+            Assert.assertEquals(e.getErrorCode(), ErrorMessages.ERROR_CODE_OPEN_FEEDBACK_LOG.getCode());
+        }
+        Assert.assertEquals(Files.size(logPath), logSize);
+    }
+
+    @Test
+    public void testConcurrentSyncedInserts() throws Exception {
+
+        FeedbackLogDAOImpl syncedFeedbackLogDAO = openFeedbackLogDAO(true);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        List<String> uuids = Collections.synchronizedList(new ArrayList<>());
+        for (int i = 0; i < 200; i++) {
+            int index = i;
+            futures.add(executor.submit(() -> {
+                Feedback feedback = new Feedback(0, "Synced message " + index, "kim@abc.com", "0112222222", null, 1,
+                        UUID.randomUUID().toString(), new ArrayList<>(Collections.singletonList("issue")));
+                syncedFeedbackLogDAO.insertFeedbackEntry(feedback);
+                uuids.add(feedback.getUuid());
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        syncedFeedbackLogDAO.close();
+
+        // Each insert is forced before it returns, whether by its own force or by one shared with other inserts.
+        FeedbackLogDAOImpl feedbackLogDAO = openFeedbackLogDAO(true);
+        Assert.assertEquals(feedbackLogDAO.countListResults(null).intValue(), 200);
+        for (String uuid : uuids) {
+            Assert.assertNotNull(feedbackLogDAO.getFeedbackEntry(uuid));
+        }
+    }
+
+    @Test
+    public void testCompaction() throws Exception {
+
+        FeedbackLogDAOImpl feedbackLogDAO = openFeedbackLogDAO();
+        feedbackLogDAO.insertFeedbackEntries(feedbackEntries);
+        Assert.assertFalse(feedbackLogDAO.compact());
+
+        for (int i = 0; i < 3; i++) {
+            Feedback feedbackUpdate = new Feedback(1, "Updated message " + i, "kim@abc.com", "0112222222", null, 1,
+                    null, new ArrayList<>(Arrays.asList("issue", "improve")));
+            feedbackLogDAO.updateFeedbackEntry(feedbackEntries.get(0).getUuid(), feedbackUpdate);
+        }
+        feedbackLogDAO.deleteFeedbackEntry(feedbackEntries.get(1).getUuid());
+        Path logPath = directory.resolve(FeedbackMgtConstants.FEEDBACK_LOG_FILE_NAME);
+        long logSize = Files.size(logPath);
+
+        // The live entries are kept, and read from their new positions.
+        Assert.assertTrue(feedbackLogDAO.compact());
+        Assert.assertTrue(Files.size(logPath) < logSize);
+        Assert.assertFalse(Files.exists(directory.resolve(FeedbackMgtConstants.FEEDBACK_LOG_COMPACTION_FILE_NAME)));
+        Assert.assertEquals(feedbackLogDAO.getFeedbackEntry(feedbackEntries.get(0).getUuid()).getMessage(),
+                "Updated message 2");
+        Assert.assertEquals(feedbackLogDAO.listFeedbackEntries(null, 5, 0, null, null).size(), 2);
+        Assert.assertFalse(feedbackLogDAO.compact());
+        feedbackLogDAO.insertFeedbackEntry(feedbackEntries.get(1));
+        Integer lastId = feedbackLogDAO.getFeedbackEntry(feedbackEntries.get(1).getUuid()).getId();
+        feedbackLogDAO.close();
+
+        feedbackLogDAO = openFeedbackLogDAO();
+        Assert.assertEquals(feedbackLogDAO.getFeedbackEntry(feedbackEntries.get(0).getUuid()).getVersion(),
+                Integer.valueOf(3));
+        Assert.assertEquals(feedbackLogDAO.countListResults(null).intValue(), 3);
+        Assert.assertEquals(feedbackLogDAO.getFeedbackEntry(feedbackEntries.get(1).getUuid()).getId(), lastId);
+    }
+
+    /**
+     * Open a feedback log DAO on the log of the test directory, which is closed after the test.
+     *
+     * @return Feedback log DAO
+     * @throws Exception
+     */
+    private FeedbackLogDAOImpl openFeedbackLogDAO() throws Exception {
+
+        return openFeedbackLogDAO(false);
+    }
+
+    private FeedbackLogDAOImpl openFeedbackLogDAO(boolean sync) throws Exception {
+
+        FeedbackLogDAOImpl feedbackLogDAO = new FeedbackLogDAOImpl(directory, sync);
+        openedDAOs.add(feedbackLogDAO);
+        return feedbackLogDAO;
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.impl;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.FeedbackMgtDAO;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.Feedback;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.FeedbackPage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+public class FeedbackMemoryDAOImplTest extends FeedbackMgtDAOContractTest {
+
+    @Override
+    protected FeedbackMgtDAO createFeedbackMgtDAO() {
+
+        return new FeedbackMemoryDAOImpl();
+    }
+
+    @Test
+    public void testRareTagListedByTime() throws Exception {
+
+        // Enough entries for the few entries of the rare tag to be sorted on their own.
+        FeedbackMgtDAO feedbackMgtDAO = createFeedbackMgtDAO();
+        List<Feedback> entries = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            String tag = i % 25 == 0 ? "rare" : "common";
+            entries.add(new Feedback(i + 1, "Sample message " + i, "kim@abc.com", "0112222222",
+                    UUID.randomUUID().toString(), i % 2 + 1, UUID.randomUUID().toString(),
+                    new ArrayList<>(Collections.singletonList(tag))));
+        }
+        feedbackMgtDAO.insertFeedbackEntries(entries);
+
+        List<String> uuids = new ArrayList<>();
+        String cursor = null;
+        do {
+            FeedbackPage page = feedbackMgtDAO.listFeedbackEntries(1, "tag eq rare", 1, cursor, "time_created",
+                    "desc");
+            for (Feedback feedback : page.getFeedbackEntries()) {
+                uuids.add(feedback.getUuid());
+            }
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        Assert.assertEquals(uuids.size(), 2);
+        Assert.assertEquals(uuids.get(0), entries.get(50).getUuid());
+        Assert.assertEquals(uuids.get(1), entries.get(0).getUuid());
+        Assert.assertEquals(feedbackMgtDAO.listFeedbackEntries("tag eq rare", 5, 1, "time_created", "asc").get(0)
+                .getUuid(), entries.get(25).getUuid());
+        Assert.assertEquals(feedbackMgtDAO.countListResults(2, "tag eq rare").intValue(), 2);
+        Assert.assertEquals(feedbackMgtDAO.countListResults(2, "tag eq common").intValue(), 48);
+    }
+
+    @Test
+    public void testStoredEntriesAreCopied() throws Exception {
+
+        FeedbackMgtDAO feedbackMgtDAO = createFeedbackMgtDAO();
+        feedbackMgtDAO.insertFeedbackEntry(feedbackEntries.get(0));
+        feedbackEntries.get(0).getTags().add("added tag");
+
+        Feedback feedback = feedbackMgtDAO.getFeedbackEntry(feedbackEntries.get(0).getUuid());
+        feedback.setMessage("Changed message");
+        feedback.getTags().clear();
+
+        Feedback storedFeedback = feedbackMgtDAO.getFeedbackEntry(feedbackEntries.get(0).getUuid());
+        Assert.assertEquals(storedFeedback.getMessage(), "Sample message 1");
+        Assert.assertEquals(storedFeedback.getTags().size(), 3);
+        Assert.assertEquals(feedbackMgtDAO.countListResults("tag eq \"added tag\"").intValue(), 0);
+    }
+}
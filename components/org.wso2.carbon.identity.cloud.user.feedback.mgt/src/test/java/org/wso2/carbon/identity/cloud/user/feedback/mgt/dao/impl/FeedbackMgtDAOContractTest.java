@@ -0,0 +1,805 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.impl;
+
+import com.google.gson.Gson;
+import org.powermock.modules.testng.PowerMockTestCase;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants.ErrorMessages;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants.ExportFormats;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.FeedbackMgtDAO;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.exception.FeedbackManagementClientException;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.exception.FeedbackManagementServerException;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.export.FeedbackExporter;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.Feedback;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.FeedbackPage;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.SimilarFeedback;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Tests of the behaviour every {@link FeedbackMgtDAO} implementation must share, whatever the storage behind it.
+ */
+public abstract class FeedbackMgtDAOContractTest extends PowerMockTestCase {
+
+    protected List<Feedback> feedbackEntries = new ArrayList<>();
+
+    /**
+     * Create the DAO under test, on a storage without any feedback entries.
+     *
+     * @return Feedback management DAO
+     * @throws Exception
+     */
+    protected abstract FeedbackMgtDAO createFeedbackMgtDAO() throws Exception;
+
+    @BeforeMethod
+    public void initFeedbackEntries() {
+
+        feedbackEntries.clear();
+
+        Feedback feedback1 = new Feedback(1, "Sample message 1", "kim@abc.com", "0112222222",
+                UUID.randomUUID().toString(), 1, UUID.randomUUID().toString(),
+                new ArrayList<>(Arrays.asList("issue", "report a bug", "improve")));
+
+        Feedback feedback2 = new Feedback(2, "Sample message 2", "alex@wso2.com", "0113333333",
+                UUID.randomUUID().toString(), 2, UUID.randomUUID().toString(),
+                new ArrayList<>(Arrays.asList("bug report", "needs improvement", "issue")));
+
+        Feedback feedback3 = new Feedback(3, "Sample message 3", "kim@abc.com", "0114444444",
+                UUID.randomUUID().toString(), 1, UUID.randomUUID().toString(),
+                new ArrayList<>(Arrays.asList("improve", "suggestion", "complement", "issue")));
+
+        feedbackEntries.add(feedback1);
+        feedbackEntries.add(feedback2);
+        feedbackEntries.add(feedback3);
+    }
+
+    @DataProvider(name = "feedbackListFilterDataProvider")
+    public Object[][] provideListFilterData() {
+
+        return new Object[][]{
+                // String filter, int limit, int offset, String sortBy, String sortOrder, int resultSize
+
+                // Test Filter
+                {"email eq kim@abc.com", 5, 0, "time_created", "asc", 2},
+                {"email co wso2", 5, 0, "time_created", "asc", 1},
+                {"email sw kim", 5, 0, "time_created", "asc", 2},
+                {"email ew wso2.com", 5, 0, "time_created", "asc", 1},
+                {"email ew .com and email co abc.c", 5, 0, "time_created", "asc", 2},
+                {"email co KIM", 5, 0, "time_created", "asc", 0},
+                {"email co m@a", 5, 0, "time_created", "asc", 2},
+                {"email co x%@", 5, 0, "time_created", "asc", 1},
+                {"EMAIL EW wso2.com", 5, 0, "TIME_CREATED", "ASC", 1},
+                {"tag eq suggestion", 5, 0, "time_created", "asc", 1},
+                {"tag co improve", 5, 0, "time_created", "asc", 3},
+                {"tag sw improve", 5, 0, "time_created", "asc", 2},
+                {"tag ew bug", 5, 0, "time_created", "asc", 1},
+                {"tag eq issue", 5, 0, "time_created", "asc", 3},
+                {"tag eq unknown", 5, 0, "time_created", "asc", 0},
+                {"tag eq issue and tag eq improve", 5, 0, "time_created", "asc", 2},
+                {"tag eq improve AND email ew wso2.com", 5, 0, "time_created", "asc", 0},
+                {"tag eq unknown and tag eq issue", 5, 0, "time_created", "asc", 0},
+                {"tag eq suggestion or tag sw bug", 5, 0, "time_created", "asc", 2},
+                {"tag eq unknown OR tag eq suggestion", 5, 0, "time_created", "asc", 1},
+                {"email eq alex@wso2.com or tag eq suggestion", 5, 0, "time_created", "asc", 2},
+                {"tag eq issue and tag eq improve or tag eq suggestion", 5, 0, "time_created", "asc", 2},
+                {"tag eq \"report a bug\" or tag eq suggestion", 5, 0, "time_created", "asc", 2},
+                {"(tag eq issue or tag eq suggestion) and email eq kim@abc.com", 5, 0, "time_created", "asc", 2},
+                {"time_created gt 2000-01-01", 5, 0, "time_created", "asc", 3},
+                {"time_created lt \"2000-01-01 00:00:00\"", 5, 0, "time_created", "asc", 0},
+                {"time_created between 2000-01-01 and 2999-12-31T23:59:59Z and email eq kim@abc.com", 5, 0,
+                        "time_created", "asc", 2},
+                {"time_created le 2000-01-01T00:00:00 or tag eq suggestion", 5, 0, "time_created", "asc", 1},
+                {"message co sample", 5, 0, "time_created", "asc", 3},
+                {"message co \"message 2\"", 5, 0, "time_created", "asc", 1},
+                {"message co SAMPLE and email eq kim@abc.com", 5, 0, "time_created", "asc", 2},
+                {"message phrase \"sample message 3\"", 5, 0, "time_created", "asc", 1},
+                {"message phrase \"message sample\"", 5, 0, "time_created", "asc", 0},
+                {null, 5, 0, "time_created", "asc", 3},
+
+                // Test limit
+                {null, 5, 0, "time_created", "asc", 3},
+                {null, 2, 0, "time_created", "asc", 2},
+                {null, 0, 0, "time_created", "asc", 3},
+                {"email co @", 1, 0, "time_created", "asc", 1},
+
+                // Test offset
+                {null, 5, 2, "time_created", "asc", 1},
+                {null, 5, 0, "time_created", "asc", 3},
+                {"email co @", 5, 1, "time_created", "asc", 2},
+
+                // Test sorting
+                {null, 5, 0, "time_created", "asc", 3},
+                {null, 5, 0, "time_created", "ASC", 3},
+                {null, 5, 0, "time_created", "desc", 3},
+                {null, 5, 0, "time_created", "DESC", 3},
+                {null, 5, 0, "time_created", null, 3},
+                {null, 5, 0, null, "asc", 3},
+                {null, 5, 0, null, null, 3}
+        };
+    }
+
+    @DataProvider(name = "feedbackListFilterInvalidDataProvider")
+    public Object[][] provideListFilterInvalidData() {
+
+        return new Object[][]{
+                // String filter, int limit, int offset, String sortBy, String sortOrder
+
+                // Test Filter
+                {"email someString kim@abc.com", 5, 0, "time_created", "asc"},
+                {"someString ew someString", 5, 0, "time_created", "asc"},
+                {"someString", 5, 0, "time_created", "asc"},
+                {"tag eq issue xor tag eq improve", 5, 0, "time_created", "asc"},
+                {"tag eq issue and", 5, 0, "time_created", "asc"},
+                {"(tag eq issue or tag eq improve", 5, 0, "time_created", "asc"},
+                {"tag eq \"issue", 5, 0, "time_created", "asc"},
+                {"time_created gt yesterday", 5, 0, "time_created", "asc"},
+                {"time_created co 2000", 5, 0, "time_created", "asc"},
+                {"email gt kim@abc.com", 5, 0, "time_created", "asc"},
+                {"time_created between 2000-01-01", 5, 0, "time_created", "asc"},
+                {"message eq sample", 5, 0, "time_created", "asc"},
+                {"message co \"!!\"", 5, 0, "time_created", "asc"},
+
+                // Test limit
+                {null, -1, 0, "time_created", "asc"},
+
+                // Test offset
+                {null, 5, -1, "time_created", "asc"},
+
+                // Test sorting
+                {null, 5, 0, "time_created", "someString"},
+                {null, 5, 0, "someString", "asc"},
+        };
+    }
+
+    @DataProvider(name = "feedbackPageDataProvider")
+    public Object[][] providePageData() {
+
+        return new Object[][]{
+                // String filter, int limit, String sortBy, String sortOrder, int resultSize
+                {null, 1, null, null, 3},
+                {null, 2, "time_created", "asc", 3},
+                {null, 2, "time_created", "desc", 3},
+                {null, 2, null, "desc", 3},
+                {"email eq kim@abc.com", 1, "time_created", "asc", 2},
+                {"tag eq issue", 2, null, null, 3},
+                {"tag co improve", 1, null, "desc", 3},
+                {"tag eq unknown", 2, null, null, 0},
+                {"tag eq issue or tag eq improve", 1, null, "desc", 3},
+                {null, 5, null, null, 3}
+        };
+    }
+
+    @DataProvider(name = "feedbackListCountDataProvider")
+    public Object[][] provideListCountData() {
+
+        return new Object[][]{
+                // String filter, int resultCount
+                {"email eq kim@abc.com", 2},
+                {"EMAIL EQ kim@abc.com", 2},
+                {"tag eq issue", 3},
+                {"tag eq suggestion", 1},
+                {"tag eq unknown", 0},
+                {"tag co improve", 3},
+                {"tag sw improve", 2},
+                {"tag eq issue and tag eq improve", 2},
+                {"tag eq unknown or tag eq suggestion", 1},
+                {"email sw kim or tag eq suggestion", 2},
+                {"time_created ge 2000-01-01 and tag eq issue", 3},
+                {"message co sample and tag eq issue", 3},
+                {"email ew abc.com", 2},
+                {"email co wso2.co or email co @a", 3},
+                {"message phrase \"message 1\"", 1},
+                {"", 3},
+                {null, 3}
+        };
+    }
+
+    @DataProvider(name = "feedbackListCountInvalidDataProvider")
+    public Object[][] provideListCountInvalidData() {
+
+        return new Object[][]{
+                // String filter
+                {"someString ew someString"},
+                {"email someString someString"},
+                {"someString"}
+        };
+    }
+
+    @DataProvider(name = "feedbackSearchInvalidDataProvider")
+    public Object[][] provideSearchInvalidData() {
+
+        return new Object[][]{
+                // String query
+                {null},
+                {"  !! "},
+                {"one two three four five six seven eight nine"}
+        };
+    }
+
+    @DataProvider(name = "feedbackUpdateDataProvider")
+    public Object[][] provideUpdateData() {
+
+        return new Object[][]{
+                // message, email, contactNo, [tags]
+                {"Updated message", "kim@wso2.com", "1111111111", new ArrayList<>(Arrays.asList("Updated Tag 1",
+                        "Updated tag 2", "Updated tag3"))}
+        };
+    }
+
+    @Test
+    public void testAddFeedback() throws Exception {
+
+        FeedbackMgtDAO feedbackMgtDAO = createFeedbackMgtDAO();
+        Feedback feedbackResult = feedbackMgtDAO.insertFeedbackEntry(feedbackEntries.get(0));
+
+        Assert.assertEquals(feedbackResult.getMessage(), feedbackEntries.get(0).getMessage());
+        Assert.assertEquals(feedbackResult.getEmail(), feedbackEntries.get(0).getEmail());
+        Assert.assertEquals(feedbackResult.getContactNo(), feedbackEntries.get(0).getContactNo());
+        Assert.assertEquals(feedbackResult.getUserId(), feedbackEntries.get(0).getUserId());
+        Assert.assertEquals(feedbackResult.getTenantId(), feedbackEntries.get(0).getTenantId());
+        Assert.assertEquals(feedbackResult.getUuid(), feedbackEntries.get(0).getUuid());
+        Assert.assertEquals(feedbackResult.getTags(), feedbackEntries.get(0).getTags());
+    }
+
+    @Test
+    public void testAddFeedbackList() throws Exception {
+
+        FeedbackMgtDAO feedbackMgtDAO = createFeedbackMgtDAO();
+        List<Feedback> feedbackResults = feedbackMgtDAO.insertFeedbackEntries(feedbackEntries.subList(0, 3));
+        Assert.assertEquals(feedbackResults.size(), 3);
+
+        List<Feedback> feedbackResultsList = feedbackMgtDAO.listFeedbackEntries(null, 5, 0, null, null);
+        Assert.assertEquals(feedbackResultsList.size(), 3);
+        for (int i = 0; i < feedbackResultsList.size(); i++) {
+            Assert.assertEquals(feedbackResultsList.get(i).getUuid(), feedbackEntries.get(i).getUuid());
+            Assert.assertEquals(feedbackResultsList.get(i).getMessage(), feedbackEntries.get(i).getMessage());
+            Assert.assertEquals(feedbackResultsList.get(i).getTags(), feedbackEntries.get(i).getTags());
+        }
+        Assert.assertEquals(feedbackMgtDAO.countListResults("tag eq issue").intValue(), 3);
+    }
+
+    @Test
+    public void testAddFeedbackWithRepeatedTags() throws Exception {
+
+        FeedbackMgtDAO feedbackMgtDAO = createFeedbackMgtDAO();
+        Feedback repeatedTags = new Feedback(4, "Repeated tags", "kim@abc.com", "0112222222",
+                UUID.randomUUID().toString(), 1, UUID.randomUUID().toString(),
+                new ArrayList<>(Arrays.asList("issue", "issue")));
+        feedbackMgtDAO.insertFeedbackEntry(repeatedTags);
+
+        Assert.assertEquals(feedbackMgtDAO.getFeedbackEntry(repeatedTags.getUuid()).getTags(),
+                Collections.singletonList("issue"));
+        Assert.assertEquals(feedbackMgtDAO.countListResults("tag eq issue").intValue(), 1);
+    }
+
+    @Test
+    public void testAddFeedbackWithDuplicateId() throws Exception {
+
+        FeedbackMgtDAO feedbackMgtDAO = createFeedbackMgtDAO();
+        feedbackMgtDAO.insertFeedbackEntry(feedbackEntries.get(0));
+
+        Feedback duplicate = new Feedback(4, "Duplicate message", "kim@abc.com", "0112222222",
+                UUID.randomUUID().toString(), 1, feedbackEntries.get(0).getUuid(), new ArrayList<>());
+        try {
+            feedbackMgtDAO.insertFeedbackEntries(Arrays.asList(feedbackEntries.get(1), duplicate));
+            Assert.fail("The entries with a duplicate ID were added.");
+        } catch (FeedbackManagementServerException e) {
+            Assert.assertEquals(e.getErrorCode(), ErrorMessages.ERROR_CODE_ADD_USER_FEEDBACK_LIST.getCode());
+        }
+        Assert.assertEquals(feedbackMgtDAO.getFeedbackEntry(feedbackEntries.get(0).getUuid()).getMessage(),
+                feedbackEntries.get(0).getMessage());
+        Assert.assertNull(feedbackMgtDAO.checkIfFeedbackExists(feedbackEntries.get(1).getUuid()));
+    }
+
+    @Test
+    public void testGetFeedback() throws Exception {
+
+        FeedbackMgtDAO feedbackMgtDAO = createFeedbackMgtDAO();
+        Feedback feedbackInsertResult = feedbackMgtDAO.insertFeedbackEntry(feedbackEntries.get(0));
+        Assert.assertEquals(feedbackInsertResult.getUuid(), feedbackEntries.get(0).getUuid());
+
+        Feedback feedbackById = feedbackMgtDAO.getFeedbackEntry(feedbackInsertResult.getUuid());
+
+        Assert.assertEquals(feedbackById.getId(), feedbackInsertResult.getId());
+        Assert.assertEquals(feedbackById.getMessage(), feedbackInsertResult.getMessage());
+        Assert.assertEquals(feedbackById.getEmail(), feedbackInsertResult.getEmail());
+        Assert.assertEquals(feedbackById.getContactNo(), feedbackInsertResult.getContactNo());
+        Assert.assertEquals(feedbackById.getUuid(), feedbackInsertResult.getUuid());
+        Assert.assertEquals(feedbackById.getTags(), feedbackInsertResult.getTags());
+    }
+
+    @Test(dataProvider = "feedbackListFilterDataProvider")
+    public void testListFeedback(String filter, int limit, int offset, String sortBy, String sortOrder, int resultSize)
+            throws Exception {
+
+        FeedbackMgtDAO feedbackMgtDAO = createFeedbackMgtDAO();
+
+        Feedback feedbackResult1 = feedbackMgtDAO.insertFeedbackEntry(feedbackEntries.get(0));
+        Assert.assertEquals(feedbackResult1.getUuid(), feedbackEntries.get(0).getUuid());
+
+        Feedback feedbackResult2 = feedbackMgtDAO.insertFeedbackEntry(feedbackEntries.get(1));
+        Assert.assertEquals(feedbackResult2.getUuid(), feedbackEntries.get(1).getUuid());
+
+        Feedback feedbackResult3 = feedbackMgtDAO.insertFeedbackEntry(feedbackEntries.get(2));
+        Assert.assertEquals(feedbackResult3.getUuid(), feedbackEntries.get(2).getUuid());
+
+        List<Feedback> feedbackResultsList =
+                feedbackMgtDAO.listFeedbackEntries(filter, limit, offset, sortBy, sortOrder);
+
+        Assert.assertEquals(feedbackResultsList.size(), resultSize);
+    }
+
+    @Test
+    public void testListFeedbackPopulatesTags() throws Exception {
+
+        FeedbackMgtDAO feedbackMgtDAO = createFeedbackMgtDAO();
+        feedbackMgtDAO.insertFeedbackEntry(feedbackEntries.get(0));
+        feedbackMgtDAO.insertFeedbackEntry(feedbackEntries.get(1));
+        feedbackMgtDAO.insertFeedbackEntry(feedbackEntries.get(2));
+
+        List<Feedback> feedbackResultsList = feedbackMgtDAO.listFeedbackEntries(null, 5, 0, null, null);
+        Assert.assertEquals(feedbackResultsList.size(), 3);
+        for (int i = 0; i < feedbackResultsList.size(); i++) {
+            Assert.assertEquals(feedbackResultsList.get(i).getUuid(), feedbackEntries.get(i).getUuid());
+            Assert.assertEquals(feedbackResultsList.get(i).getTags(), feedbackEntries.get(i).getTags());
+        }
+
+        List<Feedback> filteredResultsList =
+                feedbackMgtDAO.listFeedbackEntries("email eq kim@abc.com", 5, 0, null, null);
+        Assert.assertEquals(filteredResultsList.size(), 2);
+        Assert.assertEquals(filteredResultsList.get(0).getTags(), feedbackEntries.get(0).getTags());
+        Assert.assertEquals(filteredResultsList.get(1).getTags(), feedbackEntries.get(2).getTags());
+
+        // Each feedback entry is listed once with all of its tags, regardless of how many tags match.
+        List<Feedback> tagFilteredResultsList =
+                feedbackMgtDAO.listFeedbackEntries("tag co i", 5, 0, null, null);
+        Assert.assertEquals(tagFilteredResultsList.size(), 3);
+        for (int i = 0; i < tagFilteredResultsList.size(); i++) {
+            Assert.assertEquals(tagFilteredResultsList.get(i).getTags(), feedbackEntries.get(i).getTags());
+        }
+    }
+
+    @Test(dataProvider = "feedbackPageDataProvider")
+    public void testListFeedbackWithCursor(String filter, int limit, String sortBy, String sortOrder, int resultSize)
+            throws Exception {
+
+        FeedbackMgtDAO feedbackMgtDAO = createFeedbackMgtDAO();
+        feedbackMgtDAO.insertFeedbackEntry(feedbackEntries.get(0));
+        feedbackMgtDAO.insertFeedbackEntry(feedbackEntries.get(1));
+        feedbackMgtDAO.insertFeedbackEntry(feedbackEntries.get(2));
+
+        List<Feedback> offsetResultsList =
+                feedbackMgtDAO.listFeedbackEntries(filter, 5, 0, sortBy, sortOrder);
+
+        List<Feedback> cursorResultsList = new ArrayList<>();
+        String cursor = null;
+        do {
+            FeedbackPage feedbackPage = feedbackMgtDAO.listFeedbackEntries(filter, limit, cursor, sortBy,
+                    sortOrder);
+            Assert.assertTrue(feedbackPage.getFeedbackEntries().size() <= limit);
+            cursorResultsList.addAll(feedbackPage.getFeedbackEntries());
+            cursor = feedbackPage.getNextCursor();
+        } while (cursor != null);
+
+        Set<String> cursorResultIds = new HashSet<>();
+        cursorResultsList.forEach(feedback -> cursorResultIds.add(feedback.getUuid()));
+        Set<String> offsetResultIds = new HashSet<>();
+        offsetResultsList.forEach(feedback -> offsetResultIds.add(feedback.getUuid()));
+
+        Assert.assertEquals(cursorResultsList.size(), resultSize);
+        Assert.assertEquals(cursorResultIds.size(), resultSize);
+        Assert.assertEquals(cursorResultIds, offsetResultIds);
+    }
+
+    @Test(expectedExceptions = FeedbackManagementClientException.class)
+    public void testListFeedbackWithInvalidCursor() throws Exception {
+
+        FeedbackMgtDAO feedbackMgtDAO = createFeedbackMgtDAO();
+        feedbackMgtDAO.insertFeedbackEntry(feedbackEntries.get(0));
+        feedbackMgtDAO.insertFeedbackEntry(feedbackEntries.get(1));
+
+        FeedbackPage feedbackPage = feedbackMgtDAO.listFeedbackEntries(null, 1, null, null, null);
+        Assert.assertNotNull(feedbackPage.getNextCursor());
+
+        // A cursor can only be used with the sorting parameters it was issued for.
+        feedbackMgtDAO.listFeedbackEntries(null, 1, feedbackPage.getNextCursor(), "time_created", "asc");
+
+        Assert.fail("Expected: " + FeedbackManagementClientException.class.getName());
+    }
+
+    @Test(expectedExceptions = FeedbackManagementClientException.class,
+            dataProvider = "feedbackListFilterInvalidDataProvider")
+    public void testListFeedbackWithException(String filter, int limit, int offset, String sortBy, String sortOrder)
+            throws Exception {
+
+        FeedbackMgtDAO feedbackMgtDAO = createFeedbackMgtDAO();
+
+        Feedback feedbackResult1 = feedbackMgtDAO.insertFeedbackEntry(feedbackEntries.get(0));
+        Assert.assertEquals(feedbackResult1.getUuid(), feedbackEntries.get(0).getUuid());
+
+        Feedback feedbackResult2 = feedbackMgtDAO.insertFeedbackEntry(feedbackEntries.get(1));
+        Assert.assertEquals(feedbackResult2.getUuid(), feedbackEntries.get(1).getUuid());
+
+        feedbackMgtDAO.listFeedbackEntries(filter, limit, offset, sortBy, sortOrder);
+
+        Assert.fail("Expected: " + FeedbackManagementClientException.class.getName());
+    }
+
+    @Test(dataProvider = "feedbackListCountDataProvider")
+    public void testListCount(String filter, int resultCount)
+            throws Exception {
+
+        FeedbackMgtDAO feedbackMgtDAO = createFeedbackMgtDAO();
+
+        Feedback feedbackResult1 = feedbackMgtDAO.insertFeedbackEntry(feedbackEntries.get(0));
+        Assert.assertEquals(feedbackResult1.getUuid(), feedbackEntries.get(0).getUuid());
+
+        Feedback feedbackResult2 = feedbackMgtDAO.insertFeedbackEntry(feedbackEntries.get(1));
+        Assert.assertEquals(feedbackResult2.getUuid(), feedbackEntries.get(1).getUuid());
+
+        Feedback feedbackResult3 = feedbackMgtDAO.insertFeedbackEntry(feedbackEntries.get(2));
+        Assert.assertEquals(feedbackResult3.getUuid(), feedbackEntries.get(2).getUuid());
+
+        int feedbackResultsCount = feedbackMgtDAO.countListResults(filter);
+
+        Assert.assertEquals(feedbackResultsCount, resultCount);
+    }
+
+    @Test
+    public void testTenantScopedOperations() throws Exception {
+
+        FeedbackMgtDAO feedbackMgtDAO = createFeedbackMgtDAO();
+        feedbackMgtDAO.insertFeedbackEntries(feedbackEntries.subList(0, 3));
+
+        Assert.assertEquals(feedbackMgtDAO.listFeedbackEntries(1, null, 5, 0, null, null).size(), 2);
+        Assert.assertEquals(feedbackMgtDAO.listFeedbackEntries(2, "tag eq issue", 5, 0, null, null).size(), 1);
+        Assert.assertEquals(feedbackMgtDAO.listFeedbackEntries(3, null, 5, 0, null, null).size(), 0);
+
+        FeedbackPage firstPage = feedbackMgtDAO.listFeedbackEntries(1, null, 1, (String) null, "time_created",
+                "asc");
+        Assert.assertEquals(firstPage.getFeedbackEntries().size(), 1);
+        FeedbackPage secondPage = feedbackMgtDAO.listFeedbackEntries(1, null, 1, firstPage.getNextCursor(),
+                "time_created", "asc");
+        Assert.assertEquals(secondPage.getFeedbackEntries().size(), 1);
+        Assert.assertNull(secondPage.getNextCursor());
+
+        Assert.assertEquals(feedbackMgtDAO.countListResults(1, null).intValue(), 2);
+        Assert.assertEquals(feedbackMgtDAO.countListResults(2, "tag eq issue").intValue(), 1);
+        Assert.assertEquals(feedbackMgtDAO.countListResults(1, "email sw kim").intValue(), 2);
+        Assert.assertEquals(feedbackMgtDAO.countListResults(2, "email sw kim").intValue(), 0);
+
+        String feedbackId = feedbackEntries.get(0).getUuid();
+        Assert.assertNull(feedbackMgtDAO.getFeedbackEntry(2, feedbackId));
+        Assert.assertEquals(feedbackMgtDAO.getFeedbackEntry(1, feedbackId).getUuid(), feedbackId);
+        try {
+            feedbackMgtDAO.deleteFeedbackEntry(2, feedbackId);
+            Assert.fail("Deleting a feedback entry of another tenant should fail.");
+        } catch (FeedbackManagementClientException e) {
+            Assert.assertNotNull(feedbackMgtDAO.getFeedbackEntry(feedbackId));
+        }
+        Assert.assertEquals(feedbackMgtDAO.deleteFeedbackEntry(1, feedbackId), feedbackId);
+        Assert.assertEquals(feedbackMgtDAO.countListResults(1, null).intValue(), 1);
+    }
+
+    @Test
+    public void testExportFeedback() throws Exception {
+
+        FeedbackMgtDAO feedbackMgtDAO = createFeedbackMgtDAO();
+        for (Feedback feedback : feedbackEntries.subList(0, 3)) {
+            feedbackMgtDAO.insertFeedbackEntry(feedback);
+        }
+
+        StringWriter jsonLines = new StringWriter();
+        Assert.assertEquals(feedbackMgtDAO.exportFeedbackEntries(null,
+                FeedbackExporter.forFormat(ExportFormats.jsonl, jsonLines)), 3);
+        String[] lines = jsonLines.toString().split("\n");
+        Assert.assertEquals(lines.length, 3);
+        Feedback exported = new Gson().fromJson(lines[0], Feedback.class);
+        Assert.assertEquals(exported.getUuid(), feedbackEntries.get(0).getUuid());
+        Assert.assertEquals(new HashSet<>(exported.getTags()), new HashSet<>(feedbackEntries.get(0).getTags()));
+
+        StringWriter csv = new StringWriter();
+        Assert.assertEquals(feedbackMgtDAO.exportFeedbackEntries(1, "tag eq issue",
+                FeedbackExporter.forFormat(ExportFormats.csv, csv)), 2);
+        lines = csv.toString().split("\r\n");
+        Assert.assertEquals(lines.length, 3);
+        Assert.assertTrue(lines[1].startsWith(feedbackEntries.get(0).getUuid() + ",Sample message 1,"));
+        Assert.assertTrue(lines[1].contains("report a bug"));
+    }
+
+    @Test
+    public void testSearchFeedbackMessages() throws Exception {
+
+        List<Feedback> searchEntries = new ArrayList<>();
+        String[] messages = {"Login fails on the login page", "Login is slow", "The dashboard is slow."};
+        for (int i = 0; i < messages.length; i++) {
+            searchEntries.add(new Feedback(i + 1, messages[i], "kim@abc.com", "0112222222",
+                    UUID.randomUUID().toString(), i + 1, UUID.randomUUID().toString(),
+                    new ArrayList<>(Collections.singletonList("issue"))));
+        }
+        FeedbackMgtDAO feedbackMgtDAO = createFeedbackMgtDAO();
+        feedbackMgtDAO.insertFeedbackEntry(searchEntries.get(0));
+        feedbackMgtDAO.insertFeedbackEntries(searchEntries.subList(1, 3));
+
+        // The entry which repeats a term of the query is ranked first.
+        List<Feedback> searchResults = feedbackMgtDAO.searchFeedbackEntries("LOGIN", 5);
+        Assert.assertEquals(searchResults.size(), 2);
+        Assert.assertEquals(searchResults.get(0).getUuid(), searchEntries.get(0).getUuid());
+        Assert.assertEquals(searchResults.get(0).getTags(), searchEntries.get(0).getTags());
+        Assert.assertEquals(searchResults.get(1).getUuid(), searchEntries.get(1).getUuid());
+
+        Assert.assertEquals(feedbackMgtDAO.searchFeedbackEntries("slow", 1).size(), 1);
+        Assert.assertEquals(feedbackMgtDAO.searchFeedbackEntries("\"is slow\"", 5).size(), 2);
+        Assert.assertEquals(feedbackMgtDAO.searchFeedbackEntries("\"slow is\"", 5).size(), 0);
+        Assert.assertEquals(feedbackMgtDAO.searchFeedbackEntries("slow dashboard", 5).size(), 1);
+        Assert.assertEquals(feedbackMgtDAO.searchFeedbackEntries("slow unknown", 5).size(), 0);
+        searchResults = feedbackMgtDAO.searchFeedbackEntries(2, "slow", 5);
+        Assert.assertEquals(searchResults.size(), 1);
+        Assert.assertEquals(searchResults.get(0).getUuid(), searchEntries.get(1).getUuid());
+
+        // The index follows the updates and deletes of the entries.
+        Feedback feedbackUpdate = new Feedback(1, "The dashboard does not load", "kim@abc.com", "0112222222",
+                searchEntries.get(0).getUserId(), 1, searchEntries.get(0).getUuid(), new ArrayList<>());
+        feedbackMgtDAO.updateFeedbackEntry(searchEntries.get(0).getUuid(), feedbackUpdate);
+        feedbackMgtDAO.deleteFeedbackEntry(searchEntries.get(1).getUuid());
+        Assert.assertEquals(feedbackMgtDAO.searchFeedbackEntries("login", 5).size(), 0);
+        Assert.assertEquals(feedbackMgtDAO.searchFeedbackEntries("dashboard", 5).size(), 2);
+    }
+
+    @Test
+    public void testEmailIndexFollowsChanges() throws Exception {
+
+        FeedbackMgtDAO feedbackMgtDAO = createFeedbackMgtDAO();
+        feedbackMgtDAO.insertFeedbackEntry(feedbackEntries.get(0));
+        feedbackMgtDAO.insertFeedbackEntries(feedbackEntries.subList(1, 3));
+        Assert.assertEquals(feedbackMgtDAO.countListResults("email ew abc.com").intValue(), 2);
+
+        Feedback feedbackUpdate = new Feedback(1, "Updated message", "kim@wso2.com", "0112222222",
+                feedbackEntries.get(0).getUserId(), 1, feedbackEntries.get(0).getUuid(), new ArrayList<>());
+        feedbackMgtDAO.updateFeedbackEntry(feedbackEntries.get(0).getUuid(), feedbackUpdate);
+        Assert.assertEquals(feedbackMgtDAO.countListResults("email ew abc.com").intValue(), 1);
+        Assert.assertEquals(feedbackMgtDAO.countListResults("email co wso2.c").intValue(), 2);
+
+        feedbackMgtDAO.deleteFeedbackEntry(feedbackEntries.get(1).getUuid());
+        Assert.assertEquals(feedbackMgtDAO.countListResults("email co wso2.c").intValue(), 1);
+    }
+
+    @Test
+    public void testFindSimilarFeedback() throws Exception {
+
+        List<Feedback> similarEntries = new ArrayList<>();
+        String[] messages = {"The login page does not load after the latest update on my phone",
+                "the login page does not load after the latest update on my phone!",
+                "The login page does not load after the latest update on my laptop",
+                "Please add a dark mode to the dashboard", "   "};
+        for (int i = 0; i < messages.length; i++) {
+            similarEntries.add(new Feedback(i + 1, messages[i], "kim@abc.com", "0112222222",
+                    UUID.randomUUID().toString(), 1, UUID.randomUUID().toString(), new ArrayList<>()));
+        }
+        similarEntries.add(new Feedback(6, messages[0], "kim@abc.com", "0112222222",
+                UUID.randomUUID().toString(), 2, UUID.randomUUID().toString(), new ArrayList<>()));
+        FeedbackMgtDAO feedbackMgtDAO = createFeedbackMgtDAO();
+        feedbackMgtDAO.insertFeedbackEntry(similarEntries.get(0));
+        feedbackMgtDAO.insertFeedbackEntries(similarEntries.subList(1, similarEntries.size()));
+
+        // The same message in another tenant is not similar, and the most similar entry is ranked first.
+        List<SimilarFeedback> similarResults =
+                feedbackMgtDAO.findSimilarFeedbackEntries(similarEntries.get(0).getUuid(), 0.5);
+        Assert.assertEquals(similarResults.size(), 2);
+        Assert.assertEquals(similarResults.get(0).getFeedback().getUuid(), similarEntries.get(1).getUuid());
+        Assert.assertEquals(similarResults.get(0).getSimilarity(), 1.0);
+        Assert.assertEquals(similarResults.get(1).getFeedback().getUuid(), similarEntries.get(2).getUuid());
+        Assert.assertTrue(similarResults.get(1).getSimilarity() < 1.0);
+        Assert.assertEquals(feedbackMgtDAO.findSimilarFeedbackEntries(similarEntries.get(0).getUuid(), 1.0)
+                .size(), 1);
+        Assert.assertTrue(feedbackMgtDAO.findSimilarFeedbackEntries(similarEntries.get(3).getUuid(), 0.5)
+                .isEmpty());
+        Assert.assertTrue(feedbackMgtDAO.findSimilarFeedbackEntries(similarEntries.get(4).getUuid(), 0.5)
+                .isEmpty());
+
+        // The index follows the updates and deletes of the entries.
+        Feedback feedbackUpdate = new Feedback(2, messages[3], "kim@abc.com", "0112222222",
+                similarEntries.get(1).getUserId(), 1, similarEntries.get(1).getUuid(), new ArrayList<>());
+        feedbackMgtDAO.updateFeedbackEntry(similarEntries.get(1).getUuid(), feedbackUpdate);
+        feedbackMgtDAO.deleteFeedbackEntry(similarEntries.get(2).getUuid());
+        Assert.assertTrue(feedbackMgtDAO.findSimilarFeedbackEntries(similarEntries.get(0).getUuid(), 0.5)
+                .isEmpty());
+        Assert.assertEquals(feedbackMgtDAO.findSimilarFeedbackEntries(similarEntries.get(3).getUuid(), 0.5)
+                .size(), 1);
+    }
+
+    @Test(expectedExceptions = FeedbackManagementClientException.class)
+    public void testFindSimilarFeedbackWithException() throws Exception {
+
+        FeedbackMgtDAO feedbackMgtDAO = createFeedbackMgtDAO();
+        feedbackMgtDAO.findSimilarFeedbackEntries(UUID.randomUUID().toString(), 0.5);
+
+        Assert.fail("Expected: " + FeedbackManagementClientException.class.getName());
+    }
+
+    @Test(expectedExceptions = FeedbackManagementClientException.class, dataProvider =
+            "feedbackSearchInvalidDataProvider")
+    public void testSearchFeedbackWithException(String query) throws Exception {
+
+        FeedbackMgtDAO feedbackMgtDAO = createFeedbackMgtDAO();
+        feedbackMgtDAO.searchFeedbackEntries(query, 5);
+
+        Assert.fail("Expected: " + FeedbackManagementClientException.class.getName());
+    }
+
+    @Test(expectedExceptions = FeedbackManagementClientException.class, dataProvider =
+            "feedbackListCountInvalidDataProvider")
+    public void testListCountWithException(String filter) throws Exception {
+
+        FeedbackMgtDAO feedbackMgtDAO = createFeedbackMgtDAO();
+
+        Feedback feedbackResult1 = feedbackMgtDAO.insertFeedbackEntry(feedbackEntries.get(0));
+        Assert.assertEquals(feedbackResult1.getUuid(), feedbackEntries.get(0).getUuid());
+
+        Feedback feedbackResult2 = feedbackMgtDAO.insertFeedbackEntry(feedbackEntries.get(1));
+        Assert.assertEquals(feedbackResult2.getUuid(), feedbackEntries.get(1).getUuid());
+
+        Feedback feedbackResult3 = feedbackMgtDAO.insertFeedbackEntry(feedbackEntries.get(2));
+        Assert.assertEquals(feedbackResult3.getUuid(), feedbackEntries.get(2).getUuid());
+
+        feedbackMgtDAO.countListResults(filter);
+
+        Assert.fail("Expected: " + FeedbackManagementClientException.class.getName());
+    }
+
+    @Test
+    public void testDeleteFeedback() throws Exception {
+
+        FeedbackMgtDAO feedbackMgtDAO = createFeedbackMgtDAO();
+
+        Feedback feedbackResult = feedbackMgtDAO.insertFeedbackEntry(feedbackEntries.get(0));
+        Assert.assertEquals(feedbackResult.getUuid(), feedbackEntries.get(0).getUuid());
+
+        String deletedId = feedbackMgtDAO.deleteFeedbackEntry(feedbackResult.getUuid());
+
+        Assert.assertEquals(deletedId, feedbackResult.getUuid());
+    }
+
+    @Test(expectedExceptions = FeedbackManagementClientException.class)
+    public void testDeleteFeedbackByInvalidId() throws Exception {
+
+        FeedbackMgtDAO feedbackMgtDAO = createFeedbackMgtDAO();
+        feedbackMgtDAO.deleteFeedbackEntry("000");
+
+        Assert.fail("Expected: " + FeedbackManagementClientException.class.getName());
+    }
+
+    @Test(dataProvider = "feedbackUpdateDataProvider")
+    public void testUpdateFeedback(String message, String email, String contactNo, ArrayList<String> tags)
+            throws Exception {
+
+        Feedback feedbackToBeUpdated = new Feedback();
+        feedbackToBeUpdated.setMessage(message);
+        feedbackToBeUpdated.setEmail(email);
+        feedbackToBeUpdated.setContactNo(contactNo);
+        feedbackToBeUpdated.setTags(tags);
+
+        FeedbackMgtDAO feedbackMgtDAO = createFeedbackMgtDAO();
+        Feedback feedbackInsertResult = feedbackMgtDAO.insertFeedbackEntry(feedbackEntries.get(0));
+
+        Assert.assertEquals(feedbackInsertResult.getMessage(), feedbackEntries.get(0).getMessage());
+        Assert.assertEquals(feedbackInsertResult.getEmail(), feedbackEntries.get(0).getEmail());
+        Assert.assertEquals(feedbackInsertResult.getContactNo(), feedbackEntries.get(0).getContactNo());
+        Assert.assertEquals(feedbackInsertResult.getUuid(), feedbackEntries.get(0).getUuid());
+        Assert.assertEquals(feedbackInsertResult.getTags(), feedbackEntries.get(0).getTags());
+
+        Feedback updatedFeedback = feedbackMgtDAO.updateFeedbackEntry(feedbackInsertResult.getUuid(),
+                feedbackToBeUpdated);
+
+        Assert.assertEquals(updatedFeedback.getMessage(), message);
+        Assert.assertEquals(updatedFeedback.getEmail(), email);
+        Assert.assertEquals(updatedFeedback.getContactNo(), contactNo);
+        Assert.assertEquals(updatedFeedback.getTags(), tags);
+
+    }
+
+    @Test
+    public void testUpdateFeedbackOfVersion() throws Exception {
+
+        FeedbackMgtDAO feedbackMgtDAO = createFeedbackMgtDAO();
+        Feedback feedback = feedbackEntries.get(0);
+        Assert.assertEquals(feedbackMgtDAO.insertFeedbackEntry(feedback).getVersion().intValue(), 0);
+        Feedback storedFeedback = feedbackMgtDAO.getFeedbackEntry(feedback.getUuid());
+        Assert.assertEquals(storedFeedback.getVersion().intValue(), 0);
+
+        Feedback feedbackUpdate = new Feedback(null, "Updated message", "kim@abc.com", "0112222222", null, 0,
+                null, new ArrayList<>(Collections.singletonList("issue")));
+        feedbackUpdate.setVersion(0);
+        Feedback updatedFeedback = feedbackMgtDAO.updateFeedbackEntry(feedback.getUuid(), feedbackUpdate);
+
+        // The stored fields are merged into the updated entry, which is the entry as it is read after the update.
+        Assert.assertEquals(updatedFeedback.getVersion().intValue(), 1);
+        Assert.assertEquals(updatedFeedback.getUserId(), feedback.getUserId());
+        Assert.assertEquals(updatedFeedback.getTenantId(), feedback.getTenantId());
+        Assert.assertEquals(updatedFeedback.getTimeCreated(), storedFeedback.getTimeCreated());
+        Feedback readFeedback = feedbackMgtDAO.getFeedbackEntry(feedback.getUuid());
+        Assert.assertEquals(readFeedback.getMessage(), "Updated message");
+        Assert.assertEquals(readFeedback.getVersion(), updatedFeedback.getVersion());
+        Assert.assertEquals(readFeedback.getTags(), updatedFeedback.getTags());
+
+        // An update of a version which has been changed is rejected without changing the entry.
+        feedbackUpdate.setMessage("Stale message");
+        try {
+            feedbackMgtDAO.updateFeedbackEntry(feedback.getUuid(), feedbackUpdate);
+            Assert.fail("Expected: " + FeedbackManagementClientException.class.getName());
+        } catch (FeedbackManagementClientException e) {
+            Assert.assertEquals(e.getErrorCode(), ErrorMessages.ERROR_CODE_FEEDBACK_VERSION_CONFLICT.getCode());
+        }
+        Assert.assertEquals(feedbackMgtDAO.getFeedbackEntry(feedback.getUuid()).getMessage(), "Updated message");
+
+        // An update without a version is applied regardless of the version.
+        feedbackUpdate.setVersion(null);
+        Assert.assertEquals(feedbackMgtDAO.updateFeedbackEntry(feedback.getUuid(), feedbackUpdate).getVersion()
+                .intValue(), 2);
+
+        try {
+            feedbackUpdate.setVersion(2);
+            feedbackMgtDAO.updateFeedbackEntry("000", feedbackUpdate);
+            Assert.fail("Expected: " + FeedbackManagementClientException.class.getName());
+        } catch (FeedbackManagementClientException e) {
+            Assert.assertEquals(e.getErrorCode(), ErrorMessages.ERROR_NOT_FOUND_RESOURCE_ID.getCode());
+        }
+    }
+
+    @Test(expectedExceptions = FeedbackManagementClientException.class)
+    public void testUpdateFeedbackByInvalidId() throws Exception {
+
+        FeedbackMgtDAO feedbackMgtDAO = createFeedbackMgtDAO();
+        feedbackMgtDAO.updateFeedbackEntry("000", new Feedback());
+
+        Assert.fail("Expected: " + FeedbackManagementClientException.class.getName());
+    }
+
+    @Test
+    public void testIfFeedbackExistsById() throws Exception {
+
+        FeedbackMgtDAO feedbackMgtDAO = createFeedbackMgtDAO();
+        Feedback feedback = feedbackMgtDAO.insertFeedbackEntry(feedbackEntries.get(0));
+        Assert.assertEquals(feedback.getUuid(), feedbackEntries.get(0).getUuid());
+
+        Integer resultId = feedbackMgtDAO.checkIfFeedbackExists(feedback.getUuid());
+
+        Assert.assertNotNull(resultId);
+    }
+
+    @Test
+    public void testIfFeedbackExistsByInvalidId() throws Exception {
+
+        FeedbackMgtDAO feedbackMgtDAO = createFeedbackMgtDAO();
+        Integer resultId = feedbackMgtDAO.checkIfFeedbackExists("000");
+
+        Assert.assertNull(resultId);
+    }
+}
@@ -19,26 +19,53 @@
 package org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.impl;
 
 import org.powermock.core.classloader.annotations.PrepareForTest;
-import org.powermock.modules.testng.PowerMockTestCase;
 import org.testng.Assert;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
-import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.archive.FeedbackArchive;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.archive.FeedbackArchiveJob;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.cache.FeedbackEntryCache;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.cache.FeedbackTagCache;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.cache.FilterPlanCache;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants.ExportFormats;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants.FeedbackIdStorageFormats;
 import org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.FeedbackMgtDAO;
 import org.wso2.carbon.identity.cloud.user.feedback.mgt.exception.FeedbackManagementClientException;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.exception.FeedbackManagementServerException;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.export.FeedbackExporter;
 import org.wso2.carbon.identity.cloud.user.feedback.mgt.internal.FeedbackManagementServiceDataHolder;
 import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.Feedback;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.FeedbackPage;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.FeedbackRetentionPolicy;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.retention.FeedbackRetentionJob;
 
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import javax.sql.DataSource;
 
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.wso2.carbon.identity.cloud.user.feedback.mgt.util.TestUtils.closeH2Base;
 import static org.wso2.carbon.identity.cloud.user.feedback.mgt.util.TestUtils.getConnection;
@@ -47,431 +74,470 @@ import static org.wso2.carbon.identity.cloud.user.feedback.mgt.util.TestUtils.mo
 import static org.wso2.carbon.identity.cloud.user.feedback.mgt.util.TestUtils.spyConnection;
 
 @PrepareForTest({FeedbackManagementServiceDataHolder.class})
-public class FeedbackMgtDAOImplTest extends PowerMockTestCase {
+public class FeedbackMgtDAOImplTest extends FeedbackMgtDAOContractTest {
 
-    private static List<Feedback> feedbackEntries = new ArrayList<>();
+    private DataSource dataSource;
+    private Connection connection;
 
     @BeforeMethod
     public void setUp() throws Exception {
 
         initiateH2Base();
+        FeedbackTagCache.getInstance().clear();
+        FeedbackEntryCache.getInstance().clear();
+        FilterPlanCache.getInstance().clear();
 
-        Feedback feedback1 = new Feedback(1, "Sample message 1", "kim@abc.com", "0112222222",
-                UUID.randomUUID().toString(), 1, UUID.randomUUID().toString(),
-                new ArrayList<>(Arrays.asList("issue", "report a bug", "improve")));
-
-        Feedback feedback2 = new Feedback(2, "Sample message 2", "alex@wso2.com", "0113333333",
-                UUID.randomUUID().toString(), 2, UUID.randomUUID().toString(),
-                new ArrayList<>(Arrays.asList("bug report", "needs improvement", "issue")));
-
-        Feedback feedback3 = new Feedback(3, "Sample message 3", "kim@abc.com", "0114444444",
-                UUID.randomUUID().toString(), 1, UUID.randomUUID().toString(),
-                new ArrayList<>(Arrays.asList("improve", "suggestion", "complement", "issue")));
-
-        feedbackEntries.add(feedback1);
-        feedbackEntries.add(feedback2);
-        feedbackEntries.add(feedback3);
+        dataSource = mock(DataSource.class);
+        mockServiceDataHolder(dataSource);
+        connection = getConnection();
+        Connection spyConnection = spyConnection(connection);
+        when(dataSource.getConnection()).thenReturn(spyConnection);
     }
 
     @AfterMethod
     public void tearDown() throws Exception {
 
+        connection.close();
         closeH2Base();
     }
 
-    @DataProvider(name = "feedbackListFilterDataProvider")
-    public Object[][] provideListFilterData() {
-
-        return new Object[][]{
-                // String filter, int limit, int offset, String sortBy, String sortOrder, int resultSize
-
-                // Test Filter
-                {"email eq kim@abc.com", 5, 0, "time_created", "asc", 2},
-                {"email co wso2", 5, 0, "time_created", "asc", 1},
-                {"email sw kim", 5, 0, "time_created", "asc", 2},
-                {"email ew wso2.com", 5, 0, "time_created", "asc", 1},
-                {"EMAIL EW wso2.com", 5, 0, "TIME_CREATED", "ASC", 1},
-                {"tag eq suggestion", 5, 0, "time_created", "asc", 1},
-                {"tag co improve", 5, 0, "time_created", "asc", 3},
-                {"tag sw improve", 5, 0, "time_created", "asc", 2},
-                {"tag ew bug", 5, 0, "time_created", "asc", 1},
-                {null, 5, 0, "time_created", "asc", 3},
-
-                // Test limit
-                {null, 5, 0, "time_created", "asc", 3},
-                {null, 2, 0, "time_created", "asc", 2},
-                {null, 0, 0, "time_created", "asc", 3},
-                {"email co @", 1, 0, "time_created", "asc", 1},
-
-                // Test offset
-                {null, 5, 2, "time_created", "asc", 1},
-                {null, 5, 0, "time_created", "asc", 3},
-                {"email co @", 5, 1, "time_created", "asc", 2},
-
-                // Test sorting
-                {null, 5, 0, "time_created", "asc", 3},
-                {null, 5, 0, "time_created", "ASC", 3},
-                {null, 5, 0, "time_created", "desc", 3},
-                {null, 5, 0, "time_created", "DESC", 3},
-                {null, 5, 0, "time_created", null, 3},
-                {null, 5, 0, null, "asc", 3},
-                {null, 5, 0, null, null, 3}
-        };
-    }
-
-    @DataProvider(name = "feedbackListFilterInvalidDataProvider")
-    public Object[][] provideListFilterInvalidData() {
-
-        return new Object[][]{
-                // String filter, int limit, int offset, String sortBy, String sortOrder
-
-                // Test Filter
-                {"email someString kim@abc.com", 5, 0, "time_created", "asc"},
-                {"someString ew someString", 5, 0, "time_created", "asc"},
-                {"someString", 5, 0, "time_created", "asc"},
+    @Override
+    protected FeedbackMgtDAO createFeedbackMgtDAO() {
 
-                // Test limit
-                {null, -1, 0, "time_created", "asc"},
-
-                // Test offset
-                {null, 5, -1, "time_created", "asc"},
-
-                // Test sorting
-                {null, 5, 0, "time_created", "someString"},
-                {null, 5, 0, "someString", "asc"},
-        };
+        return new FeedbackMgtDAOImpl();
     }
 
-    @DataProvider(name = "feedbackListCountDataProvider")
-    public Object[][] provideListCountData() {
+    @Test
+    public void testConnectionCheckoutsPerOperation() throws Exception {
 
-        return new Object[][]{
-                // String filter, int resultCount
-                {"email eq kim@abc.com", 2},
-                {"EMAIL EQ kim@abc.com", 2},
-                {"", 3},
-                {null, 3}
-        };
-    }
+        FeedbackMgtDAO feedbackMgtDAO = new FeedbackMgtDAOImpl();
+        feedbackMgtDAO.insertFeedbackEntry(feedbackEntries.get(0));
+        verify(dataSource, times(1)).getConnection();
 
-    @DataProvider(name = "feedbackListCountInvalidDataProvider")
-    public Object[][] provideListCountInvalidData() {
+        feedbackMgtDAO.updateFeedbackEntry(feedbackEntries.get(0).getUuid(), feedbackEntries.get(1));
+        verify(dataSource, times(2)).getConnection();
 
-        return new Object[][]{
-                // String filter
-                {"someString ew someString"},
-                {"email someString someString"},
-                {"someString"}
-        };
-    }
+        // The updated entry is cached by the update, hence it is read without a connection.
+        Feedback feedbackResult = feedbackMgtDAO.getFeedbackEntry(feedbackEntries.get(0).getUuid());
+        Assert.assertEquals(feedbackResult.getMessage(), feedbackEntries.get(1).getMessage());
+        Assert.assertEquals(feedbackResult.getVersion().intValue(), 1);
+        verify(dataSource, times(2)).getConnection();
 
-    @DataProvider(name = "feedbackUpdateDataProvider")
-    public Object[][] provideUpdateData() {
+        feedbackMgtDAO.deleteFeedbackEntry(feedbackEntries.get(0).getUuid());
+        verify(dataSource, times(3)).getConnection();
 
-        return new Object[][]{
-                // message, email, contactNo, [tags]
-                {"Updated message", "kim@wso2.com", "1111111111", new ArrayList<>(Arrays.asList("Updated Tag 1",
-                        "Updated tag 2", "Updated tag3"))}
-        };
+        Assert.assertNull(feedbackMgtDAO.getFeedbackEntry(feedbackEntries.get(0).getUuid()));
+        verify(dataSource, times(4)).getConnection();
     }
 
     @Test
-    public void testAddFeedback() throws Exception {
-
-        DataSource dataSource = mock(DataSource.class);
-        mockServiceDataHolder(dataSource);
-
-        try (Connection connection = getConnection()) {
-
-            Connection spyConnection = spyConnection(connection);
-            when(dataSource.getConnection()).thenReturn(spyConnection);
-
-            FeedbackMgtDAO feedbackMgtDAO = new FeedbackMgtDAOImpl();
-            Feedback feedbackResult = feedbackMgtDAO.insertFeedbackEntry(feedbackEntries.get(0));
-
-            Assert.assertEquals(feedbackResult.getMessage(), feedbackEntries.get(0).getMessage());
-            Assert.assertEquals(feedbackResult.getEmail(), feedbackEntries.get(0).getEmail());
-            Assert.assertEquals(feedbackResult.getContactNo(), feedbackEntries.get(0).getContactNo());
-            Assert.assertEquals(feedbackResult.getUserId(), feedbackEntries.get(0).getUserId());
-            Assert.assertEquals(feedbackResult.getTenantId(), feedbackEntries.get(0).getTenantId());
-            Assert.assertEquals(feedbackResult.getUuid(), feedbackEntries.get(0).getUuid());
-            Assert.assertEquals(feedbackResult.getTags(), feedbackEntries.get(0).getTags());
+    public void testFailedOperationIsRolledBack() throws Exception {
+
+        FeedbackMgtDAO feedbackMgtDAO = new FeedbackMgtDAOImpl();
+        feedbackMgtDAO.insertFeedbackEntry(feedbackEntries.get(0));
+
+        // The new tag is added before the feedback entry, which fails due to the duplicate UUID.
+        Feedback duplicateFeedback = new Feedback(4, "Sample message 4", "alex@wso2.com", "0115555555",
+                UUID.randomUUID().toString(), 1, feedbackEntries.get(0).getUuid(),
+                new ArrayList<>(Arrays.asList("rolled back tag")));
+        try {
+            feedbackMgtDAO.insertFeedbackEntries(Arrays.asList(duplicateFeedback));
+            Assert.fail("Adding a feedback entry with a duplicate UUID should fail.");
+        } catch (FeedbackManagementServerException e) {
+            Assert.assertNull(FeedbackTagCache.getInstance().getTagId("rolled back tag"));
+            Assert.assertNull(new FeedbackTagDAOImpl().getTagId("rolled back tag"));
         }
+        Assert.assertEquals(feedbackMgtDAO.countListResults(null).intValue(), 1);
     }
 
     @Test
-    public void testGetFeedback() throws Exception {
-
-        DataSource dataSource = mock(DataSource.class);
-        mockServiceDataHolder(dataSource);
-
-        try (Connection connection = getConnection()) {
-
-            Connection spyConnection = spyConnection(connection);
-            when(dataSource.getConnection()).thenReturn(spyConnection);
-
-            FeedbackMgtDAO feedbackMgtDAO = new FeedbackMgtDAOImpl();
-            Feedback feedbackInsertResult = feedbackMgtDAO.insertFeedbackEntry(feedbackEntries.get(0));
-            Assert.assertEquals(feedbackInsertResult.getUuid(), feedbackEntries.get(0).getUuid());
-
-            Feedback feedbackById = feedbackMgtDAO.getFeedbackEntry(feedbackInsertResult.getUuid());
-
-            Assert.assertEquals(feedbackById.getId(), feedbackInsertResult.getId());
-            Assert.assertEquals(feedbackById.getMessage(), feedbackInsertResult.getMessage());
-            Assert.assertEquals(feedbackById.getEmail(), feedbackInsertResult.getEmail());
-            Assert.assertEquals(feedbackById.getContactNo(), feedbackInsertResult.getContactNo());
-            Assert.assertEquals(feedbackById.getUuid(), feedbackInsertResult.getUuid());
-            Assert.assertEquals(feedbackById.getTags(), feedbackInsertResult.getTags());
-        }
-    }
-
-    @Test(dataProvider = "feedbackListFilterDataProvider")
-    public void testListFeedback(String filter, int limit, int offset, String sortBy, String sortOrder, int resultSize)
-            throws Exception {
-
-        DataSource dataSource = mock(DataSource.class);
-        mockServiceDataHolder(dataSource);
-
-        try (Connection connection = getConnection()) {
-
-            Connection spyConnection = spyConnection(connection);
-            when(dataSource.getConnection()).thenReturn(spyConnection);
-
-            FeedbackMgtDAO feedbackMgtDAO = new FeedbackMgtDAOImpl();
-
-            Feedback feedbackResult1 = feedbackMgtDAO.insertFeedbackEntry(feedbackEntries.get(0));
-            Assert.assertEquals(feedbackResult1.getUuid(), feedbackEntries.get(0).getUuid());
-
-            Feedback feedbackResult2 = feedbackMgtDAO.insertFeedbackEntry(feedbackEntries.get(1));
-            Assert.assertEquals(feedbackResult2.getUuid(), feedbackEntries.get(1).getUuid());
-
-            Feedback feedbackResult3 = feedbackMgtDAO.insertFeedbackEntry(feedbackEntries.get(2));
-            Assert.assertEquals(feedbackResult3.getUuid(), feedbackEntries.get(2).getUuid());
+    public void testFilterPlanSharedByShape() throws Exception {
 
-            List<Feedback> feedbackResultsList =
-                    feedbackMgtDAO.listFeedbackEntries(filter, limit, offset, sortBy, sortOrder);
+        FeedbackMgtDAO feedbackMgtDAO = new FeedbackMgtDAOImpl();
+        feedbackMgtDAO.insertFeedbackEntry(feedbackEntries.get(0));
+        feedbackMgtDAO.insertFeedbackEntry(feedbackEntries.get(1));
+        feedbackMgtDAO.insertFeedbackEntry(feedbackEntries.get(2));
 
-            Assert.assertEquals(feedbackResultsList.size(), resultSize);
-        }
+        Assert.assertEquals(feedbackMgtDAO.listFeedbackEntries("tag eq issue or email sw alex", 5, 0,
+                "time_created", "asc").size(), 3);
+        Assert.assertEquals(feedbackMgtDAO.countListResults("TAG EQ suggestion OR email sw alex").intValue(), 2);
+        Assert.assertEquals(FilterPlanCache.getInstance().size(), 1);
     }
 
-    @Test(expectedExceptions = FeedbackManagementClientException.class,
-            dataProvider = "feedbackListFilterInvalidDataProvider")
-    public void testListFeedbackWithException(String filter, int limit, int offset, String sortBy, String sortOrder)
-            throws Exception {
-
-        DataSource dataSource = mock(DataSource.class);
-        mockServiceDataHolder(dataSource);
-
-        try (Connection connection = getConnection()) {
-
-            Connection spyConnection = spyConnection(connection);
-            when(dataSource.getConnection()).thenReturn(spyConnection);
-
-            FeedbackMgtDAO feedbackMgtDAO = new FeedbackMgtDAOImpl();
-
-            Feedback feedbackResult1 = feedbackMgtDAO.insertFeedbackEntry(feedbackEntries.get(0));
-            Assert.assertEquals(feedbackResult1.getUuid(), feedbackEntries.get(0).getUuid());
-
-            Feedback feedbackResult2 = feedbackMgtDAO.insertFeedbackEntry(feedbackEntries.get(1));
-            Assert.assertEquals(feedbackResult2.getUuid(), feedbackEntries.get(1).getUuid());
-
-            feedbackMgtDAO.listFeedbackEntries(filter, limit, offset, sortBy, sortOrder);
-
-            Assert.fail("Expected: " + FeedbackManagementClientException.class.getName());
-        }
+    @Test
+    public void testCountersFollowChangesAndReconcile() throws Exception {
+
+        FeedbackMgtDAO feedbackMgtDAO = new FeedbackMgtDAOImpl();
+        feedbackMgtDAO.insertFeedbackEntry(feedbackEntries.get(0));
+        feedbackMgtDAO.insertFeedbackEntries(Arrays.asList(feedbackEntries.get(1), feedbackEntries.get(2)));
+
+        Feedback feedbackUpdate = new Feedback(1, "Updated message", "kim@abc.com", "0112222222",
+                feedbackEntries.get(0).getUserId(), 1, feedbackEntries.get(0).getUuid(),
+                new ArrayList<>(Arrays.asList("suggestion")));
+        feedbackMgtDAO.updateFeedbackEntry(feedbackEntries.get(0).getUuid(), feedbackUpdate);
+        feedbackMgtDAO.deleteFeedbackEntry(feedbackEntries.get(1).getUuid());
+
+        Assert.assertEquals(feedbackMgtDAO.countListResults(null).intValue(), 2);
+        Assert.assertEquals(feedbackMgtDAO.countListResults("tag eq issue").intValue(), 1);
+        Assert.assertEquals(feedbackMgtDAO.countListResults("tag eq suggestion").intValue(), 2);
+        Assert.assertEquals(feedbackMgtDAO.countListResults("tag eq \"report a bug\"").intValue(), 0);
+
+        FeedbackCounterDAOImpl feedbackCounterDAO = new FeedbackCounterDAOImpl();
+        Assert.assertEquals(feedbackCounterDAO.reconcileCounters(), 0);
+
+        connection.createStatement().executeUpdate("UPDATE CLD_FEEDBACK_COUNTERS SET FEEDBACK_COUNT = 10");
+        connection.createStatement().executeUpdate("DELETE FROM CLD_FEEDBACK_COUNTERS WHERE TAG_ID = 0 AND " +
+                "TENANT_ID = 1");
+
+        // Only the tenant without a total counter is recounted by the reconciliation of the uncounted tenants.
+        Assert.assertTrue(feedbackCounterDAO.reconcileUncountedCounters() > 0);
+        Assert.assertEquals(feedbackCounterDAO.reconcileUncountedCounters(), 0);
+        Assert.assertEquals(feedbackCounterDAO.getCount(1, FeedbackMgtConstants.TOTAL_COUNTER_TAG_ID), 2);
+        Assert.assertEquals(feedbackCounterDAO.getCount(2, FeedbackMgtConstants.TOTAL_COUNTER_TAG_ID), 10);
+        Assert.assertTrue(feedbackCounterDAO.reconcileCounters() > 0);
+
+        Assert.assertEquals(feedbackMgtDAO.countListResults(null).intValue(), 2);
+        Assert.assertEquals(feedbackMgtDAO.countListResults("tag eq issue").intValue(), 1);
+        Assert.assertEquals(feedbackMgtDAO.countListResults("tag eq \"report a bug\"").intValue(), 0);
+        Assert.assertEquals(feedbackCounterDAO.reconcileCounters(), 0);
     }
 
-    @Test(dataProvider = "feedbackListCountDataProvider")
-    public void testListCount(String filter, int resultCount)
-            throws Exception {
-
-        DataSource dataSource = mock(DataSource.class);
-        mockServiceDataHolder(dataSource);
-
-        try (Connection connection = getConnection()) {
-
-            Connection spyConnection = spyConnection(connection);
-            when(dataSource.getConnection()).thenReturn(spyConnection);
-
-            FeedbackMgtDAO feedbackMgtDAO = new FeedbackMgtDAOImpl();
-
-            Feedback feedbackResult1 = feedbackMgtDAO.insertFeedbackEntry(feedbackEntries.get(0));
-            Assert.assertEquals(feedbackResult1.getUuid(), feedbackEntries.get(0).getUuid());
-
-            Feedback feedbackResult2 = feedbackMgtDAO.insertFeedbackEntry(feedbackEntries.get(1));
-            Assert.assertEquals(feedbackResult2.getUuid(), feedbackEntries.get(1).getUuid());
-
-            Feedback feedbackResult3 = feedbackMgtDAO.insertFeedbackEntry(feedbackEntries.get(2));
-            Assert.assertEquals(feedbackResult3.getUuid(), feedbackEntries.get(2).getUuid());
-
-            int feedbackResultsCount = feedbackMgtDAO.countListResults(filter);
-
-            Assert.assertEquals(feedbackResultsCount, resultCount);
-        }
+    @Test
+    public void testAggregatedCounts() throws Exception {
+
+        FeedbackMgtDAO feedbackMgtDAO = new FeedbackMgtDAOImpl();
+        feedbackMgtDAO.insertFeedbackEntry(feedbackEntries.get(0));
+        feedbackMgtDAO.insertFeedbackEntries(Arrays.asList(feedbackEntries.get(1), feedbackEntries.get(2)));
+
+        FeedbackCounterDAOImpl feedbackCounterDAO = new FeedbackCounterDAOImpl();
+        Map<String, Integer> countsByTag = feedbackCounterDAO.getCountsByTag(null);
+        Assert.assertEquals(countsByTag.size(), 7);
+        Assert.assertEquals(countsByTag.get("issue").intValue(), 3);
+        Assert.assertEquals(countsByTag.get("improve").intValue(), 2);
+        Assert.assertEquals(feedbackCounterDAO.getCountsByTag(1).get("issue").intValue(), 2);
+        Assert.assertFalse(feedbackCounterDAO.getCountsByTag(1).containsKey("bug report"));
+        Map<Integer, Integer> countsByTenant = feedbackCounterDAO.getCountsByTenant();
+        Assert.assertEquals(countsByTenant.get(1).intValue(), 2);
+        Assert.assertEquals(countsByTenant.get(2).intValue(), 1);
+
+        LocalDate today = LocalDate.now();
+        Map<LocalDate, Integer> countsByDay = feedbackCounterDAO.getCountsByDay(null, today.minusDays(1),
+                today.plusDays(1));
+        Assert.assertEquals(countsByDay.size(), 1);
+        Assert.assertEquals(countsByDay.values().iterator().next().intValue(), 3);
+
+        // The counts follow the deletes, and the days without feedback are left out.
+        feedbackMgtDAO.deleteFeedbackEntry(feedbackEntries.get(0).getUuid());
+        Assert.assertEquals(feedbackCounterDAO.getCountsByTag(1).get("issue").intValue(), 1);
+        Assert.assertFalse(feedbackCounterDAO.getCountsByTag(1).containsKey("report a bug"));
+        Assert.assertEquals(feedbackCounterDAO.getCountsByTenant().get(1).intValue(), 1);
+        countsByDay = feedbackCounterDAO.getCountsByDay(1, today.minusDays(1), today.plusDays(1));
+        Assert.assertEquals(countsByDay.values().iterator().next().intValue(), 1);
+        Assert.assertEquals(feedbackCounterDAO.reconcileCounters(), 0);
+
+        // The reconciliation backfills the daily counters of existing entries.
+        connection.createStatement().executeUpdate("UPDATE CLD_FEEDBACK SET TIME_CREATED = DATEADD('DAY', -40, " +
+                "CURRENT_TIMESTAMP) WHERE UUID = '" + feedbackEntries.get(1).getUuid() + "'");
+        connection.createStatement().executeUpdate("DELETE FROM CLD_FEEDBACK_DAILY_COUNTERS");
+        Assert.assertTrue(feedbackCounterDAO.getCountsByDay(null, today.minusDays(50), today).isEmpty());
+        Assert.assertEquals(feedbackCounterDAO.reconcileCounters(), 2);
+        countsByDay = feedbackCounterDAO.getCountsByDay(null, today.minusDays(50), today.plusDays(1));
+        Assert.assertEquals(countsByDay.size(), 2);
+        Assert.assertTrue(countsByDay.keySet().iterator().next().isBefore(today.minusDays(30)));
+        Assert.assertTrue(feedbackCounterDAO.getCountsByDay(2, today.minusDays(20), today.plusDays(1)).isEmpty());
     }
 
-    @Test(expectedExceptions = FeedbackManagementClientException.class, dataProvider =
-            "feedbackListCountInvalidDataProvider")
-    public void testListCountWithException(String filter) throws Exception {
-
-        DataSource dataSource = mock(DataSource.class);
-        mockServiceDataHolder(dataSource);
-
-        try (Connection connection = getConnection()) {
-
-            Connection spyConnection = spyConnection(connection);
-            when(dataSource.getConnection()).thenReturn(spyConnection);
-
-            FeedbackMgtDAO feedbackMgtDAO = new FeedbackMgtDAOImpl();
-
-            Feedback feedbackResult1 = feedbackMgtDAO.insertFeedbackEntry(feedbackEntries.get(0));
-            Assert.assertEquals(feedbackResult1.getUuid(), feedbackEntries.get(0).getUuid());
-
-            Feedback feedbackResult2 = feedbackMgtDAO.insertFeedbackEntry(feedbackEntries.get(1));
-            Assert.assertEquals(feedbackResult2.getUuid(), feedbackEntries.get(1).getUuid());
-
-            Feedback feedbackResult3 = feedbackMgtDAO.insertFeedbackEntry(feedbackEntries.get(2));
-            Assert.assertEquals(feedbackResult3.getUuid(), feedbackEntries.get(2).getUuid());
-
-            feedbackMgtDAO.countListResults(filter);
-
-            Assert.fail("Expected: " + FeedbackManagementClientException.class.getName());
-        }
+    @Test
+    public void testImportedEntriesKeepTimeCreated() throws Exception {
+
+        FeedbackMgtDAOImpl feedbackMgtDAO = new FeedbackMgtDAOImpl();
+        LocalDate today = LocalDate.now();
+        Timestamp timeCreated = Timestamp.valueOf(today.minusDays(40).atTime(10, 0));
+        feedbackEntries.get(1).setTimeCreated(timeCreated.toString());
+        feedbackMgtDAO.insertImportedEntries(Arrays.asList(feedbackEntries.get(1), feedbackEntries.get(2)));
+
+        Assert.assertEquals(Timestamp.valueOf(feedbackMgtDAO.getFeedbackEntry(feedbackEntries.get(1).getUuid())
+                .getTimeCreated()), timeCreated);
+        Assert.assertNotEquals(Timestamp.valueOf(feedbackMgtDAO.getFeedbackEntry(feedbackEntries.get(2).getUuid())
+                .getTimeCreated()), timeCreated);
+
+        // The daily counters count an imported entry at the day it was created.
+        FeedbackCounterDAOImpl feedbackCounterDAO = new FeedbackCounterDAOImpl();
+        Map<LocalDate, Integer> countsByDay = feedbackCounterDAO.getCountsByDay(null, today.minusDays(50),
+                today.plusDays(1));
+        Assert.assertEquals(countsByDay.get(today.minusDays(40)).intValue(), 1);
+        Assert.assertEquals(countsByDay.get(today).intValue(), 1);
+        Assert.assertEquals(feedbackCounterDAO.reconcileCounters(), 0);
     }
 
     @Test
-    public void testDeleteFeedback() throws Exception {
+    public void testRetentionPurgesExpiredEntriesInChunks() throws Exception {
 
-        DataSource dataSource = mock(DataSource.class);
-        mockServiceDataHolder(dataSource);
-
-        try (Connection connection = getConnection()) {
-
-            Connection spyConnection = spyConnection(connection);
-            when(dataSource.getConnection()).thenReturn(spyConnection);
-
-            FeedbackMgtDAO feedbackMgtDAO = new FeedbackMgtDAOImpl();
-
-            Feedback feedbackResult = feedbackMgtDAO.insertFeedbackEntry(feedbackEntries.get(0));
-            Assert.assertEquals(feedbackResult.getUuid(), feedbackEntries.get(0).getUuid());
-
-            String deletedId = feedbackMgtDAO.deleteFeedbackEntry(feedbackResult.getUuid());
-
-            Assert.assertEquals(deletedId, feedbackResult.getUuid());
+        FeedbackMgtDAO feedbackMgtDAO = new FeedbackMgtDAOImpl();
+        for (Feedback feedback : feedbackEntries.subList(0, 3)) {
+            feedbackMgtDAO.insertFeedbackEntry(feedback);
         }
+        connection.createStatement().executeUpdate("UPDATE CLD_FEEDBACK SET TIME_CREATED = DATEADD('DAY', -40, " +
+                "CURRENT_TIMESTAMP) WHERE UUID IN ('" + feedbackEntries.get(0).getUuid() + "', '" +
+                feedbackEntries.get(1).getUuid() + "')");
+        // The creation times are changed behind the daily counters, which are corrected before the purge.
+        new FeedbackCounterDAOImpl().reconcileCounters();
+
+        // Tenant 2 keeps its entries forever, so that only the expired entry of tenant 1 is purged.
+        List<FeedbackRetentionPolicy> policies = FeedbackRetentionJob.buildPolicies(30,
+                Collections.singletonMap(2, 0));
+        Assert.assertEquals(policies.size(), 1);
+        FeedbackRetentionDAOImpl retentionDAO = new FeedbackRetentionDAOImpl();
+        FeedbackRetentionJob retentionJob = new FeedbackRetentionJob(retentionDAO, policies, 1);
+        Assert.assertEquals(retentionJob.purge(policies.get(0)), 1);
+        Assert.assertTrue(retentionDAO.getLastPurgedId(policies.get(0).getScope()) > 0);
+        Assert.assertEquals(retentionJob.purge(policies.get(0)), 0);
+
+        Assert.assertNull(feedbackMgtDAO.getFeedbackEntry(feedbackEntries.get(0).getUuid()));
+        Assert.assertNotNull(feedbackMgtDAO.getFeedbackEntry(feedbackEntries.get(1).getUuid()));
+        Assert.assertNotNull(feedbackMgtDAO.getFeedbackEntry(feedbackEntries.get(2).getUuid()));
+        Assert.assertEquals(feedbackMgtDAO.countListResults(null).intValue(), 2);
+        Assert.assertEquals(feedbackMgtDAO.countListResults("tag eq \"report a bug\"").intValue(), 0);
+        Assert.assertEquals(feedbackMgtDAO.countListResults("tag eq issue").intValue(), 2);
+
+        FeedbackRetentionPolicy tenantPolicy = new FeedbackRetentionPolicy(2, 30);
+        Assert.assertEquals(retentionJob.purge(tenantPolicy), 1);
+        Assert.assertNull(feedbackMgtDAO.getFeedbackEntry(feedbackEntries.get(1).getUuid()));
+        Assert.assertEquals(new FeedbackCounterDAOImpl().reconcileCounters(), 0);
     }
 
-    @Test(expectedExceptions = FeedbackManagementClientException.class)
-    public void testDeleteFeedbackByInvalidId() throws Exception {
-
-        DataSource dataSource = mock(DataSource.class);
-        mockServiceDataHolder(dataSource);
+    @Test
+    public void testArchivedEntriesAreReadFromArchive() throws Exception {
 
-        try (Connection connection = getConnection()) {
+        Path archiveDirectory = Files.createTempDirectory("feedback-archive");
 
-            Connection spyConnection = spyConnection(connection);
-            when(dataSource.getConnection()).thenReturn(spyConnection);
+        try {
+            FeedbackArchive archive = new FeedbackArchive(archiveDirectory);
+            when(FeedbackManagementServiceDataHolder.getInstance().getFeedbackArchive()).thenReturn(archive);
 
             FeedbackMgtDAO feedbackMgtDAO = new FeedbackMgtDAOImpl();
-            feedbackMgtDAO.deleteFeedbackEntry("000");
-
-            Assert.fail("Expected: " + FeedbackManagementClientException.class.getName());
+            for (Feedback feedback : feedbackEntries.subList(0, 3)) {
+                feedbackMgtDAO.insertFeedbackEntry(feedback);
+            }
+            connection.createStatement().executeUpdate("UPDATE CLD_FEEDBACK SET TIME_CREATED = DATEADD('DAY', -40, " +
+                    "CURRENT_TIMESTAMP) WHERE UUID IN ('" + feedbackEntries.get(0).getUuid() + "', '" +
+                    feedbackEntries.get(1).getUuid() + "')");
+            FeedbackCounterDAOImpl feedbackCounterDAO = new FeedbackCounterDAOImpl();
+            feedbackCounterDAO.reconcileCounters();
+
+            FeedbackArchiveJob archiveJob = new FeedbackArchiveJob(new FeedbackArchiveDAOImpl(), archive, 30, 1);
+            Assert.assertEquals(archiveJob.archive(), 2);
+            Assert.assertEquals(archiveJob.archive(), 0);
+            try (ResultSet resultSet = connection.createStatement().executeQuery("SELECT COUNT(*) FROM CLD_FEEDBACK")) {
+                resultSet.next();
+                Assert.assertEquals(resultSet.getInt(1), 1);
+            }
+
+            // The archived entries are still read, listed and counted along with the entries of the table.
+            Feedback archivedFeedback = feedbackMgtDAO.getFeedbackEntry(feedbackEntries.get(0).getUuid());
+            Assert.assertNotNull(archivedFeedback);
+            Assert.assertEquals(new HashSet<>(archivedFeedback.getTags()),
+                    new HashSet<>(feedbackEntries.get(0).getTags()));
+            Assert.assertNull(feedbackMgtDAO.getFeedbackEntry(2, feedbackEntries.get(0).getUuid()));
+            Assert.assertNotNull(feedbackMgtDAO.checkIfFeedbackExists(feedbackEntries.get(1).getUuid()));
+
+            List<Feedback> feedbackList = feedbackMgtDAO.listFeedbackEntries(null, 5, 0, "time_created", "desc");
+            Assert.assertEquals(feedbackList.size(), 3);
+            Assert.assertEquals(feedbackList.get(0).getUuid(), feedbackEntries.get(2).getUuid());
+            feedbackList = feedbackMgtDAO.listFeedbackEntries(null, 1, 1, null, null);
+            Assert.assertEquals(feedbackList.get(0).getUuid(), feedbackEntries.get(1).getUuid());
+            Assert.assertEquals(feedbackMgtDAO.listFeedbackEntries(1, "tag eq issue", 5, 0, null, null).size(), 2);
+
+            // The offset is pushed down to the table or to the archive, wherever the page starts.
+            feedbackList = feedbackMgtDAO.listFeedbackEntries(null, 5, 2, "time_created", "asc");
+            Assert.assertEquals(feedbackList.size(), 1);
+            Assert.assertEquals(feedbackList.get(0).getUuid(), feedbackEntries.get(2).getUuid());
+            Assert.assertEquals(new HashSet<>(feedbackList.get(0).getTags()),
+                    new HashSet<>(feedbackEntries.get(2).getTags()));
+            feedbackList = feedbackMgtDAO.listFeedbackEntries(null, 5, 2, "time_created", "desc");
+            Assert.assertEquals(feedbackList.size(), 1);
+            Assert.assertEquals(feedbackList.get(0).getUuid(), feedbackEntries.get(0).getUuid());
+            Assert.assertTrue(feedbackMgtDAO.listFeedbackEntries(null, 5, 3, "time_created", "desc").isEmpty());
+
+            // An entry of the table created before the archived entries is listed among them.
+            connection.createStatement().executeUpdate("UPDATE CLD_FEEDBACK SET TIME_CREATED = DATEADD('DAY', -50, " +
+                    "CURRENT_TIMESTAMP) WHERE UUID = '" + feedbackEntries.get(2).getUuid() + "'");
+            feedbackList = feedbackMgtDAO.listFeedbackEntries(null, 2, 1, "time_created", "asc");
+            Assert.assertEquals(feedbackList.size(), 2);
+            Assert.assertEquals(feedbackList.get(0).getUuid(), feedbackEntries.get(0).getUuid());
+            Assert.assertEquals(feedbackList.get(1).getUuid(), feedbackEntries.get(1).getUuid());
+            feedbackList = feedbackMgtDAO.listFeedbackEntries(null, 5, 2, "time_created", "desc");
+            Assert.assertEquals(feedbackList.size(), 1);
+            Assert.assertEquals(feedbackList.get(0).getUuid(), feedbackEntries.get(2).getUuid());
+            Assert.assertEquals(new HashSet<>(feedbackList.get(0).getTags()),
+                    new HashSet<>(feedbackEntries.get(2).getTags()));
+            connection.createStatement().executeUpdate("UPDATE CLD_FEEDBACK SET TIME_CREATED = CURRENT_TIMESTAMP " +
+                    "WHERE UUID = '" + feedbackEntries.get(2).getUuid() + "'");
+
+            Assert.assertEquals(feedbackMgtDAO.countListResults(null).intValue(), 3);
+            Assert.assertEquals(feedbackMgtDAO.countListResults("tag eq \"report a bug\"").intValue(), 1);
+            Assert.assertEquals(feedbackMgtDAO.countListResults(1, "email eq kim@abc.com").intValue(), 2);
+            Assert.assertEquals(feedbackCounterDAO.getCountsByTag(null).get("issue").intValue(), 3);
+            Assert.assertEquals(feedbackCounterDAO.getCountsByTenant().get(1).intValue(), 2);
+            Assert.assertEquals(feedbackCounterDAO.reconcileCounters(), 0);
+
+            // The archived entries are paged with cursors, searched and exported along with the entries of the table.
+            FeedbackPage feedbackPage = feedbackMgtDAO.listFeedbackEntries(null, 2, null, "time_created", "asc");
+            Assert.assertEquals(feedbackPage.getFeedbackEntries().size(), 2);
+            Assert.assertEquals(feedbackPage.getFeedbackEntries().get(1).getUuid(), feedbackEntries.get(1).getUuid());
+            feedbackPage = feedbackMgtDAO.listFeedbackEntries(null, 2, feedbackPage.getNextCursor(), "time_created",
+                    "asc");
+            Assert.assertEquals(feedbackPage.getFeedbackEntries().size(), 1);
+            Assert.assertEquals(feedbackPage.getFeedbackEntries().get(0).getUuid(), feedbackEntries.get(2).getUuid());
+            Assert.assertNull(feedbackPage.getNextCursor());
+            Assert.assertEquals(feedbackMgtDAO.searchFeedbackEntries("sample", 5).size(), 3);
+            Assert.assertEquals(feedbackMgtDAO.exportFeedbackEntries(null,
+                    FeedbackExporter.forFormat(ExportFormats.jsonl, new StringWriter())), 3);
+
+            // The archived entries are updated, deleted and purged in their segments.
+            Feedback feedbackUpdate = new Feedback(1, "Updated message", "kim@abc.com", "0112222222", null, 1, null,
+                    new ArrayList<>(Collections.singletonList("issue")));
+            Assert.assertEquals(feedbackMgtDAO.updateFeedbackEntry(feedbackEntries.get(0).getUuid(), feedbackUpdate)
+                    .getMessage(), "Updated message");
+            Assert.assertEquals(feedbackMgtDAO.getFeedbackEntry(feedbackEntries.get(0).getUuid()).getTags(),
+                    Collections.singletonList("issue"));
+            try {
+                feedbackMgtDAO.deleteFeedbackEntry(2, feedbackEntries.get(0).getUuid());
+                Assert.fail("Deleting an archived feedback entry of another tenant should fail.");
+            } catch (FeedbackManagementClientException e) {
+                Assert.assertNotNull(feedbackMgtDAO.getFeedbackEntry(feedbackEntries.get(0).getUuid()));
+            }
+            Assert.assertEquals(feedbackMgtDAO.deleteFeedbackEntry(1, feedbackEntries.get(0).getUuid()),
+                    feedbackEntries.get(0).getUuid());
+            Assert.assertNull(feedbackMgtDAO.getFeedbackEntry(feedbackEntries.get(0).getUuid()));
+
+            List<FeedbackRetentionPolicy> policies = FeedbackRetentionJob.buildPolicies(30, Collections.emptyMap());
+            FeedbackRetentionJob retentionJob = new FeedbackRetentionJob(new FeedbackRetentionDAOImpl(), archive,
+                    policies, 1);
+            Assert.assertEquals(retentionJob.purge(policies.get(0)), 1);
+            Assert.assertNull(feedbackMgtDAO.getFeedbackEntry(feedbackEntries.get(1).getUuid()));
+            Assert.assertEquals(feedbackMgtDAO.countListResults(null).intValue(), 1);
+        } finally {
+            try (Stream<Path> paths = Files.walk(archiveDirectory)) {
+                for (Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                    Files.delete(path);
+                }
+            }
         }
     }
 
-    @Test(dataProvider = "feedbackUpdateDataProvider")
-    public void testUpdateFeedback(String message, String email, String contactNo, ArrayList<String> tags)
-            throws Exception {
-
-        DataSource dataSource = mock(DataSource.class);
-        mockServiceDataHolder(dataSource);
-
-        try (Connection connection = getConnection()) {
-
-            Connection spyConnection = spyConnection(connection);
-            when(dataSource.getConnection()).thenReturn(spyConnection);
-
-            Feedback feedbackToBeUpdated = new Feedback();
-            feedbackToBeUpdated.setMessage(message);
-            feedbackToBeUpdated.setEmail(email);
-            feedbackToBeUpdated.setContactNo(contactNo);
-            feedbackToBeUpdated.setTags(tags);
-
-            FeedbackMgtDAO feedbackMgtDAO = new FeedbackMgtDAOImpl();
-            Feedback feedbackInsertResult = feedbackMgtDAO.insertFeedbackEntry(feedbackEntries.get(0));
-
-            Assert.assertEquals(feedbackInsertResult.getMessage(), feedbackEntries.get(0).getMessage());
-            Assert.assertEquals(feedbackInsertResult.getEmail(), feedbackEntries.get(0).getEmail());
-            Assert.assertEquals(feedbackInsertResult.getContactNo(), feedbackEntries.get(0).getContactNo());
-            Assert.assertEquals(feedbackInsertResult.getUuid(), feedbackEntries.get(0).getUuid());
-            Assert.assertEquals(feedbackInsertResult.getTags(), feedbackEntries.get(0).getTags());
-
-            Feedback updatedFeedback = feedbackMgtDAO.updateFeedbackEntry(feedbackInsertResult.getUuid(),
-                    feedbackToBeUpdated);
-
-            Assert.assertEquals(updatedFeedback.getMessage(), message);
-            Assert.assertEquals(updatedFeedback.getEmail(), email);
-            Assert.assertEquals(updatedFeedback.getContactNo(), contactNo);
-            Assert.assertEquals(updatedFeedback.getTags(), tags);
-
-        }
+    @Test
+    public void testIndexesAreRebuilt() throws Exception {
+
+        FeedbackMgtDAO feedbackMgtDAO = new FeedbackMgtDAOImpl();
+        feedbackMgtDAO.insertFeedbackEntries(feedbackEntries);
+        String message = "The login page does not load after the latest update on my phone";
+        Feedback similarFeedback1 = new Feedback(4, message, "kim@abc.com", "0112222222",
+                UUID.randomUUID().toString(), 1, UUID.randomUUID().toString(), new ArrayList<>());
+        Feedback similarFeedback2 = new Feedback(5, message, "kim@abc.com", "0112222222",
+                UUID.randomUUID().toString(), 1, UUID.randomUUID().toString(), new ArrayList<>());
+        feedbackMgtDAO.insertFeedbackEntries(Arrays.asList(similarFeedback1, similarFeedback2));
+
+        connection.createStatement().executeUpdate("DELETE FROM CLD_FEEDBACK_MESSAGE_TERMS");
+        Assert.assertEquals(feedbackMgtDAO.searchFeedbackEntries("sample", 5).size(), 0);
+        Assert.assertEquals(new FeedbackMessageIndexDAOImpl().rebuildIndex(1), 5);
+        Assert.assertEquals(feedbackMgtDAO.searchFeedbackEntries("sample", 5).size(), 3);
+
+        connection.createStatement().executeUpdate("DELETE FROM CLD_FEEDBACK_EMAIL_GRAMS");
+        connection.createStatement().executeUpdate("UPDATE CLD_FEEDBACK SET EMAIL_REVERSED = NULL");
+        Assert.assertEquals(feedbackMgtDAO.countListResults("email co wso2.c").intValue(), 0);
+        Assert.assertEquals(new FeedbackEmailIndexDAOImpl().rebuildIndex(1), 5);
+        Assert.assertEquals(feedbackMgtDAO.countListResults("email co wso2.c").intValue(), 1);
+        Assert.assertEquals(feedbackMgtDAO.countListResults("email ew abc.com").intValue(), 4);
+
+        connection.createStatement().executeUpdate("DELETE FROM CLD_FEEDBACK_SIGNATURE_BUCKETS");
+        connection.createStatement().executeUpdate("DELETE FROM CLD_FEEDBACK_SIGNATURES");
+        Assert.assertTrue(feedbackMgtDAO.findSimilarFeedbackEntries(similarFeedback1.getUuid(), 0.5).isEmpty());
+        Assert.assertEquals(new FeedbackSimilarityDAOImpl().rebuildIndex(2), 5);
+        Assert.assertEquals(feedbackMgtDAO.findSimilarFeedbackEntries(similarFeedback1.getUuid(), 0.5).size(), 1);
     }
 
-    @Test(expectedExceptions = FeedbackManagementClientException.class)
-    public void testUpdateFeedbackByInvalidId() throws Exception {
-
-        DataSource dataSource = mock(DataSource.class);
-        mockServiceDataHolder(dataSource);
-
-        try (Connection connection = getConnection()) {
-
-            Connection spyConnection = spyConnection(connection);
-            when(dataSource.getConnection()).thenReturn(spyConnection);
-
-            FeedbackMgtDAO feedbackMgtDAO = new FeedbackMgtDAOImpl();
-            feedbackMgtDAO.updateFeedbackEntry("000", new Feedback());
-
-            Assert.fail("Expected: " + FeedbackManagementClientException.class.getName());
-        }
+    @Test
+    public void testUpdateFeedbackTagsWritesOnlyChanges() throws Exception {
+
+        FeedbackMgtDAO feedbackMgtDAO = new FeedbackMgtDAOImpl();
+        Feedback feedback = feedbackEntries.get(0);
+        feedbackMgtDAO.insertFeedbackEntry(feedback);
+        Map<String, Integer> mappingIds = getTagMappingIds(connection);
+
+        // The mappings of the kept tags are not rewritten.
+        Feedback feedbackUpdate = new Feedback(1, "Updated message", "kim@abc.com", "0112222222",
+                feedback.getUserId(), 1, feedback.getUuid(),
+                new ArrayList<>(Arrays.asList("improve", "issue", "suggestion", "issue")));
+        Feedback updatedFeedback = feedbackMgtDAO.updateFeedbackEntry(feedback.getUuid(), feedbackUpdate);
+        Assert.assertEquals(new HashSet<>(updatedFeedback.getTags()),
+                new HashSet<>(Arrays.asList("improve", "issue", "suggestion")));
+        Map<String, Integer> updatedMappingIds = getTagMappingIds(connection);
+        Assert.assertEquals(updatedMappingIds.get("issue"), mappingIds.get("issue"));
+        Assert.assertEquals(updatedMappingIds.get("improve"), mappingIds.get("improve"));
+        Assert.assertFalse(updatedMappingIds.containsKey("report a bug"));
+        Assert.assertEquals(feedbackMgtDAO.countListResults("tag eq suggestion").intValue(), 1);
+        Assert.assertEquals(feedbackMgtDAO.countListResults("tag eq \"report a bug\"").intValue(), 0);
+
+        // An update with the same tags writes no mapping.
+        feedbackMgtDAO.updateFeedbackEntry(feedback.getUuid(), feedbackUpdate);
+        Assert.assertEquals(getTagMappingIds(connection), updatedMappingIds);
+
+        feedbackUpdate.setTags(null);
+        Assert.assertTrue(feedbackMgtDAO.updateFeedbackEntry(feedback.getUuid(), feedbackUpdate).getTags()
+                .isEmpty());
+        Assert.assertEquals(feedbackMgtDAO.countListResults("tag eq issue").intValue(), 0);
+        Assert.assertEquals(new FeedbackCounterDAOImpl().reconcileCounters(), 0);
     }
 
     @Test
-    public void testIfFeedbackExistsById() throws Exception {
+    public void testBinaryFeedbackIdStorage() throws Exception {
 
-        DataSource dataSource = mock(DataSource.class);
-        mockServiceDataHolder(dataSource);
-
-        try (Connection connection = getConnection()) {
+        when(FeedbackManagementServiceDataHolder.getInstance().getFeedbackIdStorageFormat())
+                .thenReturn(FeedbackIdStorageFormats.binary);
 
-            Connection spyConnection = spyConnection(connection);
-            when(dataSource.getConnection()).thenReturn(spyConnection);
-
-            FeedbackMgtDAO feedbackMgtDAO = new FeedbackMgtDAOImpl();
-            Feedback feedback = feedbackMgtDAO.insertFeedbackEntry(feedbackEntries.get(0));
-            Assert.assertEquals(feedback.getUuid(), feedbackEntries.get(0).getUuid());
+        connection.createStatement().executeUpdate("ALTER TABLE CLD_FEEDBACK ALTER COLUMN UUID BINARY(16)");
 
-            Integer resultId = feedbackMgtDAO.checkIfFeedbackExists(feedback.getUuid());
+        FeedbackMgtDAO feedbackMgtDAO = new FeedbackMgtDAOImpl();
+        feedbackMgtDAO.insertFeedbackEntry(feedbackEntries.get(0));
+        feedbackMgtDAO.insertFeedbackEntries(feedbackEntries.subList(1, 3));
 
-            Assert.assertNotNull(resultId);
+        // The IDs are stored in binary, and converted back to the same strings.
+        Feedback feedbackResult = feedbackMgtDAO.getFeedbackEntry(feedbackEntries.get(1).getUuid());
+        Assert.assertEquals(feedbackResult.getTags(), feedbackEntries.get(1).getTags());
+        List<Feedback> feedbackList = feedbackMgtDAO.listFeedbackEntries("tag eq issue", 10, 0, null, null);
+        Set<String> uuids = new HashSet<>();
+        for (Feedback feedback : feedbackList) {
+            uuids.add(feedback.getUuid());
         }
+        Assert.assertEquals(uuids, new HashSet<>(Arrays.asList(feedbackEntries.get(0).getUuid(),
+                feedbackEntries.get(1).getUuid(), feedbackEntries.get(2).getUuid())));
+        Assert.assertEquals(feedbackMgtDAO.searchFeedbackEntries("sample message", 10).size(), 3);
+
+        Feedback feedbackUpdate = new Feedback(1, "Updated message", "kim@abc.com", "0112222222", null, 1,
+                null, new ArrayList<>(Collections.singletonList("improve")));
+        Assert.assertEquals(feedbackMgtDAO.updateFeedbackEntry(feedbackEntries.get(0).getUuid(), feedbackUpdate)
+                .getUuid(), feedbackEntries.get(0).getUuid());
+        Assert.assertEquals(feedbackMgtDAO.deleteFeedbackEntry(feedbackEntries.get(2).getUuid()),
+                feedbackEntries.get(2).getUuid());
+
+        // An ID which is not a UUID matches no entry.
+        Assert.assertNull(feedbackMgtDAO.getFeedbackEntry("000"));
+        Assert.assertNull(feedbackMgtDAO.checkIfFeedbackExists("000"));
+        Assert.assertEquals(feedbackMgtDAO.countListResults(null).intValue(), 2);
+        Assert.assertEquals(new FeedbackCounterDAOImpl().reconcileCounters(), 0);
     }
 
-    @Test
-    public void testIfFeedbackExistsByInvalidId() throws Exception {
-
-        DataSource dataSource = mock(DataSource.class);
-        mockServiceDataHolder(dataSource);
-
-        try (Connection connection = getConnection()) {
-
-            Connection spyConnection = spyConnection(connection);
-            when(dataSource.getConnection()).thenReturn(spyConnection);
-
-            FeedbackMgtDAO feedbackMgtDAO = new FeedbackMgtDAOImpl();
-            Integer resultId = feedbackMgtDAO.checkIfFeedbackExists("000");
+    private Map<String, Integer> getTagMappingIds(Connection connection) throws Exception {
 
-            Assert.assertNull(resultId);
+        Map<String, Integer> mappingIds = new HashMap<>();
+        try (ResultSet resultSet = connection.createStatement().executeQuery("SELECT CLD_FEEDBACK_TAGS.TAG, " +
+                "CLD_FEEDBACK_TAG_MAPPINGS.ID FROM CLD_FEEDBACK_TAG_MAPPINGS INNER JOIN CLD_FEEDBACK_TAGS ON " +
+                "CLD_FEEDBACK_TAGS.ID = CLD_FEEDBACK_TAG_MAPPINGS.TAG_ID")) {
+            while (resultSet.next()) {
+                mappingIds.put(resultSet.getString(1), resultSet.getInt(2));
+            }
         }
+        return mappingIds;
     }
 }
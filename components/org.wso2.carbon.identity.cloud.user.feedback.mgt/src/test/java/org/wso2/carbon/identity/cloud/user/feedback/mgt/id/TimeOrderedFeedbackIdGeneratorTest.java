@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.id;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class TimeOrderedFeedbackIdGeneratorTest {
+
+    @Test
+    public void testGenerateId() {
+
+        AtomicLong clock = new AtomicLong(1700000000000L);
+        TimeOrderedFeedbackIdGenerator generator = new TimeOrderedFeedbackIdGenerator(clock::get);
+
+        UUID previousUuid = UUID.fromString(generator.generateId());
+        Assert.assertEquals(previousUuid.version(), 7);
+        Assert.assertEquals(previousUuid.variant(), 2);
+        Assert.assertEquals(previousUuid.getMostSignificantBits() >>> 16, clock.get());
+
+        // The UUIDs are increasing within a millisecond, across milliseconds and when the clock goes back.
+        for (int i = 0; i < 10000; i++) {
+            if (i == 5000) {
+                clock.addAndGet(-1000);
+            } else if (i % 100 == 0) {
+                clock.incrementAndGet();
+            }
+            UUID uuid = UUID.fromString(generator.generateId());
+            Assert.assertEquals(uuid.version(), 7);
+            Assert.assertTrue(Long.compareUnsigned(uuid.getMostSignificantBits(),
+                    previousUuid.getMostSignificantBits()) > 0, "UUIDs are not increasing: " + previousUuid + ", " +
+                    uuid);
+            previousUuid = uuid;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.ingestion;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants.ErrorMessages;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.FeedbackImportDAO;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.exception.FeedbackManagementClientException;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.Feedback;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.FeedbackImportResult;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.util.FeedbackExceptionManagementUtil;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.mockito.Mockito.anyInt;
+import static org.mockito.Mockito.anyListOf;
+import static org.mockito.Mockito.anyLong;
+import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class FeedbackImporterTest {
+
+    private static final String[] LINES = {
+            "{\"uuid\":\"u1\",\"message\":\"First\",\"email\":\"kim@abc.com\",\"tenantId\":1,\"tags\":[\"issue\"]}",
+            "{\"uuid\":\"u2\",\"message\":\"Second \\u00e9\",\"tenantId\":2,\"tags\":[\"bug report\",\"issue\"]}",
+            "{\"uuid\":\"u3\",\"email\":\"alex@wso2.com\",\"tenantId\":1}",
+            "",
+            "{\"uuid\":\"u4\",\"message\":\"Fourth\",\"tenantId\":1,\"timeCreated\":\"2020-06-01 10:00:00\"}\r",
+            "{\"uuid\":\"u5\",\"message\":",
+            "{\"message\":\"Sixth\",\"tenantId\":3,\"tags\":null}"
+    };
+
+    @Test
+    public void testImportInBatchesWithCheckpoints() throws Exception {
+
+        byte[] input = (String.join("\n", LINES) + "\n").getBytes(StandardCharsets.UTF_8);
+        List<long[]> chunks = new ArrayList<>();
+        List<Feedback> importedEntries = new ArrayList<>();
+        FeedbackImportDAO feedbackImportDAO = mockImportDAO(0, chunks, importedEntries);
+
+        FeedbackImportResult importResult = new FeedbackImporter(feedbackImportDAO, this::validate, 2)
+                .importEntries("migration", new ByteArrayInputStream(input));
+
+        Assert.assertEquals(importResult.getImportedCount(), 4);
+        Assert.assertEquals(importResult.getRejectedCount(), 2);
+        Assert.assertEquals(importResult.getRejectedEntries().size(), 2);
+        Assert.assertEquals(importResult.getRejectedEntries().get(0).getErrorCode(),
+                ErrorMessages.ERROR_CODE_FEEDBACK_MESSAGE_REQUIRED.getCode());
+        Assert.assertEquals(importResult.getRejectedEntries().get(1).getErrorCode(),
+                ErrorMessages.ERROR_CODE_INVALID_IMPORT_RECORD.getCode());
+        Assert.assertEquals(importResult.getOffset(), input.length);
+
+        // Each chunk starts where the previous one ended.
+        Assert.assertEquals(chunks.size(), 2);
+        Assert.assertEquals(chunks.get(0)[0], 0);
+        Assert.assertEquals(chunks.get(1)[0], chunks.get(0)[1]);
+        Assert.assertEquals(chunks.get(1)[1], input.length);
+
+        Assert.assertEquals(importedEntries.get(1).getMessage(), "Second \u00e9");
+        Assert.assertEquals(importedEntries.get(1).getTags().size(), 2);
+        Assert.assertNull(importedEntries.get(1).getTimeCreated());
+        Assert.assertEquals(importedEntries.get(2).getUuid(), "u4");
+        Assert.assertEquals(importedEntries.get(2).getTimeCreated(), "2020-06-01 10:00:00.0");
+        Assert.assertNotNull(importedEntries.get(3).getUuid());
+        Assert.assertEquals(importedEntries.get(3).getTenantId(), 3);
+    }
+
+    @Test
+    public void testImportResumesFromCheckpoint() throws Exception {
+
+        byte[] input = (String.join("\n", LINES) + "\n").getBytes(StandardCharsets.UTF_8);
+        long checkpoint = (LINES[0] + "\n" + LINES[1] + "\n").getBytes(StandardCharsets.UTF_8).length;
+        List<long[]> chunks = new ArrayList<>();
+        List<Feedback> importedEntries = new ArrayList<>();
+        FeedbackImportDAO feedbackImportDAO = mockImportDAO(checkpoint, chunks, importedEntries);
+
+        FeedbackImportResult importResult = new FeedbackImporter(feedbackImportDAO, this::validate, 10)
+                .importEntries("migration", new ByteArrayInputStream(input));
+
+        Assert.assertEquals(importResult.getImportedCount(), 2);
+        Assert.assertEquals(importResult.getRejectedCount(), 2);
+        Assert.assertEquals(chunks.size(), 1);
+        Assert.assertEquals(chunks.get(0)[0], checkpoint);
+        Assert.assertEquals(importedEntries.get(0).getUuid(), "u4");
+    }
+
+    @Test
+    public void testRejectInvalidTimeCreated() throws Exception {
+
+        byte[] input = "{\"message\":\"First\",\"tenantId\":1,\"timeCreated\":\"01/06/2020\"}\n"
+                .getBytes(StandardCharsets.UTF_8);
+        List<long[]> chunks = new ArrayList<>();
+        List<Feedback> importedEntries = new ArrayList<>();
+        FeedbackImportDAO feedbackImportDAO = mockImportDAO(0, chunks, importedEntries);
+
+        FeedbackImportResult importResult = new FeedbackImporter(feedbackImportDAO, this::validate, 10)
+                .importEntries("migration", new ByteArrayInputStream(input));
+
+        Assert.assertEquals(importResult.getImportedCount(), 0);
+        Assert.assertEquals(importResult.getRejectedCount(), 1);
+        Assert.assertEquals(importResult.getRejectedEntries().get(0).getErrorCode(),
+                ErrorMessages.ERROR_CODE_INVALID_IMPORT_RECORD.getCode());
+    }
+
+    private FeedbackImportDAO mockImportDAO(long checkpoint, List<long[]> chunks, List<Feedback> importedEntries)
+            throws Exception {
+
+        FeedbackImportDAO feedbackImportDAO = mock(FeedbackImportDAO.class);
+        when(feedbackImportDAO.getImportOffset(anyString())).thenReturn(checkpoint);
+        doAnswer(invocation -> {
+            Object[] arguments = invocation.getArguments();
+            chunks.add(new long[]{(Long) arguments[1], (Long) arguments[2]});
+            // The batch is reused by the importer, hence the entries are copied.
+            importedEntries.addAll((List<Feedback>) arguments[3]);
+            return null;
+        }).when(feedbackImportDAO).importChunk(anyString(), anyLong(), anyLong(), anyListOf(Feedback.class),
+                anyInt());
+        return feedbackImportDAO;
+    }
+
+    private void validate(Feedback feedback) throws FeedbackManagementClientException {
+
+        if (feedback.getMessage() == null || feedback.getMessage().isEmpty()) {
+            throw FeedbackExceptionManagementUtil.buildClientException(
+                    ErrorMessages.ERROR_CODE_FEEDBACK_MESSAGE_REQUIRED, feedback.getUuid());
+        }
+    }
+}
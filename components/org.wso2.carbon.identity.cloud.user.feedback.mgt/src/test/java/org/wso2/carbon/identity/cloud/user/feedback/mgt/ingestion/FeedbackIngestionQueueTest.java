@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.ingestion;
+
+import org.mockito.ArgumentCaptor;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.constant.FeedbackMgtConstants.ErrorMessages;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.dao.FeedbackMgtDAO;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.model.Feedback;
+import org.wso2.carbon.identity.cloud.user.feedback.mgt.util.FeedbackExceptionManagementUtil;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class FeedbackIngestionQueueTest {
+
+    @Test
+    public void testSubmittedEntriesAreWrittenInBatches() throws Exception {
+
+        FeedbackMgtDAO feedbackMgtDAO = mock(FeedbackMgtDAO.class);
+        FeedbackIngestionQueue ingestionQueue = new FeedbackIngestionQueue(feedbackMgtDAO, 100, 10, 20);
+        ingestionQueue.start();
+
+        Set<String> submittedUuids = new HashSet<>();
+        for (int i = 0; i < 55; i++) {
+            Feedback feedback = buildFeedback(i);
+            submittedUuids.add(feedback.getUuid());
+            ingestionQueue.submit(feedback);
+        }
+        ingestionQueue.shutdown(5000);
+
+        ArgumentCaptor<List> captor = ArgumentCaptor.forClass(List.class);
+        verify(feedbackMgtDAO, atLeastOnce()).insertFeedbackEntries(captor.capture());
+        verify(feedbackMgtDAO, never()).insertFeedbackEntry(any(Feedback.class));
+
+        Set<String> writtenUuids = new HashSet<>();
+        for (List batch : captor.getAllValues()) {
+            Assert.assertTrue(batch.size() <= 10);
+            for (Object feedback : batch) {
+                writtenUuids.add(((Feedback) feedback).getUuid());
+            }
+        }
+        Assert.assertEquals(writtenUuids, submittedUuids);
+        Assert.assertEquals(ingestionQueue.getPendingCount(), 0);
+    }
+
+    @Test
+    public void testInvalidSettingsFallBackToDefaults() throws Exception {
+
+        FeedbackMgtDAO feedbackMgtDAO = mock(FeedbackMgtDAO.class);
+        FeedbackIngestionQueue ingestionQueue = new FeedbackIngestionQueue(feedbackMgtDAO, 0, 0, -1);
+        ingestionQueue.start();
+
+        Set<String> submittedUuids = new HashSet<>();
+        for (int i = 0; i < 10; i++) {
+            Feedback feedback = buildFeedback(i);
+            submittedUuids.add(feedback.getUuid());
+            ingestionQueue.submit(feedback);
+        }
+        ingestionQueue.shutdown(5000);
+
+        ArgumentCaptor<List> captor = ArgumentCaptor.forClass(List.class);
+        verify(feedbackMgtDAO, atLeastOnce()).insertFeedbackEntries(captor.capture());
+        verify(feedbackMgtDAO, never()).insertFeedbackEntry(any(Feedback.class));
+
+        Set<String> writtenUuids = new HashSet<>();
+        for (List batch : captor.getAllValues()) {
+            for (Object feedback : batch) {
+                writtenUuids.add(((Feedback) feedback).getUuid());
+            }
+        }
+        Assert.assertEquals(writtenUuids, submittedUuids);
+    }
+
+    @Test
+    public void testSubmitAfterShutdownWritesSynchronously() throws Exception {
+
+        FeedbackMgtDAO feedbackMgtDAO = mock(FeedbackMgtDAO.class);
+        FeedbackIngestionQueue ingestionQueue = new FeedbackIngestionQueue(feedbackMgtDAO, 10, 5, 20);
+        ingestionQueue.start();
+        ingestionQueue.shutdown(5000);
+
+        Feedback feedback = buildFeedback(1);
+        ingestionQueue.submit(feedback);
+
+        verify(feedbackMgtDAO).insertFeedbackEntry(feedback);
+        Assert.assertEquals(ingestionQueue.getPendingCount(), 0);
+    }
+
+    @Test
+    public void testShutdownIsBoundedWithoutInterruptingTheWriter() throws Exception {
+
+        FeedbackMgtDAO feedbackMgtDAO = mock(FeedbackMgtDAO.class);
+        AtomicInteger activeWrites = new AtomicInteger();
+        AtomicBoolean overlappingWrite = new AtomicBoolean();
+        AtomicBoolean interruptedWrite = new AtomicBoolean();
+        Set<String> writtenUuids = ConcurrentHashMap.newKeySet();
+        doAnswer(invocation -> {
+            if (activeWrites.incrementAndGet() > 1) {
+                overlappingWrite.set(true);
+            }
+            try {
+                // A write which takes longer than the shutdown timeout.
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                interruptedWrite.set(true);
+            }
+            for (Object feedback : (List) invocation.getArguments()[0]) {
+                writtenUuids.add(((Feedback) feedback).getUuid());
+            }
+            activeWrites.decrementAndGet();
+            return null;
+        }).when(feedbackMgtDAO).insertFeedbackEntries(any(List.class));
+
+        FeedbackIngestionQueue ingestionQueue = new FeedbackIngestionQueue(feedbackMgtDAO, 100, 5, 20);
+        ingestionQueue.start();
+        Set<String> submittedUuids = new HashSet<>();
+        for (int i = 0; i < 30; i++) {
+            Feedback feedback = buildFeedback(i);
+            submittedUuids.add(feedback.getUuid());
+            ingestionQueue.submit(feedback);
+        }
+        ingestionQueue.shutdown(10);
+
+        // The shutdown does not wait for the pending entries, which are written by the writer afterwards.
+        Assert.assertTrue(ingestionQueue.getPendingCount() > 0);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (writtenUuids.size() < submittedUuids.size() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertFalse(overlappingWrite.get());
+        Assert.assertFalse(interruptedWrite.get());
+        Assert.assertEquals(writtenUuids, submittedUuids);
+        Assert.assertEquals(ingestionQueue.getPendingCount(), 0);
+    }
+
+    @Test
+    public void testFailedEntriesAreRetriedAndCounted() throws Exception {
+
+        FeedbackMgtDAO feedbackMgtDAO = mock(FeedbackMgtDAO.class);
+        Feedback transientFeedback = buildFeedback(0);
+        Feedback invalidFeedback = buildFeedback(1);
+        AtomicInteger transientAttempts = new AtomicInteger();
+        doThrow(FeedbackExceptionManagementUtil.buildServerException(ErrorMessages.ERROR_CODE_ADD_USER_FEEDBACK_LIST,
+                "2")).when(feedbackMgtDAO).insertFeedbackEntries(any(List.class));
+        doAnswer(invocation -> {
+            Feedback feedback = (Feedback) invocation.getArguments()[0];
+            if (feedback == invalidFeedback) {
+                throw FeedbackExceptionManagementUtil.buildClientException(
+                        ErrorMessages.ERROR_CODE_FEEDBACK_MESSAGE_REQUIRED, feedback.getUuid());
+            }
+            // The first write of the other entry fails, and its retry succeeds.
+            if (transientAttempts.incrementAndGet() == 1) {
+                throw FeedbackExceptionManagementUtil.buildServerException(
+                        ErrorMessages.ERROR_CODE_ADD_USER_FEEDBACK, feedback.getUuid());
+            }
+            return feedback;
+        }).when(feedbackMgtDAO).insertFeedbackEntry(any(Feedback.class));
+
+        FeedbackIngestionQueue ingestionQueue = new FeedbackIngestionQueue(feedbackMgtDAO, 100, 10, 20);
+        ingestionQueue.start();
+        ingestionQueue.submit(transientFeedback);
+        ingestionQueue.submit(invalidFeedback);
+        ingestionQueue.shutdown(5000);
+
+        // The entry which is not valid is not retried.
+        Assert.assertEquals(transientAttempts.get(), 2);
+        verify(feedbackMgtDAO, times(1)).insertFeedbackEntry(invalidFeedback);
+        Assert.assertEquals(ingestionQueue.getFailedCount(), 1);
+    }
+
+    private Feedback buildFeedback(int index) {
+
+        Feedback feedback = new Feedback();
+        feedback.setMessage("Sample message " + index);
+        feedback.setEmail("kim@abc.com");
+        feedback.setTenantId(1);
+        feedback.setUuid(UUID.randomUUID().toString());
+        return feedback;
+    }
+}
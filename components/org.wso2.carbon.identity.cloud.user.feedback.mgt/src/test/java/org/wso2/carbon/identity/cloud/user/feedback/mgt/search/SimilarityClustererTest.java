@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.cloud.user.feedback.mgt.search;
+
+import org.apache.commons.lang3.tuple.Triple;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class SimilarityClustererTest {
+
+    @Test
+    public void testSignature() {
+
+        MessageSignature signature = MessageSignature.of("The login page does not load after the update");
+        Assert.assertNotNull(signature);
+        Assert.assertNull(MessageSignature.of(" ,. "));
+        Assert.assertEquals(MessageSignature.decode(signature.encode()).estimateSimilarity(signature), 1.0);
+        Assert.assertEquals(MessageSignature.of("the LOGIN page does not load after the update!")
+                .estimateSimilarity(signature), 1.0);
+        Assert.assertTrue(Arrays.equals(MessageSignature.of("the login page does not load after the update!")
+                .getBucketKeys(), signature.getBucketKeys()));
+        Assert.assertTrue(MessageSignature.of("Please add a dark mode").estimateSimilarity(signature) < 0.5);
+    }
+
+    @Test
+    public void testCluster() {
+
+        List<Triple<String, Integer, MessageSignature>> entries = new ArrayList<>();
+        String[] messages = {"The login page does not load after the latest update on my phone",
+                "Please add a dark mode to the dashboard",
+                "The login page does not load after the latest update on my laptop",
+                "please add a dark mode to the dashboard.",
+                "the login page does not load after the latest update on my phone!",
+                "Exports are slow"};
+        for (int i = 0; i < messages.length; i++) {
+            entries.add(Triple.of("entry-" + i, 1, MessageSignature.of(messages[i])));
+        }
+        // The same message in another tenant is never clustered with the entries of the first tenant.
+        entries.add(Triple.of("entry-6", 2, MessageSignature.of(messages[0])));
+
+        List<List<String>> clusters = SimilarityClusterer.cluster(entries, 0.5);
+        Assert.assertEquals(clusters.size(), 2);
+        Assert.assertEquals(clusters.get(0), Arrays.asList("entry-0", "entry-2", "entry-4"));
+        Assert.assertEquals(clusters.get(1), Arrays.asList("entry-1", "entry-3"));
+
+        clusters = SimilarityClusterer.cluster(entries, 1.0);
+        Assert.assertEquals(clusters.size(), 2);
+        Assert.assertEquals(clusters.get(0), Arrays.asList("entry-0", "entry-4"));
+    }
+
+    @Test
+    public void testClusterAcrossTasks() {
+
+        // Enough entries to split the grouping and the comparisons into several tasks.
+        List<Triple<String, Integer, MessageSignature>> entries = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            entries.add(Triple.of(String.format("entry-%04d", i), i % 3,
+                    MessageSignature.of("Feedback number " + (i % 500) + " about the login page")));
+        }
+
+        List<List<String>> clusters = SimilarityClusterer.cluster(entries, 0.9);
+        Assert.assertEquals(clusters.size(), 1500);
+        Assert.assertEquals(clusters.get(0), Arrays.asList("entry-0000", "entry-1500"));
+    }
+}
@@ -2,11 +2,13 @@ CREATE TABLE IF NOT EXISTS CLD_FEEDBACK (
             ID INTEGER NOT NULL AUTO_INCREMENT,
             MESSAGE VARCHAR(2048),
             EMAIL VARCHAR(128),
+            EMAIL_REVERSED VARCHAR(128),
             CONTACT_NO VARCHAR(20),
 	    UUID CHAR(36) NOT NULL,
 	    USER_ID VARCHAR(255),
 	    TENANT_ID INTEGER,
             TIME_CREATED TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+            VERSION INTEGER NOT NULL DEFAULT 0,
             PRIMARY KEY (ID),
 	    UNIQUE (UUID)
 );
@@ -27,3 +29,83 @@ CREATE TABLE IF NOT EXISTS CLD_FEEDBACK_TAG_MAPPINGS (
             FOREIGN KEY (FEEDBACK_ID) REFERENCES CLD_FEEDBACK(ID) ON DELETE CASCADE,
 	    FOREIGN KEY (TAG_ID) REFERENCES CLD_FEEDBACK_TAGS(ID) ON DELETE CASCADE
 );
+
+CREATE INDEX IF NOT EXISTS IDX_FEEDBACK_TAG_MAPPINGS_TAG_ID ON CLD_FEEDBACK_TAG_MAPPINGS (TAG_ID, FEEDBACK_ID);
+
+CREATE TABLE IF NOT EXISTS CLD_FEEDBACK_COUNTERS (
+            TENANT_ID INTEGER NOT NULL,
+            TAG_ID INTEGER NOT NULL,
+            FEEDBACK_COUNT INTEGER NOT NULL,
+            PRIMARY KEY (TENANT_ID, TAG_ID)
+);
+
+CREATE TABLE IF NOT EXISTS CLD_FEEDBACK_DAILY_COUNTERS (
+            TENANT_ID INTEGER NOT NULL,
+            DAY_CREATED DATE NOT NULL,
+            FEEDBACK_COUNT INTEGER NOT NULL,
+            PRIMARY KEY (TENANT_ID, DAY_CREATED)
+);
+
+CREATE INDEX IF NOT EXISTS IDX_FEEDBACK_DAILY_COUNTERS_DAY ON CLD_FEEDBACK_DAILY_COUNTERS (DAY_CREATED);
+
+CREATE INDEX IF NOT EXISTS IDX_FEEDBACK_TENANT_ID ON CLD_FEEDBACK (TENANT_ID, ID);
+
+CREATE INDEX IF NOT EXISTS IDX_FEEDBACK_TENANT_TIME_CREATED ON CLD_FEEDBACK (TENANT_ID, TIME_CREATED, ID);
+
+CREATE INDEX IF NOT EXISTS IDX_FEEDBACK_TENANT_EMAIL ON CLD_FEEDBACK (TENANT_ID, EMAIL);
+
+CREATE TABLE IF NOT EXISTS CLD_FEEDBACK_PURGE_PROGRESS (
+            SCOPE VARCHAR(255) NOT NULL,
+            LAST_PURGED_ID INTEGER NOT NULL,
+            PURGED_COUNT BIGINT NOT NULL,
+            TIME_UPDATED TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+            PRIMARY KEY (SCOPE)
+);
+
+CREATE TABLE IF NOT EXISTS CLD_FEEDBACK_IMPORT_PROGRESS (
+            IMPORT_ID VARCHAR(255) NOT NULL,
+            FILE_OFFSET BIGINT NOT NULL,
+            IMPORTED_COUNT BIGINT NOT NULL,
+            REJECTED_COUNT BIGINT NOT NULL,
+            TIME_UPDATED TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+            PRIMARY KEY (IMPORT_ID)
+);
+
+CREATE INDEX IF NOT EXISTS IDX_FEEDBACK_TIME_CREATED ON CLD_FEEDBACK (TIME_CREATED, ID);
+
+CREATE TABLE IF NOT EXISTS CLD_FEEDBACK_MESSAGE_TERMS (
+            TERM VARCHAR(64) NOT NULL,
+            FEEDBACK_ID INTEGER NOT NULL,
+            TERM_FREQUENCY INTEGER NOT NULL,
+            PRIMARY KEY (TERM, FEEDBACK_ID),
+            FOREIGN KEY (FEEDBACK_ID) REFERENCES CLD_FEEDBACK(ID) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS IDX_FEEDBACK_MESSAGE_TERMS_FEEDBACK_ID ON CLD_FEEDBACK_MESSAGE_TERMS (FEEDBACK_ID);
+
+CREATE TABLE IF NOT EXISTS CLD_FEEDBACK_EMAIL_GRAMS (
+            GRAM VARCHAR(8) NOT NULL,
+            FEEDBACK_ID INTEGER NOT NULL,
+            PRIMARY KEY (GRAM, FEEDBACK_ID),
+            FOREIGN KEY (FEEDBACK_ID) REFERENCES CLD_FEEDBACK(ID) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS IDX_FEEDBACK_EMAIL_GRAMS_FEEDBACK_ID ON CLD_FEEDBACK_EMAIL_GRAMS (FEEDBACK_ID);
+
+CREATE INDEX IF NOT EXISTS IDX_FEEDBACK_EMAIL_REVERSED ON CLD_FEEDBACK (EMAIL_REVERSED);
+
+CREATE TABLE IF NOT EXISTS CLD_FEEDBACK_SIGNATURES (
+            FEEDBACK_ID INTEGER NOT NULL,
+            SIGNATURE VARCHAR(512) NOT NULL,
+            PRIMARY KEY (FEEDBACK_ID),
+            FOREIGN KEY (FEEDBACK_ID) REFERENCES CLD_FEEDBACK(ID) ON DELETE CASCADE
+);
+
+CREATE TABLE IF NOT EXISTS CLD_FEEDBACK_SIGNATURE_BUCKETS (
+            BUCKET_KEY BIGINT NOT NULL,
+            FEEDBACK_ID INTEGER NOT NULL,
+            PRIMARY KEY (BUCKET_KEY, FEEDBACK_ID),
+            FOREIGN KEY (FEEDBACK_ID) REFERENCES CLD_FEEDBACK(ID) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS IDX_FEEDBACK_SIGNATURE_BUCKETS_FEEDBACK_ID ON CLD_FEEDBACK_SIGNATURE_BUCKETS (FEEDBACK_ID);